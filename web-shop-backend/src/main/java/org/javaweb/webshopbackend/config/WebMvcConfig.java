@@ -4,8 +4,10 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.javaweb.webshopbackend.interceptor.CatalogEtagInterceptor;
 import org.javaweb.webshopbackend.interceptor.JwtInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -30,6 +32,12 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Autowired
     private JwtInterceptor jwtInterceptor;
 
+    @Autowired
+    private CatalogEtagInterceptor catalogEtagInterceptor;
+
+    @Value("${catalog.etag.enabled:true}")
+    private boolean catalogEtagEnabled;
+
     /**
      * 配置拦截器
      */
@@ -51,6 +59,17 @@ public class WebMvcConfig implements WebMvcConfigurer {
                         "/webjars/**",
                         "/uploads/**"
                 );
+
+        // 目录类只读接口：按目录版本号响应条件请求
+        if (catalogEtagEnabled) {
+            registry.addInterceptor(catalogEtagInterceptor)
+                    .addPathPatterns(
+                            "/api/product/list",
+                            "/api/product/{productId:\\d+}",
+                            "/api/category/**",
+                            "/api/announcements/published"
+                    );
+        }
     }
 
     /**
@@ -74,6 +93,16 @@ public class WebMvcConfig implements WebMvcConfigurer {
      */
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // 创建消息转换器并添加到converters
+        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter(createResponseObjectMapper());
+        converters.add(0, converter);
+    }
+
+    /**
+     * 创建接口响应使用的 ObjectMapper
+     * 预先序列化响应体的组件（如首页商品栏）也使用此配置，保证输出与普通接口一致
+     */
+    public static ObjectMapper createResponseObjectMapper() {
         // 创建 ObjectMapper
         ObjectMapper objectMapper = new ObjectMapper();
         
@@ -97,10 +126,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
         objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
         // 忽略无法转换的对象
         objectMapper.disable(DeserializationFeature.FAIL_ON_INVALID_SUBTYPE);
-        
-        // 创建消息转换器并添加到converters
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter(objectMapper);
-        converters.add(0, converter);
+        return objectMapper;
     }
 }
 
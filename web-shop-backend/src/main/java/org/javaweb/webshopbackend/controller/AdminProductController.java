@@ -7,17 +7,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.javaweb.webshopbackend.pojo.common.Result;
 import org.javaweb.webshopbackend.pojo.dto.UpdateStockDTO;
 import org.javaweb.webshopbackend.pojo.entity.Product;
 import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.pojo.entity.StockAlert;
+import org.javaweb.webshopbackend.service.CatalogVersionService;
+import org.javaweb.webshopbackend.service.HomeRailService;
+import org.javaweb.webshopbackend.service.ProductCacheService;
+import org.javaweb.webshopbackend.service.ProductDetailAggregateService;
+import org.javaweb.webshopbackend.service.ProductFacetService;
+import org.javaweb.webshopbackend.service.ProductImportService;
+import org.javaweb.webshopbackend.service.ProductSalesCounterService;
+import org.javaweb.webshopbackend.service.ProductSearchService;
 import org.javaweb.webshopbackend.service.ProductService;
 import org.javaweb.webshopbackend.service.ProductSkuService;
+import org.javaweb.webshopbackend.service.ProductStreamService;
+import org.javaweb.webshopbackend.service.StockAlertService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +49,36 @@ public class AdminProductController {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private StockAlertService stockAlertService;
+
+    @Autowired
+    private ProductSalesCounterService productSalesCounterService;
+
+    @Autowired
+    private ProductCacheService productCacheService;
+
+    @Autowired
+    private HomeRailService homeRailService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductDetailAggregateService productDetailAggregateService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private ProductStreamService productStreamService;
+
     @GetMapping("/list")
     @Operation(summary = "管理端商品列表", description = "管理员查询商品列表")
     public Result<IPage<Product>> getAdminProductList(
@@ -100,28 +143,14 @@ public class AdminProductController {
             log.info("管理端更新商品：productId={}", productId);
             Product product = objectMapper.convertValue(requestData, Product.class);
             product.setId(productId);
-            productService.updateProduct(product);
 
-            // 处理SKU数据（先删除旧的，再添加新的）
+            // 提交了SKU列表时按SKU编码比对同步，未变化的SKU保留原ID和库存
             if (requestData.containsKey("skus") && requestData.get("skus") != null) {
-                com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<ProductSku> wrapper =
-                    new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<>();
-                wrapper.eq(ProductSku::getProductId, productId);
-                productSkuService.remove(wrapper);
-
                 List<Map<String, Object>> skusData = (List<Map<String, Object>>) requestData.get("skus");
-                for (Map<String, Object> skuData : skusData) {
-                    ProductSku sku = new ProductSku();
-                    sku.setProductId(productId);
-                    sku.setSkuCode((String) skuData.get("skuCode"));
-                    sku.setSkuName((String) skuData.get("skuName"));
-                    sku.setAttributes((String) skuData.get("attributes"));
-                    sku.setPrice(new java.math.BigDecimal(skuData.get("price").toString()));
-                    sku.setOriginalPrice(new java.math.BigDecimal(skuData.get("originalPrice").toString()));
-                    sku.setStock(Integer.parseInt(skuData.get("stock").toString()));
-                    sku.setStatus(1);
-                    productSkuService.save(sku);
-                }
+                productService.updateProductWithSkus(product,
+                        skusData.stream().map(productSkuService::fromRequestData).toList());
+            } else {
+                productService.updateProduct(product);
             }
 
             return Result.success("商品更新成功");
@@ -179,4 +208,107 @@ public class AdminProductController {
         productService.batchDeleteProducts(ids);
         return Result.success("批量删除成功");
     }
-}
\ No newline at end of file
+
+    @PostMapping("/import")
+    @Operation(summary = "批量导入商品",
+            description = "请求体为CSV或JSONL文件内容（不使用multipart，边接收边导入），校验后按块批量写入商品及SKU，返回导入速度及逐行错误")
+    public Result<Map<String, Object>> importProducts(
+            @Parameter(description = "文件格式：csv 或 jsonl") @RequestParam String format,
+            HttpServletRequest request) throws IOException {
+        log.info("管理端批量导入商品：format={}, contentLength={}", format, request.getContentLengthLong());
+        return Result.success(productImportService.importProducts(request.getInputStream(), format));
+    }
+
+    @GetMapping("/stock-alerts")
+    @Operation(summary = "库存预警列表", description = "库存扣减跨过系统设置的预警数量时产生，每个商品/SKU一条，按最近触发时间倒序")
+    public Result<IPage<StockAlert>> getStockAlerts(
+            @Parameter(description = "当前页码") @RequestParam(defaultValue = "1") Integer page,
+            @Parameter(description = "每页条数") @RequestParam(defaultValue = "10") Integer pageSize,
+            @Parameter(description = "状态：0-未处理，1-已处理") @RequestParam(required = false) Integer status) {
+        log.info("管理端查询库存预警：page={}, pageSize={}, status={}", page, pageSize, status);
+        return Result.success(stockAlertService.getAlertPage(new Page<>(page, pageSize), status));
+    }
+
+    @PutMapping("/stock-alerts/{alertId}/resolve")
+    @Operation(summary = "处理库存预警", description = "标记为已处理，库存再次从预警线以上降到预警线时重新触发")
+    public Result<Void> resolveStockAlert(@PathVariable Long alertId) {
+        log.info("管理端处理库存预警：alertId={}", alertId);
+        stockAlertService.resolve(alertId);
+        return Result.success("预警已处理");
+    }
+
+    @GetMapping("/stock-alerts/stats")
+    @Operation(summary = "库存预警统计", description = "返回预警数量、未处理预警数及触发、自动关闭次数")
+    public Result<Map<String, Object>> getStockAlertStats() {
+        return Result.success(stockAlertService.getStats());
+    }
+
+    @GetMapping("/sales-counter/stats")
+    @Operation(summary = "获取商品销量累加统计", description = "返回待写入的销量增量及批量写入次数")
+    public Result<Map<String, Object>> getSalesCounterStats() {
+        return Result.success(productSalesCounterService.getStats());
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "获取商品缓存统计", description = "返回商品缓存的命中、未命中、淘汰及过期次数")
+    public Result<Map<String, Object>> getProductCacheStats() {
+        return Result.success(productCacheService.getStats());
+    }
+
+    @PostMapping("/cache/clear")
+    @Operation(summary = "清空商品缓存", description = "直接修改数据库后可调用此接口使缓存立即失效")
+    public Result<Void> clearProductCache() {
+        productCacheService.invalidateAll();
+        return Result.success("商品缓存已清空");
+    }
+
+    @GetMapping("/home-rails/stats")
+    @Operation(summary = "获取首页商品栏统计", description = "返回商品栏快照大小、重建次数及耗时")
+    public Result<Map<String, Object>> getHomeRailStats() {
+        return Result.success(homeRailService.getStats());
+    }
+
+    @PostMapping("/home-rails/refresh")
+    @Operation(summary = "重建首页商品栏", description = "立即从数据库重建热销、推荐、秒杀商品栏快照")
+    public Result<Void> refreshHomeRails() {
+        homeRailService.refresh();
+        return Result.success("首页商品栏已重建");
+    }
+
+    @GetMapping("/search-index/stats")
+    @Operation(summary = "获取商品搜索索引统计", description = "返回索引文档数、词项数、倒排项数及查询耗时")
+    public Result<Map<String, Object>> getSearchIndexStats() {
+        return Result.success(productSearchService.getStats());
+    }
+
+    @PostMapping("/search-index/rebuild")
+    @Operation(summary = "重建商品搜索索引", description = "在后台从数据库全量重建搜索索引，重建期间使用旧索引")
+    public Result<Void> rebuildSearchIndex() {
+        productSearchService.rebuildAsync();
+        return Result.success("搜索索引重建已开始");
+    }
+
+    @GetMapping("/facets/stats")
+    @Operation(summary = "获取商品分面统计信息", description = "返回分面位图的商品数、位图数及查询耗时")
+    public Result<Map<String, Object>> getFacetStats() {
+        return Result.success(productFacetService.getStats());
+    }
+
+    @GetMapping("/detail-aggregate/stats")
+    @Operation(summary = "获取商品详情聚合统计", description = "返回各部分的调用次数、平均/最大耗时、超时及失败次数")
+    public Result<Map<String, Object>> getDetailAggregateStats() {
+        return Result.success(productDetailAggregateService.getStats());
+    }
+
+    @GetMapping("/catalog-version/stats")
+    @Operation(summary = "获取目录版本号统计", description = "返回当前目录版本号、递增次数及条件请求的304命中率")
+    public Result<Map<String, Object>> getCatalogVersionStats() {
+        return Result.success(catalogVersionService.getStats());
+    }
+
+    @GetMapping("/stream/stats")
+    @Operation(summary = "获取商品变更推送统计", description = "返回订阅者数、订阅商品数、推送及合并的事件数")
+    public Result<Map<String, Object>> getStreamStats() {
+        return Result.success(productStreamService.getStats());
+    }
+}
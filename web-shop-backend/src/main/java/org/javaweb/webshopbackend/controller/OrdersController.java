@@ -6,13 +6,25 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.pojo.common.CursorPageResult;
 import org.javaweb.webshopbackend.pojo.common.Result;
 import org.javaweb.webshopbackend.pojo.dto.OrderCreateDTO;
 import org.javaweb.webshopbackend.pojo.entity.Orders;
+import org.javaweb.webshopbackend.service.EmailOutboxService;
+import org.javaweb.webshopbackend.service.OrderArchiveService;
+import org.javaweb.webshopbackend.service.OrderBulkTransitionService;
+import org.javaweb.webshopbackend.service.OrderExportService;
 import org.javaweb.webshopbackend.service.OrdersService;
+import org.javaweb.webshopbackend.service.SalesRollupService;
+import org.javaweb.webshopbackend.service.UserOrderCounterService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Map;
 
@@ -31,6 +43,24 @@ public class OrdersController {
     @Autowired
     private OrdersService ordersService;
 
+    @Autowired
+    private UserOrderCounterService userOrderCounterService;
+
+    @Autowired
+    private OrderBulkTransitionService orderBulkTransitionService;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
     /**
      * 创建订单
      */
@@ -163,6 +193,61 @@ public class OrdersController {
         return Result.success(orderPage);
     }
 
+    /**
+     * 游标分页查询订单列表
+     */
+    @GetMapping("/list/cursor")
+    @Operation(summary = "游标分页查询订单列表（管理端）", description = "按游标翻页，翻到任意深度耗时稳定；关键词按订单号/收件人前缀匹配")
+    public Result<CursorPageResult<Orders>> getOrderListByCursor(
+            @Parameter(description = "上一页返回的游标，第一页不传")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数（最大100）", example = "10")
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @Parameter(description = "订单状态", example = "2")
+            @RequestParam(required = false) Integer status,
+            @Parameter(description = "关键词（订单号/收件人前缀）", example = "张三")
+            @RequestParam(required = false) String keyword,
+            @Parameter(description = "开始时间", example = "2025-01-01 00:00:00")
+            @RequestParam(required = false) LocalDateTime startTime,
+            @Parameter(description = "结束时间", example = "2025-12-31 23:59:59")
+            @RequestParam(required = false) LocalDateTime endTime,
+            @Parameter(description = "是否返回总数", example = "false")
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        log.info("游标分页查询订单列表（管理端）：pageSize={}, status={}", pageSize, status);
+
+        CursorPageResult<Orders> result = ordersService.getAdminOrderCursorPage(
+                cursor, pageSize, status, keyword, startTime, endTime, withTotal);
+
+        return Result.success(result);
+    }
+
+    /**
+     * 导出订单（管理端）
+     */
+    @GetMapping("/admin/export")
+    @Operation(summary = "导出订单（管理端）", description = "按时间范围流式导出订单及订单项，csv 每个订单项一行，jsonl 每个订单一行")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "导出格式（csv/jsonl）", example = "csv")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "订单状态", example = "3")
+            @RequestParam(required = false) Integer status,
+            @Parameter(description = "开始时间", required = true, example = "2025-01-01 00:00:00")
+            @RequestParam LocalDateTime startTime,
+            @Parameter(description = "结束时间", required = true, example = "2025-12-31 23:59:59")
+            @RequestParam LocalDateTime endTime) {
+        log.info("导出订单（管理端）：format={}, status={}, startTime={}, endTime={}", format, status, startTime, endTime);
+
+        StreamingResponseBody body = orderExportService.exportOrders(format, status, startTime, endTime);
+        boolean csv = "csv".equalsIgnoreCase(format);
+        String fileName = "orders-" + System.currentTimeMillis() + (csv ? ".csv" : ".jsonl");
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                                 : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
     /**
      * 获取用户订单列表
      */
@@ -217,6 +302,41 @@ public class OrdersController {
         return Result.success(statistics);
     }
 
+    /**
+     * 重建每日销售汇总
+     */
+    @PostMapping("/admin/sales-rollup/rebuild")
+    @Operation(summary = "重建每日销售汇总", description = "从订单表并行分段重新计算销售汇总，建议在低峰期执行")
+    public Result<Integer> rebuildSalesRollup() {
+        log.info("重建每日销售汇总");
+
+        int days = salesRollupService.rebuild();
+
+        return Result.success("销售汇总重建完成", days);
+    }
+
+    /**
+     * 立即归档订单
+     */
+    @PostMapping("/admin/archive/run")
+    @Operation(summary = "立即归档订单", description = "把超过保留期的已完成/已取消/已退款订单移入归档表，建议在低峰期执行")
+    public Result<Integer> runOrderArchive() {
+        log.info("立即归档订单");
+
+        int orders = orderArchiveService.archiveDue();
+
+        return Result.success("订单归档完成", orders);
+    }
+
+    /**
+     * 获取订单归档统计
+     */
+    @GetMapping("/admin/archive/stats")
+    @Operation(summary = "获取订单归档统计", description = "返回已归档的订单数、订单项数及最近一次归档耗时")
+    public Result<Map<String, Object>> getOrderArchiveStats() {
+        return Result.success(orderArchiveService.getStats());
+    }
+
     /**
      * 获取订单状态分布
      */
@@ -245,6 +365,33 @@ public class OrdersController {
         return Result.success(count);
     }
 
+    /**
+     * 获取用户订单计数缓存统计
+     */
+    @GetMapping("/user/count/stats")
+    @Operation(summary = "获取用户订单计数缓存统计", description = "返回计数缓存的命中率、增量更新和失效次数")
+    public Result<Map<String, Object>> getUserOrderCountStats() {
+        return Result.success(userOrderCounterService.getStats());
+    }
+
+    /**
+     * 获取订单批量流转统计
+     */
+    @GetMapping("/admin/bulk-transition/stats")
+    @Operation(summary = "获取订单批量流转统计", description = "返回自动取消/自动确认收货的分块处理进度")
+    public Result<Map<String, Object>> getBulkTransitionStats() {
+        return Result.success(orderBulkTransitionService.getStats());
+    }
+
+    /**
+     * 获取邮件发件箱统计
+     */
+    @GetMapping("/admin/email-outbox/stats")
+    @Operation(summary = "获取邮件发件箱统计", description = "返回待发送邮件数、发送耗时及失败重试情况")
+    public Result<Map<String, Object>> getEmailOutboxStats() {
+        return Result.success(emailOutboxService.getStats());
+    }
+
     /**
      * 商家取消订单（管理端）
      */
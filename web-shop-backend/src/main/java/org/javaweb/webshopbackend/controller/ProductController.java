@@ -5,22 +5,36 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.javaweb.webshopbackend.pojo.common.Result;
 import org.javaweb.webshopbackend.pojo.dto.BatchProductDTO;
+import org.javaweb.webshopbackend.pojo.dto.ProductFacetQueryDTO;
 import org.javaweb.webshopbackend.pojo.dto.ProductQueryDTO;
 import org.javaweb.webshopbackend.pojo.dto.UpdateStockDTO;
 import org.javaweb.webshopbackend.pojo.entity.Product;
 import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.service.HomeRailService;
+import org.javaweb.webshopbackend.service.ProductDetailAggregateService;
+import org.javaweb.webshopbackend.service.ProductFacetService;
+import org.javaweb.webshopbackend.service.ProductSearchService;
 import org.javaweb.webshopbackend.service.ProductService;
 import org.javaweb.webshopbackend.service.ProductSkuService;
+import org.javaweb.webshopbackend.service.ProductStreamService;
+import org.javaweb.webshopbackend.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 商品Controller
@@ -43,6 +57,24 @@ public class ProductController {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private HomeRailService homeRailService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductDetailAggregateService productDetailAggregateService;
+
+    @Autowired
+    private ProductStreamService productStreamService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
     /**
      * 分页查询商品列表
      */
@@ -71,7 +103,7 @@ public class ProductController {
                     queryDTO.getName(),
                     queryDTO.getMinPrice(),
                     queryDTO.getMaxPrice(),
-                    "sales"
+                    queryDTO.getSortBy()
             );
         }
 
@@ -105,19 +137,64 @@ public class ProductController {
         return Result.success(result);
     }
 
+    /**
+     * 获取商品详情聚合数据
+     */
+    @GetMapping("/{productId}/aggregate")
+    @Operation(summary = "获取商品详情聚合数据",
+            description = "并发查询商品、SKU、评价统计、收藏数及是否已收藏；评价与收藏部分超时时省略并在missingParts中列出")
+    public Result<Map<String, Object>> getProductDetailAggregate(
+            @Parameter(description = "商品ID", required = true, example = "1")
+            @PathVariable Long productId,
+            HttpServletRequest request) {
+        log.info("获取商品详情聚合数据：productId={}", productId);
+
+        // 商品接口无需登录，携带有效token时才查询是否已收藏
+        Long userId = null;
+        String token = request.getHeader("Authorization");
+        if (token != null && token.startsWith("Bearer ") && jwtUtil.validateToken(token.substring(7))) {
+            userId = jwtUtil.getUserIdFromToken(token.substring(7));
+        }
+
+        return Result.success(productDetailAggregateService.getDetail(productId, userId));
+    }
+
+    /**
+     * 订阅商品价格/库存变更（SSE）
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅商品价格/库存变更",
+            description = "SSE连接，先推送所订阅商品当前的价格、库存、状态，之后只推送变化的字段（事件名product）")
+    public SseEmitter streamProducts(
+            @Parameter(description = "商品ID，逗号分隔", required = true, example = "1,2,3")
+            @RequestParam List<Long> ids) {
+        log.debug("订阅商品变更：ids={}", ids);
+        return productStreamService.subscribe(ids);
+    }
+
+    /**
+     * 获取商品分面统计
+     */
+    @GetMapping("/facets")
+    @Operation(summary = "获取商品分面统计", description = "按分类、价格区间、热销/推荐/秒杀标记筛选上架商品并返回各分面数量")
+    public Result<Map<String, Object>> getFacets(ProductFacetQueryDTO queryDTO) {
+        log.debug("获取商品分面统计：{}", queryDTO);
+
+        return Result.success(productFacetService.getFacets(queryDTO));
+    }
+
     /**
      * 获取热门商品
      */
     @GetMapping("/hot")
     @Operation(summary = "获取热门商品", description = "获取热门商品列表")
-    public Result<List<Product>> getHotProducts(
+    public void getHotProducts(
             @Parameter(description = "数量限制", example = "10")
-            @RequestParam(defaultValue = "10") Integer limit) {
-        log.info("获取热门商品：limit={}", limit);
-
-        List<Product> hotProducts = productService.getHotProducts(limit);
+            @RequestParam(defaultValue = "10") Integer limit,
+            HttpServletResponse response) throws IOException {
+        log.debug("获取热门商品：limit={}", limit);
 
-        return Result.success(hotProducts);
+        writeJson(response, homeRailService.getRailJson(HomeRailService.Rail.HOT, limit));
     }
 
     /**
@@ -125,14 +202,13 @@ public class ProductController {
      */
     @GetMapping("/recommend")
     @Operation(summary = "获取推荐商品", description = "获取推荐商品列表")
-    public Result<List<Product>> getRecommendProducts(
+    public void getRecommendProducts(
             @Parameter(description = "数量限制", example = "10")
-            @RequestParam(defaultValue = "10") Integer limit) {
-        log.info("获取推荐商品：limit={}", limit);
+            @RequestParam(defaultValue = "10") Integer limit,
+            HttpServletResponse response) throws IOException {
+        log.debug("获取推荐商品：limit={}", limit);
 
-        List<Product> recommendProducts = productService.getRecommendProducts(limit);
-
-        return Result.success(recommendProducts);
+        writeJson(response, homeRailService.getRailJson(HomeRailService.Rail.RECOMMEND, limit));
     }
 
     /**
@@ -140,14 +216,13 @@ public class ProductController {
      */
     @GetMapping("/flash-sale")
     @Operation(summary = "获取秒杀商品", description = "获取秒杀商品列表")
-    public Result<List<Product>> getFlashSaleProducts(
+    public void getFlashSaleProducts(
             @Parameter(description = "数量限制", example = "10")
-            @RequestParam(defaultValue = "10") Integer limit) {
-        log.info("获取秒杀商品：limit={}", limit);
-
-        List<Product> flashSaleProducts = productService.getFlashSaleProducts(limit);
+            @RequestParam(defaultValue = "10") Integer limit,
+            HttpServletResponse response) throws IOException {
+        log.debug("获取秒杀商品：limit={}", limit);
 
-        return Result.success(flashSaleProducts);
+        writeJson(response, homeRailService.getRailJson(HomeRailService.Rail.FLASH_SALE, limit));
     }
 
     /**
@@ -246,33 +321,15 @@ public class ProductController {
 
             Product product = objectMapper.convertValue(requestData, Product.class);
             product.setId(productId);
-            productService.updateProduct(product);
 
-            // 处理SKU数据（先删除旧的，再添加新的）
+            // 提交了SKU列表时按SKU编码比对同步，未变化的SKU保留原ID和库存
             if (requestData.containsKey("skus") && requestData.get("skus") != null) {
-                // 删除旧SKU
-                com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<ProductSku> wrapper =
-                    new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<>();
-                wrapper.eq(ProductSku::getProductId, productId);
-                productSkuService.remove(wrapper);
-
-                // 添加新SKU
                 List<java.util.Map<String, Object>> skusData =
                     (List<java.util.Map<String, Object>>) requestData.get("skus");
-                
-                for (java.util.Map<String, Object> skuData : skusData) {
-                    ProductSku sku = new ProductSku();
-                    sku.setProductId(productId);
-                    sku.setSkuCode((String) skuData.get("skuCode"));
-                    sku.setSkuName((String) skuData.get("skuName"));
-                    sku.setAttributes((String) skuData.get("attributes"));
-                    sku.setPrice(new java.math.BigDecimal(skuData.get("price").toString()));
-                    sku.setOriginalPrice(new java.math.BigDecimal(skuData.get("originalPrice").toString()));
-                    sku.setStock(Integer.parseInt(skuData.get("stock").toString()));
-                    sku.setStatus(1);
-                    
-                    productSkuService.save(sku);
-                }
+                productService.updateProductWithSkus(product,
+                        skusData.stream().map(productSkuService::fromRequestData).toList());
+            } else {
+                productService.updateProduct(product);
             }
 
             return Result.success("商品更新成功");
@@ -416,5 +473,14 @@ public class ProductController {
 
         return Result.success("库存设置成功");
     }
-}
 
+    /**
+     * 直接输出预先序列化的 JSON 响应体
+     */
+    private void writeJson(HttpServletResponse response, byte[] body) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,20 @@
+package org.javaweb.webshopbackend.event;
+
+import lombok.Value;
+
+/**
+ * 目录数据变更事件
+ * 分类、公告、SKU 写入数据库后发布（商品本身的变更使用 {@link ProductChangedEvent}），
+ * 由目录版本号在事务提交后递增
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Value
+public class CatalogChangedEvent {
+
+    /**
+     * 变更的数据类型：category、announcement、sku
+     */
+    String source;
+}
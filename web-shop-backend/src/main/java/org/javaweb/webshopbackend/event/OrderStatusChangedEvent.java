@@ -0,0 +1,30 @@
+package org.javaweb.webshopbackend.event;
+
+import lombok.Value;
+
+/**
+ * 订单状态变更事件
+ * 订单创建、状态流转、删除时发布，由计数缓存等监听方在事务提交后处理
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Value
+public class OrderStatusChangedEvent {
+
+    Long orderId;
+
+    String orderNo;
+
+    Long userId;
+
+    /**
+     * 变更前状态（新建订单时为null）
+     */
+    Integer fromStatus;
+
+    /**
+     * 变更后状态（删除订单时为null）
+     */
+    Integer toStatus;
+}
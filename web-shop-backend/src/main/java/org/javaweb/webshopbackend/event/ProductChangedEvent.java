@@ -0,0 +1,21 @@
+package org.javaweb.webshopbackend.event;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 商品变更事件
+ * 商品信息、状态、库存、销量写入数据库后发布，由商品缓存等监听方在事务提交后处理
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Value
+public class ProductChangedEvent {
+
+    /**
+     * 发生变更的商品ID
+     */
+    List<Long> productIds;
+}
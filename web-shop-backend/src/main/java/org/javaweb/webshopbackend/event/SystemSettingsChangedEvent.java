@@ -0,0 +1,20 @@
+package org.javaweb.webshopbackend.event;
+
+import lombok.Value;
+import org.javaweb.webshopbackend.pojo.entity.SystemSettings;
+
+/**
+ * 系统设置变更事件
+ * 管理员保存系统设置后发布，依赖设置值的组件据此刷新内存中的配置
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Value
+public class SystemSettingsChangedEvent {
+
+    /**
+     * 本次提交的设置（可能只包含部分字段，需要完整设置时请重新读取）
+     */
+    SystemSettings settings;
+}
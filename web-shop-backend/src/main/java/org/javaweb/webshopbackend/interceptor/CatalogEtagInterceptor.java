@@ -0,0 +1,61 @@
+package org.javaweb.webshopbackend.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.javaweb.webshopbackend.service.CatalogVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 目录接口条件请求拦截器
+ * <p>
+ * 对商品列表/详情、分类、已发布公告的 GET 请求，按 (请求路径, 排序后的参数, 目录版本号) 计算弱 ETag，
+ * If-None-Match 匹配时直接返回 304，不进入 Controller。
+ * 版本号在执行查询之前读取：查询期间发生的变更会使版本号变大，下一次请求必然不匹配，不会把新数据当作旧版本缓存
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Component
+public class CatalogEtagInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String etag = buildEtag(request, catalogVersionService.getVersion());
+        // 允许浏览器缓存，但每次使用前都要带 ETag 重新验证
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        boolean notModified = new ServletWebRequest(request, response).checkNotModified(etag);
+        catalogVersionService.recordRequest(notModified);
+        return !notModified;
+    }
+
+    /**
+     * 生成弱 ETag：W/"版本号-路径与参数摘要"
+     */
+    static String buildEtag(HttpServletRequest request, long version) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        Map<String, String[]> params = new TreeMap<>(request.getParameterMap());
+        params.forEach((name, values) -> {
+            String[] sorted = values.clone();
+            Arrays.sort(sorted);
+            key.append('&').append(name).append('=').append(String.join(",", sorted));
+        });
+        String digest = DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + version + "-" + digest.substring(0, 16) + "\"";
+    }
+}
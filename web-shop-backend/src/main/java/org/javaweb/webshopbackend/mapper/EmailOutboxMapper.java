@@ -0,0 +1,57 @@
+package org.javaweb.webshopbackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.javaweb.webshopbackend.pojo.entity.EmailOutbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 邮件发件箱 Mapper 接口
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Mapper
+public interface EmailOutboxMapper extends BaseMapper<EmailOutbox> {
+
+    /**
+     * 按ID顺序查询已到尝试时间的待发送邮件
+     *
+     * @param now 当前时间
+     * @param limit 最多返回条数
+     * @return 待发送邮件
+     */
+    List<EmailOutbox> selectDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * 批量标记为已发送
+     *
+     * @param ids 邮件ID列表
+     * @param sentTime 发送时间
+     * @return 影响行数
+     */
+    int markSent(@Param("ids") List<Long> ids, @Param("sentTime") LocalDateTime sentTime);
+
+    /**
+     * 记录一次发送失败（达到最大次数时 status 传 2）
+     *
+     * @param id 邮件ID
+     * @param status 状态
+     * @param attempts 已尝试次数
+     * @param nextAttemptTime 下次尝试时间
+     * @param lastError 失败原因
+     * @return 影响行数
+     */
+    int markFailed(@Param("id") Long id, @Param("status") int status, @Param("attempts") int attempts,
+                   @Param("nextAttemptTime") LocalDateTime nextAttemptTime, @Param("lastError") String lastError);
+
+    /**
+     * 最早一封待发送邮件的创建时间
+     *
+     * @return 创建时间，没有待发送邮件时返回null
+     */
+    LocalDateTime selectOldestPendingTime();
+}
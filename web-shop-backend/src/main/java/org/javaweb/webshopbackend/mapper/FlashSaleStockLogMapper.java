@@ -0,0 +1,42 @@
+package org.javaweb.webshopbackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.javaweb.webshopbackend.pojo.entity.FlashSaleStockLog;
+
+import java.util.List;
+
+/**
+ * 秒杀库存扣减流水 Mapper 接口
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Mapper
+public interface FlashSaleStockLogMapper extends BaseMapper<FlashSaleStockLog> {
+
+    /**
+     * 按ID顺序认领一批待落库的流水（FOR UPDATE SKIP LOCKED，需在事务中调用）
+     *
+     * @param limit 批大小
+     * @return 流水列表
+     */
+    List<FlashSaleStockLog> selectPendingBatch(@Param("limit") Integer limit);
+
+    /**
+     * 统计商品尚未落库的扣减数量
+     *
+     * @param productId 商品ID
+     * @return 待落库数量
+     */
+    Long sumPendingByProductId(@Param("productId") Long productId);
+
+    /**
+     * 统计SKU尚未落库的扣减数量
+     *
+     * @param skuId SKU ID
+     * @return 待落库数量
+     */
+    Long sumPendingBySkuId(@Param("skuId") Long skuId);
+}
@@ -0,0 +1,129 @@
+package org.javaweb.webshopbackend.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.javaweb.webshopbackend.pojo.entity.OrderItem;
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 订单归档 Mapper 接口
+ * 归档表与订单表/订单项表结构相同，归档时保留原ID
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Mapper
+public interface OrderArchiveMapper {
+
+    /**
+     * 按ID顺序查询可归档的订单ID（已完成/已取消/已退款且最后更新早于指定时间）
+     *
+     * @param updatedBefore 最后更新时间上限
+     * @param afterId 从该ID之后开始
+     * @param limit 最多返回条数
+     * @return 订单ID列表
+     */
+    List<Long> selectArchivableIds(@Param("updatedBefore") LocalDateTime updatedBefore,
+                                   @Param("afterId") Long afterId,
+                                   @Param("limit") int limit);
+
+    /**
+     * 在事务中锁定仍满足归档条件的订单（期间状态已变化的订单会被排除）
+     *
+     * @param orderIds 候选订单ID
+     * @param updatedBefore 最后更新时间上限
+     * @return 已锁定的订单ID
+     */
+    List<Long> lockArchivableIds(@Param("orderIds") List<Long> orderIds,
+                                 @Param("updatedBefore") LocalDateTime updatedBefore);
+
+    /**
+     * 复制订单到归档表
+     *
+     * @param orderIds 订单ID列表
+     * @return 影响行数
+     */
+    int copyOrders(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * 复制订单项到归档表
+     *
+     * @param orderIds 订单ID列表
+     * @return 影响行数
+     */
+    int copyItems(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * 从订单项表删除已归档的订单项
+     *
+     * @param orderIds 订单ID列表
+     * @return 影响行数
+     */
+    int deleteItems(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * 从订单表删除已归档的订单
+     *
+     * @param orderIds 订单ID列表
+     * @return 影响行数
+     */
+    int deleteOrders(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * 根据订单号查询归档订单
+     *
+     * @param orderNo 订单号
+     * @return 归档订单（不含订单项），不存在时返回null
+     */
+    Orders selectByOrderNo(@Param("orderNo") String orderNo);
+
+    /**
+     * 根据ID批量查询归档订单
+     *
+     * @param orderIds 订单ID列表
+     * @return 归档订单（不含订单项）
+     */
+    List<Orders> selectByIds(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * 查询归档订单的订单项
+     *
+     * @param orderIds 订单ID列表
+     * @return 订单项（按ID升序）
+     */
+    List<OrderItem> selectItemsByOrderIds(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * 分页查询用户的归档订单ID（按创建时间倒序）
+     *
+     * @param userId 用户ID
+     * @param status 订单状态（可为null）
+     * @param offset 偏移量
+     * @param limit 条数
+     * @return 订单ID列表
+     */
+    List<Long> selectUserOrderIds(@Param("userId") Long userId,
+                                  @Param("status") Integer status,
+                                  @Param("offset") long offset,
+                                  @Param("limit") long limit);
+
+    /**
+     * 统计用户的归档订单数
+     *
+     * @param userId 用户ID
+     * @param status 订单状态（可为null）
+     * @return 订单数
+     */
+    long countUserOrders(@Param("userId") Long userId, @Param("status") Integer status);
+
+    /**
+     * 逻辑删除归档订单
+     *
+     * @param orderId 订单ID
+     * @return 影响行数
+     */
+    int logicDelete(@Param("orderId") Long orderId);
+}
@@ -5,6 +5,8 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import org.javaweb.webshopbackend.pojo.dto.StatusCountDTO;
 import org.javaweb.webshopbackend.pojo.entity.Orders;
 
 import java.time.LocalDateTime;
@@ -21,32 +23,83 @@ import java.util.List;
 public interface OrdersMapper extends BaseMapper<Orders> {
 
     /**
-     * 分页查询用户订单（带订单项）
+     * 分页查询用户订单ID
+     * 两阶段分页的第一步：只对订单表分页，COUNT 和 LIMIT 均按订单计算
      * 
      * @param page 分页对象
      * @param userId 用户ID
      * @param status 订单状态（可为null）
-     * @return 订单分页数据
+     * @return 订单ID分页数据（按创建时间倒序）
      */
-    IPage<Orders> selectPageWithItems(Page<Orders> page,
-                                      @Param("userId") Long userId,
-                                      @Param("status") Integer status);
+    IPage<Long> selectOrderIdPage(Page<Long> page,
+                                  @Param("userId") Long userId,
+                                  @Param("status") Integer status);
 
     /**
-     * 分页查询所有订单（管理端）
+     * 分页查询所有订单ID（管理端）
+     * 两阶段分页的第一步：只对订单表分页，COUNT 和 LIMIT 均按订单计算
      * 
      * @param page 分页对象
      * @param status 订单状态（可为null）
      * @param keyword 关键词（订单号/收件人）（可为null）
      * @param startTime 开始时间（可为null）
      * @param endTime 结束时间（可为null）
-     * @return 订单分页数据
+     * @return 订单ID分页数据（按创建时间倒序）
      */
-    IPage<Orders> selectAdminPage(Page<Orders> page,
-                                  @Param("status") Integer status,
-                                  @Param("keyword") String keyword,
-                                  @Param("startTime") LocalDateTime startTime,
-                                  @Param("endTime") LocalDateTime endTime);
+    IPage<Long> selectAdminOrderIdPage(Page<Long> page,
+                                       @Param("status") Integer status,
+                                       @Param("keyword") String keyword,
+                                       @Param("startTime") LocalDateTime startTime,
+                                       @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 游标分页查询订单ID（管理端）
+     * 
+     * @param status 订单状态（可为null）
+     * @param keyword 关键词（订单号/收件人前缀）（可为null）
+     * @param startTime 开始时间（可为null）
+     * @param endTime 结束时间（可为null）
+     * @param cursorTime 上一页最后一条的创建时间（第一页为null）
+     * @param cursorId 上一页最后一条的订单ID（第一页为null）
+     * @param limit 查询条数
+     * @return 订单ID列表（按创建时间倒序）
+     */
+    List<Long> selectAdminOrderIdsAfter(@Param("status") Integer status,
+                                        @Param("keyword") String keyword,
+                                        @Param("startTime") LocalDateTime startTime,
+                                        @Param("endTime") LocalDateTime endTime,
+                                        @Param("cursorTime") LocalDateTime cursorTime,
+                                        @Param("cursorId") Long cursorId,
+                                        @Param("limit") Integer limit);
+
+    /**
+     * 统计订单总数（管理端游标分页）
+     * 
+     * @param status 订单状态（可为null）
+     * @param keyword 关键词（订单号/收件人前缀）（可为null）
+     * @param startTime 开始时间（可为null）
+     * @param endTime 结束时间（可为null）
+     * @return 订单总数
+     */
+    Long countAdminOrders(@Param("status") Integer status,
+                          @Param("keyword") String keyword,
+                          @Param("startTime") LocalDateTime startTime,
+                          @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 流式查询时间范围内的订单及订单项（导出用）
+     * 按创建时间正序逐个订单返回，需在事务内遍历并在结束后关闭
+     * 
+     * @param archived 是否查询归档表
+     * @param status 订单状态（可为null）
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 订单游标
+     */
+    Cursor<Orders> selectOrdersForExport(@Param("archived") boolean archived,
+                                         @Param("status") Integer status,
+                                         @Param("startTime") LocalDateTime startTime,
+                                         @Param("endTime") LocalDateTime endTime);
 
     /**
      * 根据订单号查询订单（带订单项）
@@ -57,23 +110,60 @@ public interface OrdersMapper extends BaseMapper<Orders> {
     Orders selectByOrderNoWithItems(@Param("orderNo") String orderNo);
 
     /**
-     * 统计用户各状态订单数量
+     * 按ID顺序分块查询到期订单
      * 
-     * @param userId 用户ID
      * @param status 订单状态
-     * @return 订单数量
+     * @param createdBefore 创建时间早于（可为null）
+     * @param shipBefore 发货时间早于（可为null）
+     * @param afterId 上一块最后一个订单ID（从头开始传0）
+     * @param limit 每块数量
+     * @return 订单列表（只含 id、order_no、user_id、status）
      */
-    Long countByUserIdAndStatus(@Param("userId") Long userId, @Param("status") Integer status);
+    List<Orders> selectDueOrders(@Param("status") Integer status,
+                                 @Param("createdBefore") LocalDateTime createdBefore,
+                                 @Param("shipBefore") LocalDateTime shipBefore,
+                                 @Param("afterId") Long afterId,
+                                 @Param("limit") Integer limit);
 
     /**
-     * 统计时间范围内的销售额
+     * 查询仍处于指定状态的订单并锁定（须在事务中调用），锁定后这些订单不会被用户操作改变状态
+     *
+     * @param orderIds 订单ID列表
+     * @param status 订单状态
+     * @return 仍处于该状态的订单ID（升序）
+     */
+    List<Long> selectIdsByStatusForUpdate(@Param("orderIds") List<Long> orderIds,
+                                          @Param("status") Integer status);
+
+    /**
+     * 批量确认收货（仅更新仍处于待收货状态的订单）
      * 
-     * @param startTime 开始时间
-     * @param endTime 结束时间
-     * @return 销售额
+     * @param orderIds 订单ID列表
+     * @param receiveTime 收货时间
+     * @return 实际更新的订单数
+     */
+    int bulkConfirmReceive(@Param("orderIds") List<Long> orderIds,
+                           @Param("receiveTime") LocalDateTime receiveTime);
+
+    /**
+     * 批量取消订单（仅更新仍处于待付款状态的订单）
+     * 
+     * @param orderIds 订单ID列表
+     * @param cancelTime 取消时间
+     * @param reason 取消原因
+     * @return 实际更新的订单数
+     */
+    int bulkCancel(@Param("orderIds") List<Long> orderIds,
+                   @Param("cancelTime") LocalDateTime cancelTime,
+                   @Param("reason") String reason);
+
+    /**
+     * 按状态分组统计用户订单数量
+     * 
+     * @param userId 用户ID
+     * @return 各状态及其订单数量
      */
-    Double sumAmountByDateRange(@Param("startTime") LocalDateTime startTime,
-                                @Param("endTime") LocalDateTime endTime);
+    List<StatusCountDTO> countByUserIdGroupByStatus(@Param("userId") Long userId);
 
     /**
      * 统计各状态订单数量
@@ -5,9 +5,12 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import org.javaweb.webshopbackend.pojo.entity.Product;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 商品 Mapper 接口
@@ -57,12 +60,19 @@ public interface ProductMapper extends BaseMapper<Product> {
     List<Product> selectFlashSaleProducts(@Param("limit") Integer limit);
 
     /**
-     * 更新商品销量
+     * 按ID查询首页商品栏候选商品（未删除且上架，列与商品栏查询一致）
+     *
+     * @param productIds 商品ID
+     * @return 商品列表
+     */
+    List<Product> selectRailCandidates(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * 批量增加商品销量（一条 UPDATE 更新多个商品）
      * 
-     * @param productId 商品ID
-     * @param quantity 增加的销量
+     * @param deltas 商品ID -> 增加的销量
      */
-    void updateSales(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    void batchIncreaseSales(@Param("deltas") Map<Long, Long> deltas);
 
     /**
      * 更新商品库存（增量更新）
@@ -72,6 +82,31 @@ public interface ProductMapper extends BaseMapper<Product> {
      */
     void updateStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
 
+    /**
+     * 扣减商品库存（条件扣减，库存不足时不更新）
+     *
+     * @param productId 商品ID
+     * @param quantity 扣减数量（正数）
+     * @return 影响行数，0 表示库存不足或商品不存在
+     */
+    int deductStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+
+    /**
+     * 查询商品当前库存（在扣减库存的事务中调用时读到的是本事务更新后的值）
+     *
+     * @param productId 商品ID
+     * @return 库存，商品不存在时返回null
+     */
+    Integer selectStockById(@Param("productId") Long productId);
+
+    /**
+     * 查询商品当前库存并锁定商品行（须在事务中调用）
+     *
+     * @param productId 商品ID
+     * @return 库存，商品不存在时返回null
+     */
+    Integer selectStockForUpdate(@Param("productId") Long productId);
+
     /**
      * 设置商品库存（绝对值）
      * 
@@ -87,5 +122,26 @@ public interface ProductMapper extends BaseMapper<Product> {
      * @param status 状态
      */
     void batchUpdateStatus(@Param("productIds") List<Long> productIds, @Param("status") Integer status);
-}
 
+    /**
+     * 流式读取全部上架商品（构建搜索索引用，需在事务内遍历）
+     *
+     * @return 商品游标（只包含ID、名称、分类、价格、销量、描述、规格）
+     */
+    Cursor<Product> selectForSearchIndex();
+
+    /**
+     * 流式读取全部上架商品的分面属性（构建分面位图用，需在事务内遍历）
+     *
+     * @return 商品游标（只包含ID、分类、价格、热销/推荐/秒杀标记）
+     */
+    Cursor<Product> selectForFacets();
+
+    /**
+     * 插入导入的商品（固定列，配合批量执行器使用，相同的SQL可合并为一条多行INSERT）
+     *
+     * @param product 商品（插入后回填ID）
+     * @return 影响行数
+     */
+    int insertForImport(Product product);
+}
@@ -2,8 +2,10 @@ package org.javaweb.webshopbackend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.javaweb.webshopbackend.pojo.entity.ProductSku;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -24,4 +26,68 @@ public interface ProductSkuMapper extends BaseMapper<ProductSku> {
      * 更新SKU库存
      */
     int updateStock(Long skuId, Integer quantity);
-}
\ No newline at end of file
+
+    /**
+     * 扣减SKU库存（条件扣减，库存不足时不更新）
+     *
+     * @return 影响行数，0 表示库存不足或SKU不存在
+     */
+    int deductStock(Long skuId, Integer quantity);
+
+    /**
+     * 查询SKU当前库存及所属商品（只返回 id、productId、stock）
+     *
+     * @param skuId SKU ID
+     * @return SKU，不存在时返回null
+     */
+    ProductSku selectStockById(@Param("skuId") Long skuId);
+
+    /**
+     * 查询SKU当前库存并锁定SKU行（只返回 id、productId、stock，须在事务中调用）
+     *
+     * @param skuId SKU ID
+     * @return SKU，不存在时返回null
+     */
+    ProductSku selectStockForUpdate(@Param("skuId") Long skuId);
+
+    /**
+     * 查询商品的SKU列表并锁定这些行（须在事务中调用）
+     *
+     * @param productId 商品ID
+     * @return SKU列表
+     */
+    List<ProductSku> selectByProductIdForUpdate(@Param("productId") Long productId);
+
+    /**
+     * 查询已占用的SKU编码（包括已逻辑删除的SKU，唯一索引仍然生效）
+     *
+     * @param skuCodes 待检查的SKU编码
+     * @return 已存在的SKU编码
+     */
+    List<String> selectExistingSkuCodes(@Param("skuCodes") Collection<String> skuCodes);
+
+    /**
+     * 按SKU编码查询SKU（包括已逻辑删除的SKU）
+     *
+     * @param skuCodes SKU编码
+     * @return SKU列表
+     */
+    List<ProductSku> selectByCodesIncludingDeleted(@Param("skuCodes") Collection<String> skuCodes);
+
+    /**
+     * 插入SKU（固定列，配合批量执行器使用，批量导入和SKU同步共用）
+     *
+     * @param sku SKU
+     * @return 影响行数
+     */
+    int insertForBatch(ProductSku sku);
+
+    /**
+     * 按ID更新SKU并恢复为未删除（固定列，配合批量执行器使用）
+     *
+     * @param sku SKU
+     * @param stockChanged 是否写入库存，false 时保留库存列当前值
+     * @return 影响行数
+     */
+    int updateForBatch(@Param("sku") ProductSku sku, @Param("stockChanged") boolean stockChanged);
+}
@@ -0,0 +1,70 @@
+package org.javaweb.webshopbackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.javaweb.webshopbackend.pojo.entity.SalesDailyRollup;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 每日销售汇总 Mapper 接口
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Mapper
+public interface SalesDailyRollupMapper extends BaseMapper<SalesDailyRollup> {
+
+    /**
+     * 批量累加汇总增量（不存在的日期自动插入）
+     *
+     * @param rows 各日期的增量
+     * @return 影响行数
+     */
+    int upsertIncrements(@Param("rows") List<SalesDailyRollup> rows);
+
+    /**
+     * 批量写入汇总值（覆盖已有日期，用于重建）
+     *
+     * @param rows 各日期的汇总值
+     * @return 影响行数
+     */
+    int upsertValues(@Param("rows") List<SalesDailyRollup> rows);
+
+    /**
+     * 删除日期范围内的汇总行
+     *
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @return 删除行数
+     */
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 汇总日期范围内的数据
+     *
+     * @param startDate 开始日期（含，可为null）
+     * @param endDate 结束日期（含，可为null）
+     * @return 合计值（statDate 为空）
+     */
+    SalesDailyRollup selectSummary(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 从订单表按天重新计算汇总（用于重建）
+     *
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @return 各日期的汇总值
+     */
+    List<SalesDailyRollup> aggregateFromOrders(@Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+
+    /**
+     * 查询订单表最早的下单日期
+     *
+     * @return 最早下单日期（没有订单时为null）
+     */
+    LocalDate selectFirstOrderDate();
+}
@@ -0,0 +1,53 @@
+package org.javaweb.webshopbackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.javaweb.webshopbackend.pojo.entity.StockAlert;
+
+/**
+ * 库存预警 Mapper 接口
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Mapper
+public interface StockAlertMapper extends BaseMapper<StockAlert> {
+
+    /**
+     * 触发预警：没有记录时插入；已处理的记录重新置为未处理并累加触发次数；未处理的记录只更新库存
+     *
+     * @param alert 预警（itemType、itemId、productId、skuId、stock、threshold）
+     * @return 影响行数（1-新增，2-更新，0-无变化）
+     */
+    int upsertOpen(@Param("alert") StockAlert alert);
+
+    /**
+     * 库存补回预警线以上时关闭未处理的预警
+     *
+     * @param itemType 预警类型
+     * @param itemId 商品ID或SKU ID
+     * @param stock 当前库存
+     * @return 影响行数
+     */
+    int resolveByItem(@Param("itemType") int itemType, @Param("itemId") Long itemId, @Param("stock") int stock);
+
+    /**
+     * 管理员处理预警
+     *
+     * @param id 预警ID
+     * @return 影响行数，0 表示预警不存在或已处理
+     */
+    int resolveById(@Param("id") Long id);
+
+    /**
+     * 分页查询预警（按最近触发时间倒序，附带商品、SKU名称）
+     *
+     * @param page 分页对象
+     * @param status 状态（可为null）
+     * @return 预警分页数据
+     */
+    IPage<StockAlert> selectAlertPage(Page<StockAlert> page, @Param("status") Integer status);
+}
@@ -0,0 +1,43 @@
+package org.javaweb.webshopbackend.pojo.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 游标分页响应结果类
+ * 用于按游标翻页的列表接口，翻到任意深度耗时都保持稳定
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResult<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 数据列表
+     */
+    private List<T> records;
+
+    /**
+     * 下一页游标（没有下一页时为null）
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasMore;
+
+    /**
+     * 总记录数（仅在请求需要时统计，否则为null）
+     */
+    private Long total;
+}
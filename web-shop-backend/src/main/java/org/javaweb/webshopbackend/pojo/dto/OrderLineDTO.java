@@ -0,0 +1,43 @@
+package org.javaweb.webshopbackend.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 待定价订单行DTO
+ * 购物车下单和直接购买统一转换为该结构后交给定价阶段处理
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineDTO {
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * SKU ID（可为null）
+     */
+    private Long skuId;
+
+    /**
+     * 购买数量
+     */
+    private Integer quantity;
+
+    /**
+     * 规格信息
+     */
+    private String specInfo;
+
+    /**
+     * 是否按SKU价格计价（购物车下单沿用商品价格，直接购买使用SKU价格）
+     */
+    private boolean skuPriced;
+}
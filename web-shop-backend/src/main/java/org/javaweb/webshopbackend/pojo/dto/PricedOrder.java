@@ -0,0 +1,51 @@
+package org.javaweb.webshopbackend.pojo.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 订单定价快照（不可变）
+ * 由定价阶段批量加载商品和SKU、在内存中完成校验与计价后生成，
+ * 落库阶段直接使用快照中的数据，不再重复查询商品
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Value
+public class PricedOrder {
+
+    /**
+     * 已定价的订单行（不可修改的列表）
+     */
+    List<Line> lines;
+
+    /**
+     * 商品总金额（不含运费）
+     */
+    BigDecimal itemsAmount;
+
+    /**
+     * 已定价的订单行
+     */
+    @Value
+    public static class Line {
+
+        Long productId;
+
+        String productName;
+
+        String productImage;
+
+        Long skuId;
+
+        String specInfo;
+
+        BigDecimal unitPrice;
+
+        Integer quantity;
+
+        BigDecimal totalPrice;
+    }
+}
@@ -0,0 +1,30 @@
+package org.javaweb.webshopbackend.pojo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 商品分面查询DTO
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Data
+@Schema(description = "商品分面筛选条件")
+public class ProductFacetQueryDTO {
+
+    @Schema(description = "分类ID", example = "1")
+    private Long categoryId;
+
+    @Schema(description = "价格区间序号（对应分面结果 priceBuckets 中的 bucket）", example = "2")
+    private Integer priceBucket;
+
+    @Schema(description = "只看热销", example = "true")
+    private Boolean isHot;
+
+    @Schema(description = "只看推荐", example = "true")
+    private Boolean isRecommend;
+
+    @Schema(description = "只看秒杀", example = "true")
+    private Boolean isFlashSale;
+}
@@ -36,6 +36,10 @@ public class ProductQueryDTO {
     @Schema(description = "是否推荐", example = "true")
     private Boolean isRecommend;
 
+    @Schema(description = "排序方式（relevance-相关度，sales-销量，price_asc-价格升序，price_desc-价格降序；"
+            + "有关键词时默认按相关度，否则按销量）", example = "sales")
+    private String sortBy;
+
     @Schema(description = "当前页码", example = "1")
     private Integer pageNum = 1;
 
@@ -0,0 +1,23 @@
+package org.javaweb.webshopbackend.pojo.dto;
+
+import lombok.Data;
+
+/**
+ * 按状态分组统计结果DTO
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Data
+public class StatusCountDTO {
+
+    /**
+     * 状态
+     */
+    private Integer status;
+
+    /**
+     * 数量
+     */
+    private Long count;
+}
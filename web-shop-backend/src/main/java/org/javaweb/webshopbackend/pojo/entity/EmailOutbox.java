@@ -0,0 +1,78 @@
+package org.javaweb.webshopbackend.pojo.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 邮件发件箱实体类
+ * 业务事务中只写入发件箱，由后台任务批量发送
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Data
+@TableName("email_outbox")
+public class EmailOutbox implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 邮件ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 业务标识（如订单号）
+     */
+    private String bizKey;
+
+    /**
+     * 收件人邮箱
+     */
+    private String toEmail;
+
+    /**
+     * 邮件主题
+     */
+    private String subject;
+
+    /**
+     * 邮件正文
+     */
+    private String content;
+
+    /**
+     * 状态：0-待发送，1-已发送，2-发送失败不再重试
+     */
+    private Integer status;
+
+    /**
+     * 已尝试次数
+     */
+    private Integer attempts;
+
+    /**
+     * 下次尝试时间
+     */
+    private LocalDateTime nextAttemptTime;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdTime;
+
+    /**
+     * 发送时间
+     */
+    private LocalDateTime sentTime;
+}
@@ -0,0 +1,48 @@
+package org.javaweb.webshopbackend.pojo.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 秒杀库存扣减流水实体类
+ * 秒杀商品下单时只追加流水，由后台任务批量合并后落到商品/SKU库存上
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Data
+@TableName("flash_sale_stock_log")
+public class FlashSaleStockLog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 流水ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * SKU ID（可为null）
+     */
+    private Long skuId;
+
+    /**
+     * 扣减数量
+     */
+    private Integer quantity;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdTime;
+}
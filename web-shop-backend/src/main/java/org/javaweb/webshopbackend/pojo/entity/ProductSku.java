@@ -92,4 +92,10 @@ public class ProductSku implements Serializable {
      */
     @TableField(fill = FieldFill.INSERT_UPDATE)
     private LocalDateTime updatedTime;
+
+    /**
+     * 编辑表单加载时的库存（非数据库字段）：与提交的库存相同表示管理员没有修改库存
+     */
+    @TableField(exist = false)
+    private Integer originalStock;
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package org.javaweb.webshopbackend.pojo.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日销售汇总实体类
+ * 按订单创建日期汇总，由订单状态变更事件增量维护，可从订单表重建
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Data
+@TableName("sales_daily_rollup")
+public class SalesDailyRollup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 统计日期（订单创建日期）
+     */
+    @TableId(type = IdType.INPUT)
+    private LocalDate statDate;
+
+    /**
+     * 下单数
+     */
+    private Long orderCount;
+
+    /**
+     * 有效支付订单数（不含已取消、已退款）
+     */
+    private Long paidCount;
+
+    /**
+     * 有效销售额
+     */
+    private BigDecimal paidAmount;
+
+    /**
+     * 退款订单数
+     */
+    private Long refundCount;
+
+    /**
+     * 退款金额
+     */
+    private BigDecimal refundAmount;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedTime;
+}
@@ -0,0 +1,105 @@
+package org.javaweb.webshopbackend.pojo.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 库存预警实体类
+ * 每个商品/SKU 只有一条预警记录，库存扣减跨过预警线时置为未处理
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Data
+@TableName("stock_alert")
+public class StockAlert implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 预警类型：商品库存
+     */
+    public static final int TYPE_PRODUCT = 1;
+
+    /**
+     * 预警类型：SKU库存
+     */
+    public static final int TYPE_SKU = 2;
+
+    /**
+     * 预警ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 预警类型：1-商品，2-SKU
+     */
+    private Integer itemType;
+
+    /**
+     * 商品ID或SKU ID（与预警类型对应）
+     */
+    private Long itemId;
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * SKU ID（商品库存预警为空）
+     */
+    private Long skuId;
+
+    /**
+     * 最近一次记录的库存
+     */
+    private Integer stock;
+
+    /**
+     * 触发时的预警数量
+     */
+    private Integer threshold;
+
+    /**
+     * 状态：0-未处理，1-已处理（管理员处理或库存已补回预警线以上）
+     */
+    private Integer status;
+
+    /**
+     * 累计触发次数
+     */
+    private Integer alertCount;
+
+    /**
+     * 最近一次触发时间
+     */
+    private LocalDateTime lastAlertTime;
+
+    /**
+     * 处理时间
+     */
+    private LocalDateTime resolvedTime;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdTime;
+
+    /**
+     * 商品名称（非数据库字段）
+     */
+    @TableField(exist = false)
+    private String productName;
+
+    /**
+     * SKU名称（非数据库字段）
+     */
+    @TableField(exist = false)
+    private String skuName;
+}
@@ -0,0 +1,41 @@
+package org.javaweb.webshopbackend.service;
+
+import java.util.Map;
+
+/**
+ * 目录版本号 Service 接口
+ * <p>
+ * 商品、分类、公告的任何变更提交后版本号递增，目录类查询接口按 (接口, 参数, 版本号) 生成 ETag，
+ * 客户端携带的 If-None-Match 与当前 ETag 一致时直接返回 304，不查询也不序列化响应体
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface CatalogVersionService {
+
+    /**
+     * 获取当前版本号
+     *
+     * @return 版本号
+     */
+    long getVersion();
+
+    /**
+     * 递增版本号，使之前签发的 ETag 全部失效
+     */
+    void bump();
+
+    /**
+     * 记录一次条件请求的处理结果
+     *
+     * @param notModified 是否返回了 304
+     */
+    void recordRequest(boolean notModified);
+
+    /**
+     * 获取版本号、递增次数及 304 命中情况
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,40 @@
+package org.javaweb.webshopbackend.service;
+
+import java.util.Map;
+
+/**
+ * 邮件发件箱 Service 接口
+ * <p>
+ * 业务事务中只写入发件箱（与业务数据同一事务提交或回滚），由后台任务批量取出发送：
+ * 每批复用一次SMTP连接，失败按指数退避重试，超过最大次数后不再重试。
+ * 投递语义为至少一次：发送成功但标记前进程退出时，重启后会再发一次
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface EmailOutboxService {
+
+    /**
+     * 写入发件箱（在调用方事务中执行）
+     *
+     * @param bizKey 业务标识（如订单号）
+     * @param toEmail 收件人邮箱
+     * @param subject 邮件主题
+     * @param content 邮件正文
+     */
+    void enqueue(String bizKey, String toEmail, String subject, String content);
+
+    /**
+     * 发送一批已到尝试时间的待发送邮件，剩余的由下一次轮询发送
+     *
+     * @return 本次发送成功的邮件数
+     */
+    int dispatchPending();
+
+    /**
+     * 获取发件箱统计信息（队列深度、最早待发送时长、发送耗时、失败次数等）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -10,6 +10,7 @@ public interface EmailService {
 
     /**
      * 发送发货通知邮件
+     * 在调用方事务中写入发件箱，事务提交后由后台任务发送
      * 
      * @param toEmail 收件人邮箱
      * @param orderNo 订单号
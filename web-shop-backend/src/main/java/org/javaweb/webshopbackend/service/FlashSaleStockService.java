@@ -0,0 +1,77 @@
+package org.javaweb.webshopbackend.service;
+
+/**
+ * 秒杀库存 Service 接口
+ * 秒杀商品（is_flash_sale=1 且上架）的库存预热到内存分段计数器中，
+ * 下单时在内存中扣减并追加扣减流水，由后台任务批量落库
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface FlashSaleStockService {
+
+    /**
+     * 商品库存是否由秒杀内存计数器管理
+     *
+     * @param productId 商品ID
+     * @return true-由内存计数器管理
+     */
+    boolean isManaged(Long productId);
+
+    /**
+     * 在内存中预占库存并追加扣减流水
+     * 必须在下单事务中调用，事务回滚时自动归还预占的库存
+     *
+     * @param productId 商品ID
+     * @param skuId SKU ID（可为null）
+     * @param quantity 数量
+     * @return true-预占成功，false-库存不足
+     */
+    boolean reserve(Long productId, Long skuId, Integer quantity);
+
+    /**
+     * 商品库存已在数据库中改变后（归还、扣减、管理员设置），按变化量同步内存计数（事务提交后生效）
+     * 调用前应已在当前事务中更新（锁定）商品行
+     *
+     * @param productId 商品ID
+     * @param delta 库存变化量（正数增加，负数减少）
+     */
+    void adjustProduct(Long productId, Integer delta);
+
+    /**
+     * SKU库存已在数据库中改变后，按变化量同步内存计数（事务提交后生效）
+     * 调用前应已在当前事务中更新（锁定）SKU行
+     *
+     * @param skuId SKU ID
+     * @param delta 库存变化量（正数增加，负数减少）
+     */
+    void adjustSku(Long skuId, Integer delta);
+
+    /**
+     * 商品状态、秒杀标记变更后开始或停止管理该商品的内存计数（事务提交后生效）
+     * 已在管理中的商品不会重新加载，库存变化通过 adjustProduct / adjustSku 同步
+     *
+     * @param productId 商品ID
+     */
+    void reload(Long productId);
+
+    /**
+     * 预热所有秒杀商品的内存库存
+     */
+    void preload();
+
+    /**
+     * 将一批扣减流水合并后写入商品/SKU库存
+     *
+     * @return 本批处理的流水条数
+     */
+    int flushPending();
+
+    /**
+     * 获取内存中的剩余库存
+     *
+     * @param productId 商品ID
+     * @return 剩余库存，未被管理时返回null
+     */
+    Long getAvailableStock(Long productId);
+}
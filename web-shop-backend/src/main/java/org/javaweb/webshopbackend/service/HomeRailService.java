@@ -0,0 +1,62 @@
+package org.javaweb.webshopbackend.service;
+
+import java.util.Map;
+
+/**
+ * 首页商品栏 Service 接口
+ * <p>
+ * 热销、推荐、秒杀三个商品栏在内存中保存为不可变快照（每栏按销量前 N 个商品），
+ * 接口直接输出预先序列化好的 JSON，首页请求不访问数据库。
+ * 商品变更事件提交后，下一次检查时按变更商品的当前数据更新各栏；快照到期后整体重建
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface HomeRailService {
+
+    /**
+     * 商品栏类型
+     */
+    enum Rail {
+        /**
+         * 热销商品
+         */
+        HOT,
+        /**
+         * 推荐商品
+         */
+        RECOMMEND,
+        /**
+         * 秒杀商品
+         */
+        FLASH_SALE
+    }
+
+    /**
+     * 获取商品栏响应体（统一响应结构 Result 序列化后的 JSON）
+     *
+     * @param rail 商品栏
+     * @param limit 数量限制，超过快照容量时直接查询数据库
+     * @return UTF-8 编码的 JSON
+     */
+    byte[] getRailJson(Rail rail, int limit);
+
+    /**
+     * 快照已过期时整体重建，有商品变更时合并到快照
+     *
+     * @return 是否重建或合并
+     */
+    boolean refreshIfStale();
+
+    /**
+     * 立即重建全部快照
+     */
+    void refresh();
+
+    /**
+     * 获取统计信息（快照大小、重建次数、耗时等）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,30 @@
+package org.javaweb.webshopbackend.service;
+
+import java.util.Map;
+
+/**
+ * 订单归档 Service 接口
+ * <p>
+ * 把已完成、已取消、已退款且超过保留期的订单连同订单项按原ID移入归档表，热表只保留近期和进行中的订单。
+ * 订单详情、用户订单列表、用户订单计数、销售汇总重建和订单导出会同时读取归档表；
+ * 管理端订单列表只查询热表，归档订单按订单号查看详情或通过导出获取
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface OrderArchiveService {
+
+    /**
+     * 分块归档所有满足条件的订单（每块一个事务）
+     *
+     * @return 本次归档的订单数
+     */
+    int archiveDue();
+
+    /**
+     * 获取归档统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
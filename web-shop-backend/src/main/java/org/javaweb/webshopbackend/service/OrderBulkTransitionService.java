@@ -0,0 +1,58 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单批量状态流转 Service 接口
+ * 用于自动取消未支付订单、自动确认收货：按块执行集合式 UPDATE，每块一个事务
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface OrderBulkTransitionService {
+
+    /**
+     * 批量确认收货所有发货时间早于截止时间的待收货订单
+     *
+     * @param shipBefore 发货时间截止
+     * @return 确认收货的订单数
+     */
+    int confirmDue(LocalDateTime shipBefore);
+
+    /**
+     * 批量取消所有创建时间早于截止时间的待付款订单，并按商品/SKU汇总恢复库存
+     *
+     * @param createdBefore 创建时间截止
+     * @param reason 取消原因
+     * @return 取消的订单数
+     */
+    int cancelDue(LocalDateTime createdBefore, String reason);
+
+    /**
+     * 批量确认收货指定订单（单个事务，已不是待收货状态的订单跳过）
+     *
+     * @param orders 订单（需包含 id、order_no、user_id）
+     * @return 确认收货的订单数
+     */
+    int confirmOrders(List<Orders> orders);
+
+    /**
+     * 批量取消指定订单并恢复库存（单个事务，已不是待付款状态的订单跳过）
+     *
+     * @param orders 订单（需包含 id、order_no、user_id）
+     * @param reason 取消原因
+     * @return 取消的订单数
+     */
+    int cancelOrders(List<Orders> orders, String reason);
+
+    /**
+     * 获取处理进度统计
+     *
+     * @return 统计数据
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,26 @@
+package org.javaweb.webshopbackend.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单导出 Service 接口
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface OrderExportService {
+
+    /**
+     * 导出时间范围内的订单及订单项
+     * 参数在调用时校验，返回的响应体在写出时才查询数据库，逐个订单边读边写，内存占用与订单数无关
+     *
+     * @param format 导出格式：csv（每个订单项一行）或 jsonl（每个订单一行）
+     * @param status 订单状态（可为null）
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 流式响应体
+     */
+    StreamingResponseBody exportOrders(String format, Integer status, LocalDateTime startTime, LocalDateTime endTime);
+}
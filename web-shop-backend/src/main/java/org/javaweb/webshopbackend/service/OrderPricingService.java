@@ -0,0 +1,25 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.pojo.dto.OrderLineDTO;
+import org.javaweb.webshopbackend.pojo.dto.PricedOrder;
+
+import java.util.List;
+
+/**
+ * 订单定价 Service 接口
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface OrderPricingService {
+
+    /**
+     * 对订单行批量定价
+     * 一次性加载所有商品和SKU，在内存中校验上架状态、库存和价格
+     *
+     * @param lines 待定价的订单行
+     * @return 定价快照
+     * @throws IllegalArgumentException 商品不存在、已下架或库存不足时抛出
+     */
+    PricedOrder price(List<OrderLineDTO> lines);
+}
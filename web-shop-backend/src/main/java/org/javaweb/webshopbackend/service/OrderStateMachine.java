@@ -0,0 +1,34 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+
+/**
+ * 订单状态机接口
+ * 所有单笔订单的状态流转都经由此处完成：每次流转是一条带原状态条件的 UPDATE，
+ * 并发操作中只有一个能成功，失败方得到明确的异常而不会覆盖对方的结果
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface OrderStateMachine {
+
+    /**
+     * 判断状态流转是否合法
+     *
+     * @param fromStatus 原状态
+     * @param toStatus 目标状态
+     * @return 是否允许
+     */
+    boolean canTransition(int fromStatus, int toStatus);
+
+    /**
+     * 流转订单状态
+     * 仅当数据库中订单状态仍等于 order 中的状态时才更新，成功后同步更新 order 并发布订单状态变更事件
+     *
+     * @param order 订单（需包含 id、orderNo、userId 和读取时的状态）
+     * @param toStatus 目标状态
+     * @param changes 随状态一起写入的字段（只写入非空字段，可为null）
+     * @throws IllegalArgumentException 流转不合法，或订单状态已被其他操作改变时抛出
+     */
+    void transition(Orders order, int toStatus, Orders changes);
+}
@@ -3,6 +3,7 @@ package org.javaweb.webshopbackend.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import org.javaweb.webshopbackend.pojo.common.CursorPageResult;
 import org.javaweb.webshopbackend.pojo.entity.Orders;
 
 import java.time.LocalDateTime;
@@ -41,6 +42,7 @@ public interface OrdersService extends IService<Orders> {
 
     /**
      * 分页查询用户订单
+     * 热表订单在前，归档订单在后
      * 
      * @param page 分页对象
      * @param userId 用户ID
@@ -51,6 +53,7 @@ public interface OrdersService extends IService<Orders> {
 
     /**
      * 分页查询所有订单（管理端）
+     * 只查询热表，不含归档订单
      * 
      * @param page 分页对象
      * @param status 订单状态（可为null）
@@ -62,8 +65,25 @@ public interface OrdersService extends IService<Orders> {
     IPage<Orders> getAdminOrderPage(Page<Orders> page, Integer status, String keyword,
                                     LocalDateTime startTime, LocalDateTime endTime);
 
+    /**
+     * 游标分页查询所有订单（管理端）
+     * 
+     * @param cursor 上一页返回的游标（第一页为null）
+     * @param size 每页条数
+     * @param status 订单状态（可为null）
+     * @param keyword 关键词（订单号/收件人前缀）
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param withTotal 是否统计总数
+     * @return 订单游标分页数据
+     */
+    CursorPageResult<Orders> getAdminOrderCursorPage(String cursor, Integer size, Integer status, String keyword,
+                                                     LocalDateTime startTime, LocalDateTime endTime,
+                                                     boolean withTotal);
+
     /**
      * 根据订单号获取订单详情（含订单项）
+     * 热表中不存在时查询归档表
      * 
      * @param orderNo 订单号
      * @return 订单详情
@@ -72,6 +92,7 @@ public interface OrdersService extends IService<Orders> {
 
     /**
      * 根据订单ID获取订单详情
+     * 热表中不存在时查询归档表
      * 
      * @param orderId 订单ID
      * @return 订单详情
@@ -0,0 +1,35 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.pojo.entity.Product;
+
+import java.util.Map;
+
+/**
+ * 商品缓存 Service 接口
+ * 按商品ID读取商品时先查进程内缓存，未命中再查库；商品变更事件提交后精确失效对应条目
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface ProductCacheService {
+
+    /**
+     * 读取商品（返回副本，调用方修改不会影响缓存）
+     *
+     * @param productId 商品ID
+     * @return 商品，不存在或已删除时返回null
+     */
+    Product get(Long productId);
+
+    /**
+     * 清空缓存
+     */
+    void invalidateAll();
+
+    /**
+     * 获取缓存统计（命中率、淘汰次数、过期次数等）
+     *
+     * @return 统计数据
+     */
+    Map<String, Object> getStats();
+}
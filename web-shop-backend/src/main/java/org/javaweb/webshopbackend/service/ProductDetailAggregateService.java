@@ -0,0 +1,32 @@
+package org.javaweb.webshopbackend.service;
+
+import java.util.Map;
+
+/**
+ * 商品详情聚合 Service 接口
+ * <p>
+ * 商品详情页所需的商品信息、SKU、评价统计、收藏数、是否已收藏在虚拟线程上并发查询，一次返回。
+ * 商品与 SKU 为必需部分，失败时整个请求失败；其余部分超过请求截止时间或查询失败时省略，
+ * 并在结果的 missingParts 中列出
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface ProductDetailAggregateService {
+
+    /**
+     * 获取商品详情聚合数据
+     *
+     * @param productId 商品ID
+     * @param userId 当前用户ID（未登录为null，此时不查询是否已收藏）
+     * @return 商品字段、skus、reviewStatistics、favoriteCount、isFavorited、missingParts
+     */
+    Map<String, Object> getDetail(Long productId, Long userId);
+
+    /**
+     * 获取各部分的调用次数、平均/最大耗时、超时及失败次数
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,46 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.pojo.dto.ProductFacetQueryDTO;
+
+import java.util.Map;
+
+/**
+ * 商品分面 Service 接口
+ * <p>
+ * 在内存中按分类、价格区间、热销/推荐/秒杀标记为上架商品各维护一个位图，
+ * 筛选条件求交集即可得到结果集，各分面的数量由位图交集计数得出，不访问数据库。
+ * 位图由商品变更事件增量更新
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface ProductFacetService {
+
+    /**
+     * 按筛选条件统计各分面数量
+     * 分类、价格区间的数量不受自身筛选条件影响（便于切换选项），标记数量为当前结果集内的数量
+     *
+     * @param query 筛选条件
+     * @return total、categories、priceBuckets、flags
+     */
+    Map<String, Object> getFacets(ProductFacetQueryDTO query);
+
+    /**
+     * 从数据库全量构建位图
+     */
+    void rebuild();
+
+    /**
+     * 把已提交的商品变更同步到位图
+     *
+     * @return 本次同步的商品数
+     */
+    int applyPending();
+
+    /**
+     * 获取统计信息（商品数、位图数、查询耗时等）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
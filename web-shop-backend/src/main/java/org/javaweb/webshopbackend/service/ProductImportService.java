@@ -0,0 +1,27 @@
+package org.javaweb.webshopbackend.service;
+
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * 商品批量导入 Service 接口
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface ProductImportService {
+
+    /**
+     * 流式导入商品及SKU
+     * <p>
+     * csv：首行为表头，列名与商品字段一致（name、categoryId、price……），SKU 列为
+     * skuCode、skuName、attributes、skuPrice、skuOriginalPrice、skuStock、skuImage；
+     * name 为空的行是上一个商品的追加 SKU。
+     * jsonl：每行一个商品 JSON，格式与新增商品接口相同（SKU 放在 skus 数组中）
+     *
+     * @param input 文件内容（UTF-8）
+     * @param format 文件格式：csv 或 jsonl
+     * @return 导入报告（行数、成功数、失败行及原因、耗时、每秒导入商品数）
+     */
+    Map<String, Object> importProducts(InputStream input, String format);
+}
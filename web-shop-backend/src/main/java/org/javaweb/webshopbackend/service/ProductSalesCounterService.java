@@ -0,0 +1,41 @@
+package org.javaweb.webshopbackend.service;
+
+import java.util.Map;
+
+/**
+ * 商品销量累加 Service 接口
+ * <p>
+ * 支付时的销量增量先在内存中按商品累加，由后台任务定期合并成一条批量 UPDATE 写入商品表，
+ * 避免热门商品的 sales 行在每笔支付事务中被加锁。
+ * <p>
+ * 持久性说明：增量在支付事务提交后才计入内存，事务回滚不会产生销量；
+ * 写入失败的增量会放回内存等待下次写入，正常停机前会写入剩余增量；
+ * 进程异常退出时最多丢失一个写入间隔内的销量增量（销量为展示用计数，可按已支付订单明细重新统计）
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface ProductSalesCounterService {
+
+    /**
+     * 记录商品销量增量（在事务中调用时于事务提交后生效）
+     *
+     * @param productId 商品ID
+     * @param quantity 销量增加量
+     */
+    void increment(Long productId, Integer quantity);
+
+    /**
+     * 将内存中累积的销量增量批量写入商品表
+     *
+     * @return 本次写入的商品数
+     */
+    int flushPending();
+
+    /**
+     * 获取累加器统计信息（待写入商品数/增量、写入次数、失败次数等）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,61 @@
+package org.javaweb.webshopbackend.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 商品搜索 Service 接口
+ * <p>
+ * 在内存中维护上架商品的倒排索引（名称、规格、描述按中文二元词及字母数字二元、三元片段切词），
+ * 关键词搜索不再对商品表做 LIKE 全表扫描，并支持按相关度排序。
+ * 索引在启动后异步全量构建，运行期间由商品变更事件增量同步；构建完成前搜索返回 null，由调用方回退到数据库查询
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface ProductSearchService {
+
+    /**
+     * 按关键词搜索上架商品
+     *
+     * @param page 分页对象
+     * @param categoryId 分类ID（可为null）
+     * @param keyword 关键词
+     * @param minPrice 最低价格（可为null）
+     * @param maxPrice 最高价格（可为null）
+     * @param sortBy 排序方式：relevance/sales/price_asc/price_desc，为空时按相关度
+     * @return 商品分页数据，索引未就绪时返回 null
+     */
+    IPage<Product> search(Page<Product> page, Long categoryId, String keyword,
+                          BigDecimal minPrice, BigDecimal maxPrice, String sortBy);
+
+    /**
+     * 把已提交的商品变更同步到索引
+     *
+     * @return 本次同步的商品数
+     */
+    int applyPending();
+
+    /**
+     * 已删除文档占比过高时在后台重建索引
+     *
+     * @return 是否触发了重建
+     */
+    boolean compactIfNeeded();
+
+    /**
+     * 在后台全量重建索引（已有重建在进行时忽略）
+     */
+    void rebuildAsync();
+
+    /**
+     * 获取索引统计（文档数、词项数、倒排项数、查询次数等）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -24,7 +25,7 @@ public interface ProductService extends IService<Product> {
      * @param keyword 关键词（可为null）
      * @param minPrice 最低价格（可为null）
      * @param maxPrice 最高价格（可为null）
-     * @param sortBy 排序方式（sales-销量，price-价格）
+     * @param sortBy 排序方式（relevance-相关度，sales-销量，price_asc/price_desc-价格；有关键词时默认按相关度）
      * @return 商品分页数据
      */
     IPage<Product> getProductPage(Page<Product> page, Long categoryId, String keyword,
@@ -88,6 +89,14 @@ public interface ProductService extends IService<Product> {
      */
     void updateProduct(Product product);
 
+    /**
+     * 更新商品并同步SKU（同一事务），SKU按编码比对，只写入有变化的部分
+     *
+     * @param product 商品信息
+     * @param skus 商品的完整SKU列表
+     */
+    void updateProductWithSkus(Product product, List<ProductSku> skus);
+
     /**
      * 删除商品（逻辑删除）
      * 
@@ -134,6 +143,24 @@ public interface ProductService extends IService<Product> {
      */
     void updateSkuStock(Long skuId, Integer quantity);
 
+    /**
+     * 扣减商品库存（条件扣减，库存不足时不扣减）
+     *
+     * @param productId 商品ID
+     * @param quantity 扣减数量（正数）
+     * @return true-扣减成功，false-库存不足
+     */
+    boolean deductProductStock(Long productId, Integer quantity);
+
+    /**
+     * 扣减SKU库存（条件扣减，库存不足时不扣减）
+     *
+     * @param skuId SKU ID
+     * @param quantity 扣减数量（正数）
+     * @return true-扣减成功，false-库存不足
+     */
+    boolean deductSkuStock(Long skuId, Integer quantity);
+
     /**
      * 设置商品库存（绝对值）
      *
@@ -144,6 +171,7 @@ public interface ProductService extends IService<Product> {
 
     /**
      * 更新商品销量
+     * 增量先在内存中累加（事务提交后生效），由后台任务定期批量写入商品表
      * 
      * @param productId 商品ID
      * @param quantity 销量增加量
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import org.javaweb.webshopbackend.pojo.entity.ProductSku;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 商品SKU Service接口
@@ -23,8 +24,34 @@ public interface ProductSkuService extends IService<ProductSku> {
      */
     void updateStock(Long skuId, Integer quantity);
 
+    /**
+     * 扣减SKU库存（库存不足时不扣减）
+     *
+     * @return true-扣减成功，false-库存不足
+     */
+    boolean deductStock(Long skuId, Integer quantity);
+
     /**
      * 检查SKU库存
      */
     boolean checkStock(Long skuId, Integer quantity);
-}
\ No newline at end of file
+
+    /**
+     * 按SKU编码与商品当前的SKU比对后同步：新增的批量插入，变化的批量更新，多余的批量逻辑删除，
+     * 未变化的SKU保留原ID和库存不做写入。提交的字段为 null 时保留原值。
+     * 比对前锁定商品的SKU行，期间提交的下单扣减不会被覆盖；提交了 originalStock 且与 stock 相同时视为未修改库存
+     *
+     * @param productId 商品ID
+     * @param skus 商品的完整SKU列表（按 skuCode 区分）
+     * @return 各类操作的数量：inserted、updated、deleted、unchanged
+     */
+    Map<String, Integer> syncSkus(Long productId, List<ProductSku> skus);
+
+    /**
+     * 解析编辑商品时提交的SKU数据，未提交的字段为 null（同步时保留原值）
+     *
+     * @param skuData 单个SKU的请求数据
+     * @return 用于 syncSkus 的SKU
+     */
+    ProductSku fromRequestData(Map<String, Object> skuData);
+}
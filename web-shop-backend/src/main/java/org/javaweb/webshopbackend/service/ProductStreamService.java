@@ -0,0 +1,45 @@
+package org.javaweb.webshopbackend.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品价格/库存变更推送 Service 接口
+ * <p>
+ * 客户端通过 SSE 订阅一组商品，订阅时先收到这些商品当前的价格、库存、状态，
+ * 之后只在这几项发生变化时收到变化的字段；同一商品在一个合并周期内的多次变化只推送一次
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface ProductStreamService {
+
+    /**
+     * 订阅商品变更
+     *
+     * @param productIds 商品ID（去重后数量不能超过上限）
+     * @return SSE 连接
+     */
+    SseEmitter subscribe(List<Long> productIds);
+
+    /**
+     * 把合并周期内的商品变更推送给订阅者
+     *
+     * @return 本次处理的商品数
+     */
+    int dispatchPending();
+
+    /**
+     * 向所有订阅者发送心跳，保持连接并清理已断开的订阅者
+     */
+    void heartbeat();
+
+    /**
+     * 获取订阅数、推送数等统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
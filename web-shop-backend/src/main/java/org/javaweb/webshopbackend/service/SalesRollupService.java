@@ -0,0 +1,38 @@
+package org.javaweb.webshopbackend.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 每日销售汇总 Service 接口
+ * 订单状态变更时在内存中累加当日增量，定期批量写入 sales_daily_rollup，统计接口按天汇总行求和
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface SalesRollupService {
+
+    /**
+     * 统计时间范围内的销售数据（按天粒度，包含开始、结束时间所在的整天）
+     *
+     * @param startTime 开始时间（可为null）
+     * @param endTime 结束时间（可为null）
+     * @return totalAmount/orderCount/avgAmount/paidCount/refundCount/refundAmount
+     */
+    Map<String, Object> getStatistics(LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 把内存中的增量写入汇总表
+     *
+     * @return 写入的日期数
+     */
+    int flushPending();
+
+    /**
+     * 从订单表并行分段重新计算全部汇总
+     * 重建期间暂停增量写入，各分段聚合前丢弃该分段尚未写入的增量，避免重复统计；建议在低峰期执行
+     *
+     * @return 重建的日期数
+     */
+    int rebuild();
+}
@@ -0,0 +1,67 @@
+package org.javaweb.webshopbackend.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.javaweb.webshopbackend.pojo.entity.StockAlert;
+
+import java.util.Map;
+
+/**
+ * 库存预警 Service 接口
+ * <p>
+ * 由库存变更路径在同一事务中调用：扣减后库存从预警线以上降到预警线及以下时触发预警，
+ * 补货后回到预警线以上时自动关闭预警。预警数量取系统设置中的 stockWarning
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface StockAlertService {
+
+    /**
+     * 商品库存增量变更后检查预警
+     *
+     * @param productId 商品ID
+     * @param delta 库存变化量（正数增加，负数减少）
+     */
+    void onProductStockChanged(Long productId, int delta);
+
+    /**
+     * SKU库存增量变更后检查预警
+     *
+     * @param skuId SKU ID
+     * @param delta 库存变化量（正数增加，负数减少）
+     */
+    void onSkuStockChanged(Long skuId, int delta);
+
+    /**
+     * 商品库存设置为绝对值后检查预警
+     *
+     * @param productId 商品ID
+     * @param oldStock 设置前的库存（加锁读出）
+     * @param stock 设置后的库存
+     */
+    void onProductStockSet(Long productId, int oldStock, int stock);
+
+    /**
+     * 分页查询预警
+     *
+     * @param page 分页对象
+     * @param status 状态（0-未处理，1-已处理，null-全部）
+     * @return 预警分页数据
+     */
+    IPage<StockAlert> getAlertPage(Page<StockAlert> page, Integer status);
+
+    /**
+     * 管理员处理预警
+     *
+     * @param alertId 预警ID
+     */
+    void resolve(Long alertId);
+
+    /**
+     * 获取未处理预警数及触发次数等统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
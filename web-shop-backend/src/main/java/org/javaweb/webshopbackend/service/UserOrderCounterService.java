@@ -0,0 +1,28 @@
+package org.javaweb.webshopbackend.service;
+
+import java.util.Map;
+
+/**
+ * 用户订单计数缓存 Service 接口
+ * "我的订单"角标数量从内存读取，由订单状态变更事件增量维护
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public interface UserOrderCounterService {
+
+    /**
+     * 获取用户各状态订单数量
+     *
+     * @param userId 用户ID
+     * @return all/unpaid/unshipped/shipped/completed 对应的数量
+     */
+    Map<String, Long> getCounts(Long userId);
+
+    /**
+     * 获取缓存统计（命中率、失效次数等）
+     *
+     * @return 统计数据
+     */
+    Map<String, Object> getStats();
+}
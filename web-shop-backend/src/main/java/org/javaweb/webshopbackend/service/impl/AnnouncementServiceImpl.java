@@ -3,10 +3,13 @@ package org.javaweb.webshopbackend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.javaweb.webshopbackend.event.CatalogChangedEvent;
 import org.javaweb.webshopbackend.mapper.AnnouncementMapper;
 import org.javaweb.webshopbackend.pojo.entity.Announcement;
 import org.javaweb.webshopbackend.pojo.common.PageResult;
 import org.javaweb.webshopbackend.service.AnnouncementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -20,6 +23,9 @@ import java.util.List;
 @Service
 public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Announcement> implements AnnouncementService {
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public List<Announcement> getPublishedAnnouncements() {
         LambdaQueryWrapper<Announcement> wrapper = new LambdaQueryWrapper<>();
@@ -53,17 +59,17 @@ public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Ann
 
     @Override
     public boolean createAnnouncement(Announcement announcement) {
-        return this.save(announcement);
+        return publishChanged(this.save(announcement));
     }
 
     @Override
     public boolean updateAnnouncement(Announcement announcement) {
-        return this.updateById(announcement);
+        return publishChanged(this.updateById(announcement));
     }
 
     @Override
     public boolean deleteAnnouncement(Long id) {
-        return this.removeById(id);
+        return publishChanged(this.removeById(id));
     }
 
     @Override
@@ -71,6 +77,16 @@ public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Ann
         Announcement announcement = new Announcement();
         announcement.setId(id);
         announcement.setStatus(1);
-        return this.updateById(announcement);
+        return publishChanged(this.updateById(announcement));
+    }
+
+    /**
+     * 写入成功时发布目录变更事件
+     */
+    private boolean publishChanged(boolean success) {
+        if (success) {
+            eventPublisher.publishEvent(new CatalogChangedEvent("announcement"));
+        }
+        return success;
     }
 }
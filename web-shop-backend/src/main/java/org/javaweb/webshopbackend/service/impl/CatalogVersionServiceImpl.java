@@ -0,0 +1,87 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.CatalogChangedEvent;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.service.CatalogVersionService;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 目录版本号 Service 实现类
+ * <p>
+ * 版本号以启动时间（毫秒）为初值，重启后不会与重启前签发的 ETag 重复。
+ * 版本号在事务提交后、且在商品缓存失效之后递增（监听顺序最低），
+ * 保证读到新版本号的请求不会再读到旧数据；版本号只在单实例内有效
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class CatalogVersionServiceImpl implements CatalogVersionService {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    private final LongAdder bumps = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public void bump() {
+        version.incrementAndGet();
+        bumps.increment();
+    }
+
+    /**
+     * 商品变更提交后递增版本号
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bump();
+    }
+
+    /**
+     * 分类、公告、SKU 变更提交后递增版本号
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.debug("目录数据变更：source={}", event.getSource());
+        bump();
+    }
+
+    @Override
+    public void recordRequest(boolean notModifiedResponse) {
+        requests.increment();
+        if (notModifiedResponse) {
+            notModified.increment();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long requestCount = requests.sum();
+        long notModifiedCount = notModified.sum();
+        stats.put("version", version.get());
+        stats.put("bumps", bumps.sum());
+        stats.put("requests", requestCount);
+        stats.put("notModified", notModifiedCount);
+        stats.put("notModifiedRatio", requestCount == 0 ? 0.0 : (double) notModifiedCount / requestCount);
+        return stats;
+    }
+}
@@ -0,0 +1,217 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.mapper.EmailOutboxMapper;
+import org.javaweb.webshopbackend.pojo.entity.EmailOutbox;
+import org.javaweb.webshopbackend.service.EmailOutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 邮件发件箱 Service 实现类
+ * <p>
+ * 一批邮件通过一次 JavaMailSender.send(MimeMessage...) 发送，共用同一个SMTP连接；
+ * 单封失败只重试该封，连接或认证失败时整批重试。发送由单个后台任务串行执行，每次轮询最多发送一批，仅适用于单实例部署
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    /**
+     * 重试间隔上限
+     */
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private EmailOutboxMapper emailOutboxMapper;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder sendMillis = new LongAdder();
+    private final LongAdder sendMessages = new LongAdder();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong lastBatchMillis = new AtomicLong();
+    private final AtomicLong maxBatchMillis = new AtomicLong();
+
+    @Override
+    public void enqueue(String bizKey, String toEmail, String subject, String content) {
+        EmailOutbox email = new EmailOutbox();
+        email.setBizKey(bizKey);
+        email.setToEmail(toEmail);
+        email.setSubject(subject);
+        email.setContent(content);
+        email.setStatus(0);
+        email.setAttempts(0);
+        email.setNextAttemptTime(LocalDateTime.now());
+        emailOutboxMapper.insert(email);
+        enqueued.increment();
+        log.info("邮件已写入发件箱：bizKey={}, toEmail={}", bizKey, toEmail);
+    }
+
+    @Override
+    public synchronized int dispatchPending() {
+        // 每次只发送一批，积压由后续轮询逐批消化，避免长时间占用调度线程
+        List<EmailOutbox> batch = emailOutboxMapper.selectDue(LocalDateTime.now(), batchSize);
+        return batch.isEmpty() ? 0 : sendBatch(batch);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Long queueDepth = emailOutboxMapper.selectCount(new LambdaQueryWrapper<EmailOutbox>()
+                .eq(EmailOutbox::getStatus, 0));
+        LocalDateTime oldest = emailOutboxMapper.selectOldestPendingTime();
+        long messages = sendMessages.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queueDepth);
+        stats.put("oldestPendingSeconds", oldest != null
+                ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).getSeconds()) : 0);
+        stats.put("enqueued", enqueued.sum());
+        stats.put("sent", sent.sum());
+        stats.put("failedAttempts", failedAttempts.sum());
+        stats.put("dead", dead.sum());
+        stats.put("batches", batches.sum());
+        stats.put("lastBatchSize", lastBatchSize.get());
+        stats.put("lastBatchMillis", lastBatchMillis.get());
+        stats.put("maxBatchMillis", maxBatchMillis.get());
+        stats.put("avgSendMillis", messages == 0 ? 0.0 : (double) sendMillis.sum() / messages);
+        return stats;
+    }
+
+    /**
+     * 通过一次SMTP连接发送一批邮件，并逐封记录结果
+     */
+    private int sendBatch(List<EmailOutbox> batch) {
+        Map<MimeMessage, EmailOutbox> messages = new IdentityHashMap<>();
+        Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                messages.put(buildMessage(email), email);
+            } catch (MessagingException e) {
+                failures.put(email, e);
+            }
+        }
+
+        long begin = System.currentTimeMillis();
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                Map<Object, Exception> failedMessages = e.getFailedMessages();
+                if (failedMessages.isEmpty()) {
+                    messages.values().forEach(email -> failures.put(email, e));
+                } else {
+                    failedMessages.forEach((message, ex) -> {
+                        EmailOutbox email = messages.get(message);
+                        if (email != null) {
+                            failures.put(email, ex);
+                        }
+                    });
+                }
+            } catch (MailException e) {
+                messages.values().forEach(email -> failures.put(email, e));
+            }
+        }
+        long elapsed = System.currentTimeMillis() - begin;
+
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        for (EmailOutbox email : batch) {
+            if (!failures.containsKey(email)) {
+                sentIds.add(email.getId());
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            emailOutboxMapper.markSent(sentIds, LocalDateTime.now());
+        }
+        failures.forEach(this::recordFailure);
+
+        batches.increment();
+        sent.add(sentIds.size());
+        sendMillis.add(elapsed);
+        sendMessages.add(messages.size());
+        lastBatchSize.set(batch.size());
+        lastBatchMillis.set(elapsed);
+        maxBatchMillis.accumulateAndGet(elapsed, Math::max);
+        log.info("发件箱批次发送完成：本批={}, 成功={}, 失败={}, 耗时={}ms",
+                batch.size(), sentIds.size(), failures.size(), elapsed);
+        return sentIds.size();
+    }
+
+    private MimeMessage buildMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getToEmail());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getContent());
+        return message;
+    }
+
+    /**
+     * 记录一次失败：未达到最大次数时按 base * 2^(次数-1) 退避后重试，否则不再重试
+     */
+    private void recordFailure(EmailOutbox email, Exception e) {
+        int attempts = email.getAttempts() + 1;
+        boolean giveUp = attempts >= maxAttempts;
+        Duration backoff = Duration.ofSeconds(retryBaseSeconds << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(MAX_BACKOFF) > 0) {
+            backoff = MAX_BACKOFF;
+        }
+        String error = String.valueOf(e.getMessage());
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        emailOutboxMapper.markFailed(email.getId(), giveUp ? 2 : 0, attempts, LocalDateTime.now().plus(backoff), error);
+
+        failedAttempts.increment();
+        if (giveUp) {
+            dead.increment();
+            log.error("邮件发送失败且不再重试：id={}, toEmail={}, attempts={}, error={}",
+                    email.getId(), email.getToEmail(), attempts, error);
+        } else {
+            log.warn("邮件发送失败，{}秒后重试：id={}, toEmail={}, attempts={}, error={}",
+                    backoff.getSeconds(), email.getId(), email.getToEmail(), attempts, error);
+        }
+    }
+}
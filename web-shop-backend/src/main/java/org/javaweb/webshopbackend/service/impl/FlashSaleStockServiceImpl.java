@@ -0,0 +1,372 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.FlashSaleStockLogMapper;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.mapper.ProductSkuMapper;
+import org.javaweb.webshopbackend.pojo.entity.FlashSaleStockLog;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.service.FlashSaleStockService;
+import org.javaweb.webshopbackend.service.StockAlertService;
+import org.javaweb.webshopbackend.util.StripedStockCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 秒杀库存 Service 实现类
+ * <p>
+ * 内存计数 = 数据库库存 - 未落库流水 - 未提交的预占。
+ * 扣减流水与订单在同一事务中写入，只追加不更新，因此不会产生热点行锁；
+ * 应用重启时先把残留流水全部落库再预热，保证内存计数与数据库一致。
+ * <p>
+ * 计数只在开始管理时从数据库加载一次：加载事务先对商品及其SKU行加锁（SELECT ... FOR UPDATE），
+ * 流水落库、库存变更都要更新这些行，因此读到的库存与未落库流水是一致的，计数在锁释放前放入内存。
+ * 之后不再整体重置，其他路径改动数据库库存时按变化量调整计数（adjustProduct / adjustSku），
+ * 与并发预占互不覆盖。
+ * 流水落库：同一实例内的启动对账、定时任务与停机落库串行执行（整个事务在 flushLock 内完成），
+ * 取流水时使用 FOR UPDATE SKIP LOCKED 认领，其他实例的落库事务跳过已被认领的流水，每条流水只扣减一次。
+ * 内存计数只在单实例内有效，多实例部署时需要按商品路由到同一实例。
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class FlashSaleStockServiceImpl implements FlashSaleStockService {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductSkuMapper productSkuMapper;
+
+    @Autowired
+    private FlashSaleStockLogMapper flashSaleStockLogMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private StockAlertService stockAlertService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${flash-sale.enabled:true}")
+    private boolean enabled;
+
+    @Value("${flash-sale.stripes:8}")
+    private int stripes;
+
+    @Value("${flash-sale.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Map<Long, Slot> productSlots = new ConcurrentHashMap<>();
+
+    private final Map<Long, Slot> skuSlots = new ConcurrentHashMap<>();
+
+    /**
+     * 串行化本实例内的流水落库，锁覆盖事务提交，后一次落库只能看到前一次删除后的流水
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // 加载在触发方事务提交后执行，需要独立的新事务；流水落库也使用独立事务
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public boolean isManaged(Long productId) {
+        return enabled && productId != null && productSlots.containsKey(productId);
+    }
+
+    @Override
+    public boolean reserve(Long productId, Long skuId, Integer quantity) {
+        Slot productSlot = productSlots.get(productId);
+        if (productSlot == null) {
+            throw new IllegalStateException("商品库存未由秒杀计数器管理：productId=" + productId);
+        }
+        Slot skuSlot = null;
+        if (skuId != null) {
+            skuSlot = skuSlots.get(skuId);
+            if (skuSlot == null) {
+                // 在 computeIfAbsent 之外查询数据库，避免阻塞同一分段上的其他键
+                skuSlot = loadSkuSlot(skuId);
+                if (skuSlot == null) {
+                    return false;
+                }
+                Slot existing = skuSlots.putIfAbsent(skuId, skuSlot);
+                if (existing != null) {
+                    skuSlot = existing;
+                }
+            }
+        }
+
+        if (!productSlot.counter.tryAcquire(quantity)) {
+            return false;
+        }
+        if (skuSlot != null && !skuSlot.counter.tryAcquire(quantity)) {
+            productSlot.release(quantity);
+            return false;
+        }
+        trackUntilCompletion(productSlot, quantity);
+        if (skuSlot != null) {
+            trackUntilCompletion(skuSlot, quantity);
+        }
+
+        FlashSaleStockLog stockLog = new FlashSaleStockLog();
+        stockLog.setProductId(productId);
+        stockLog.setSkuId(skuId);
+        stockLog.setQuantity(quantity);
+        flashSaleStockLogMapper.insert(stockLog);
+        return true;
+    }
+
+    @Override
+    public void adjustProduct(Long productId, Integer delta) {
+        adjust(productSlots.get(productId), delta);
+    }
+
+    @Override
+    public void adjustSku(Long skuId, Integer delta) {
+        adjust(skuId == null ? null : skuSlots.get(skuId), delta);
+    }
+
+    @Override
+    public void reload(Long productId) {
+        if (productId != null) {
+            afterCommit(() -> doReload(productId));
+        }
+    }
+
+    @Override
+    public void preload() {
+        if (!enabled) {
+            log.info("秒杀内存库存未开启");
+            return;
+        }
+        LambdaQueryWrapper<Product> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Product::getId)
+               .eq(Product::getIsFlashSale, 1)
+               .eq(Product::getStatus, 1);
+        Set<Long> productIds = new HashSet<>();
+        for (Product product : productMapper.selectList(wrapper)) {
+            productIds.add(product.getId());
+        }
+        // 已不再是秒杀商品的也重新加载一次，使其被移除
+        productIds.addAll(productSlots.keySet());
+        productIds.forEach(this::doReload);
+        log.info("秒杀内存库存预热完成：商品数={}, SKU数={}", productSlots.size(), skuSlots.size());
+    }
+
+    @Override
+    public int flushPending() {
+        flushLock.lock();
+        try {
+            Integer flushed = transactionTemplate.execute(tx -> doFlush());
+            return flushed == null ? 0 : flushed;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 认领一批流水，合并后写入商品/SKU库存并删除流水（在落库事务中执行）
+     */
+    private int doFlush() {
+        List<FlashSaleStockLog> batch = flashSaleStockLogMapper.selectPendingBatch(flushBatchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // 按ID排序合并，保证加锁顺序一致
+        Map<Long, Integer> productDeltas = new TreeMap<>();
+        Map<Long, Integer> skuDeltas = new TreeMap<>();
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (FlashSaleStockLog stockLog : batch) {
+            ids.add(stockLog.getId());
+            productDeltas.merge(stockLog.getProductId(), stockLog.getQuantity(), Integer::sum);
+            if (stockLog.getSkuId() != null) {
+                skuDeltas.merge(stockLog.getSkuId(), stockLog.getQuantity(), Integer::sum);
+            }
+        }
+        productDeltas.forEach((productId, quantity) -> {
+            productMapper.updateStock(productId, -quantity);
+            stockAlertService.onProductStockChanged(productId, -quantity);
+        });
+        skuDeltas.forEach((skuId, quantity) -> {
+            productSkuMapper.updateStock(skuId, -quantity);
+            stockAlertService.onSkuStockChanged(skuId, -quantity);
+        });
+        flashSaleStockLogMapper.deleteByIds(ids);
+        eventPublisher.publishEvent(new ProductChangedEvent(List.copyOf(productDeltas.keySet())));
+
+        log.debug("秒杀库存流水落库：流水数={}, 商品数={}, SKU数={}", batch.size(), productDeltas.size(), skuDeltas.size());
+        return batch.size();
+    }
+
+    @Override
+    public Long getAvailableStock(Long productId) {
+        Slot slot = productSlots.get(productId);
+        return slot == null ? null : slot.counter.available();
+    }
+
+    /**
+     * 按商品当前状态开始或停止管理其内存库存；已在管理中的商品不重新加载，库存变化由 adjust 同步
+     */
+    private synchronized void doReload(Long productId) {
+        Product product = productMapper.selectById(productId);
+        boolean managed = enabled && product != null
+                && Integer.valueOf(1).equals(product.getIsFlashSale())
+                && Integer.valueOf(1).equals(product.getStatus());
+
+        if (!managed) {
+            if (productSlots.remove(productId) != null) {
+                productSkuMapper.selectByProductId(productId).forEach(sku -> skuSlots.remove(sku.getId()));
+                log.info("商品已移出秒杀内存库存：productId={}", productId);
+            }
+            return;
+        }
+        if (productSlots.containsKey(productId)) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            // 锁住商品及SKU行：流水落库和其他库存变更在本事务提交前无法修改这些行
+            Integer stock = productMapper.selectStockForUpdate(productId);
+            if (stock == null) {
+                return;
+            }
+            for (ProductSku sku : productSkuMapper.selectByProductIdForUpdate(productId)) {
+                skuSlots.put(sku.getId(), newSlot(sku.getStock(), flashSaleStockLogMapper.sumPendingBySkuId(sku.getId())));
+            }
+            // 在释放行锁之前放入内存，之后提交的库存变更都能找到计数并调整
+            productSlots.put(productId, newSlot(stock, flashSaleStockLogMapper.sumPendingByProductId(productId)));
+        });
+        log.info("秒杀内存库存已加载：productId={}, available={}", productId, getAvailableStock(productId));
+    }
+
+    /**
+     * 加载单个SKU的内存库存（在下单事务中调用，行锁持有到下单事务结束，期间计数已放入内存）
+     */
+    private Slot loadSkuSlot(Long skuId) {
+        ProductSku sku = productSkuMapper.selectStockForUpdate(skuId);
+        if (sku == null) {
+            return null;
+        }
+        return newSlot(sku.getStock(), flashSaleStockLogMapper.sumPendingBySkuId(skuId));
+    }
+
+    private Slot newSlot(Integer stock, Long pending) {
+        long persisted = stock == null ? 0 : stock;
+        long unflushed = pending == null ? 0 : pending;
+        return new Slot(new StripedStockCounter(stripes, persisted - unflushed));
+    }
+
+    /**
+     * 数据库库存变化后（事务提交后）按变化量调整内存计数
+     */
+    private void adjust(Slot slot, Integer delta) {
+        if (slot == null || delta == null || delta == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            if (delta > 0) {
+                slot.release(delta);
+            } else {
+                slot.take(-delta);
+            }
+        });
+    }
+
+    /**
+     * 事务回滚时归还预占的内存库存
+     */
+    private void trackUntilCompletion(Slot slot, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    slot.release(quantity);
+                }
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * 单个商品或SKU的内存库存
+     */
+    private static final class Slot {
+
+        private final StripedStockCounter counter;
+
+        /**
+         * 库存被调低到已预占数量以下时，计数无法再减的部分；之后归还的库存先抵扣这部分
+         */
+        private final AtomicLong debt = new AtomicLong();
+
+        private Slot(StripedStockCounter counter) {
+            this.counter = counter;
+        }
+
+        private void release(long quantity) {
+            long remaining = quantity;
+            long owed;
+            while (remaining > 0 && (owed = debt.get()) > 0) {
+                long pay = Math.min(owed, remaining);
+                if (debt.compareAndSet(owed, owed - pay)) {
+                    remaining -= pay;
+                }
+            }
+            counter.release(remaining);
+        }
+
+        private void take(long quantity) {
+            long drained = counter.drain(quantity);
+            if (drained < quantity) {
+                debt.addAndGet(quantity - drained);
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.config.WebMvcConfig;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.common.Result;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.HomeRailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 首页商品栏 Service 实现类
+ * <p>
+ * 每栏按销量保存前 max-size 个商品，生成新的快照后整体替换，读取方不加锁。
+ * 不同 limit 的响应体在首次请求时序列化并保存在快照中，之后直接返回同一份字节；
+ * limit 超过 max-size 时直接查询数据库（与原接口一致，不限制数量），结果不缓存。
+ * <p>
+ * 商品变更事件只记录商品ID，由后台任务按 home.rails.check-interval-ms 合并处理：
+ * 用一条查询读出变更商品的当前数据，在各栏中移除后按标记和销量重新放入，只替换内容有变化的栏。
+ * 快照之外的商品销量都不高于原快照末位，合并后不低于原末位的商品不足 max-size 个时无法确定排名，
+ * 此时重新查询该栏。超过 home.rails.max-age-ms 的快照整体重建，兜底直接改库等没有事件的变更
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class HomeRailServiceImpl implements HomeRailService {
+
+    private final ObjectMapper objectMapper = WebMvcConfig.createResponseObjectMapper();
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Value("${home.rails.max-size:50}")
+    private int maxSize;
+
+    @Value("${home.rails.max-age-ms:60000}")
+    private long maxAgeMillis;
+
+    private static final Comparator<Product> BY_SALES_DESC =
+            Comparator.comparingLong(HomeRailServiceImpl::sales).reversed();
+
+    private volatile Map<Rail, Snapshot> snapshots;
+
+    /**
+     * 最近一次整体重建的时间
+     */
+    private volatile long builtAt;
+
+    /**
+     * 已提交、尚未合并到快照的商品ID
+     */
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder uncachedRequests = new LongAdder();
+    private final LongAdder serializations = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+    private final LongAdder railRequeries = new LongAdder();
+    private final LongAdder changeEvents = new LongAdder();
+    private final AtomicLong lastRefreshMillis = new AtomicLong();
+
+    @Override
+    public byte[] getRailJson(Rail rail, int limit) {
+        requests.increment();
+        if (limit > maxSize) {
+            uncachedRequests.increment();
+            return serialize(query(rail, limit));
+        }
+        Map<Rail, Snapshot> current = snapshots;
+        if (current == null) {
+            refresh();
+            current = snapshots;
+        }
+        return current.get(rail).body(Math.max(1, limit));
+    }
+
+    /**
+     * 记录变更的商品（事务提交后执行），由 refreshIfStale 合并到快照
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changeEvents.increment();
+        changed.addAll(event.getProductIds());
+    }
+
+    @Override
+    public boolean refreshIfStale() {
+        if (snapshots == null || System.currentTimeMillis() - builtAt >= maxAgeMillis) {
+            refresh();
+            return true;
+        }
+        if (changed.isEmpty()) {
+            return false;
+        }
+        mergeChanged();
+        return true;
+    }
+
+    @Override
+    public synchronized void refresh() {
+        // 先清除变更再查询，查询期间提交的变更会在下一次检查时再合并一次
+        changed.clear();
+        long begin = System.currentTimeMillis();
+
+        Map<Rail, Snapshot> rebuilt = new EnumMap<>(Rail.class);
+        for (Rail rail : Rail.values()) {
+            rebuilt.put(rail, new Snapshot(query(rail, maxSize)));
+        }
+        snapshots = rebuilt;
+        builtAt = begin;
+
+        refreshes.increment();
+        lastRefreshMillis.set(System.currentTimeMillis() - begin);
+        log.debug("首页商品栏快照重建完成：耗时={}ms", lastRefreshMillis.get());
+    }
+
+    /**
+     * 把变更商品的当前数据合并到各栏，只替换内容有变化的栏
+     */
+    private synchronized void mergeChanged() {
+        Map<Rail, Snapshot> current = snapshots;
+        List<Long> ids = new ArrayList<>(changed);
+        if (current == null || ids.isEmpty()) {
+            return;
+        }
+        changed.removeAll(ids);
+
+        Map<Long, Product> loaded = new HashMap<>();
+        try {
+            for (Product product : productMapper.selectRailCandidates(ids)) {
+                loaded.put(product.getId(), product);
+            }
+        } catch (RuntimeException e) {
+            // 未合并的商品放回，下次重试
+            changed.addAll(ids);
+            throw e;
+        }
+
+        Map<Rail, Snapshot> updated = new EnumMap<>(current);
+        for (Rail rail : Rail.values()) {
+            List<Product> products = current.get(rail).products;
+            List<Product> merged = merge(rail, products, ids, loaded);
+            if (merged == products) {
+                continue;
+            }
+            if (merged == null) {
+                railRequeries.increment();
+                merged = query(rail, maxSize);
+            }
+            updated.put(rail, new Snapshot(merged));
+        }
+        snapshots = updated;
+        merges.increment();
+    }
+
+    /**
+     * 从栏中移除变更商品，再把仍属于该栏的按销量放入
+     *
+     * @return 未涉及本栏时返回原列表；无法确定前 max-size 名时返回 null
+     */
+    private List<Product> merge(Rail rail, List<Product> products, List<Long> ids, Map<Long, Product> loaded) {
+        Set<Long> idSet = new HashSet<>(ids);
+        boolean touched = false;
+        List<Product> merged = new ArrayList<>(products.size() + ids.size());
+        for (Product product : products) {
+            if (idSet.contains(product.getId())) {
+                touched = true;
+            } else {
+                merged.add(product);
+            }
+        }
+        for (Long productId : ids) {
+            Product product = loaded.get(productId);
+            if (product != null && belongsTo(rail, product)) {
+                merged.add(product);
+                touched = true;
+            }
+        }
+        if (!touched) {
+            return products;
+        }
+        merged.sort(BY_SALES_DESC);
+
+        if (products.size() >= maxSize) {
+            long tail = sales(products.get(products.size() - 1));
+            int known = 0;
+            while (known < merged.size() && sales(merged.get(known)) >= tail) {
+                known++;
+            }
+            if (known < maxSize) {
+                return null;
+            }
+        }
+        return merged.size() > maxSize ? merged.subList(0, maxSize) : merged;
+    }
+
+    private List<Product> query(Rail rail, int limit) {
+        return switch (rail) {
+            case HOT -> productMapper.selectHotProducts(limit);
+            case RECOMMEND -> productMapper.selectRecommendProducts(limit);
+            case FLASH_SALE -> productMapper.selectFlashSaleProducts(limit);
+        };
+    }
+
+    private static boolean belongsTo(Rail rail, Product product) {
+        Integer flag = switch (rail) {
+            case HOT -> product.getIsHot();
+            case RECOMMEND -> product.getIsRecommend();
+            case FLASH_SALE -> product.getIsFlashSale();
+        };
+        return Integer.valueOf(1).equals(flag);
+    }
+
+    private static long sales(Product product) {
+        return product.getSales() == null ? 0 : product.getSales();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<Rail, Snapshot> current = snapshots;
+        if (current != null) {
+            Map<String, Object> sizes = new LinkedHashMap<>();
+            current.forEach((rail, snapshot) -> sizes.put(rail.name(), snapshot.products.size()));
+            stats.put("railSizes", sizes);
+            stats.put("snapshotAgeMillis", System.currentTimeMillis() - builtAt);
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("pendingProducts", changed.size());
+        stats.put("requests", requests.sum());
+        stats.put("uncachedRequests", uncachedRequests.sum());
+        stats.put("serializations", serializations.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("merges", merges.sum());
+        stats.put("railRequeries", railRequeries.sum());
+        stats.put("changeEvents", changeEvents.sum());
+        stats.put("lastRefreshMillis", lastRefreshMillis.get());
+        return stats;
+    }
+
+    /**
+     * 商品栏快照：商品列表创建后不再修改，按 limit 缓存序列化结果
+     */
+    private final class Snapshot {
+
+        private final List<Product> products;
+
+        /**
+         * 下标为 limit，并发首次请求可能重复序列化，结果相同，保留任意一份即可
+         */
+        private final AtomicReferenceArray<byte[]> bodies = new AtomicReferenceArray<>(maxSize + 1);
+
+        private Snapshot(List<Product> products) {
+            this.products = List.copyOf(products);
+        }
+
+        private byte[] body(int limit) {
+            byte[] body = bodies.get(limit);
+            if (body == null) {
+                body = serialize(products.subList(0, Math.min(limit, products.size())));
+                bodies.compareAndSet(limit, null, body);
+            }
+            return body;
+        }
+    }
+
+    private byte[] serialize(List<Product> products) {
+        serializations.increment();
+        try {
+            return objectMapper.writeValueAsBytes(Result.success(products));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("首页商品栏序列化失败", e);
+        }
+    }
+}
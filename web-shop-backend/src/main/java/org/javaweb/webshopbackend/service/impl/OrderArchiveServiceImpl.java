@@ -0,0 +1,110 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.mapper.OrderArchiveMapper;
+import org.javaweb.webshopbackend.service.OrderArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 订单归档 Service 实现类
+ * <p>
+ * 按ID顺序分块：每块在一个事务中先锁定仍满足条件的订单（期间被改为其他状态的订单自动跳过），
+ * 再复制订单项、订单到归档表并从热表删除。中途失败只回滚当前块，下次从头扫描即可继续
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class OrderArchiveServiceImpl implements OrderArchiveService {
+
+    @Autowired
+    private OrderArchiveMapper orderArchiveMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${order.archive.after-days:180}")
+    private int afterDays;
+
+    @Value("${order.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final LongAdder archivedOrders = new LongAdder();
+    private final LongAdder archivedItems = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastRunTime = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public synchronized int archiveDue() {
+        long begin = System.currentTimeMillis();
+        LocalDateTime updatedBefore = LocalDateTime.now().minusDays(afterDays);
+        log.info("开始归档订单：最后更新早于={}", updatedBefore);
+
+        int total = 0;
+        long afterId = 0;
+        List<Long> candidates;
+        while (!(candidates = orderArchiveMapper.selectArchivableIds(updatedBefore, afterId, chunkSize)).isEmpty()) {
+            total += archiveChunk(candidates, updatedBefore);
+            afterId = candidates.get(candidates.size() - 1);
+        }
+
+        lastRunMillis.set(System.currentTimeMillis() - begin);
+        lastRunTime.set(LocalDateTime.now());
+        log.info("订单归档完成：订单数={}, 耗时={}ms", total, lastRunMillis.get());
+        return total;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("afterDays", afterDays);
+        stats.put("chunkSize", chunkSize);
+        stats.put("archivedOrders", archivedOrders.sum());
+        stats.put("archivedItems", archivedItems.sum());
+        stats.put("chunks", chunks.sum());
+        stats.put("lastRunMillis", lastRunMillis.get());
+        stats.put("lastRunTime", lastRunTime.get());
+        return stats;
+    }
+
+    private int archiveChunk(List<Long> candidates, LocalDateTime updatedBefore) {
+        int[] counts = transactionTemplate.execute(status -> {
+            List<Long> orderIds = orderArchiveMapper.lockArchivableIds(candidates, updatedBefore);
+            if (orderIds.isEmpty()) {
+                return new int[]{0, 0};
+            }
+            int items = orderArchiveMapper.copyItems(orderIds);
+            int orders = orderArchiveMapper.copyOrders(orderIds);
+            orderArchiveMapper.deleteItems(orderIds);
+            orderArchiveMapper.deleteOrders(orderIds);
+            return new int[]{orders, items};
+        });
+        chunks.increment();
+        archivedOrders.add(counts[0]);
+        archivedItems.add(counts[1]);
+        log.info("订单归档进度：本块候选={}, 归档订单={}, 归档订单项={}", candidates.size(), counts[0], counts[1]);
+        return counts[0];
+    }
+}
@@ -0,0 +1,196 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.OrderStatusChangedEvent;
+import org.javaweb.webshopbackend.mapper.OrdersMapper;
+import org.javaweb.webshopbackend.pojo.entity.OrderItem;
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+import org.javaweb.webshopbackend.service.OrderBulkTransitionService;
+import org.javaweb.webshopbackend.service.OrderItemService;
+import org.javaweb.webshopbackend.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 订单批量状态流转 Service 实现类
+ * <p>
+ * 每块先按ID顺序取出到期订单，在事务中锁定其中仍处于原状态的订单（SELECT ... FOR UPDATE），
+ * 再用一条 UPDATE ... WHERE id IN (...) 只流转这些订单；用户在此之前已操作的订单不在锁定结果中，
+ * 之后的用户操作要等本块提交，因此恢复库存和发布事件的订单与实际更新的订单完全一致。取消时按商品/SKU汇总数量后恢复库存，
+ * 每个商品只更新一次。每块提交后为实际流转的订单发布状态变更事件
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class OrderBulkTransitionServiceImpl implements OrderBulkTransitionService {
+
+    @Autowired
+    private OrdersMapper ordersMapper;
+
+    @Autowired
+    private OrderItemService orderItemService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${order.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder restoredItems = new LongAdder();
+    private final AtomicLong lastChunkMillis = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public int confirmDue(LocalDateTime shipBefore) {
+        int total = 0;
+        long afterId = 0;
+        List<Orders> chunk;
+        while (!(chunk = ordersMapper.selectDueOrders(2, null, shipBefore, afterId, chunkSize)).isEmpty()) {
+            total += confirmOrders(chunk);
+            afterId = chunk.get(chunk.size() - 1).getId();
+            log.info("批量确认收货进度：本块={}, 累计={}, 最后订单ID={}", chunk.size(), total, afterId);
+        }
+        return total;
+    }
+
+    @Override
+    public int cancelDue(LocalDateTime createdBefore, String reason) {
+        int total = 0;
+        long afterId = 0;
+        List<Orders> chunk;
+        while (!(chunk = ordersMapper.selectDueOrders(0, createdBefore, null, afterId, chunkSize)).isEmpty()) {
+            total += cancelOrders(chunk, reason);
+            afterId = chunk.get(chunk.size() - 1).getId();
+            log.info("批量取消订单进度：本块={}, 累计={}, 最后订单ID={}", chunk.size(), total, afterId);
+        }
+        return total;
+    }
+
+    @Override
+    public int confirmOrders(List<Orders> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        long begin = System.currentTimeMillis();
+        int count = transactionTemplate.execute(status -> {
+            List<Long> orderIds = ordersMapper.selectIdsByStatusForUpdate(
+                    orders.stream().map(Orders::getId).toList(), 2);
+            if (orderIds.isEmpty()) {
+                return 0;
+            }
+            ordersMapper.bulkConfirmReceive(orderIds, LocalDateTime.now().withNano(0));
+
+            Set<Long> transitioned = new HashSet<>(orderIds);
+            publish(orders, transitioned, 2, 3);
+            return transitioned.size();
+        });
+        record(orders.size(), count, begin);
+        confirmed.add(count);
+        return count;
+    }
+
+    @Override
+    public int cancelOrders(List<Orders> orders, String reason) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        long begin = System.currentTimeMillis();
+        int count = transactionTemplate.execute(status -> {
+            List<Long> orderIds = ordersMapper.selectIdsByStatusForUpdate(
+                    orders.stream().map(Orders::getId).toList(), 0);
+            if (orderIds.isEmpty()) {
+                return 0;
+            }
+            ordersMapper.bulkCancel(orderIds, LocalDateTime.now().withNano(0), reason);
+
+            Set<Long> transitioned = new HashSet<>(orderIds);
+            restoreStock(transitioned);
+            publish(orders, transitioned, 0, 4);
+            return transitioned.size();
+        });
+        record(orders.size(), count, begin);
+        cancelled.add(count);
+        return count;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("chunkSize", chunkSize);
+        stats.put("chunks", chunks.sum());
+        stats.put("confirmed", confirmed.sum());
+        stats.put("cancelled", cancelled.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("restoredItems", restoredItems.sum());
+        stats.put("lastChunkMillis", lastChunkMillis.get());
+        return stats;
+    }
+
+    /**
+     * 按商品/SKU汇总取消订单的购买数量后恢复库存（按ID升序更新，避免与其他批次交叉加锁）
+     */
+    private void restoreStock(Set<Long> orderIds) {
+        List<OrderItem> items = orderItemService.list(new LambdaQueryWrapper<OrderItem>()
+                .in(OrderItem::getOrderId, orderIds));
+        Map<Long, Integer> productQuantities = new TreeMap<>();
+        Map<Long, Integer> skuQuantities = new TreeMap<>();
+        for (OrderItem item : items) {
+            productQuantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            if (item.getSkuId() != null) {
+                skuQuantities.merge(item.getSkuId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        productQuantities.forEach(productService::updateProductStock);
+        skuQuantities.forEach(productService::updateSkuStock);
+        restoredItems.add(items.size());
+    }
+
+    private void publish(List<Orders> orders, Set<Long> transitioned, int fromStatus, int toStatus) {
+        for (Orders order : orders) {
+            if (transitioned.contains(order.getId())) {
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                        order.getId(), order.getOrderNo(), order.getUserId(), fromStatus, toStatus));
+            }
+        }
+    }
+
+    private void record(int size, int count, long begin) {
+        chunks.increment();
+        skipped.add(size - count);
+        lastChunkMillis.set(System.currentTimeMillis() - begin);
+    }
+}
@@ -0,0 +1,184 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.javaweb.webshopbackend.mapper.OrdersMapper;
+import org.javaweb.webshopbackend.pojo.entity.OrderItem;
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+import org.javaweb.webshopbackend.service.OrderExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 订单导出 Service 实现类
+ * <p>
+ * 通过 MyBatis Cursor 逐个订单读取（MySQL 驱动按行流式返回，结果集不在内存中缓存），
+ * 每读到一个订单立即写出，只持有当前订单及其订单项。游标在只读事务中打开并在结束后关闭；
+ * 先导出热表订单，再导出归档表中的订单
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String CSV_HEADER = "订单号,下单时间,订单状态,用户ID,收件人,收件人电话,收货地址,"
+            + "订单金额,实付金额,运费,支付方式,支付时间,发货时间,收货时间,取消时间,物流公司,物流单号,备注,"
+            + "商品ID,SKU ID,商品名称,规格,单价,数量,小计";
+
+    /**
+     * 表格软件会按公式解析的首字符
+     */
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    /**
+     * 每写出多少个订单刷新一次输出流
+     */
+    private static final int FLUSH_EVERY = 1000;
+
+    @Autowired
+    private OrdersMapper ordersMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody exportOrders(String format, Integer status,
+                                              LocalDateTime startTime, LocalDateTime endTime) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"jsonl".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("导出格式只支持 csv 或 jsonl");
+        }
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("导出时间范围不能为空");
+        }
+        if (startTime.isAfter(endTime)) {
+            throw new IllegalArgumentException("开始时间不能晚于结束时间");
+        }
+
+        return outputStream -> {
+            log.info("开始导出订单：format={}, status={}, startTime={}, endTime={}", format, status, startTime, endTime);
+            long begin = System.currentTimeMillis();
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            if (csv) {
+                // 带BOM，Excel 打开时按 UTF-8 识别中文
+                writer.write('\uFEFF');
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            // 先导出热表订单，再导出归档订单
+            long count = exportTable(writer, csv, false, status, startTime, endTime)
+                    + exportTable(writer, csv, true, status, startTime, endTime);
+            writer.flush();
+            log.info("订单导出完成：订单数={}, 耗时={}ms", count, System.currentTimeMillis() - begin);
+        };
+    }
+
+    private long exportTable(Writer writer, boolean csv, boolean archived, Integer status,
+                             LocalDateTime startTime, LocalDateTime endTime) {
+        return transactionTemplate.execute(tx -> {
+            try (Cursor<Orders> cursor = ordersMapper.selectOrdersForExport(archived, status, startTime, endTime)) {
+                long exported = 0;
+                for (Orders order : cursor) {
+                    if (csv) {
+                        writeCsv(writer, order);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(order));
+                        writer.write('\n');
+                    }
+                    if (++exported % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+                return exported;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * 每个订单项一行，订单字段在各行重复；没有订单项的订单输出一行
+     */
+    private void writeCsv(Writer writer, Orders order) throws IOException {
+        List<OrderItem> items = order.getItems();
+        if (items == null || items.isEmpty()) {
+            writeCsvLine(writer, order, null);
+            return;
+        }
+        for (OrderItem item : items) {
+            writeCsvLine(writer, order, item);
+        }
+    }
+
+    private void writeCsvLine(Writer writer, Orders order, OrderItem item) throws IOException {
+        Object[] values = {
+                order.getOrderNo(), order.getCreatedTime(), order.getStatus(), order.getUserId(),
+                order.getReceiverName(), order.getReceiverPhone(), order.getReceiverAddress(),
+                order.getTotalAmount(), order.getPayAmount(), order.getFreight(), order.getPaymentMethod(),
+                order.getPayTime(), order.getShipTime(), order.getReceiveTime(), order.getCancelTime(),
+                order.getExpressCompany(), order.getTrackingNo(), order.getNote(),
+                item != null ? item.getProductId() : null,
+                item != null ? item.getSkuId() : null,
+                item != null ? item.getProductName() : null,
+                item != null ? item.getSpecInfo() : null,
+                item != null ? item.getUnitPrice() : null,
+                item != null ? item.getQuantity() : null,
+                item != null ? item.getTotalPrice() : null
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(writer, values[i]);
+        }
+        writer.write('\n');
+    }
+
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof LocalDateTime time ? TIME_FORMATTER.format(time) : value.toString();
+        // 收件人、地址、备注、商品名等为用户输入，以公式字符开头时加单引号前缀，避免表格软件打开时按公式执行
+        if (!(value instanceof Number) && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,116 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.pojo.dto.OrderLineDTO;
+import org.javaweb.webshopbackend.pojo.dto.PricedOrder;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.service.OrderPricingService;
+import org.javaweb.webshopbackend.service.ProductService;
+import org.javaweb.webshopbackend.service.ProductSkuService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 订单定价 Service 实现类
+ * 每次下单只发出两条查询（商品、SKU各一次IN查询），其余校验和计价均在内存中完成
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class OrderPricingServiceImpl implements OrderPricingService {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSkuService productSkuService;
+
+    @Override
+    public PricedOrder price(List<OrderLineDTO> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("订单商品不能为空");
+        }
+
+        // 1. 批量加载商品和SKU
+        Set<Long> productIds = new LinkedHashSet<>();
+        Set<Long> skuIds = new LinkedHashSet<>();
+        for (OrderLineDTO line : lines) {
+            if (line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("购买数量必须大于0");
+            }
+            productIds.add(line.getProductId());
+            if (line.getSkuId() != null) {
+                skuIds.add(line.getSkuId());
+            }
+        }
+
+        Map<Long, Product> products = productService.listByIds(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<Long, ProductSku> skus = skuIds.isEmpty()
+                ? Collections.emptyMap()
+                : productSkuService.listByIds(skuIds).stream()
+                    .collect(Collectors.toMap(ProductSku::getId, Function.identity()));
+
+        // 2. 校验商品状态和库存（同一商品的多行合并计算）
+        Map<Long, Integer> requested = new HashMap<>();
+        for (OrderLineDTO line : lines) {
+            Product product = products.get(line.getProductId());
+            if (product == null || product.getStatus() == 0) {
+                throw new IllegalArgumentException("商品不存在或已下架");
+            }
+            requested.merge(product.getId(), line.getQuantity(), Integer::sum);
+        }
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            Product product = products.get(entry.getKey());
+            if (product.getStock() == null || product.getStock() < entry.getValue()) {
+                throw new IllegalArgumentException("商品 " + product.getName() + " 库存不足");
+            }
+        }
+
+        // 3. 计价
+        List<PricedOrder.Line> pricedLines = new ArrayList<>(lines.size());
+        BigDecimal itemsAmount = BigDecimal.ZERO;
+        for (OrderLineDTO line : lines) {
+            Product product = products.get(line.getProductId());
+
+            // 获取SKU价格，如果没有SKU则使用商品价格
+            BigDecimal unitPrice = product.getPrice();
+            if (line.isSkuPriced() && line.getSkuId() != null) {
+                ProductSku sku = skus.get(line.getSkuId());
+                if (sku != null && sku.getPrice() != null) {
+                    unitPrice = sku.getPrice();
+                }
+            }
+
+            BigDecimal totalPrice = unitPrice.multiply(new BigDecimal(line.getQuantity()));
+            itemsAmount = itemsAmount.add(totalPrice);
+            pricedLines.add(new PricedOrder.Line(
+                    product.getId(),
+                    product.getName(),
+                    product.getCoverImage(),
+                    line.getSkuId(),
+                    line.getSpecInfo(),
+                    unitPrice,
+                    line.getQuantity(),
+                    totalPrice));
+        }
+
+        log.info("订单定价完成：商品数={}, SKU数={}, 订单行={}, 商品金额={}",
+                products.size(), skus.size(), pricedLines.size(), itemsAmount);
+        return new PricedOrder(Collections.unmodifiableList(pricedLines), itemsAmount);
+    }
+}
@@ -0,0 +1,101 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.OrderStatusChangedEvent;
+import org.javaweb.webshopbackend.mapper.OrdersMapper;
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+import org.javaweb.webshopbackend.service.OrderStateMachine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单状态机实现类
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class OrderStateMachineImpl implements OrderStateMachine {
+
+    /**
+     * 合法的状态流转：0-待付款，1-待发货，2-待收货，3-已完成，4-已取消，5-退款中，7-已退款
+     */
+    private static final Map<Integer, Set<Integer>> TRANSITIONS = Map.of(
+            0, Set.of(1, 4),
+            1, Set.of(2, 4, 5),
+            2, Set.of(3, 4, 5),
+            3, Set.of(5),
+            5, Set.of(1, 2, 3, 7)
+    );
+
+    @Autowired
+    private OrdersMapper ordersMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public boolean canTransition(int fromStatus, int toStatus) {
+        return TRANSITIONS.getOrDefault(fromStatus, Set.of()).contains(toStatus);
+    }
+
+    @Override
+    public void transition(Orders order, int toStatus, Orders changes) {
+        int fromStatus = order.getStatus();
+        if (!canTransition(fromStatus, toStatus)) {
+            throw new IllegalArgumentException("当前订单状态不允许该操作");
+        }
+
+        Orders update = changes != null ? changes : new Orders();
+        update.setStatus(toStatus);
+        LambdaUpdateWrapper<Orders> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.eq(Orders::getId, order.getId())
+               .eq(Orders::getStatus, fromStatus);
+        if (ordersMapper.update(update, wrapper) == 0) {
+            log.warn("订单状态流转失败，状态已被其他操作改变：orderNo={}, from={}, to={}",
+                    order.getOrderNo(), fromStatus, toStatus);
+            throw new IllegalArgumentException("订单状态已变化，请刷新后重试");
+        }
+
+        apply(order, update);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                order.getId(), order.getOrderNo(), order.getUserId(), fromStatus, toStatus));
+    }
+
+    /**
+     * 把已写入数据库的字段同步到调用方持有的订单对象
+     */
+    private static void apply(Orders order, Orders update) {
+        order.setStatus(update.getStatus());
+        if (update.getPaymentMethod() != null) {
+            order.setPaymentMethod(update.getPaymentMethod());
+        }
+        if (update.getPayTime() != null) {
+            order.setPayTime(update.getPayTime());
+        }
+        if (update.getShipTime() != null) {
+            order.setShipTime(update.getShipTime());
+        }
+        if (update.getReceiveTime() != null) {
+            order.setReceiveTime(update.getReceiveTime());
+        }
+        if (update.getCancelTime() != null) {
+            order.setCancelTime(update.getCancelTime());
+        }
+        if (update.getCancelReason() != null) {
+            order.setCancelReason(update.getCancelReason());
+        }
+        if (update.getExpressCompany() != null) {
+            order.setExpressCompany(update.getExpressCompany());
+        }
+        if (update.getTrackingNo() != null) {
+            order.setTrackingNo(update.getTrackingNo());
+        }
+    }
+}
@@ -5,19 +5,29 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.OrderStatusChangedEvent;
+import org.javaweb.webshopbackend.mapper.OrderArchiveMapper;
 import org.javaweb.webshopbackend.mapper.OrdersMapper;
+import org.javaweb.webshopbackend.pojo.common.CursorPageResult;
 import org.javaweb.webshopbackend.pojo.dto.OrderCreateDTO;
+import org.javaweb.webshopbackend.pojo.dto.OrderLineDTO;
+import org.javaweb.webshopbackend.pojo.dto.PricedOrder;
 import org.javaweb.webshopbackend.pojo.entity.*;
 import org.javaweb.webshopbackend.service.*;
+import org.javaweb.webshopbackend.util.PageCursor;
+import org.javaweb.webshopbackend.util.SnowflakeIdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 订单 Service 实现类
@@ -29,15 +39,22 @@ import java.util.Map;
 @Service
 public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> implements OrdersService {
 
+    /**
+     * 游标分页每页最大条数
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    /**
+     * 可能被归档的订单状态：已完成、已取消、已退款
+     */
+    private static final Set<Integer> ARCHIVED_STATUSES = Set.of(3, 4, 7);
+
     @Autowired
     private ShoppingCartService shoppingCartService;
 
     @Autowired
     private ProductService productService;
 
-    @Autowired
-    private ProductSkuService productSkuService;
-
     @Autowired
     private OrderItemService orderItemService;
 
@@ -53,6 +70,30 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
     @Autowired
     private SystemSettingsService systemSettingsService;
 
+    @Autowired
+    private OrderPricingService orderPricingService;
+
+    @Autowired
+    private FlashSaleStockService flashSaleStockService;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UserOrderCounterService userOrderCounterService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private OrderArchiveMapper orderArchiveMapper;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Orders createOrder(Long userId, Long addressId, List<Long> cartItemIds, String note) {
@@ -77,69 +118,21 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
             }
         }
 
-        // 3. 检查库存并计算总金额
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        // 3. 批量定价（检查库存并计算总金额，购物车下单沿用商品价格）
+        List<OrderLineDTO> lines = new ArrayList<>(cartItems.size());
         for (ShoppingCart cartItem : cartItems) {
-            Product product = productService.getById(cartItem.getProductId());
-            if (product == null || product.getStatus() == 0) {
-                throw new IllegalArgumentException("商品不存在或已下架");
-            }
-            if (!productService.checkStock(product.getId(), cartItem.getQuantity())) {
-                throw new IllegalArgumentException("商品 " + product.getName() + " 库存不足");
-            }
-            BigDecimal itemTotal = product.getPrice().multiply(new BigDecimal(cartItem.getQuantity()));
-            totalAmount = totalAmount.add(itemTotal);
+            lines.add(new OrderLineDTO(cartItem.getProductId(), cartItem.getSkuId(),
+                    cartItem.getQuantity(), cartItem.getSpecInfo(), false));
         }
+        PricedOrder pricedOrder = orderPricingService.price(lines);
 
-        // 获取系统设置中的默认运费
-        SystemSettings settings = systemSettingsService.getSettings();
-        BigDecimal freight = settings != null && settings.getDefaultShipping() != null
-            ? settings.getDefaultShipping()
-            : BigDecimal.ZERO;
-
-        // 4. 创建订单
-        Orders order = new Orders();
-        order.setOrderNo(generateOrderNo());
-        order.setUserId(userId);
-        order.setTotalAmount(totalAmount.add(freight));
-        order.setPayAmount(totalAmount.add(freight));
-        order.setFreight(freight);
-        order.setStatus(0);
-        order.setReceiverName(address.getReceiverName());
-        order.setReceiverPhone(address.getReceiverPhone());
-        order.setReceiverAddress(address.getProvince() + address.getCity() +
-                                address.getDistrict() + address.getDetailAddress());
-        order.setNote(note);
-        this.save(order);
-
-        // 5. 创建订单项并减库存
-        for (ShoppingCart cartItem : cartItems) {
-            Product product = productService.getById(cartItem.getProductId());
-
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrderId(order.getId());
-            orderItem.setProductId(product.getId());
-            orderItem.setProductName(product.getName());
-            orderItem.setProductImage(product.getCoverImage());
-            orderItem.setSpecInfo(cartItem.getSpecInfo());
-            orderItem.setSkuId(cartItem.getSkuId());  // 保存SKU ID
-            orderItem.setUnitPrice(product.getPrice());
-            orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setTotalPrice(product.getPrice().multiply(new BigDecimal(cartItem.getQuantity())));
-            orderItem.setIsReviewed(0);
-            orderItemService.save(orderItem);
-
-            // 减少商品库存和SKU库存
-            productService.updateProductStock(product.getId(), -cartItem.getQuantity());
-            if (cartItem.getSkuId() != null) {
-                productService.updateSkuStock(cartItem.getSkuId(), -cartItem.getQuantity());
-            }
-        }
+        // 4. 创建订单、订单项并减库存
+        Orders order = persistOrder(userId, address, pricedOrder, note);
 
-        // 6. 清除购物车
+        // 5. 清除购物车
         shoppingCartService.removeCarts(cartItemIds);
 
-        log.info("订单创建成功：orderNo={}, totalAmount={}", order.getOrderNo(), totalAmount);
+        log.info("订单创建成功：orderNo={}, totalAmount={}", order.getOrderNo(), pricedOrder.getItemsAmount());
         return order;
     }
 
@@ -154,40 +147,34 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
             throw new IllegalArgumentException("收货地址不存在");
         }
 
-        // 2. 检查库存并计算总金额
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        // 2. 批量定价（检查库存并计算总金额，有SKU时使用SKU价格）
+        List<OrderLineDTO> lines = new ArrayList<>(items.size());
         for (OrderCreateDTO.OrderItemDTO item : items) {
-            Product product = productService.getById(item.getProductId());
-            if (product == null || product.getStatus() == 0) {
-                throw new IllegalArgumentException("商品不存在或已下架");
-            }
-            if (!productService.checkStock(product.getId(), item.getQuantity())) {
-                throw new IllegalArgumentException("商品 " + product.getName() + " 库存不足");
-            }
-            
-            // 获取SKU价格，如果没有SKU则使用商品价格
-            BigDecimal itemPrice = product.getPrice();
-            if (item.getSkuId() != null) {
-                ProductSku sku = productSkuService.getById(item.getSkuId());
-                if (sku != null && sku.getPrice() != null) {
-                    itemPrice = sku.getPrice();
-                    log.info("使用SKU价格：skuId={}, price={}", item.getSkuId(), itemPrice);
-                }
-            }
-            
-            BigDecimal itemTotal = itemPrice.multiply(new BigDecimal(item.getQuantity()));
-            totalAmount = totalAmount.add(itemTotal);
+            lines.add(new OrderLineDTO(item.getProductId(), item.getSkuId(), item.getQuantity(), "", true));
         }
+        PricedOrder pricedOrder = orderPricingService.price(lines);
+
+        // 3. 创建订单、订单项并减库存
+        Orders order = persistOrder(userId, address, pricedOrder, note);
+
+        log.info("订单创建成功：orderNo={}, totalAmount={}", order.getOrderNo(), pricedOrder.getItemsAmount());
+        return order;
+    }
 
+    /**
+     * 根据定价快照创建订单、批量写入订单项并扣减库存
+     */
+    private Orders persistOrder(Long userId, UserAddress address, PricedOrder pricedOrder, String note) {
         // 获取系统设置中的默认运费
         SystemSettings settings = systemSettingsService.getSettings();
         BigDecimal freight = settings != null && settings.getDefaultShipping() != null
             ? settings.getDefaultShipping()
             : BigDecimal.ZERO;
+        BigDecimal totalAmount = pricedOrder.getItemsAmount();
 
-        // 3. 创建订单
+        // 创建订单
         Orders order = new Orders();
-        order.setOrderNo(generateOrderNo());
+        order.setOrderNo(idGenerator.nextOrderNo());
         order.setUserId(userId);
         order.setTotalAmount(totalAmount.add(freight));
         order.setPayAmount(totalAmount.add(freight));
@@ -200,40 +187,42 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         order.setNote(note);
         this.save(order);
 
-        // 4. 创建订单项并减库存
-        for (OrderCreateDTO.OrderItemDTO item : items) {
-            Product product = productService.getById(item.getProductId());
-
-            // 获取SKU价格，如果没有SKU则使用商品价格
-            BigDecimal itemPrice = product.getPrice();
-            if (item.getSkuId() != null) {
-                ProductSku sku = productSkuService.getById(item.getSkuId());
-                if (sku != null && sku.getPrice() != null) {
-                    itemPrice = sku.getPrice();
-                }
-            }
-
+        // 创建订单项
+        List<OrderItem> orderItems = new ArrayList<>(pricedOrder.getLines().size());
+        for (PricedOrder.Line line : pricedOrder.getLines()) {
             OrderItem orderItem = new OrderItem();
             orderItem.setOrderId(order.getId());
-            orderItem.setProductId(product.getId());
-            orderItem.setProductName(product.getName());
-            orderItem.setProductImage(product.getCoverImage());
-            orderItem.setSpecInfo("");
-            orderItem.setSkuId(item.getSkuId());  // 保存SKU ID
-            orderItem.setUnitPrice(itemPrice);  // 使用SKU价格或商品价格
-            orderItem.setQuantity(item.getQuantity());
-            orderItem.setTotalPrice(itemPrice.multiply(new BigDecimal(item.getQuantity())));
+            orderItem.setProductId(line.getProductId());
+            orderItem.setProductName(line.getProductName());
+            orderItem.setProductImage(line.getProductImage());
+            orderItem.setSpecInfo(line.getSpecInfo());
+            orderItem.setSkuId(line.getSkuId());  // 保存SKU ID
+            orderItem.setUnitPrice(line.getUnitPrice());
+            orderItem.setQuantity(line.getQuantity());
+            orderItem.setTotalPrice(line.getTotalPrice());
             orderItem.setIsReviewed(0);
-            orderItemService.save(orderItem);
-
-            // 减少商品库存和SKU库存
-            productService.updateProductStock(product.getId(), -item.getQuantity());
-            if (item.getSkuId() != null) {
-                productService.updateSkuStock(item.getSkuId(), -item.getQuantity());
+            orderItems.add(orderItem);
+        }
+        orderItemService.saveBatch(orderItems);
+
+        // 条件扣减商品库存和SKU库存，任一扣减失败即回滚整个订单
+        for (PricedOrder.Line line : pricedOrder.getLines()) {
+            // 秒杀商品在内存中预占，扣减流水由后台任务批量落库
+            if (flashSaleStockService.isManaged(line.getProductId())) {
+                if (!flashSaleStockService.reserve(line.getProductId(), line.getSkuId(), line.getQuantity())) {
+                    throw new IllegalArgumentException("商品 " + line.getProductName() + " 已抢光");
+                }
+                continue;
+            }
+            if (!productService.deductProductStock(line.getProductId(), line.getQuantity())) {
+                throw new IllegalArgumentException("商品 " + line.getProductName() + " 库存不足");
+            }
+            if (line.getSkuId() != null && !productService.deductSkuStock(line.getSkuId(), line.getQuantity())) {
+                throw new IllegalArgumentException("商品 " + line.getProductName() + " 所选规格库存不足");
             }
         }
 
-        log.info("订单创建成功：orderNo={}, totalAmount={}", order.getOrderNo(), totalAmount);
+        publishStatusChanged(order, null, order.getStatus());
         return order;
     }
 
@@ -241,7 +230,24 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
     public IPage<Orders> getOrderPage(Page<Orders> page, Long userId, Integer status) {
         log.info("分页查询用户订单：userId={}, status={}", userId, status);
 
-        return baseMapper.selectPageWithItems(page, userId, status);
+        IPage<Long> idPage = baseMapper.selectOrderIdPage(toIdPage(page), userId, status);
+        if (!page.searchCount() || (status != null && !ARCHIVED_STATUSES.contains(status))) {
+            return fillOrderPage(page, idPage);
+        }
+
+        // 热表订单在前、归档订单在后：热表翻完后接着从归档表取，总数为两者之和
+        long hotTotal = idPage.getTotal();
+        long archivedTotal = orderArchiveMapper.countUserOrders(userId, status);
+        page.setTotal(hotTotal + archivedTotal);
+        List<Orders> records = loadOrdersWithItems(idPage.getRecords());
+        long remaining = page.getSize() - records.size();
+        if (remaining > 0 && archivedTotal > 0) {
+            long archivedOffset = Math.max(0, (page.getCurrent() - 1) * page.getSize() - hotTotal);
+            List<Long> archivedIds = orderArchiveMapper.selectUserOrderIds(userId, status, archivedOffset, remaining);
+            records.addAll(loadArchivedOrdersWithItems(archivedIds));
+        }
+        page.setRecords(records);
+        return page;
     }
 
     @Override
@@ -249,7 +255,127 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
                                           LocalDateTime startTime, LocalDateTime endTime) {
         log.info("管理端分页查询订单：status={}, keyword={}", status, keyword);
 
-        return baseMapper.selectAdminPage(page, status, keyword, startTime, endTime);
+        IPage<Long> idPage = baseMapper.selectAdminOrderIdPage(toIdPage(page), status, keyword, startTime, endTime);
+        return fillOrderPage(page, idPage);
+    }
+
+    @Override
+    public CursorPageResult<Orders> getAdminOrderCursorPage(String cursor, Integer size, Integer status, String keyword,
+                                                            LocalDateTime startTime, LocalDateTime endTime,
+                                                            boolean withTotal) {
+        log.info("管理端游标分页查询订单：status={}, keyword={}, withTotal={}", status, keyword, withTotal);
+
+        int limit = size == null ? 10 : Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        PageCursor after = PageCursor.decode(cursor);
+        // 关键词按前缀 LIKE 匹配，其中的通配符按普通字符处理
+        keyword = escapeLike(keyword);
+
+        // 多取一条用于判断是否还有下一页
+        List<Long> orderIds = baseMapper.selectAdminOrderIdsAfter(status, keyword, startTime, endTime,
+                after == null ? null : after.getCreatedTime(),
+                after == null ? null : after.getId(),
+                limit + 1);
+        boolean hasMore = orderIds.size() > limit;
+        if (hasMore) {
+            orderIds = orderIds.subList(0, limit);
+        }
+
+        List<Orders> records = loadOrdersWithItems(orderIds);
+        String nextCursor = null;
+        if (hasMore && !records.isEmpty()) {
+            Orders last = records.get(records.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedTime(), last.getId()).encode();
+        }
+        Long total = withTotal ? baseMapper.countAdminOrders(status, keyword, startTime, endTime) : null;
+
+        return new CursorPageResult<>(records, nextCursor, hasMore, total);
+    }
+
+    /**
+     * 构造与订单分页参数一致的ID分页对象
+     */
+    private Page<Long> toIdPage(Page<Orders> page) {
+        Page<Long> idPage = new Page<>(page.getCurrent(), page.getSize(), page.searchCount());
+        idPage.setMaxLimit(page.maxLimit());
+        return idPage;
+    }
+
+    /**
+     * 两阶段分页第二步：按本页订单ID批量加载订单和订单项，在内存中组装并保持第一步的排序
+     */
+    private IPage<Orders> fillOrderPage(Page<Orders> page, IPage<Long> idPage) {
+        page.setTotal(idPage.getTotal());
+        page.setRecords(loadOrdersWithItems(idPage.getRecords()));
+        return page;
+    }
+
+    /**
+     * 按订单ID批量加载订单和订单项（一次订单查询 + 一次订单项IN查询），结果保持传入ID的顺序
+     */
+    private List<Orders> loadOrdersWithItems(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Orders> orderMap = new HashMap<>();
+        for (Orders order : baseMapper.selectBatchIds(orderIds)) {
+            order.setItems(new ArrayList<>());
+            orderMap.put(order.getId(), order);
+        }
+        List<OrderItem> items = orderItemService.list(new LambdaQueryWrapper<OrderItem>()
+                .in(OrderItem::getOrderId, orderIds)
+                .orderByAsc(OrderItem::getId));
+        for (OrderItem item : items) {
+            Orders order = orderMap.get(item.getOrderId());
+            if (order != null) {
+                order.getItems().add(item);
+            }
+        }
+
+        return inIdOrder(orderIds, orderMap);
+    }
+
+    /**
+     * 从归档表批量加载订单和订单项，结果保持传入ID的顺序
+     */
+    private List<Orders> loadArchivedOrdersWithItems(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Orders> orderMap = new HashMap<>();
+        for (Orders order : orderArchiveMapper.selectByIds(orderIds)) {
+            order.setItems(new ArrayList<>());
+            orderMap.put(order.getId(), order);
+        }
+        for (OrderItem item : orderArchiveMapper.selectItemsByOrderIds(orderIds)) {
+            Orders order = orderMap.get(item.getOrderId());
+            if (order != null) {
+                order.getItems().add(item);
+            }
+        }
+        return inIdOrder(orderIds, orderMap);
+    }
+
+    /**
+     * 转义 LIKE 通配符（MySQL 默认转义符为反斜杠）
+     */
+    private static String escapeLike(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static List<Orders> inIdOrder(List<Long> orderIds, Map<Long, Orders> orderMap) {
+        List<Orders> records = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            Orders order = orderMap.get(orderId);
+            if (order != null) {
+                records.add(order);
+            }
+        }
+        return records;
     }
 
     @Override
@@ -258,7 +384,12 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
 
         Orders order = baseMapper.selectByOrderNoWithItems(orderNo);
         if (order == null) {
-            throw new IllegalArgumentException("订单不存在");
+            // 热表中没有时查询归档表
+            Orders archived = orderArchiveMapper.selectByOrderNo(orderNo);
+            if (archived == null) {
+                throw new IllegalArgumentException("订单不存在");
+            }
+            order = loadArchivedOrdersWithItems(List.of(archived.getId())).get(0);
         }
 
         return order;
@@ -270,7 +401,12 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
 
         Orders order = this.getById(orderId);
         if (order == null) {
-            throw new IllegalArgumentException("订单不存在");
+            // 热表中没有时查询归档表
+            List<Orders> archived = loadArchivedOrdersWithItems(List.of(orderId));
+            if (archived.isEmpty()) {
+                throw new IllegalArgumentException("订单不存在");
+            }
+            return archived.get(0);
         }
 
         // 查询订单项
@@ -298,26 +434,14 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
             throw new IllegalArgumentException("当前订单状态不允许取消");
         }
 
-        // 4. 恢复库存
-        List<OrderItem> orderItems = orderItemService.getByOrderId(order.getId());
-        log.info("取消订单，恢复库存：订单项数量={}", orderItems.size());
-        for (OrderItem item : orderItems) {
-            log.info("恢复商品库存：productId={}, quantity={}, skuId={}",
-                item.getProductId(), item.getQuantity(), item.getSkuId());
-            productService.updateProductStock(item.getProductId(), item.getQuantity());
-            if (item.getSkuId() != null) {
-                log.info("恢复SKU库存：skuId={}, quantity={}", item.getSkuId(), item.getQuantity());
-                productService.updateSkuStock(item.getSkuId(), item.getQuantity());
-            } else {
-                log.warn("订单项没有SKU ID，跳过SKU库存恢复：orderItemId={}", item.getId());
-            }
-        }
+        // 4. 更新订单状态（与支付等操作并发时只有一方成功）
+        Orders changes = new Orders();
+        changes.setCancelTime(LocalDateTime.now());
+        changes.setCancelReason(reason);
+        orderStateMachine.transition(order, 4, changes);  // 已取消
 
-        // 5. 更新订单状态
-        order.setStatus(4);  // 已取消
-        order.setCancelTime(LocalDateTime.now());
-        order.setCancelReason(reason);
-        this.updateById(order);
+        // 5. 恢复库存
+        restoreStock(order);
 
         log.info("订单取消成功：orderNo={}", orderNo);
     }
@@ -334,26 +458,14 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
             throw new IllegalArgumentException("当前订单状态不允许取消");
         }
 
-        // 恢复库存
-        List<OrderItem> orderItems = orderItemService.getByOrderId(order.getId());
-        log.info("管理员取消订单，恢复库存：订单项数量={}", orderItems.size());
-        for (OrderItem item : orderItems) {
-            log.info("恢复商品库存：productId={}, quantity={}, skuId={}",
-                item.getProductId(), item.getQuantity(), item.getSkuId());
-            productService.updateProductStock(item.getProductId(), item.getQuantity());
-            if (item.getSkuId() != null) {
-                log.info("恢复SKU库存：skuId={}, quantity={}", item.getSkuId(), item.getQuantity());
-                productService.updateSkuStock(item.getSkuId(), item.getQuantity());
-            } else {
-                log.warn("订单项没有SKU ID，跳过SKU库存恢复：orderItemId={}", item.getId());
-            }
-        }
-
         // 更新订单状态
-        order.setStatus(4);
-        order.setCancelTime(LocalDateTime.now());
-        order.setCancelReason(reason);
-        this.updateById(order);
+        Orders changes = new Orders();
+        changes.setCancelTime(LocalDateTime.now());
+        changes.setCancelReason(reason);
+        orderStateMachine.transition(order, 4, changes);
+
+        // 恢复库存
+        restoreStock(order);
 
         log.info("订单取消成功：orderNo={}", orderNo);
     }
@@ -376,11 +488,11 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
             throw new IllegalArgumentException("订单状态不正确");
         }
 
-        // 4. 更新订单状态
-        order.setStatus(1);  // 待发货
-        order.setPaymentMethod(paymentMethod);
-        order.setPayTime(LocalDateTime.now());
-        this.updateById(order);
+        // 4. 更新订单状态（与自动取消等操作并发时只有一方成功）
+        Orders changes = new Orders();
+        changes.setPaymentMethod(paymentMethod);
+        changes.setPayTime(LocalDateTime.now());
+        orderStateMachine.transition(order, 1, changes);  // 待发货
 
         // 5. 增加商品销量
         List<OrderItem> orderItems = orderItemService.getByOrderId(order.getId());
@@ -406,13 +518,13 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         }
 
         // 3. 更新订单状态
-        order.setStatus(2);  // 待收货
-        order.setExpressCompany(expressCompany);
-        order.setTrackingNo(trackingNo);
-        order.setShipTime(LocalDateTime.now());
-        this.updateById(order);
+        Orders changes = new Orders();
+        changes.setExpressCompany(expressCompany);
+        changes.setTrackingNo(trackingNo);
+        changes.setShipTime(LocalDateTime.now());
+        orderStateMachine.transition(order, 2, changes);  // 待收货
 
-        // 4. 发送邮件通知
+        // 4. 写入发货通知邮件（与订单状态同一事务提交，由后台任务发送）
         User user = userService.getById(order.getUserId());
         if (user != null && user.getEmail() != null && !user.getEmail().isEmpty()) {
             emailService.sendShipmentNotification(user.getEmail(), orderNo, expressCompany, trackingNo);
@@ -440,9 +552,9 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         }
 
         // 4. 更新订单状态
-        order.setStatus(3);  // 已完成
-        order.setReceiveTime(LocalDateTime.now());
-        this.updateById(order);
+        Orders changes = new Orders();
+        changes.setReceiveTime(LocalDateTime.now());
+        orderStateMachine.transition(order, 3, changes);  // 已完成
 
         log.info("确认收货成功：orderNo={}", orderNo);
     }
@@ -452,7 +564,15 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
     public void deleteOrder(String orderNo, Long userId) {
         log.info("删除订单：orderNo={}, userId={}", orderNo, userId);
 
-        Orders order = getOrderByNo(orderNo);
+        // 热表中没有时查询归档表（归档订单同样允许用户删除）
+        Orders order = this.getOne(new LambdaQueryWrapper<Orders>().eq(Orders::getOrderNo, orderNo));
+        boolean archived = order == null;
+        if (archived) {
+            order = orderArchiveMapper.selectByOrderNo(orderNo);
+        }
+        if (order == null) {
+            throw new IllegalArgumentException("订单不存在");
+        }
 
         // 验证权限
         if (!order.getUserId().equals(userId)) {
@@ -465,7 +585,12 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         }
 
         // 逻辑删除
-        this.removeById(order.getId());
+        if (archived) {
+            orderArchiveMapper.logicDelete(order.getId());
+        } else {
+            this.removeById(order.getId());
+        }
+        publishStatusChanged(order, order.getStatus(), null);
 
         log.info("订单删除成功：orderNo={}", orderNo);
     }
@@ -474,41 +599,14 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
     public Map<String, Long> countUserOrders(Long userId) {
         log.info("统计用户订单：userId={}", userId);
 
-        Map<String, Long> result = new HashMap<>();
-        result.put("all", baseMapper.countByUserIdAndStatus(userId, null));
-        result.put("unpaid", baseMapper.countByUserIdAndStatus(userId, 0));
-        result.put("unshipped", baseMapper.countByUserIdAndStatus(userId, 1));
-        result.put("shipped", baseMapper.countByUserIdAndStatus(userId, 2));
-        result.put("completed", baseMapper.countByUserIdAndStatus(userId, 3));
-
-        return result;
+        return userOrderCounterService.getCounts(userId);
     }
 
     @Override
     public Map<String, Object> getSalesStatistics(LocalDateTime startTime, LocalDateTime endTime) {
         log.info("统计销售数据：startTime={}, endTime={}", startTime, endTime);
 
-        Map<String, Object> result = new HashMap<>();
-        
-        // 统计销售额
-        Double totalAmount = baseMapper.sumAmountByDateRange(startTime, endTime);
-        result.put("totalAmount", totalAmount != null ? totalAmount : 0.0);
-
-        // 统计订单数
-        LambdaQueryWrapper<Orders> wrapper = new LambdaQueryWrapper<>();
-        wrapper.ge(startTime != null, Orders::getCreatedTime, startTime)
-               .le(endTime != null, Orders::getCreatedTime, endTime);
-        long orderCount = this.count(wrapper);
-        result.put("orderCount", orderCount);
-
-        // 计算客单价
-        if (orderCount > 0) {
-            result.put("avgAmount", totalAmount / orderCount);
-        } else {
-            result.put("avgAmount", 0.0);
-        }
-
-        return result;
+        return salesRollupService.getStatistics(startTime, endTime);
     }
 
     @Override
@@ -526,6 +624,33 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         return result;
     }
 
+    /**
+     * 恢复订单占用的商品库存和SKU库存
+     */
+    private void restoreStock(Orders order) {
+        List<OrderItem> orderItems = orderItemService.getByOrderId(order.getId());
+        log.info("取消订单，恢复库存：orderNo={}, 订单项数量={}", order.getOrderNo(), orderItems.size());
+        for (OrderItem item : orderItems) {
+            log.info("恢复商品库存：productId={}, quantity={}, skuId={}",
+                item.getProductId(), item.getQuantity(), item.getSkuId());
+            productService.updateProductStock(item.getProductId(), item.getQuantity());
+            if (item.getSkuId() != null) {
+                log.info("恢复SKU库存：skuId={}, quantity={}", item.getSkuId(), item.getQuantity());
+                productService.updateSkuStock(item.getSkuId(), item.getQuantity());
+            } else {
+                log.warn("订单项没有SKU ID，跳过SKU库存恢复：orderItemId={}", item.getId());
+            }
+        }
+    }
+
+    /**
+     * 发布订单状态变更事件
+     */
+    private void publishStatusChanged(Orders order, Integer fromStatus, Integer toStatus) {
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                order.getId(), order.getOrderNo(), order.getUserId(), fromStatus, toStatus));
+    }
+
     /**
      * 根据订单号查询订单
      */
@@ -538,12 +663,5 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         }
         return order;
     }
-
-    /**
-     * 生成订单号
-     */
-    private String generateOrderNo() {
-        return "ORD" + System.currentTimeMillis() + String.format("%03d", (int)(Math.random() * 1000));
-    }
 }
 
@@ -0,0 +1,251 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.ProductCacheService;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 商品缓存 Service 实现类
+ * <p>
+ * 条目存放在 ConcurrentHashMap 中，命中时只记录访问时间，不加锁。容量由 product.cache.max-size 控制，
+ * 超出时由写入的线程抽样淘汰：每次从上次停下的位置起取若干条目，移除其中最久未访问的一个（近似 LRU），
+ * 淘汰开销只与超出的条目数相关，与缓存大小无关；条目写入后超过 product.cache.ttl-seconds
+ * 视为过期，作为漏发失效事件时的兜底（例如直接改库）。
+ * <p>
+ * 加载查询与失效事件可能交错：每次失效都会在分段锁内推进该商品所在分段的版本号，加载完成时在同一分段锁内检查，
+ * 若版本号已变化，说明查询结果可能早于刚提交的变更，此次结果只返回不入缓存
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class ProductCacheServiceImpl implements ProductCacheService {
+
+    private static final int GENERATION_STRIPES = 64;
+
+    /**
+     * 每淘汰一个条目抽样比较的条目数
+     */
+    private static final int EVICTION_SAMPLES = 8;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Value("${product.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${product.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<Long, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 各分段的锁，版本号的推进与检查后写入在对应分段锁内进行
+     */
+    private final Object[] stripeLocks = new Object[GENERATION_STRIPES];
+
+    private final long[] generations = new long[GENERATION_STRIPES];
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * 抽样游标，在 evictionLock 内使用；ConcurrentHashMap 的迭代器弱一致，遍历期间的并发增删不会抛异常
+     */
+    private Iterator<Map.Entry<Long, Entry>> sampleCursor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder discardedLoads = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            stripeLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public Product get(Long productId) {
+        if (productId == null) {
+            return null;
+        }
+
+        Entry entry = cache.get(productId);
+        if (entry != null) {
+            long now = System.nanoTime();
+            if (now - entry.loadedAt < TimeUnit.SECONDS.toNanos(ttlSeconds)) {
+                entry.accessedAt = now;
+                hits.increment();
+                return copy(entry.product);
+            }
+            if (cache.remove(productId, entry)) {
+                expirations.increment();
+            }
+        }
+
+        int stripe = stripe(productId);
+        long generation;
+        synchronized (stripeLocks[stripe]) {
+            generation = generations[stripe];
+        }
+
+        misses.increment();
+        Product product = productMapper.selectById(productId);
+        if (product == null) {
+            return null;
+        }
+
+        synchronized (stripeLocks[stripe]) {
+            if (generations[stripe] == generation) {
+                cache.put(productId, new Entry(copy(product), System.nanoTime()));
+            } else {
+                discardedLoads.increment();
+            }
+        }
+        if (cache.size() > maxSize) {
+            evict();
+        }
+        return product;
+    }
+
+    /**
+     * 商品变更后失效对应条目（事务提交后执行，回滚的变更不会失效缓存）
+     * 先于目录版本号递增执行，读到新版本号的请求不会再命中旧条目
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        for (Long productId : event.getProductIds()) {
+            if (productId == null) {
+                continue;
+            }
+            int stripe = stripe(productId);
+            synchronized (stripeLocks[stripe]) {
+                generations[stripe]++;
+                if (cache.remove(productId) != null) {
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            synchronized (stripeLocks[i]) {
+                generations[i]++;
+            }
+        }
+        invalidations.add(cache.size());
+        cache.clear();
+        log.info("商品缓存已清空");
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("invalidations", invalidations.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("discardedLoads", discardedLoads.sum());
+        return stats;
+    }
+
+    /**
+     * 超出容量时抽样淘汰到容量以内；已有线程在淘汰时直接返回，淘汰期间其他线程写入的条目留给它们自己淘汰
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            for (int excess = cache.size() - maxSize; excess > 0; excess--) {
+                Map.Entry<Long, Entry> eldest = null;
+                for (int i = 0; i < EVICTION_SAMPLES; i++) {
+                    if (sampleCursor == null || !sampleCursor.hasNext()) {
+                        sampleCursor = cache.entrySet().iterator();
+                        if (!sampleCursor.hasNext()) {
+                            break;
+                        }
+                    }
+                    Map.Entry<Long, Entry> sample = sampleCursor.next();
+                    if (eldest == null || sample.getValue().accessedAt < eldest.getValue().accessedAt) {
+                        eldest = sample;
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                // 只移除抽样时的同一条目，期间被失效后重新加载的条目保留
+                if (cache.remove(eldest.getKey(), eldest.getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static Product copy(Product source) {
+        Product target = new Product();
+        BeanUtils.copyProperties(source, target);
+        return target;
+    }
+
+    private static int stripe(Long productId) {
+        return (int) (productId & (GENERATION_STRIPES - 1));
+    }
+
+    /**
+     * 缓存条目：商品快照、加载时间及最近访问时间
+     */
+    private static final class Entry {
+
+        private final Product product;
+
+        private final long loadedAt;
+
+        /**
+         * 最近一次命中的时间，用于近似 LRU 淘汰
+         */
+        private volatile long accessedAt;
+
+        private Entry(Product product, long loadedAt) {
+            this.product = product;
+            this.loadedAt = loadedAt;
+            this.accessedAt = loadedAt;
+        }
+    }
+}
@@ -3,9 +3,12 @@ package org.javaweb.webshopbackend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.CatalogChangedEvent;
 import org.javaweb.webshopbackend.mapper.ProductCategoryMapper;
 import org.javaweb.webshopbackend.pojo.entity.ProductCategory;
 import org.javaweb.webshopbackend.service.ProductCategoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +24,9 @@ import java.util.List;
 @Service
 public class ProductCategoryServiceImpl extends ServiceImpl<ProductCategoryMapper, ProductCategory> implements ProductCategoryService {
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public List<ProductCategory> getRootCategories() {
         log.info("获取所有一级分类");
@@ -63,6 +69,7 @@ public class ProductCategoryServiceImpl extends ServiceImpl<ProductCategoryMappe
         }
 
         this.save(category);
+        eventPublisher.publishEvent(new CatalogChangedEvent("category"));
 
         log.info("分类添加成功：categoryId={}", category.getId());
     }
@@ -73,6 +80,7 @@ public class ProductCategoryServiceImpl extends ServiceImpl<ProductCategoryMappe
         log.info("更新分类：categoryId={}", category.getId());
 
         this.updateById(category);
+        eventPublisher.publishEvent(new CatalogChangedEvent("category"));
 
         log.info("分类更新成功");
     }
@@ -88,6 +96,7 @@ public class ProductCategoryServiceImpl extends ServiceImpl<ProductCategoryMappe
         }
 
         this.removeById(categoryId);
+        eventPublisher.publishEvent(new CatalogChangedEvent("category"));
 
         log.info("分类删除成功");
     }
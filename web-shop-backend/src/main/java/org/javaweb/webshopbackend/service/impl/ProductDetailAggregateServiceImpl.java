@@ -0,0 +1,269 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.service.ProductDetailAggregateService;
+import org.javaweb.webshopbackend.service.ProductReviewService;
+import org.javaweb.webshopbackend.service.ProductService;
+import org.javaweb.webshopbackend.service.ProductSkuService;
+import org.javaweb.webshopbackend.service.UserFavoriteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商品详情聚合 Service 实现类
+ * <p>
+ * 每个部分提交到虚拟线程执行，各部分共用从请求开始计算的截止时间（product.detail.deadline-ms）；
+ * 必需部分另有较长的等待上限（product.detail.critical-timeout-ms）。
+ * 超时的部分会被取消但不中断（cancel(false)）：中断阻塞在 JDBC socket 读上的虚拟线程会关闭连接，
+ * 因此已发出的数据库查询照常执行完毕后归还连接，尚未开始的部分不再执行。
+ * <p>
+ * 虚拟线程数量不受限制，而数据库连接池容量有限，因此所有部分共用一个信号量
+ * （product.detail.max-concurrent-queries），拿不到许可直到截止时间的部分按超时处理，不会占满连接池
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class ProductDetailAggregateServiceImpl implements ProductDetailAggregateService {
+
+    private static final String PART_PRODUCT = "product";
+    private static final String PART_SKUS = "skus";
+    private static final String PART_AVG_RATING = "avgRating";
+    private static final String PART_REVIEW_COUNT = "reviewCount";
+    private static final String PART_RATING_DISTRIBUTION = "ratingDistribution";
+    private static final String PART_FAVORITE_COUNT = "favoriteCount";
+    private static final String PART_IS_FAVORITED = "isFavorited";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSkuService productSkuService;
+
+    @Autowired
+    private ProductReviewService reviewService;
+
+    @Autowired
+    private UserFavoriteService favoriteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${product.detail.deadline-ms:300}")
+    private long deadlineMillis;
+
+    @Value("${product.detail.critical-timeout-ms:3000}")
+    private long criticalTimeoutMillis;
+
+    @Value("${product.detail.max-concurrent-queries:10}")
+    private int maxConcurrentQueries;
+
+    private ExecutorService executor;
+
+    private Semaphore permits;
+
+    private final Map<String, PartMetrics> metrics = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        permits = new Semaphore(maxConcurrentQueries);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Map<String, Object> getDetail(Long productId, Long userId) {
+        long begin = System.nanoTime();
+        long deadline = begin + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        long criticalDeadline = begin + TimeUnit.MILLISECONDS.toNanos(criticalTimeoutMillis);
+
+        // 必需部分等待许可和结果都以较长的 criticalDeadline 为限
+        Future<Product> product = submit(PART_PRODUCT, criticalDeadline, () -> productService.getProductDetail(productId));
+        Future<List<ProductSku>> skus = submit(PART_SKUS, criticalDeadline, () -> {
+            LambdaQueryWrapper<ProductSku> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(ProductSku::getProductId, productId);
+            wrapper.eq(ProductSku::getStatus, 1);
+            return productSkuService.list(wrapper);
+        });
+        Future<Double> avgRating = submit(PART_AVG_RATING, deadline, () -> reviewService.getAvgRating(productId));
+        Future<Long> reviewCount = submit(PART_REVIEW_COUNT, deadline, () -> reviewService.getReviewCount(productId));
+        Future<Map<Integer, Long>> distribution = submit(PART_RATING_DISTRIBUTION, deadline,
+                () -> reviewService.getRatingStatistics(productId));
+        Future<Long> favoriteCount = submit(PART_FAVORITE_COUNT, deadline, () -> favoriteService.countByProduct(productId));
+        Future<Boolean> isFavorited = userId == null ? null
+                : submit(PART_IS_FAVORITED, deadline, () -> favoriteService.isFavorite(userId, productId));
+
+        Map<String, Object> result = new HashMap<>();
+        result.putAll(objectMapper.convertValue(awaitCritical(PART_PRODUCT, product, criticalDeadline),
+                new TypeReference<Map<String, Object>>() {}));
+        result.put("skus", awaitCritical(PART_SKUS, skus, criticalDeadline));
+
+        List<String> missingParts = new ArrayList<>();
+        Map<String, Object> reviewStatistics = new HashMap<>();
+        putIfPresent(reviewStatistics, PART_AVG_RATING, await(PART_AVG_RATING, avgRating, deadline, missingParts));
+        putIfPresent(reviewStatistics, PART_REVIEW_COUNT, await(PART_REVIEW_COUNT, reviewCount, deadline, missingParts));
+        putIfPresent(reviewStatistics, PART_RATING_DISTRIBUTION,
+                await(PART_RATING_DISTRIBUTION, distribution, deadline, missingParts));
+        result.put("reviewStatistics", reviewStatistics);
+        putIfPresent(result, PART_FAVORITE_COUNT, await(PART_FAVORITE_COUNT, favoriteCount, deadline, missingParts));
+        if (isFavorited == null) {
+            result.put(PART_IS_FAVORITED, false);
+        } else {
+            putIfPresent(result, PART_IS_FAVORITED, await(PART_IS_FAVORITED, isFavorited, deadline, missingParts));
+        }
+        result.put("missingParts", missingParts);
+
+        if (!missingParts.isEmpty()) {
+            log.warn("商品详情部分数据未返回：productId={}, missingParts={}", productId, missingParts);
+        }
+        metric("total").record(System.nanoTime() - begin);
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("deadlineMs", deadlineMillis);
+        stats.put("availablePermits", permits.availablePermits());
+        Map<String, Object> parts = new LinkedHashMap<>();
+        metrics.forEach((part, m) -> {
+            long calls = m.calls.sum();
+            Map<String, Object> partStats = new LinkedHashMap<>();
+            partStats.put("calls", calls);
+            partStats.put("avgMicros", calls == 0 ? 0 : m.nanos.sum() / calls / 1000);
+            partStats.put("maxMicros", m.maxNanos.get() / 1000);
+            partStats.put("timeouts", m.timeouts.sum());
+            partStats.put("failures", m.failures.sum());
+            parts.put(part, partStats);
+        });
+        stats.put("parts", parts);
+        return stats;
+    }
+
+    /**
+     * 在虚拟线程上执行一个部分，先在截止时间内获取数据库并发许可
+     */
+    private <T> Future<T> submit(String part, long deadline, Callable<T> task) {
+        PartMetrics partMetrics = metric(part);
+        return executor.submit(() -> {
+            if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("等待数据库并发许可超时");
+            }
+            long begin = System.nanoTime();
+            try {
+                return task.call();
+            } catch (Exception e) {
+                partMetrics.failures.increment();
+                throw e;
+            } finally {
+                permits.release();
+                partMetrics.record(System.nanoTime() - begin);
+            }
+        });
+    }
+
+    /**
+     * 等待必需部分，失败时按原异常抛出
+     */
+    private <T> T awaitCritical(String part, Future<T> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("商品详情加载失败：" + part, e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            metric(part).timeouts.increment();
+            throw new IllegalStateException("商品详情加载超时：" + part, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("商品详情加载被中断：" + part, e);
+        }
+    }
+
+    /**
+     * 等待非必需部分，超时或失败时记入 missingParts 并返回 null
+     */
+    private <T> T await(String part, Future<T> future, long deadline, List<String> missingParts) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            metric(part).timeouts.increment();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                metric(part).timeouts.increment();
+            } else {
+                log.warn("商品详情部分查询失败：part={}", part, e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        missingParts.add(part);
+        return null;
+    }
+
+    private static void putIfPresent(Map<String, Object> target, String key, Object value) {
+        if (value != null) {
+            target.put(key, value);
+        }
+    }
+
+    private PartMetrics metric(String part) {
+        return metrics.computeIfAbsent(part, p -> new PartMetrics());
+    }
+
+    /**
+     * 单个部分的耗时统计
+     */
+    private static final class PartMetrics {
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder nanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder timeouts = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private void record(long elapsedNanos) {
+            calls.increment();
+            nanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+        }
+    }
+}
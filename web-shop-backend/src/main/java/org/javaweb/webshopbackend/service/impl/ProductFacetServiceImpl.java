@@ -0,0 +1,358 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.dto.ProductFacetQueryDTO;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.ProductFacetService;
+import org.javaweb.webshopbackend.util.ChunkedBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品分面 Service 实现类
+ * <p>
+ * 位下标直接使用商品ID，位图按 65536 位分块压缩，内存与置位数成正比；所有位图的读写均在读写锁内进行。
+ * 分面数量用多个位图的交集计数得出，不创建中间位图，只访问所有条件位图都有数据的块。
+ * <p>
+ * 商品变更事件提交后记录商品ID，由后台任务批量读取最新数据，按记录的分类清除该商品再按当前属性重新置位。
+ * 位图在启动时构建；构建完成前到达的查询等待同一次构建，不各自重复构建
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class ProductFacetServiceImpl implements ProductFacetService {
+
+    private static final int LOAD_CHUNK = 500;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 价格区间分界（元，升序），n 个分界划分出 n+1 个区间
+     */
+    @Value("${product.facet.price-buckets:50,100,200,500,1000,2000,5000}")
+    private BigDecimal[] priceBoundaries;
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 当前位图，首次构建完成前为 null
+     */
+    private volatile Index index;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 已提交、尚未同步到位图的商品ID
+     */
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final AtomicLong lastRebuildMillis = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Arrays.sort(priceBoundaries);
+    }
+
+    @Override
+    public Map<String, Object> getFacets(ProductFacetQueryDTO query) {
+        if (index == null) {
+            synchronized (this) {
+                // 等待锁期间其他线程可能已构建完成
+                if (index == null) {
+                    rebuild();
+                }
+            }
+        }
+        if (query.getPriceBucket() != null
+                && (query.getPriceBucket() < 0 || query.getPriceBucket() > priceBoundaries.length)) {
+            throw new IllegalArgumentException("价格区间不存在");
+        }
+
+        long begin = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            Index current = index;
+            ChunkedBitmap category = query.getCategoryId() == null ? null
+                    : current.byCategory.getOrDefault(query.getCategoryId(), current.empty);
+            ChunkedBitmap price = query.getPriceBucket() == null ? null : current.byPriceBucket[query.getPriceBucket()];
+
+            // 标记条件对所有分面生效；分类、价格条件不影响自身分面的数量（为 null 的条件在计数时忽略）
+            ChunkedBitmap hot = Boolean.TRUE.equals(query.getIsHot()) ? current.hot : null;
+            ChunkedBitmap recommend = Boolean.TRUE.equals(query.getIsRecommend()) ? current.recommend : null;
+            ChunkedBitmap flashSale = Boolean.TRUE.equals(query.getIsFlashSale()) ? current.flashSale : null;
+
+            List<Map<String, Object>> categories = new ArrayList<>();
+            current.byCategory.forEach((categoryId, bitmap) -> {
+                int count = ChunkedBitmap.andCardinality(current.onShelf, hot, recommend, flashSale, price, bitmap);
+                if (count > 0) {
+                    Map<String, Object> facet = new LinkedHashMap<>();
+                    facet.put("categoryId", categoryId);
+                    facet.put("count", count);
+                    categories.add(facet);
+                }
+            });
+
+            List<Map<String, Object>> priceBuckets = new ArrayList<>();
+            for (int bucket = 0; bucket < current.byPriceBucket.length; bucket++) {
+                Map<String, Object> facet = new LinkedHashMap<>();
+                facet.put("bucket", bucket);
+                facet.put("minPrice", bucket == 0 ? BigDecimal.ZERO : priceBoundaries[bucket - 1]);
+                facet.put("maxPrice", bucket == priceBoundaries.length ? null : priceBoundaries[bucket]);
+                facet.put("count", ChunkedBitmap.andCardinality(current.onShelf, hot, recommend, flashSale,
+                        category, current.byPriceBucket[bucket]));
+                priceBuckets.add(facet);
+            }
+
+            Map<String, Object> flags = new LinkedHashMap<>();
+            flags.put("hot", ChunkedBitmap.andCardinality(current.onShelf, hot, recommend, flashSale,
+                    category, price, current.hot));
+            flags.put("recommend", ChunkedBitmap.andCardinality(current.onShelf, hot, recommend, flashSale,
+                    category, price, current.recommend));
+            flags.put("flashSale", ChunkedBitmap.andCardinality(current.onShelf, hot, recommend, flashSale,
+                    category, price, current.flashSale));
+
+            result.put("total", ChunkedBitmap.andCardinality(current.onShelf, hot, recommend, flashSale, category, price));
+            result.put("categories", categories);
+            result.put("priceBuckets", priceBuckets);
+            result.put("flags", flags);
+        } finally {
+            lock.readLock().unlock();
+        }
+        queries.increment();
+        queryNanos.add(System.nanoTime() - begin);
+        return result;
+    }
+
+    /**
+     * 记录商品变更（事务提交后执行），由 applyPending 批量同步
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        pending.addAll(event.getProductIds());
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long begin = System.currentTimeMillis();
+        Index fresh = new Index(priceBoundaries.length + 1);
+        transactionTemplate.executeWithoutResult(tx -> {
+            try (Cursor<Product> cursor = productMapper.selectForFacets()) {
+                for (Product product : cursor) {
+                    fresh.add(product);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            index = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastRebuildMillis.set(System.currentTimeMillis() - begin);
+        log.info("商品分面位图构建完成：商品数={}, 分类数={}, 耗时={}ms",
+                fresh.onShelf.cardinality(), fresh.byCategory.size(), lastRebuildMillis.get());
+
+        // 构建期间提交的变更仍在 pending 中，立即重新同步一次
+        applyPending();
+    }
+
+    @Override
+    public synchronized int applyPending() {
+        if (index == null || pending.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(pending);
+        pending.removeAll(ids);
+
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK, ids.size()));
+            Map<Long, Product> loaded = new HashMap<>();
+            try {
+                for (Product product : productMapper.selectBatchIds(chunk)) {
+                    loaded.put(product.getId(), product);
+                }
+            } catch (RuntimeException e) {
+                // 未同步的商品放回，下次重试
+                pending.addAll(ids.subList(from, ids.size()));
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Long productId : chunk) {
+                    index.remove(productId);
+                    Product product = loaded.get(productId);
+                    if (product != null && Integer.valueOf(1).equals(product.getStatus())) {
+                        index.add(product);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        applied.add(ids.size());
+        return ids.size();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Index current = index;
+        stats.put("ready", current != null);
+        if (current != null) {
+            lock.readLock().lock();
+            try {
+                stats.put("products", current.onShelf.cardinality());
+                stats.put("categories", current.byCategory.size());
+                stats.put("bitmaps", current.byCategory.size() + current.byPriceBucket.length + 4);
+                stats.put("bitmapBytes", current.sizeInBytes());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        long queryCount = queries.sum();
+        stats.put("pendingProducts", pending.size());
+        stats.put("queries", queryCount);
+        stats.put("avgQueryMicros", queryCount == 0 ? 0 : queryNanos.sum() / queryCount / 1000);
+        stats.put("appliedChanges", applied.sum());
+        stats.put("lastRebuildMillis", lastRebuildMillis.get());
+        return stats;
+    }
+
+    /**
+     * 价格所在区间序号
+     */
+    private int priceBucket(BigDecimal price) {
+        if (price == null) {
+            return 0;
+        }
+        int bucket = 0;
+        while (bucket < priceBoundaries.length && price.compareTo(priceBoundaries[bucket]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * 全部分面位图
+     */
+    private final class Index {
+
+        private final ChunkedBitmap empty = new ChunkedBitmap();
+
+        private final ChunkedBitmap onShelf = new ChunkedBitmap();
+
+        private final Map<Long, ChunkedBitmap> byCategory = new TreeMap<>();
+
+        /**
+         * 商品ID -> 置位时的分类，移除时只清除该分类的位图
+         */
+        private final Map<Integer, Long> categoryOf = new HashMap<>();
+
+        private final ChunkedBitmap[] byPriceBucket;
+
+        private final ChunkedBitmap hot = new ChunkedBitmap();
+
+        private final ChunkedBitmap recommend = new ChunkedBitmap();
+
+        private final ChunkedBitmap flashSale = new ChunkedBitmap();
+
+        private Index(int buckets) {
+            byPriceBucket = new ChunkedBitmap[buckets];
+            for (int i = 0; i < buckets; i++) {
+                byPriceBucket[i] = new ChunkedBitmap();
+            }
+        }
+
+        private long sizeInBytes() {
+            long bytes = onShelf.sizeInBytes() + hot.sizeInBytes() + recommend.sizeInBytes() + flashSale.sizeInBytes();
+            for (ChunkedBitmap bitmap : byCategory.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            for (ChunkedBitmap bitmap : byPriceBucket) {
+                bytes += bitmap.sizeInBytes();
+            }
+            return bytes;
+        }
+
+        private void add(Product product) {
+            if (product.getId() > Integer.MAX_VALUE) {
+                log.warn("商品ID超出分面位图范围，跳过：productId={}", product.getId());
+                return;
+            }
+            int bit = product.getId().intValue();
+            onShelf.set(bit);
+            if (product.getCategoryId() != null) {
+                byCategory.computeIfAbsent(product.getCategoryId(), id -> new ChunkedBitmap()).set(bit);
+                categoryOf.put(bit, product.getCategoryId());
+            }
+            byPriceBucket[priceBucket(product.getPrice())].set(bit);
+            if (Integer.valueOf(1).equals(product.getIsHot())) {
+                hot.set(bit);
+            }
+            if (Integer.valueOf(1).equals(product.getIsRecommend())) {
+                recommend.set(bit);
+            }
+            if (Integer.valueOf(1).equals(product.getIsFlashSale())) {
+                flashSale.set(bit);
+            }
+        }
+
+        private void remove(Long productId) {
+            if (productId > Integer.MAX_VALUE) {
+                return;
+            }
+            int bit = productId.intValue();
+            onShelf.clear(bit);
+            Long categoryId = categoryOf.remove(bit);
+            if (categoryId != null) {
+                byCategory.get(categoryId).clear(bit);
+            }
+            for (ChunkedBitmap bitmap : byPriceBucket) {
+                bitmap.clear(bit);
+            }
+            hot.clear(bit);
+            recommend.clear(bit);
+            flashSale.clear(bit);
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductCategoryMapper;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.mapper.ProductSkuMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.pojo.entity.ProductCategory;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.service.ProductImportService;
+import org.javaweb.webshopbackend.util.CsvReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 商品批量导入 Service 实现类
+ * <p>
+ * 边读边校验，校验通过的商品攒满一块（product.import.chunk-size）后在一个事务中写入：
+ * 商品、SKU 分别使用 MyBatis 批量执行器和固定列的 INSERT，配合连接参数 rewriteBatchedStatements=true
+ * 由驱动合并为多行 INSERT，自增ID按批回填后再写SKU。某一块写入失败只回滚该块，其中的行记为失败，后续块继续导入。
+ * <p>
+ * SKU 编码在文件内去重，并在写入前按块查询数据库（包括已逻辑删除的SKU），冲突的商品整条跳过
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final String PRODUCT_INSERT = ProductMapper.class.getName() + ".insertForImport";
+    private static final String SKU_INSERT = ProductSkuMapper.class.getName() + ".insertForBatch";
+
+    private static final Log BATCH_LOG = LogFactory.getLog(ProductImportServiceImpl.class);
+
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    /**
+     * CSV 中 SKU 列与 SKU 字段的对应关系
+     */
+    private static final Map<String, String> SKU_COLUMNS = Map.of(
+            "skuCode", "skuCode",
+            "skuName", "skuName",
+            "attributes", "attributes",
+            "skuPrice", "price",
+            "skuOriginalPrice", "originalPrice",
+            "skuStock", "stock",
+            "skuImage", "image");
+
+    @Autowired
+    private ProductCategoryMapper categoryMapper;
+
+    @Autowired
+    private ProductSkuMapper productSkuMapper;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${product.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${product.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Map<String, Object> importProducts(InputStream input, String format) {
+        if (!"csv".equalsIgnoreCase(format) && !"jsonl".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("不支持的导入格式：" + format + "，仅支持 csv、jsonl");
+        }
+        ImportRun run = new ImportRun();
+        log.info("开始导入商品：format={}, chunkSize={}", format, chunkSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            if ("csv".equalsIgnoreCase(format)) {
+                readCsv(reader, run);
+            } else {
+                readJsonl(reader, run);
+            }
+        } catch (IOException e) {
+            // 已写入的块保留，报告中注明中断位置
+            log.warn("商品导入文件读取中断", e);
+            run.aborted = true;
+            run.addError(run.lastLine, "文件读取中断：" + e.getMessage());
+        }
+        run.flush();
+
+        Map<String, Object> report = run.toReport();
+        log.info("商品导入完成：{}", report);
+        return report;
+    }
+
+    /**
+     * 逐条读取 CSV，name 为空的行追加到上一个商品的 SKU
+     */
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        // 去掉 Excel 导出的 BOM
+        header.set(0, header.get(0).replace("\uFEFF", ""));
+        header.replaceAll(String::trim);
+
+        Map<String, Object> current = null;
+        int currentLine = 0;
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            int line = csv.getRecordLine();
+            run.lastLine = line;
+            if (record.size() != header.size()) {
+                run.reject(line, "列数与表头不一致：期望" + header.size() + "列，实际" + record.size() + "列");
+                continue;
+            }
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String value = record.get(i).trim();
+                if (!value.isEmpty()) {
+                    row.put(header.get(i), value);
+                }
+            }
+
+            if (row.containsKey("name")) {
+                if (current != null) {
+                    run.accept(currentLine, current);
+                }
+                current = new HashMap<>(row);
+                current.keySet().removeAll(SKU_COLUMNS.keySet());
+                current.put("skus", new ArrayList<Map<String, Object>>());
+                currentLine = line;
+            } else if (current == null) {
+                run.reject(line, "SKU行之前没有商品行");
+                continue;
+            }
+
+            Map<String, Object> sku = new HashMap<>();
+            SKU_COLUMNS.forEach((column, field) -> {
+                if (row.containsKey(column)) {
+                    sku.put(field, row.get(column));
+                }
+            });
+            if (!sku.isEmpty()) {
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> skus = (List<Map<String, Object>>) current.get("skus");
+                skus.add(sku);
+            }
+        }
+        if (current != null) {
+            run.accept(currentLine, current);
+        }
+    }
+
+    /**
+     * 逐行读取 JSONL，每行一个商品
+     */
+    private void readJsonl(BufferedReader reader, ImportRun run) throws IOException {
+        String text;
+        int line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            run.lastLine = line;
+            if (text.isBlank()) {
+                continue;
+            }
+            Map<String, Object> data;
+            try {
+                data = objectMapper.readValue(text, new TypeReference<Map<String, Object>>() {});
+            } catch (JsonProcessingException e) {
+                run.reject(line, "JSON格式错误：" + e.getOriginalMessage());
+                continue;
+            }
+            run.accept(line, data);
+        }
+    }
+
+    /**
+     * 校验并转换为待写入的商品
+     */
+    private ImportItem toItem(int line, Map<String, Object> data, Set<Long> categoryIds) {
+        Map<String, Object> productData = new HashMap<>(data);
+        Object skusData = productData.remove("skus");
+        Product product = convert(productData, Product.class);
+
+        // 只接受业务字段，ID、销量、删除标记等由系统维护
+        product.setId(null);
+        product.setSales(0);
+        product.setDeleted(null);
+        product.setCreatedTime(null);
+        product.setUpdatedTime(null);
+
+        String name = product.getName() == null ? null : product.getName().trim();
+        require(name != null && !name.isEmpty(), "商品名称不能为空");
+        require(name.length() <= 200, "商品名称不能超过200个字符");
+        product.setName(name);
+        require(product.getCategoryId() != null, "分类ID不能为空");
+        require(categoryIds.contains(product.getCategoryId()), "分类不存在：" + product.getCategoryId());
+        checkPrice(product.getPrice(), true, "价格");
+        checkPrice(product.getOriginalPrice(), false, "原价");
+        product.setStock(checkStock(product.getStock()));
+        require(product.getCoverImage() == null || product.getCoverImage().length() <= 255, "封面图片地址不能超过255个字符");
+        require(product.getImages() == null || product.getImages().length() <= 1000, "商品图片不能超过1000个字符");
+        // 与新增商品接口一致，默认待上架
+        product.setStatus(checkFlag(product.getStatus(), "状态"));
+        product.setIsHot(checkFlag(product.getIsHot(), "热销标记"));
+        product.setIsRecommend(checkFlag(product.getIsRecommend(), "推荐标记"));
+        product.setIsFlashSale(checkFlag(product.getIsFlashSale(), "秒杀标记"));
+
+        List<ProductSku> skus = new ArrayList<>();
+        if (skusData != null) {
+            require(skusData instanceof List<?>, "skus 必须是数组");
+            for (Object skuData : (List<?>) skusData) {
+                ProductSku sku = convert(skuData, ProductSku.class);
+                sku.setId(null);
+                sku.setProductId(null);
+                sku.setSales(0);
+                sku.setStatus(1);
+                sku.setDeleted(null);
+                sku.setCreatedTime(null);
+                sku.setUpdatedTime(null);
+
+                String skuCode = sku.getSkuCode() == null ? null : sku.getSkuCode().trim();
+                require(skuCode != null && !skuCode.isEmpty(), "SKU编码不能为空");
+                require(skuCode.length() <= 50, "SKU编码不能超过50个字符：" + skuCode);
+                sku.setSkuCode(skuCode);
+                require(sku.getSkuName() != null && !sku.getSkuName().isBlank(), "SKU名称不能为空：" + skuCode);
+                require(sku.getSkuName().length() <= 100, "SKU名称不能超过100个字符：" + skuCode);
+                checkPrice(sku.getPrice(), true, "SKU价格");
+                checkPrice(sku.getOriginalPrice(), false, "SKU原价");
+                sku.setStock(checkStock(sku.getStock()));
+                require(sku.getImage() == null || sku.getImage().length() <= 500, "SKU图片地址不能超过500个字符：" + skuCode);
+                skus.add(sku);
+            }
+        }
+        return new ImportItem(line, product, skus);
+    }
+
+    private <T> T convert(Object data, Class<T> type) {
+        try {
+            return objectMapper.convertValue(data, type);
+        } catch (IllegalArgumentException e) {
+            if (e.getCause() instanceof JsonMappingException mappingException && !mappingException.getPath().isEmpty()) {
+                String field = mappingException.getPath().get(mappingException.getPath().size() - 1).getFieldName();
+                throw new IllegalArgumentException("字段格式错误：" + field);
+            }
+            throw new IllegalArgumentException("数据格式错误");
+        }
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static void checkPrice(BigDecimal price, boolean required, String label) {
+        if (price == null) {
+            require(!required, label + "不能为空");
+            return;
+        }
+        require(price.signum() >= 0 && (!required || price.signum() > 0), label + "必须大于0");
+        require(price.compareTo(MAX_PRICE) <= 0, label + "超出范围");
+        require(price.stripTrailingZeros().scale() <= 2, label + "最多两位小数");
+    }
+
+    private static int checkStock(Integer stock) {
+        if (stock == null) {
+            return 0;
+        }
+        require(stock >= 0, "库存不能为负数");
+        return stock;
+    }
+
+    private static int checkFlag(Integer flag, String label) {
+        if (flag == null) {
+            return 0;
+        }
+        require(flag == 0 || flag == 1, label + "只能是0或1");
+        return flag;
+    }
+
+    /**
+     * 一次导入的状态：当前块、文件内已出现的SKU编码、统计
+     */
+    private final class ImportRun {
+
+        private final long begin = System.nanoTime();
+
+        private final Set<Long> categoryIds = categoryMapper.selectList(
+                        new LambdaQueryWrapper<ProductCategory>().select(ProductCategory::getId))
+                .stream().map(ProductCategory::getId).collect(Collectors.toSet());
+
+        private final Set<String> seenSkuCodes = new HashSet<>();
+
+        private final List<ImportItem> chunk = new ArrayList<>(chunkSize);
+
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        private int rows;
+        private int importedProducts;
+        private int importedSkus;
+        private int failedRows;
+        private int chunks;
+        private int lastLine;
+        private boolean aborted;
+
+        private void accept(int line, Map<String, Object> data) {
+            rows++;
+            ImportItem item;
+            try {
+                item = toItem(line, data, categoryIds);
+            } catch (IllegalArgumentException e) {
+                fail(line, e.getMessage());
+                return;
+            }
+            for (ProductSku sku : item.skus) {
+                if (!seenSkuCodes.add(sku.getSkuCode())) {
+                    fail(line, "SKU编码在文件中重复：" + sku.getSkuCode());
+                    return;
+                }
+            }
+            chunk.add(item);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * 无法解析为商品的行
+         */
+        private void reject(int line, String message) {
+            rows++;
+            fail(line, message);
+        }
+
+        private void fail(int line, String message) {
+            failedRows++;
+            addError(line, message);
+        }
+
+        private void addError(int line, String message) {
+            if (errors.size() < maxReportedErrors) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("line", line);
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        /**
+         * 写入当前块
+         */
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<ImportItem> items = new ArrayList<>(chunk);
+            chunk.clear();
+            chunks++;
+
+            Set<String> skuCodes = new HashSet<>();
+            items.forEach(item -> item.skus.forEach(sku -> skuCodes.add(sku.getSkuCode())));
+            if (!skuCodes.isEmpty()) {
+                Set<String> existing = new HashSet<>(productSkuMapper.selectExistingSkuCodes(skuCodes));
+                if (!existing.isEmpty()) {
+                    items.removeIf(item -> {
+                        for (ProductSku sku : item.skus) {
+                            if (existing.contains(sku.getSkuCode())) {
+                                fail(item.line, "SKU编码已存在：" + sku.getSkuCode());
+                                return true;
+                            }
+                        }
+                        return false;
+                    });
+                }
+            }
+            if (items.isEmpty()) {
+                return;
+            }
+
+            List<Product> products = new ArrayList<>(items.size());
+            items.forEach(item -> products.add(item.product));
+            try {
+                int skuCount = transactionTemplate.execute(tx -> {
+                    SqlHelper.executeBatch(sqlSessionFactory, BATCH_LOG, products, products.size(),
+                            (session, product) -> session.insert(PRODUCT_INSERT, product));
+
+                    // 商品ID在批量执行后回填
+                    List<ProductSku> skus = new ArrayList<>();
+                    for (ImportItem item : items) {
+                        for (ProductSku sku : item.skus) {
+                            sku.setProductId(item.product.getId());
+                            skus.add(sku);
+                        }
+                    }
+                    if (!skus.isEmpty()) {
+                        SqlHelper.executeBatch(sqlSessionFactory, BATCH_LOG, skus, skus.size(),
+                                (session, sku) -> session.insert(SKU_INSERT, sku));
+                    }
+                    eventPublisher.publishEvent(new ProductChangedEvent(
+                            products.stream().map(Product::getId).toList()));
+                    return skus.size();
+                });
+                importedProducts += items.size();
+                importedSkus += skuCount;
+            } catch (RuntimeException e) {
+                log.error("商品导入块写入失败：起始行={}, 商品数={}", items.get(0).line, items.size(), e);
+                String message = "写入失败（整块回滚）：" + rootMessage(e);
+                items.forEach(item -> {
+                    item.product.setId(null);
+                    fail(item.line, message);
+                });
+            }
+        }
+
+        private Map<String, Object> toReport() {
+            long elapsedMillis = Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("rows", rows);
+            report.put("importedProducts", importedProducts);
+            report.put("importedSkus", importedSkus);
+            report.put("failedRows", failedRows);
+            report.put("chunks", chunks);
+            report.put("aborted", aborted);
+            report.put("elapsedMillis", elapsedMillis);
+            report.put("productsPerSecond", importedProducts * 1000L / elapsedMillis);
+            report.put("errors", errors);
+            return report;
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    /**
+     * 校验通过、等待写入的商品
+     */
+    private static final class ImportItem {
+
+        private final int line;
+
+        private final Product product;
+
+        private final List<ProductSku> skus;
+
+        private ImportItem(int line, Product product, List<ProductSku> skus) {
+            this.line = line;
+            this.product = product;
+            this.skus = skus;
+        }
+    }
+}
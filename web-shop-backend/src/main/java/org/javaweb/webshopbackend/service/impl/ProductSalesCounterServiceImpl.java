@@ -0,0 +1,129 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.service.ProductSalesCounterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商品销量累加 Service 实现类
+ * <p>
+ * 每个商品一个 LongAdder（内部按线程分段累加），支付线程之间不互相竞争。
+ * 写入时读取当前累计值并从 LongAdder 中减去同样的数值，写入期间新到的增量保留到下一次，不会丢失；
+ * 写入失败时把已减去的增量加回。写入由单个后台任务串行执行
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class ProductSalesCounterServiceImpl implements ProductSalesCounterService {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 商品ID -> 尚未写入的销量增量（条目不删除，数量受商品总数限制）
+     */
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder increments = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedProducts = new LongAdder();
+    private final LongAdder flushedUnits = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+
+    @Override
+    public void increment(Long productId, Integer quantity) {
+        if (productId == null || quantity == null || quantity == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(productId, quantity);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(productId, quantity);
+            }
+        });
+    }
+
+    @Override
+    public synchronized int flushPending() {
+        Map<Long, Long> deltas = new TreeMap<>();
+        pending.forEach((productId, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                adder.add(-delta);
+                deltas.put(productId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        long begin = System.currentTimeMillis();
+        try {
+            // 按商品ID升序更新，与其他批量更新保持一致的加锁顺序
+            productMapper.batchIncreaseSales(deltas);
+        } catch (RuntimeException e) {
+            deltas.forEach((productId, delta) -> pending.get(productId).add(delta));
+            failures.increment();
+            throw e;
+        }
+        flushes.increment();
+        flushedProducts.add(deltas.size());
+        flushedUnits.add(deltas.values().stream().mapToLong(Long::longValue).sum());
+        lastFlushMillis.set(System.currentTimeMillis() - begin);
+        eventPublisher.publishEvent(new ProductChangedEvent(List.copyOf(deltas.keySet())));
+        log.debug("商品销量增量写入完成：商品数={}", deltas.size());
+        return deltas.size();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long pendingProducts = 0;
+        long pendingUnits = 0;
+        for (LongAdder adder : pending.values()) {
+            long delta = adder.sum();
+            if (delta != 0) {
+                pendingProducts++;
+                pendingUnits += delta;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingProducts", pendingProducts);
+        stats.put("pendingUnits", pendingUnits);
+        stats.put("increments", increments.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("flushedProducts", flushedProducts.sum());
+        stats.put("flushedUnits", flushedUnits.sum());
+        stats.put("failures", failures.sum());
+        stats.put("lastFlushMillis", lastFlushMillis.get());
+        return stats;
+    }
+
+    private void add(Long productId, int quantity) {
+        pending.computeIfAbsent(productId, id -> new LongAdder()).add(quantity);
+        increments.increment();
+    }
+}
@@ -0,0 +1,629 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.CatalogVersionService;
+import org.javaweb.webshopbackend.service.ProductSearchService;
+import org.javaweb.webshopbackend.util.SearchTokenizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品搜索 Service 实现类
+ * <p>
+ * 索引结构：每个上架商品对应一个递增的内部文档号，每个词项对应一条按文档号升序的倒排表，
+ * 倒排项记录该词在名称（权重3）、规格（权重2）、描述（权重1，只取前 description-max-chars 个字符）中的权重和。
+ * 商品文本变化时旧文档标记删除、以新文档号追加，倒排表始终保持有序；
+ * 只有价格、销量、分类变化时原地更新文档属性。已删除文档占比超过阈值时在后台重建。
+ * <p>
+ * 查询时按倒排表长度从短到长求交集，相关度 = Σ 权重 × ln(1 + 文档数 / 包含该词的文档数)，
+ * 排序只对当前页及之前的结果做部分排序，当前页的商品再按ID从数据库读取。
+ * <p>
+ * 同步：商品变更事件提交后记录商品ID，由后台任务批量读取最新数据写入索引（近实时，延迟为一个同步间隔）；
+ * 全量重建期间提交的变更会在新索引替换后重新同步。索引只在单实例内有效
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class ProductSearchServiceImpl implements ProductSearchService {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int SPECS_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /**
+     * 增量同步时每次按ID读取的商品数
+     */
+    private static final int LOAD_CHUNK = 500;
+
+    /**
+     * 已删除文档少于此数量时不重建
+     */
+    private static final int COMPACT_MIN_DELETED = 1000;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.index.description-max-chars:64}")
+    private int descriptionMaxChars;
+
+    @Value("${search.index.compact-deleted-ratio:0.25}")
+    private double compactDeletedRatio;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService rebuildExecutor;
+
+    /**
+     * 当前索引，首次构建完成前为 null；读写均在 lock 内进行
+     */
+    private volatile Index index;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 已提交、尚未同步到索引的商品ID
+     */
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 全量重建期间提交变更的商品ID，新索引替换后重新同步
+     */
+    private final Set<Long> replay = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean rebuilding;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final AtomicLong lastRebuildMillis = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "product-search-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public IPage<Product> search(Page<Product> page, Long categoryId, String keyword,
+                                 BigDecimal minPrice, BigDecimal maxPrice, String sortBy) {
+        Set<String> terms = SearchTokenizer.queryTerms(keyword);
+        if (index == null || terms.isEmpty()) {
+            fallbacks.increment();
+            return null;
+        }
+
+        long begin = System.nanoTime();
+        long offset = (page.getCurrent() - 1) * page.getSize();
+        long[] productIds;
+        long total;
+        lock.readLock().lock();
+        try {
+            Matches matches = index.match(terms, categoryId,
+                    minPrice == null ? Long.MIN_VALUE : toCents(minPrice, RoundingMode.CEILING),
+                    maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice, RoundingMode.FLOOR));
+            total = matches.size;
+            productIds = index.topProductIds(matches, comparator(index, matches, sortBy), offset, page.getSize());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        page.setTotal(total);
+        page.setRecords(loadInOrder(productIds));
+        searches.increment();
+        searchNanos.add(System.nanoTime() - begin);
+        return page;
+    }
+
+    /**
+     * 记录商品变更（事务提交后执行），由 applyPending 批量同步
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        pending.addAll(event.getProductIds());
+        if (rebuilding) {
+            replay.addAll(event.getProductIds());
+        }
+    }
+
+    @Override
+    public synchronized int applyPending() {
+        if (index == null || pending.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(pending);
+        pending.removeAll(ids);
+
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK, ids.size()));
+            Map<Long, IndexedProduct> loaded = new HashMap<>();
+            try {
+                for (Product product : productMapper.selectBatchIds(chunk)) {
+                    if (Integer.valueOf(1).equals(product.getStatus())) {
+                        loaded.put(product.getId(), toIndexed(product));
+                    }
+                }
+            } catch (RuntimeException e) {
+                // 未同步的商品放回，下次重试
+                pending.addAll(ids.subList(from, ids.size()));
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Long productId : chunk) {
+                    IndexedProduct product = loaded.get(productId);
+                    if (product == null) {
+                        // 已删除或已下架
+                        index.remove(productId);
+                    } else {
+                        index.upsert(product);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        applied.add(ids.size());
+        // 索引晚于数据库一个同步间隔，同步后再递增一次，避免关键词搜索结果以新版本号被客户端缓存
+        catalogVersionService.bump();
+        log.debug("商品搜索索引增量同步完成：商品数={}", ids.size());
+        return ids.size();
+    }
+
+    @Override
+    public boolean compactIfNeeded() {
+        Index current = index;
+        if (current == null || rebuildScheduled.get()) {
+            return false;
+        }
+        int deletedDocs;
+        int liveDocs;
+        lock.readLock().lock();
+        try {
+            deletedDocs = current.deletedCount();
+            liveDocs = current.liveCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (deletedDocs < COMPACT_MIN_DELETED || deletedDocs < liveDocs * compactDeletedRatio) {
+            return false;
+        }
+        log.info("商品搜索索引已删除文档过多，开始重建：已删除={}, 有效={}", deletedDocs, liveDocs);
+        rebuildAsync();
+        return true;
+    }
+
+    @Override
+    public void rebuildAsync() {
+        if (!enabled || !rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("商品搜索索引重建异常", e);
+            } finally {
+                rebuildScheduled.set(false);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Index current = index;
+        stats.put("enabled", enabled);
+        stats.put("ready", current != null);
+        stats.put("rebuilding", rebuilding);
+        if (current != null) {
+            lock.readLock().lock();
+            try {
+                stats.put("liveDocs", current.liveCount());
+                stats.put("deletedDocs", current.deletedCount());
+                stats.put("terms", current.postings.size());
+                stats.put("postings", current.postingCount);
+                stats.put("estimatedBytes", current.estimatedBytes());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        long searchCount = searches.sum();
+        stats.put("pendingProducts", pending.size());
+        stats.put("searches", searchCount);
+        stats.put("avgSearchMicros", searchCount == 0 ? 0 : searchNanos.sum() / searchCount / 1000);
+        stats.put("fallbacks", fallbacks.sum());
+        stats.put("appliedChanges", applied.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("lastRebuildMillis", lastRebuildMillis.get());
+        return stats;
+    }
+
+    /**
+     * 从数据库流式读取全部上架商品构建新索引，完成后整体替换
+     */
+    private void rebuild() {
+        long begin = System.currentTimeMillis();
+        replay.clear();
+        rebuilding = true;
+        Index fresh = new Index();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                try (Cursor<Product> cursor = productMapper.selectForSearchIndex()) {
+                    for (Product product : cursor) {
+                        fresh.upsert(toIndexed(product));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            rebuilding = false;
+        }
+        pending.addAll(replay);
+        replay.clear();
+        applyPending();
+        catalogVersionService.bump();
+
+        rebuilds.increment();
+        lastRebuildMillis.set(System.currentTimeMillis() - begin);
+        log.info("商品搜索索引重建完成：商品数={}, 词项数={}, 倒排项数={}, 耗时={}ms",
+                fresh.liveCount(), fresh.postings.size(), fresh.postingCount, lastRebuildMillis.get());
+    }
+
+    /**
+     * 切词并计算各词项权重（在锁外执行）
+     */
+    private IndexedProduct toIndexed(Product product) {
+        String description = SearchTokenizer.stripHtml(product.getDescription());
+        if (description != null && description.length() > descriptionMaxChars) {
+            description = description.substring(0, descriptionMaxChars);
+        }
+
+        Map<String, Integer> weights = new HashMap<>();
+        SearchTokenizer.indexTerms(product.getName(), true).forEach(t -> weights.merge(t, NAME_WEIGHT, Integer::sum));
+        SearchTokenizer.indexTerms(product.getSpecs(), false).forEach(t -> weights.merge(t, SPECS_WEIGHT, Integer::sum));
+        SearchTokenizer.indexTerms(description, false).forEach(t -> weights.merge(t, DESCRIPTION_WEIGHT, Integer::sum));
+
+        return new IndexedProduct(product.getId(),
+                product.getCategoryId() == null ? 0 : product.getCategoryId(),
+                product.getPrice() == null ? 0 : toCents(product.getPrice(), RoundingMode.HALF_UP),
+                product.getSales() == null ? 0 : product.getSales(),
+                Objects.hash(product.getName(), product.getSpecs(), description),
+                weights);
+    }
+
+    private List<Product> loadInOrder(long[] productIds) {
+        if (productIds.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = Arrays.stream(productIds).boxed().toList();
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : productMapper.selectBatchIds(ids)) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> records = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            // 索引同步前已被删除的商品直接跳过
+            Product product = byId.get(id);
+            if (product != null) {
+                records.add(product);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 结果排序，按 sortBy 决定，最后都以商品ID倒序保证稳定
+     */
+    private static Comparator<Integer> comparator(Index index, Matches matches, String sortBy) {
+        Comparator<Integer> order;
+        if ("sales".equals(sortBy)) {
+            order = Comparator.comparingInt((Integer m) -> index.sales[matches.docs[m]]).reversed();
+        } else if ("price_asc".equals(sortBy)) {
+            order = Comparator.comparingLong((Integer m) -> index.priceCents[matches.docs[m]]);
+        } else if ("price_desc".equals(sortBy)) {
+            order = Comparator.comparingLong((Integer m) -> index.priceCents[matches.docs[m]]).reversed();
+        } else {
+            order = Comparator.comparingDouble((Integer m) -> matches.scores[m]).reversed()
+                    .thenComparing(Comparator.comparingInt((Integer m) -> index.sales[matches.docs[m]]).reversed());
+        }
+        return order.thenComparing(Comparator.comparingLong((Integer m) -> index.productIds[matches.docs[m]]).reversed());
+    }
+
+    private static long toCents(BigDecimal price, RoundingMode roundingMode) {
+        return price.movePointRight(2).setScale(0, roundingMode).longValueExact();
+    }
+
+    /**
+     * 已切词的商品
+     */
+    private static final class IndexedProduct {
+
+        private final long productId;
+
+        private final long categoryId;
+
+        private final long priceCents;
+
+        private final int sales;
+
+        private final int textHash;
+
+        private final Map<String, Integer> weights;
+
+        private IndexedProduct(long productId, long categoryId, long priceCents, int sales,
+                               int textHash, Map<String, Integer> weights) {
+            this.productId = productId;
+            this.categoryId = categoryId;
+            this.priceCents = priceCents;
+            this.sales = sales;
+            this.textHash = textHash;
+            this.weights = weights;
+        }
+    }
+
+    /**
+     * 查询命中的文档及相关度，下标一一对应
+     */
+    private static final class Matches {
+
+        private int[] docs = new int[64];
+
+        private float[] scores = new float[64];
+
+        private int size;
+
+        private void add(int doc, float score) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            docs[size] = doc;
+            scores[size] = score;
+            size++;
+        }
+    }
+
+    /**
+     * 一个词项的倒排表：文档号升序及对应权重
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+
+        private byte[] weights = new byte[4];
+
+        private int size;
+
+        private void add(int doc, int weight) {
+            if (size == docs.length) {
+                int capacity = size + (size >> 1) + 1;
+                docs = Arrays.copyOf(docs, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            docs[size] = doc;
+            weights[size] = (byte) Math.min(weight, Byte.MAX_VALUE);
+            size++;
+        }
+    }
+
+    /**
+     * 倒排索引及文档属性（列式数组，下标为文档号）
+     */
+    private static final class Index {
+
+        private long[] productIds = new long[1024];
+
+        private long[] categoryIds = new long[1024];
+
+        private long[] priceCents = new long[1024];
+
+        private int[] sales = new int[1024];
+
+        private int[] textHashes = new int[1024];
+
+        private int docCount;
+
+        private final BitSet deleted = new BitSet();
+
+        private final Map<Long, Integer> docByProduct = new HashMap<>();
+
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        private long postingCount;
+
+        private int liveCount() {
+            return docByProduct.size();
+        }
+
+        private int deletedCount() {
+            return docCount - docByProduct.size();
+        }
+
+        private long estimatedBytes() {
+            // 倒排项 int + byte，文档属性 4 个 long/int 列及文档号映射
+            return postingCount * 5 + (long) productIds.length * 36 + docByProduct.size() * 48L;
+        }
+
+        private void upsert(IndexedProduct product) {
+            Integer doc = docByProduct.get(product.productId);
+            if (doc != null && textHashes[doc] == product.textHash) {
+                categoryIds[doc] = product.categoryId;
+                priceCents[doc] = product.priceCents;
+                sales[doc] = product.sales;
+                return;
+            }
+            remove(product.productId);
+
+            int newDoc = docCount++;
+            if (newDoc == productIds.length) {
+                int capacity = newDoc * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                priceCents = Arrays.copyOf(priceCents, capacity);
+                sales = Arrays.copyOf(sales, capacity);
+                textHashes = Arrays.copyOf(textHashes, capacity);
+            }
+            productIds[newDoc] = product.productId;
+            categoryIds[newDoc] = product.categoryId;
+            priceCents[newDoc] = product.priceCents;
+            sales[newDoc] = product.sales;
+            textHashes[newDoc] = product.textHash;
+            docByProduct.put(product.productId, newDoc);
+            product.weights.forEach((term, weight) ->
+                    postings.computeIfAbsent(term, t -> new Postings()).add(newDoc, weight));
+            postingCount += product.weights.size();
+        }
+
+        private void remove(Long productId) {
+            Integer doc = docByProduct.remove(productId);
+            if (doc != null) {
+                deleted.set(doc);
+            }
+        }
+
+        /**
+         * 求所有词项倒排表的交集并计算相关度
+         */
+        private Matches match(Set<String> terms, Long categoryId, long minCents, long maxCents) {
+            Matches matches = new Matches();
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return matches;
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(p -> p.size));
+
+            int live = Math.max(1, liveCount());
+            float[] idf = new float[lists.size()];
+            for (int i = 0; i < idf.length; i++) {
+                idf[i] = (float) Math.log1p((double) live / lists.get(i).size);
+            }
+
+            Postings first = lists.get(0);
+            int[] cursors = new int[lists.size()];
+            for (int i = 0; i < first.size; i++) {
+                int doc = first.docs[i];
+                if (deleted.get(doc)
+                        || (categoryId != null && categoryIds[doc] != categoryId)
+                        || priceCents[doc] < minCents || priceCents[doc] > maxCents) {
+                    continue;
+                }
+                float score = first.weights[i] * idf[0];
+                boolean all = true;
+                for (int l = 1; l < lists.size() && all; l++) {
+                    Postings other = lists.get(l);
+                    int pos = Arrays.binarySearch(other.docs, cursors[l], other.size, doc);
+                    if (pos >= 0) {
+                        score += other.weights[pos] * idf[l];
+                        cursors[l] = pos + 1;
+                    } else {
+                        cursors[l] = -pos - 1;
+                        all = false;
+                    }
+                }
+                if (all) {
+                    matches.add(doc, score);
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * 用大小为 offset + limit 的堆取出排序后的当前页商品ID
+         */
+        private long[] topProductIds(Matches matches, Comparator<Integer> order, long offset, long limit) {
+            if (offset >= matches.size || limit <= 0) {
+                return new long[0];
+            }
+            int keep = (int) Math.min(matches.size, offset + limit);
+            PriorityQueue<Integer> heap = new PriorityQueue<>(keep, order.reversed());
+            for (int m = 0; m < matches.size; m++) {
+                if (heap.size() < keep) {
+                    heap.add(m);
+                } else if (order.compare(m, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(m);
+                }
+            }
+
+            long[] sorted = new long[heap.size()];
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                sorted[i] = productIds[matches.docs[heap.poll()]];
+            }
+            return Arrays.copyOfRange(sorted, (int) offset, sorted.length);
+        }
+    }
+}
@@ -5,15 +5,23 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
 import org.javaweb.webshopbackend.mapper.ProductMapper;
 import org.javaweb.webshopbackend.pojo.entity.Product;
 import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.service.FlashSaleStockService;
+import org.javaweb.webshopbackend.service.ProductCacheService;
+import org.javaweb.webshopbackend.service.ProductSalesCounterService;
+import org.javaweb.webshopbackend.service.ProductSearchService;
 import org.javaweb.webshopbackend.service.ProductService;
 import org.javaweb.webshopbackend.service.ProductSkuService;
+import org.javaweb.webshopbackend.service.StockAlertService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -30,11 +38,48 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
      @Autowired
      private ProductSkuService productSkuService;
 
+     @Autowired
+     private FlashSaleStockService flashSaleStockService;
+
+     @Autowired
+     private ProductSalesCounterService productSalesCounterService;
+
+     @Autowired
+     private ProductCacheService productCacheService;
+
+     @Autowired
+     private ProductSearchService productSearchService;
+
+     @Autowired
+     private ApplicationEventPublisher eventPublisher;
+
+     @Autowired
+     private StockAlertService stockAlertService;
+
+    /**
+     * 按ID读取商品走进程内缓存（购物车、库存校验、下单、详情页等共用）
+     */
+    @Override
+    public Product getById(Serializable id) {
+        if (id instanceof Long productId) {
+            return productCacheService.get(productId);
+        }
+        return super.getById(id);
+    }
+
      @Override
     public IPage<Product> getProductPage(Page<Product> page, Long categoryId, String keyword,
                                          BigDecimal minPrice, BigDecimal maxPrice, String sortBy) {
         log.info("分页查询商品：categoryId={}, keyword={}, sortBy={}", categoryId, keyword, sortBy);
 
+        // 有关键词时走内存倒排索引，索引未就绪时回退到数据库 LIKE 查询
+        if (keyword != null && !keyword.isBlank()) {
+            IPage<Product> result = productSearchService.search(page, categoryId, keyword, minPrice, maxPrice, sortBy);
+            if (result != null) {
+                return result;
+            }
+        }
+
         LambdaQueryWrapper<Product> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Product::getStatus, 1)  // 只查上架商品
                .eq(categoryId != null, Product::getCategoryId, categoryId)
@@ -126,6 +171,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         }
 
         this.save(product);
+        publishChanged(product.getId());
 
         log.info("商品新增成功：productId={}", product.getId());
         return product;
@@ -139,17 +185,33 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         // 不允许修改销量
         product.setSales(null);
 
+        // 修改库存时先锁定商品行读出原库存，按变化量同步秒杀内存计数
+        Integer oldStock = product.getStock() == null ? null : baseMapper.selectStockForUpdate(product.getId());
         this.updateById(product);
+        if (oldStock != null) {
+            flashSaleStockService.adjustProduct(product.getId(), product.getStock() - oldStock);
+        }
+        flashSaleStockService.reload(product.getId());
+        publishChanged(product.getId());
 
         log.info("商品更新成功：productId={}", product.getId());
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void updateProductWithSkus(Product product, List<ProductSku> skus) {
+        updateProduct(product);
+        productSkuService.syncSkus(product.getId(), skus);
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void deleteProduct(Long productId) {
         log.info("删除商品：productId={}", productId);
 
         this.removeById(productId);
+        flashSaleStockService.reload(productId);
+        publishChanged(productId);
 
         log.info("商品删除成功：productId={}", productId);
     }
@@ -160,6 +222,8 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         log.info("批量删除商品：productIds={}", productIds);
 
         this.removeByIds(productIds);
+        productIds.forEach(flashSaleStockService::reload);
+        eventPublisher.publishEvent(new ProductChangedEvent(List.copyOf(productIds)));
 
         log.info("批量删除成功：数量={}", productIds.size());
     }
@@ -173,6 +237,8 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         product.setId(productId);
         product.setStatus(status);
         this.updateById(product);
+        flashSaleStockService.reload(productId);
+        publishChanged(productId);
 
         log.info("商品状态更新成功");
     }
@@ -183,6 +249,8 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         log.info("批量更新商品状态：productIds={}, status={}", productIds, status);
 
         baseMapper.batchUpdateStatus(productIds, status);
+        productIds.forEach(flashSaleStockService::reload);
+        eventPublisher.publishEvent(new ProductChangedEvent(List.copyOf(productIds)));
 
         log.info("批量更新状态成功：数量={}", productIds.size());
     }
@@ -193,6 +261,9 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         log.info("更新商品库存（增量）：productId={}, quantity={}", productId, quantity);
 
         baseMapper.updateStock(productId, quantity);
+        flashSaleStockService.adjustProduct(productId, quantity);
+        stockAlertService.onProductStockChanged(productId, quantity);
+        publishChanged(productId);
 
         log.info("库存更新成功");
     }
@@ -207,16 +278,39 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
             return;
         }
 
-        ProductSku sku = productSkuService.getById(skuId);
-        if (sku != null) {
-            int newStock = sku.getStock() + quantity;
-            log.info("SKU库存更新：原库存={}, 变化量={}, 新库存={}", sku.getStock(), quantity, newStock);
-            sku.setStock(newStock);
-            productSkuService.updateById(sku);
-            log.info("SKU库存更新成功：skuId={}, newStock={}", skuId, newStock);
+        // 直接在数据库中做增量更新，避免读-改-写丢失并发更新
+        productSkuService.updateStock(skuId, quantity);
+        flashSaleStockService.adjustSku(skuId, quantity);
+        stockAlertService.onSkuStockChanged(skuId, quantity);
+
+        log.info("SKU库存更新成功：skuId={}, quantity={}", skuId, quantity);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deductProductStock(Long productId, Integer quantity) {
+        boolean success = baseMapper.deductStock(productId, quantity) > 0;
+        if (success) {
+            flashSaleStockService.adjustProduct(productId, -quantity);
+            stockAlertService.onProductStockChanged(productId, -quantity);
+            publishChanged(productId);
         } else {
-            log.error("SKU不存在，无法更新库存：skuId={}", skuId);
+            log.warn("商品库存不足，扣减失败：productId={}, quantity={}", productId, quantity);
         }
+        return success;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deductSkuStock(Long skuId, Integer quantity) {
+        boolean success = productSkuService.deductStock(skuId, quantity);
+        if (success) {
+            flashSaleStockService.adjustSku(skuId, -quantity);
+            stockAlertService.onSkuStockChanged(skuId, -quantity);
+        } else {
+            log.warn("SKU库存不足，扣减失败：skuId={}, quantity={}", skuId, quantity);
+        }
+        return success;
     }
 
     @Override
@@ -224,19 +318,24 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     public void setProductStock(Long productId, Integer stock) {
         log.info("设置商品库存（绝对值）：productId={}, stock={}", productId, stock);
 
+        // 先锁定商品行读出原库存，按变化量同步秒杀内存计数
+        Integer oldStock = baseMapper.selectStockForUpdate(productId);
         baseMapper.setStock(productId, stock);
+        if (oldStock != null) {
+            flashSaleStockService.adjustProduct(productId, stock - oldStock);
+            stockAlertService.onProductStockSet(productId, oldStock, stock);
+        }
+        publishChanged(productId);
 
         log.info("库存设置成功");
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void updateProductSales(Long productId, Integer quantity) {
         log.info("更新商品销量：productId={}, quantity={}", productId, quantity);
 
-        baseMapper.updateSales(productId, quantity);
-
-        log.info("销量更新成功");
+        // 先在内存中累加，由后台任务批量写入，支付事务不再锁定热门商品行
+        productSalesCounterService.increment(productId, quantity);
     }
 
     @Override
@@ -256,6 +355,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         product.setId(productId);
         product.setIsRecommend(isRecommend);
         this.updateById(product);
+        publishChanged(productId);
         log.info("商品推荐状态更新成功");
     }
 
@@ -267,7 +367,16 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         product.setId(productId);
         product.setIsFlashSale(isFlashSale);
         this.updateById(product);
+        flashSaleStockService.reload(productId);
+        publishChanged(productId);
         log.info("商品秒杀状态更新成功");
     }
+
+    /**
+     * 发布商品变更事件（缓存等监听方在事务提交后处理）
+     */
+    private void publishChanged(Long productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(List.of(productId)));
+    }
 }
 
@@ -1,17 +1,33 @@
 package org.javaweb.webshopbackend.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.CatalogChangedEvent;
 import org.javaweb.webshopbackend.mapper.ProductSkuMapper;
 import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.service.FlashSaleStockService;
 import org.javaweb.webshopbackend.service.ProductSkuService;
+import org.javaweb.webshopbackend.service.StockAlertService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 商品SKU Service实现类
+ * SKU 的增删改由商品接口和 SKU 接口直接调用通用方法完成，在此统一发布目录变更事件；
+ * 下单扣减、取消恢复库存时商品库存同时变化，由商品变更事件覆盖。
+ * 编辑商品时的SKU按编码比对后同步，保留未变化SKU的ID（购物车、订单按ID引用SKU）；
+ * 只有库存确实被修改的SKU才写入库存列，其余SKU的更新不触碰库存，修改了库存的SKU按变化量检查库存预警
  * 
  * @author WebShop Team
  * @date 2025-11-10
@@ -20,6 +36,35 @@ import java.util.List;
 @Service
 public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, ProductSku> implements ProductSkuService {
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private FlashSaleStockService flashSaleStockService;
+
+    @Autowired
+    private StockAlertService stockAlertService;
+
+    @Override
+    public boolean save(ProductSku entity) {
+        return publishChanged(super.save(entity));
+    }
+
+    @Override
+    public boolean updateById(ProductSku entity) {
+        return publishChanged(super.updateById(entity));
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        return publishChanged(super.removeById(id));
+    }
+
+    @Override
+    public boolean remove(Wrapper<ProductSku> queryWrapper) {
+        return publishChanged(super.remove(queryWrapper));
+    }
+
     @Override
     public List<ProductSku> getByProductId(Long productId) {
         return baseMapper.selectByProductId(productId);
@@ -31,9 +76,182 @@ public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, Product
         baseMapper.updateStock(skuId, quantity);
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deductStock(Long skuId, Integer quantity) {
+        return baseMapper.deductStock(skuId, quantity) > 0;
+    }
+
     @Override
     public boolean checkStock(Long skuId, Integer quantity) {
         ProductSku sku = this.getById(skuId);
         return sku != null && sku.getStock() >= quantity;
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Map<String, Integer> syncSkus(Long productId, List<ProductSku> skus) {
+        Map<String, ProductSku> incoming = new LinkedHashMap<>();
+        for (ProductSku sku : skus) {
+            String skuCode = sku.getSkuCode() == null ? null : sku.getSkuCode().trim();
+            if (skuCode == null || skuCode.isEmpty()) {
+                throw new IllegalArgumentException("SKU编码不能为空");
+            }
+            if (incoming.put(skuCode, sku) != null) {
+                throw new IllegalArgumentException("SKU编码重复：" + skuCode);
+            }
+            sku.setSkuCode(skuCode);
+        }
+
+        // 编码全局唯一（包括已逻辑删除的SKU）：本商品已删除的SKU恢复使用，其他商品占用的编码不能使用。
+        // 锁定本商品的SKU行，比对到写入之间提交的扣减不会被读到的旧库存覆盖
+        Map<String, ProductSku> existing = new HashMap<>();
+        for (ProductSku sku : baseMapper.selectByProductIdForUpdate(productId)) {
+            existing.put(sku.getSkuCode(), sku);
+        }
+        if (!incoming.isEmpty()) {
+            for (ProductSku sku : baseMapper.selectByCodesIncludingDeleted(incoming.keySet())) {
+                if (!productId.equals(sku.getProductId())) {
+                    throw new IllegalArgumentException("SKU编码已被其他商品使用：" + sku.getSkuCode());
+                }
+                existing.putIfAbsent(sku.getSkuCode(), sku);
+            }
+        }
+
+        List<ProductSku> inserts = new ArrayList<>();
+        List<ProductSku> updates = new ArrayList<>();
+        Map<Long, Integer> stockDeltas = new HashMap<>();
+        int unchanged = 0;
+        for (ProductSku sku : incoming.values()) {
+            ProductSku current = existing.remove(sku.getSkuCode());
+            if (current == null) {
+                if (sku.getSkuName() == null || sku.getPrice() == null) {
+                    throw new IllegalArgumentException("新增SKU的名称和价格不能为空：" + sku.getSkuCode());
+                }
+                sku.setId(null);
+                sku.setProductId(productId);
+                sku.setSales(0);
+                sku.setStock(sku.getStock() == null ? 0 : sku.getStock());
+                sku.setStatus(sku.getStatus() == null ? 1 : sku.getStatus());
+                inserts.add(sku);
+            } else if (merge(current, sku, stockDeltas)) {
+                updates.add(current);
+            } else {
+                unchanged++;
+            }
+        }
+        // 剩下的是本商品不再需要的SKU（已删除的不必重复删除）
+        List<Long> deletes = new ArrayList<>();
+        for (ProductSku sku : existing.values()) {
+            if (productId.equals(sku.getProductId()) && !Integer.valueOf(1).equals(sku.getDeleted())) {
+                deletes.add(sku.getId());
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            String statement = ProductSkuMapper.class.getName() + ".insertForBatch";
+            executeBatch(inserts, (session, sku) -> session.insert(statement, sku));
+        }
+        if (!updates.isEmpty()) {
+            String statement = ProductSkuMapper.class.getName() + ".updateForBatch";
+            executeBatch(updates, (session, sku) -> {
+                Map<String, Object> params = new HashMap<>();
+                params.put("sku", sku);
+                params.put("stockChanged", stockDeltas.containsKey(sku.getId()));
+                session.update(statement, params);
+            });
+            stockDeltas.forEach(flashSaleStockService::adjustSku);
+            stockDeltas.forEach(stockAlertService::onSkuStockChanged);
+        }
+        if (!deletes.isEmpty()) {
+            baseMapper.deleteByIds(deletes);
+        }
+        if (!inserts.isEmpty() || !updates.isEmpty() || !deletes.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent("sku"));
+        }
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        result.put("inserted", inserts.size());
+        result.put("updated", updates.size());
+        result.put("deleted", deletes.size());
+        result.put("unchanged", unchanged);
+        log.info("同步商品SKU：productId={}, {}", productId, result);
+        return result;
+    }
+
+    @Override
+    public ProductSku fromRequestData(Map<String, Object> skuData) {
+        ProductSku sku = new ProductSku();
+        sku.setSkuCode((String) skuData.get("skuCode"));
+        sku.setSkuName((String) skuData.get("skuName"));
+        sku.setAttributes((String) skuData.get("attributes"));
+        sku.setImage((String) skuData.get("image"));
+        if (skuData.get("price") != null) {
+            sku.setPrice(new BigDecimal(skuData.get("price").toString()));
+        }
+        if (skuData.get("originalPrice") != null) {
+            sku.setOriginalPrice(new BigDecimal(skuData.get("originalPrice").toString()));
+        }
+        if (skuData.get("stock") != null) {
+            sku.setStock(Integer.parseInt(skuData.get("stock").toString()));
+        }
+        if (skuData.get("originalStock") != null) {
+            sku.setOriginalStock(Integer.parseInt(skuData.get("originalStock").toString()));
+        }
+        sku.setStatus(1);
+        return sku;
+    }
+
+    /**
+     * 把提交的非空字段合并到当前SKU，修改了库存的SKU把库存变化量记入 stockDeltas
+     *
+     * @return 是否需要写入（字段有变化，或SKU已被逻辑删除需要恢复）
+     */
+    private static boolean merge(ProductSku current, ProductSku sku, Map<Long, Integer> stockDeltas) {
+        boolean changed = Integer.valueOf(1).equals(current.getDeleted());
+        if (sku.getSkuName() != null && !sku.getSkuName().equals(current.getSkuName())) {
+            current.setSkuName(sku.getSkuName());
+            changed = true;
+        }
+        if (sku.getAttributes() != null && !sku.getAttributes().equals(current.getAttributes())) {
+            current.setAttributes(sku.getAttributes());
+            changed = true;
+        }
+        if (sku.getPrice() != null && !samePrice(sku.getPrice(), current.getPrice())) {
+            current.setPrice(sku.getPrice());
+            changed = true;
+        }
+        if (sku.getOriginalPrice() != null && !samePrice(sku.getOriginalPrice(), current.getOriginalPrice())) {
+            current.setOriginalPrice(sku.getOriginalPrice());
+            changed = true;
+        }
+        // 表单带回的库存与加载时相同说明没有修改，保留当前库存（期间可能已被下单扣减）
+        boolean stockEdited = sku.getStock() != null
+                && (sku.getOriginalStock() == null || !sku.getStock().equals(sku.getOriginalStock()));
+        if (stockEdited && !sku.getStock().equals(current.getStock())) {
+            stockDeltas.put(current.getId(), sku.getStock() - (current.getStock() == null ? 0 : current.getStock()));
+            current.setStock(sku.getStock());
+            changed = true;
+        }
+        if (sku.getImage() != null && !sku.getImage().equals(current.getImage())) {
+            current.setImage(sku.getImage());
+            changed = true;
+        }
+        if (sku.getStatus() != null && !sku.getStatus().equals(current.getStatus())) {
+            current.setStatus(sku.getStatus());
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        return b != null && a.compareTo(b) == 0;
+    }
+
+    private boolean publishChanged(boolean success) {
+        if (success) {
+            eventPublisher.publishEvent(new CatalogChangedEvent("sku"));
+        }
+        return success;
+    }
+}
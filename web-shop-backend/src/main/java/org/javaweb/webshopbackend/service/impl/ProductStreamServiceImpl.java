@@ -0,0 +1,415 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.config.WebMvcConfig;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.ProductStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商品价格/库存变更推送 Service 实现类
+ * <p>
+ * 商品变更事件提交后只记录有人订阅的商品ID，由定时任务按合并周期批量读取最新的价格、库存、状态，
+ * 与上次推送的值比较后把变化的字段放入各订阅者的缓冲区。缓冲区按商品ID合并（同一商品只保留合并后的最新变化），
+ * 大小不超过订阅的商品数，慢速客户端不会让内存无限增长。
+ * <p>
+ * 分发线程只写缓冲区、不做网络写入；每个有待发送数据的订阅者由一个虚拟线程把缓冲区写出，写完即结束，
+ * 空闲连接不占用线程。写出失败（客户端已断开）时移除订阅者
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class ProductStreamServiceImpl implements ProductStreamService {
+
+    private static final int LOAD_CHUNK = 500;
+
+    private static final String EVENT_NAME = "product";
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Value("${product.stream.max-subscribers:50000}")
+    private int maxSubscribers;
+
+    @Value("${product.stream.max-products-per-subscriber:50}")
+    private int maxProductsPerSubscriber;
+
+    @Value("${product.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    /**
+     * 单行 JSON（SSE 的 data 字段不能包含换行）
+     */
+    private final ObjectMapper objectMapper = WebMvcConfig.createResponseObjectMapper()
+            .disable(SerializationFeature.INDENT_OUTPUT);
+
+    private ExecutorService senders;
+
+    /**
+     * 商品ID -> 订阅者
+     */
+    private final Map<Long, Set<Subscriber>> subscribersByProduct = new ConcurrentHashMap<>();
+
+    /**
+     * 有人订阅的商品最近一次推送的价格、库存、状态
+     */
+    private final Map<Long, State> lastStates = new ConcurrentHashMap<>();
+
+    /**
+     * 已提交、尚未推送的商品ID
+     */
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final LongAdder subscriptions = new LongAdder();
+    private final LongAdder dispatchedChanges = new LongAdder();
+    private final LongAdder sentEvents = new LongAdder();
+    private final LongAdder coalescedEvents = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        senders = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter subscribe(List<Long> productIds) {
+        Set<Long> ids = new LinkedHashSet<>(productIds == null ? List.of() : productIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("请指定要订阅的商品");
+        }
+        if (ids.size() > maxProductsPerSubscriber) {
+            throw new IllegalArgumentException("一次最多订阅" + maxProductsPerSubscriber + "个商品");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalArgumentException("订阅人数已满，请稍后重试");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, ids);
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(e -> unregister(subscriber));
+        for (Long productId : ids) {
+            subscribersByProduct.computeIfAbsent(productId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        subscriptions.increment();
+
+        // 先登记再加载当前值，加载期间提交的变更也会推送；加载失败时撤销登记，释放订阅名额
+        Map<Long, Product> products;
+        try {
+            products = load(new ArrayList<>(ids));
+        } catch (RuntimeException e) {
+            unregister(subscriber);
+            throw e;
+        }
+        for (Long productId : ids) {
+            State state = State.of(products.get(productId), null);
+            lastStates.putIfAbsent(productId, state);
+            subscriber.offer(productId, state.toMap());
+        }
+        return emitter;
+    }
+
+    /**
+     * 记录有人订阅的商品的变更（事务提交后执行），由 dispatchPending 合并推送
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        for (Long productId : event.getProductIds()) {
+            if (subscribersByProduct.containsKey(productId)) {
+                pending.add(productId);
+            }
+        }
+    }
+
+    @Override
+    public int dispatchPending() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(pending);
+        pending.removeAll(ids);
+        ids.removeIf(productId -> !subscribersByProduct.containsKey(productId));
+
+        Map<Long, Product> products;
+        try {
+            products = load(ids);
+        } catch (RuntimeException e) {
+            // 下次重试
+            pending.addAll(ids);
+            throw e;
+        }
+        for (Long productId : ids) {
+            State previous = lastStates.get(productId);
+            State current = State.of(products.get(productId), previous);
+            lastStates.put(productId, current);
+            Map<String, Object> delta = current.diff(previous);
+            if (delta == null) {
+                continue;
+            }
+            dispatchedChanges.increment();
+            Set<Subscriber> subscribers = subscribersByProduct.get(productId);
+            if (subscribers != null) {
+                subscribers.forEach(subscriber -> subscriber.offer(productId, delta));
+            }
+        }
+        return ids.size();
+    }
+
+    @Override
+    public void heartbeat() {
+        Set<Subscriber> all = new HashSet<>();
+        subscribersByProduct.values().forEach(all::addAll);
+        all.forEach(Subscriber::ping);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscriberCount.get());
+        stats.put("subscribedProducts", subscribersByProduct.size());
+        stats.put("pendingProducts", pending.size());
+        stats.put("subscriptions", subscriptions.sum());
+        stats.put("dispatchedChanges", dispatchedChanges.sum());
+        stats.put("sentEvents", sentEvents.sum());
+        stats.put("coalescedEvents", coalescedEvents.sum());
+        stats.put("disconnected", disconnected.sum());
+        return stats;
+    }
+
+    private Map<Long, Product> load(List<Long> ids) {
+        Map<Long, Product> products = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+            for (Product product : productMapper.selectBatchIds(ids.subList(from, Math.min(from + LOAD_CHUNK, ids.size())))) {
+                products.put(product.getId(), product);
+            }
+        }
+        return products;
+    }
+
+    private void unregister(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        for (Long productId : subscriber.productIds) {
+            Set<Subscriber> remaining = subscribersByProduct.computeIfPresent(productId, (id, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+            if (remaining == null) {
+                lastStates.remove(productId);
+            }
+        }
+    }
+
+    /**
+     * 推送的字段：价格、库存、状态（商品已删除时视为下架、库存为0，价格保持上次的值）
+     */
+    private static final class State {
+
+        private final BigDecimal price;
+
+        private final Integer stock;
+
+        private final Integer status;
+
+        private State(BigDecimal price, Integer stock, Integer status) {
+            this.price = price;
+            this.stock = stock;
+            this.status = status;
+        }
+
+        private static State of(Product product, State previous) {
+            if (product == null) {
+                return new State(previous == null ? null : previous.price, 0, 0);
+            }
+            return new State(product.getPrice(), product.getStock(), product.getStatus());
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("price", price);
+            map.put("stock", stock);
+            map.put("status", status);
+            return map;
+        }
+
+        /**
+         * 与上次推送的值相比变化的字段，没有变化时返回 null
+         */
+        private Map<String, Object> diff(State previous) {
+            if (previous == null) {
+                return toMap();
+            }
+            Map<String, Object> delta = new LinkedHashMap<>();
+            if (price == null ? previous.price != null
+                    : previous.price == null || price.compareTo(previous.price) != 0) {
+                delta.put("price", price);
+            }
+            if (!Objects.equals(stock, previous.stock)) {
+                delta.put("stock", stock);
+            }
+            if (!Objects.equals(status, previous.status)) {
+                delta.put("status", status);
+            }
+            return delta.isEmpty() ? null : delta;
+        }
+    }
+
+    /**
+     * 订阅者：按商品ID合并的待发送缓冲区，有数据时由一个虚拟线程写出
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Set<Long> productIds;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * 商品ID -> 待发送的变化字段，以下字段由 this 保护
+         */
+        private final Map<Long, Map<String, Object>> buffer = new LinkedHashMap<>();
+
+        private boolean pingPending;
+
+        private boolean sending;
+
+        private Subscriber(SseEmitter emitter, Set<Long> productIds) {
+            this.emitter = emitter;
+            this.productIds = productIds;
+        }
+
+        private void offer(Long productId, Map<String, Object> delta) {
+            boolean start;
+            synchronized (this) {
+                Map<String, Object> buffered = buffer.get(productId);
+                if (buffered == null) {
+                    buffer.put(productId, new LinkedHashMap<>(delta));
+                } else {
+                    buffered.putAll(delta);
+                    coalescedEvents.increment();
+                }
+                start = startSending();
+            }
+            if (start) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void ping() {
+            boolean start;
+            synchronized (this) {
+                pingPending = true;
+                start = startSending();
+            }
+            if (start) {
+                senders.execute(this::drain);
+            }
+        }
+
+        /**
+         * 调用方持有 this 锁
+         */
+        private boolean startSending() {
+            if (sending || closed.get()) {
+                return false;
+            }
+            sending = true;
+            return true;
+        }
+
+        /**
+         * 写出缓冲区直到为空（虚拟线程中执行，网络写入可能阻塞）
+         */
+        private void drain() {
+            try {
+                while (true) {
+                    Map<Long, Map<String, Object>> batch;
+                    boolean ping;
+                    synchronized (this) {
+                        if (buffer.isEmpty() && !pingPending || closed.get()) {
+                            sending = false;
+                            return;
+                        }
+                        batch = new LinkedHashMap<>(buffer);
+                        buffer.clear();
+                        ping = pingPending;
+                        pingPending = false;
+                    }
+                    if (ping && batch.isEmpty()) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    }
+                    for (Map.Entry<Long, Map<String, Object>> entry : batch.entrySet()) {
+                        Map<String, Object> data = new LinkedHashMap<>();
+                        data.put("productId", entry.getKey());
+                        data.putAll(entry.getValue());
+                        emitter.send(SseEmitter.event().name(EVENT_NAME).data(toJson(data), MediaType.TEXT_PLAIN));
+                        sentEvents.increment();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("商品变更推送失败，移除订阅者：{}", e.getMessage());
+                disconnected.increment();
+                synchronized (this) {
+                    sending = false;
+                    buffer.clear();
+                }
+                unregister(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private String toJson(Map<String, Object> data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
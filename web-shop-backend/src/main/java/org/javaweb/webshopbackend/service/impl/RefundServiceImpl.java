@@ -10,10 +10,11 @@ import org.javaweb.webshopbackend.pojo.entity.OrderItem;
 import org.javaweb.webshopbackend.pojo.entity.Orders;
 import org.javaweb.webshopbackend.pojo.entity.Refund;
 import org.javaweb.webshopbackend.service.OrderItemService;
+import org.javaweb.webshopbackend.service.OrderStateMachine;
 import org.javaweb.webshopbackend.service.OrdersService;
 import org.javaweb.webshopbackend.service.ProductService;
-import org.javaweb.webshopbackend.service.ProductSkuService;
 import org.javaweb.webshopbackend.service.RefundService;
+import org.javaweb.webshopbackend.util.SnowflakeIdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,7 +42,10 @@ public class RefundServiceImpl extends ServiceImpl<RefundMapper, Refund> impleme
     private ProductService productService;
 
     @Autowired
-    private ProductSkuService productSkuService;
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -78,13 +82,12 @@ public class RefundServiceImpl extends ServiceImpl<RefundMapper, Refund> impleme
         }
 
         // 5. 生成退款单号并设置默认值
-        refund.setRefundNo("RF" + System.currentTimeMillis());
+        refund.setRefundNo(idGenerator.nextRefundNo());
         refund.setStatus(0); // 待审核
         this.save(refund);
 
         // 6. 更新订单状态为退款中
-        order.setStatus(5); // 退款中
-        ordersService.updateById(order);
+        orderStateMachine.transition(order, 5, null); // 退款中
 
         log.info("退款申请提交成功：refundId={}", refund.getId());
     }
@@ -115,25 +118,24 @@ public class RefundServiceImpl extends ServiceImpl<RefundMapper, Refund> impleme
         refund.setStatus(status);
         this.updateById(refund);
 
-        // 5. 更新订单状态
+        // 5. 更新订单状态（订单必须仍处于退款中，重复审核只有一次能成功）
         if (status == 1) {
             // 同意退款，还原库存
+            orderStateMachine.transition(order, 7, null); // 已退款
             restoreStock(refund.getOrderId());
-            order.setStatus(7); // 已退款
             log.info("退款申请已同意，订单状态更新为已退款，库存已还原");
         } else {
             // 拒绝退款，需要根据支付时间和发货时间判断应该恢复到什么状态
             if (order.getShipTime() != null) {
                 // 已发货，恢复为已发货状态
-                order.setStatus(2);
+                orderStateMachine.transition(order, 2, null);
                 log.info("退款申请已拒绝，订单状态恢复为已发货");
             } else {
                 // 未发货，恢复为待发货状态
-                order.setStatus(1);
+                orderStateMachine.transition(order, 1, null);
                 log.info("退款申请已拒绝，订单状态恢复为待发货");
             }
         }
-        ordersService.updateById(order);
 
         log.info("退款审核完成");
     }
@@ -170,18 +172,17 @@ public class RefundServiceImpl extends ServiceImpl<RefundMapper, Refund> impleme
         // 5. 恢复订单状态，根据发货情况判断
         if (order.getReceiveTime() != null) {
             // 已收货
-            order.setStatus(3);
+            orderStateMachine.transition(order, 3, null);
             log.info("退款申请已取消，订单状态恢复为已收货");
         } else if (order.getShipTime() != null) {
             // 已发货
-            order.setStatus(2);
+            orderStateMachine.transition(order, 2, null);
             log.info("退款申请已取消，订单状态恢复为已发货");
         } else {
             // 未发货
-            order.setStatus(1);
+            orderStateMachine.transition(order, 1, null);
             log.info("退款申请已取消，订单状态恢复为待发货");
         }
-        ordersService.updateById(order);
 
         log.info("退款申请已取消");
     }
@@ -239,7 +240,7 @@ public class RefundServiceImpl extends ServiceImpl<RefundMapper, Refund> impleme
         List<OrderItem> items = orderItemService.getByOrderId(orderId);
         for (OrderItem item : items) {
             if (item.getSkuId() != null) {
-                productSkuService.updateStock(item.getSkuId(), item.getQuantity());
+                productService.updateSkuStock(item.getSkuId(), item.getQuantity());
                 log.info("还原SKU库存：skuId={}, quantity={}", item.getSkuId(), item.getQuantity());
             }
             productService.updateProductStock(item.getProductId(), item.getQuantity());
@@ -0,0 +1,398 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.OrderStatusChangedEvent;
+import org.javaweb.webshopbackend.mapper.OrdersMapper;
+import org.javaweb.webshopbackend.mapper.SalesDailyRollupMapper;
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+import org.javaweb.webshopbackend.pojo.entity.SalesDailyRollup;
+import org.javaweb.webshopbackend.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 每日销售汇总 Service 实现类
+ * <p>
+ * 汇总按订单创建日期归档：下单计入 order_count；支付计入有效销售；已支付订单被取消或退款时从有效销售中扣除，
+ * 退款同时计入退款统计。增量先累加在内存中，由定时任务批量写入；查询时把尚未写入的增量一并计入。
+ * 进程异常退出会丢失未写入的增量，可通过重建恢复。
+ * 内存增量只在 lock 内短暂读写，数据库读写均在 lock 外进行，事务提交后的监听不会被数据库操作阻塞
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    /**
+     * 计入有效销售的订单状态：待发货、待收货、已完成、退款中
+     */
+    private static final Set<Integer> PAID_STATUSES = Set.of(1, 2, 3, 5);
+
+    private static final int REFUNDED = 7;
+
+    @Autowired
+    private SalesDailyRollupMapper rollupMapper;
+
+    @Autowired
+    private OrdersMapper ordersMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${sales-rollup.rebuild-threads:4}")
+    private int rebuildThreads;
+
+    @Value("${sales-rollup.rebuild-chunk-days:31}")
+    private int rebuildChunkDays;
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 尚未写入汇总表的增量（按日期），读写均在 lock 内进行
+     */
+    private Map<LocalDate, SalesDailyRollup> pending = new HashMap<>();
+
+    private final Object lock = new Object();
+
+    /**
+     * 影响汇总的订单变更每次进入或离开提交阶段时递增，与 changedAt 一起判断重建分段期间是否有变更提交（在 lock 内读写）
+     */
+    private long sequence;
+
+    /**
+     * 各日期最近一次有变更进入或离开提交阶段时的 sequence
+     */
+    private final NavigableMap<LocalDate, Long> changedAt = new TreeMap<>();
+
+    /**
+     * 各日期正在提交（已过 BEFORE_COMMIT、尚未结束）的变更数
+     */
+    private final NavigableMap<LocalDate, Integer> committing = new TreeMap<>();
+
+    /**
+     * 正在提交的变更及其归档日期，事务结束时按此撤销 committing
+     */
+    private final Map<OrderStatusChangedEvent, LocalDate> inFlight = new IdentityHashMap<>();
+
+    /**
+     * 写入增量时持有写锁，查询汇总时持有读锁，避免查询把正在写入的增量计算两次或漏掉
+     */
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    /**
+     * 同一时间只有一个写入或重建在进行，重建期间定时写入等待重建完成
+     */
+    private final ReentrantLock writerLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 影响汇总的变更事务提交前标记其归档日期，覆盖该日期的重建分段在标记撤销前不采用聚合结果
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void beforeOrderStatusCommit(OrderStatusChangedEvent event) {
+        LocalDate statDate = statDateOf(event);
+        if (statDate == null) {
+            return;
+        }
+        synchronized (lock) {
+            changedAt.put(statDate, ++sequence);
+            // 没有事务时不存在提交窗口，监听的执行顺序也不确定，只记录变更
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                inFlight.put(event, statDate);
+                committing.merge(statDate, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * 变更事务结束（提交、回滚或状态未知）后撤销标记
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void afterOrderStatusCompletion(OrderStatusChangedEvent event) {
+        synchronized (lock) {
+            LocalDate statDate = inFlight.remove(event);
+            if (statDate == null) {
+                return;
+            }
+            changedAt.put(statDate, ++sequence);
+            committing.computeIfPresent(statDate, (date, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * 订单状态变更后累加当日增量（事务提交后执行）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (isCreation(event)) {
+            synchronized (lock) {
+                SalesDailyRollup bucket = bucket(LocalDate.now());
+                bucket.setOrderCount(bucket.getOrderCount() + 1);
+            }
+            return;
+        }
+        if (!affectsSales(event)) {
+            return;
+        }
+        Integer from = event.getFromStatus();
+        Integer to = event.getToStatus();
+        boolean wasPaid = from != null && PAID_STATUSES.contains(from);
+        boolean isPaid = PAID_STATUSES.contains(to);
+        boolean refunded = to == REFUNDED;
+
+        Orders order = ordersMapper.selectById(event.getOrderId());
+        if (order == null || order.getCreatedTime() == null) {
+            return;
+        }
+        BigDecimal amount = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        LocalDate statDate = order.getCreatedTime().toLocalDate();
+
+        synchronized (lock) {
+            SalesDailyRollup bucket = bucket(statDate);
+            if (isPaid && !wasPaid) {
+                bucket.setPaidCount(bucket.getPaidCount() + 1);
+                bucket.setPaidAmount(bucket.getPaidAmount().add(amount));
+            } else if (wasPaid && !isPaid) {
+                bucket.setPaidCount(bucket.getPaidCount() - 1);
+                bucket.setPaidAmount(bucket.getPaidAmount().subtract(amount));
+            }
+            if (refunded) {
+                bucket.setRefundCount(bucket.getRefundCount() + 1);
+                bucket.setRefundAmount(bucket.getRefundAmount().add(amount));
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics(LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDate startDate = startTime != null ? startTime.toLocalDate() : null;
+        LocalDate endDate = endTime != null ? endTime.toLocalDate() : null;
+
+        SalesDailyRollup total;
+        flushLock.readLock().lock();
+        try {
+            total = rollupMapper.selectSummary(startDate, endDate);
+            synchronized (lock) {
+                for (SalesDailyRollup delta : pending.values()) {
+                    if ((startDate == null || !delta.getStatDate().isBefore(startDate))
+                            && (endDate == null || !delta.getStatDate().isAfter(endDate))) {
+                        accumulate(total, delta);
+                    }
+                }
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalAmount", total.getPaidAmount().doubleValue());
+        result.put("orderCount", total.getOrderCount());
+        result.put("paidCount", total.getPaidCount());
+        result.put("avgAmount", total.getPaidCount() > 0
+                ? total.getPaidAmount().divide(BigDecimal.valueOf(total.getPaidCount()), 2, RoundingMode.HALF_UP).doubleValue()
+                : 0.0);
+        result.put("refundCount", total.getRefundCount());
+        result.put("refundAmount", total.getRefundAmount().doubleValue());
+        return result;
+    }
+
+    @Override
+    public int flushPending() {
+        writerLock.lock();
+        try {
+            return doFlush();
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * 在 lock 内取走当前增量，在 lock 外写入数据库；写入失败时把增量合并回去等待下次写入
+     */
+    private int doFlush() {
+        flushLock.writeLock().lock();
+        try {
+            Map<LocalDate, SalesDailyRollup> flushing;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                flushing = pending;
+                pending = new HashMap<>();
+            }
+            try {
+                rollupMapper.upsertIncrements(new ArrayList<>(flushing.values()));
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    flushing.values().forEach(delta -> accumulate(bucket(delta.getStatDate()), delta));
+                }
+                throw e;
+            }
+            return flushing.size();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int rebuild() {
+        writerLock.lock();
+        try {
+            return doRebuild();
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private int doRebuild() {
+        doFlush();
+        LocalDate first = rollupMapper.selectFirstOrderDate();
+        if (first == null) {
+            return 0;
+        }
+        LocalDate today = LocalDate.now();
+        log.info("开始重建每日销售汇总：{} ~ {}", first, today);
+
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (LocalDate start = first; !start.isAfter(today); start = start.plusDays(rebuildChunkDays)) {
+                LocalDate chunkStart = start;
+                LocalDate chunkEnd = start.plusDays(rebuildChunkDays - 1L);
+                futures.add(executor.submit(() -> rebuildChunk(chunkStart, chunkEnd)));
+            }
+            int days = 0;
+            for (Future<Integer> future : futures) {
+                days += future.get();
+            }
+            log.info("每日销售汇总重建完成：分段数={}, 有数据的日期数={}", futures.size(), days);
+            return days;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("重建每日销售汇总被中断", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("重建每日销售汇总失败", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 重建一个日期分段（单个事务：先删后写）
+     * <p>
+     * 重建期间定时写入暂停，该分段内尚未写入的增量对应的订单变更已提交、会被聚合查询计入，
+     * 因此在聚合前丢弃，之后到达的增量再累加到重建结果上，避免重复计算。
+     * 丢弃增量到聚合结束之间若有该分段的变更正在提交或已提交，无法判断它是否已被聚合计入，
+     * 此时重新丢弃并聚合，直到整个过程中该分段没有变更提交
+     */
+    private int rebuildChunk(LocalDate startDate, LocalDate endDate) {
+        while (true) {
+            long since;
+            synchronized (lock) {
+                since = sequence;
+                pending.keySet().removeIf(date -> !date.isBefore(startDate) && !date.isAfter(endDate));
+            }
+            Integer days = transactionTemplate.execute(status -> {
+                List<SalesDailyRollup> rows = rollupMapper.aggregateFromOrders(startDate, endDate);
+                rollupMapper.deleteRange(startDate, endDate);
+                if (!rows.isEmpty()) {
+                    rollupMapper.upsertValues(rows);
+                }
+                return rows.size();
+            });
+            synchronized (lock) {
+                boolean changed = !committing.subMap(startDate, true, endDate, true).isEmpty()
+                        || changedAt.subMap(startDate, true, endDate, true).values().stream()
+                                    .anyMatch(seq -> seq > since);
+                if (!changed) {
+                    return days == null ? 0 : days;
+                }
+            }
+            log.debug("重建分段期间有订单变更提交，重新聚合：{} ~ {}", startDate, endDate);
+        }
+    }
+
+    /**
+     * 变更计入汇总的日期：新建订单为当日，影响有效销售或退款的状态变更为订单创建日期，其余变更返回 null
+     */
+    private LocalDate statDateOf(OrderStatusChangedEvent event) {
+        if (isCreation(event)) {
+            return LocalDate.now();
+        }
+        if (!affectsSales(event)) {
+            return null;
+        }
+        Orders order = ordersMapper.selectById(event.getOrderId());
+        return order == null || order.getCreatedTime() == null ? null : order.getCreatedTime().toLocalDate();
+    }
+
+    private static boolean isCreation(OrderStatusChangedEvent event) {
+        return event.getFromStatus() == null && event.getToStatus() != null && event.getToStatus() == 0;
+    }
+
+    /**
+     * 进出有效销售或变为已退款的状态变更；用户删除订单只是隐藏，不影响销售统计
+     */
+    private static boolean affectsSales(OrderStatusChangedEvent event) {
+        Integer from = event.getFromStatus();
+        Integer to = event.getToStatus();
+        if (to == null) {
+            return false;
+        }
+        boolean wasPaid = from != null && PAID_STATUSES.contains(from);
+        return wasPaid != PAID_STATUSES.contains(to) || to == REFUNDED;
+    }
+
+    private SalesDailyRollup bucket(LocalDate statDate) {
+        return pending.computeIfAbsent(statDate, date -> {
+            SalesDailyRollup bucket = new SalesDailyRollup();
+            bucket.setStatDate(date);
+            bucket.setOrderCount(0L);
+            bucket.setPaidCount(0L);
+            bucket.setPaidAmount(BigDecimal.ZERO);
+            bucket.setRefundCount(0L);
+            bucket.setRefundAmount(BigDecimal.ZERO);
+            return bucket;
+        });
+    }
+
+    private static void accumulate(SalesDailyRollup total, SalesDailyRollup delta) {
+        total.setOrderCount(total.getOrderCount() + delta.getOrderCount());
+        total.setPaidCount(total.getPaidCount() + delta.getPaidCount());
+        total.setPaidAmount(total.getPaidAmount().add(delta.getPaidAmount()));
+        total.setRefundCount(total.getRefundCount() + delta.getRefundCount());
+        total.setRefundAmount(total.getRefundAmount().add(delta.getRefundAmount()));
+    }
+}
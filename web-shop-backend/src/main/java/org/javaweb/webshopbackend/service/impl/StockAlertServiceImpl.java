@@ -0,0 +1,158 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.SystemSettingsChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.mapper.ProductSkuMapper;
+import org.javaweb.webshopbackend.mapper.StockAlertMapper;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.pojo.entity.StockAlert;
+import org.javaweb.webshopbackend.pojo.entity.SystemSettings;
+import org.javaweb.webshopbackend.service.StockAlertService;
+import org.javaweb.webshopbackend.service.SystemSettingsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 库存预警 Service 实现类
+ * <p>
+ * 只在库存跨过预警线的那一次变更时写预警表：扣减在行锁内完成，随后在同一事务中读到的是本次扣减后的库存，
+ * 并发扣减中只有一次满足"扣减前高于预警线、扣减后不高于预警线"。预警表按商品/SKU 唯一，
+ * 重复触发只会重新打开同一条记录，不产生重复预警。未跨过预警线的扣减只多一次主键查询
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class StockAlertServiceImpl implements StockAlertService {
+
+    @Autowired
+    private StockAlertMapper stockAlertMapper;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductSkuMapper productSkuMapper;
+
+    @Autowired
+    private SystemSettingsService systemSettingsService;
+
+    /**
+     * 预警数量，null 表示尚未读取系统设置
+     */
+    private volatile Integer threshold;
+
+    private final LongAdder raised = new LongAdder();
+    private final LongAdder autoResolved = new LongAdder();
+
+    /**
+     * 系统设置变更后重新读取预警数量
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSettingsChanged(SystemSettingsChangedEvent event) {
+        threshold = null;
+    }
+
+    @Override
+    public void onProductStockChanged(Long productId, int delta) {
+        int limit = threshold();
+        if (delta == 0 || limit <= 0) {
+            return;
+        }
+        Integer stock = productMapper.selectStockById(productId);
+        if (stock != null) {
+            check(StockAlert.TYPE_PRODUCT, productId, productId, null, stock, delta, limit);
+        }
+    }
+
+    @Override
+    public void onSkuStockChanged(Long skuId, int delta) {
+        int limit = threshold();
+        if (skuId == null || delta == 0 || limit <= 0) {
+            return;
+        }
+        ProductSku sku = productSkuMapper.selectStockById(skuId);
+        if (sku != null && sku.getStock() != null) {
+            check(StockAlert.TYPE_SKU, skuId, sku.getProductId(), skuId, sku.getStock(), delta, limit);
+        }
+    }
+
+    @Override
+    public void onProductStockSet(Long productId, int oldStock, int stock) {
+        int limit = threshold();
+        if (stock == oldStock || limit <= 0) {
+            return;
+        }
+        check(StockAlert.TYPE_PRODUCT, productId, productId, null, stock, stock - oldStock, limit);
+    }
+
+    @Override
+    public IPage<StockAlert> getAlertPage(Page<StockAlert> page, Integer status) {
+        return stockAlertMapper.selectAlertPage(page, status);
+    }
+
+    @Override
+    public void resolve(Long alertId) {
+        if (stockAlertMapper.resolveById(alertId) == 0 && stockAlertMapper.selectById(alertId) == null) {
+            throw new IllegalArgumentException("预警不存在");
+        }
+        log.info("库存预警已处理：alertId={}", alertId);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threshold", threshold());
+        stats.put("openAlerts", stockAlertMapper.selectCount(new LambdaQueryWrapper<StockAlert>()
+                .eq(StockAlert::getStatus, 0)));
+        stats.put("raised", raised.sum());
+        stats.put("autoResolved", autoResolved.sum());
+        return stats;
+    }
+
+    /**
+     * 按变更前后的库存判断是否跨过预警线
+     */
+    private void check(int itemType, Long itemId, Long productId, Long skuId, int stock, int delta, int limit) {
+        int before = stock - delta;
+        if (delta < 0 && stock <= limit && before > limit) {
+            raise(itemType, itemId, productId, skuId, stock, limit);
+        } else if (delta > 0 && stock > limit && before <= limit
+                && stockAlertMapper.resolveByItem(itemType, itemId, stock) > 0) {
+            autoResolved.increment();
+        }
+    }
+
+    private void raise(int itemType, Long itemId, Long productId, Long skuId, int stock, int limit) {
+        StockAlert alert = new StockAlert();
+        alert.setItemType(itemType);
+        alert.setItemId(itemId);
+        alert.setProductId(productId);
+        alert.setSkuId(skuId);
+        alert.setStock(stock);
+        alert.setThreshold(limit);
+        stockAlertMapper.upsertOpen(alert);
+        raised.increment();
+        log.warn("库存预警：productId={}, skuId={}, stock={}, threshold={}", productId, skuId, stock, limit);
+    }
+
+    private int threshold() {
+        Integer current = threshold;
+        if (current == null) {
+            SystemSettings settings = systemSettingsService.getSettings();
+            current = settings == null || settings.getStockWarning() == null ? 0 : settings.getStockWarning();
+            threshold = current;
+        }
+        return current;
+    }
+}
@@ -3,9 +3,12 @@ package org.javaweb.webshopbackend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.SystemSettingsChangedEvent;
 import org.javaweb.webshopbackend.mapper.SystemSettingsMapper;
 import org.javaweb.webshopbackend.pojo.entity.SystemSettings;
 import org.javaweb.webshopbackend.service.SystemSettingsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +25,9 @@ import java.time.LocalDateTime;
 @Service
 public class SystemSettingsServiceImpl extends ServiceImpl<SystemSettingsMapper, SystemSettings> implements SystemSettingsService {
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public SystemSettings getSettings() {
         log.info("获取系统设置");
@@ -67,6 +73,8 @@ public class SystemSettingsServiceImpl extends ServiceImpl<SystemSettingsMapper,
             this.save(settings);
         }
 
+        eventPublisher.publishEvent(new SystemSettingsChangedEvent(settings));
+
         log.info("系统设置更新成功");
     }
 }
@@ -0,0 +1,236 @@
+package org.javaweb.webshopbackend.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.OrderStatusChangedEvent;
+import org.javaweb.webshopbackend.mapper.OrdersMapper;
+import org.javaweb.webshopbackend.pojo.dto.StatusCountDTO;
+import org.javaweb.webshopbackend.service.UserOrderCounterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户订单计数缓存 Service 实现类
+ * <p>
+ * 未命中时用一条 GROUP BY status 查询加载该用户的全部计数；之后由订单状态变更事件
+ * （事务提交后）对缓存中的计数做增减。缓存按 LRU 淘汰，容量由 order.counter-cache.max-size 控制。
+ * <p>
+ * 加载查询与事件可能交错：变更事务提交前推进该用户所在分段的版本号并标记为提交中，直到事务结束。
+ * 加载完成时若版本号已变化或仍有变更在提交中，查询结果可能早于变更、也可能已包含随后还要增量应用的变更，
+ * 此次结果只返回不入缓存
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Service
+public class UserOrderCounterServiceImpl implements UserOrderCounterService {
+
+    /**
+     * 订单状态取值范围 0-7
+     */
+    private static final int STATUS_SLOTS = 8;
+
+    private static final int GENERATION_STRIPES = 64;
+
+    @Autowired
+    private OrdersMapper ordersMapper;
+
+    @Value("${order.counter-cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * 用户ID -> 各状态订单数，所有读写均在 lock 内进行
+     */
+    private Map<Long, long[]> cache;
+
+    private final Object lock = new Object();
+
+    private final long[] generations = new long[GENERATION_STRIPES];
+
+    /**
+     * 各分段已进入提交、尚未结束的变更数
+     */
+    private final int[] committing = new int[GENERATION_STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder discardedLoads = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Map<String, Long> getCounts(Long userId) {
+        int stripe = stripe(userId);
+        long generation;
+        synchronized (lock) {
+            long[] counters = cache.get(userId);
+            if (counters != null) {
+                hits.increment();
+                return toResult(counters);
+            }
+            generation = generations[stripe];
+        }
+
+        misses.increment();
+        long[] counters = load(userId);
+
+        synchronized (lock) {
+            if (generations[stripe] == generation && committing[stripe] == 0) {
+                cache.put(userId, counters);
+            } else {
+                discardedLoads.increment();
+            }
+        }
+        return toResult(counters);
+    }
+
+    /**
+     * 变更事务提交前标记该用户分段，提交前后开始的加载都不入缓存
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void beforeOrderStatusCommit(OrderStatusChangedEvent event) {
+        Long userId = event.getUserId();
+        if (userId == null) {
+            return;
+        }
+        synchronized (lock) {
+            int stripe = stripe(userId);
+            generations[stripe]++;
+            committing[stripe]++;
+        }
+    }
+
+    /**
+     * 变更事务结束（提交、回滚或状态未知）后撤销标记
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void afterOrderStatusCompletion(OrderStatusChangedEvent event) {
+        Long userId = event.getUserId();
+        if (userId == null) {
+            return;
+        }
+        synchronized (lock) {
+            int stripe = stripe(userId);
+            generations[stripe]++;
+            committing[stripe]--;
+        }
+    }
+
+    /**
+     * 订单状态变更后增量更新计数（事务提交后执行，回滚的变更不会影响计数）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Long userId = event.getUserId();
+        if (userId == null) {
+            return;
+        }
+
+        synchronized (lock) {
+            generations[stripe(userId)]++;
+            long[] counters = cache.get(userId);
+            if (counters == null) {
+                return;
+            }
+
+            Integer from = event.getFromStatus();
+            Integer to = event.getToStatus();
+            if (!isValidStatus(from) || !isValidStatus(to)
+                    || (from != null && counters[from] <= 0)) {
+                // 计数已不可信，丢弃缓存，下次读取时重新加载
+                cache.remove(userId);
+                invalidations.increment();
+                log.warn("用户订单计数缓存失效：userId={}, orderNo={}, from={}, to={}",
+                        userId, event.getOrderNo(), from, to);
+                return;
+            }
+            if (from != null) {
+                counters[from]--;
+            }
+            if (to != null) {
+                counters[to]++;
+            }
+            updates.increment();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            stats.put("size", cache.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("updates", updates.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("discardedLoads", discardedLoads.sum());
+        return stats;
+    }
+
+    /**
+     * 一次 GROUP BY 查询加载用户全部状态计数
+     */
+    private long[] load(Long userId) {
+        long[] counters = new long[STATUS_SLOTS];
+        for (StatusCountDTO row : ordersMapper.countByUserIdGroupByStatus(userId)) {
+            if (isValidStatus(row.getStatus())) {
+                counters[row.getStatus()] = row.getCount();
+            }
+        }
+        return counters;
+    }
+
+    private Map<String, Long> toResult(long[] counters) {
+        long all = 0;
+        for (long count : counters) {
+            all += count;
+        }
+        Map<String, Long> result = new HashMap<>();
+        result.put("all", all);
+        result.put("unpaid", counters[0]);
+        result.put("unshipped", counters[1]);
+        result.put("shipped", counters[2]);
+        result.put("completed", counters[3]);
+        return result;
+    }
+
+    private static boolean isValidStatus(Integer status) {
+        return status == null || (status >= 0 && status < STATUS_SLOTS);
+    }
+
+    private static int stripe(Long userId) {
+        return (int) (userId & (GENERATION_STRIPES - 1));
+    }
+}
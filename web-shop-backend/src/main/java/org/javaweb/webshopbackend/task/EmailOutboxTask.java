@@ -0,0 +1,34 @@
+package org.javaweb.webshopbackend.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.service.EmailOutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 邮件发件箱定时任务
+ * 定期批量发送发件箱中的待发送邮件，邮件发送不再占用业务事务和请求线程
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Component
+public class EmailOutboxTask {
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    /**
+     * 定时发送待发送邮件
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:1000}")
+    public void dispatchPending() {
+        try {
+            emailOutboxService.dispatchPending();
+        } catch (Exception e) {
+            log.error("发件箱邮件发送异常", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.javaweb.webshopbackend.task;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.service.FlashSaleStockService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 秒杀库存定时任务
+ * 启动时对账并预热内存库存，运行期间定期把扣减流水批量落库
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Component
+public class FlashSaleStockTask {
+
+    @Autowired
+    private FlashSaleStockService flashSaleStockService;
+
+    /**
+     * 启动对账：先把上次运行残留的流水全部落库，再按数据库库存预热
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        try {
+            int flushed = flushAll();
+            log.info("秒杀库存启动对账完成：落库流水数={}", flushed);
+            flashSaleStockService.preload();
+        } catch (Exception e) {
+            log.error("秒杀库存启动对账异常", e);
+        }
+    }
+
+    /**
+     * 定时批量落库扣减流水
+     */
+    @Scheduled(fixedDelayString = "${flash-sale.flush-interval-ms:200}")
+    public void flushPending() {
+        try {
+            flushAll();
+        } catch (Exception e) {
+            log.error("秒杀库存流水落库异常", e);
+        }
+    }
+
+    /**
+     * 停机前把剩余流水落库
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            int flushed = flushAll();
+            log.info("停机前秒杀库存流水落库完成：流水数={}", flushed);
+        } catch (Exception e) {
+            log.error("停机前秒杀库存流水落库异常", e);
+        }
+    }
+
+    private int flushAll() {
+        int total = 0;
+        int flushed;
+        while ((flushed = flashSaleStockService.flushPending()) > 0) {
+            total += flushed;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,34 @@
+package org.javaweb.webshopbackend.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.service.HomeRailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 首页商品栏刷新定时任务
+ * 定期检查商品栏快照，有商品变更或快照过期时重建
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Component
+public class HomeRailTask {
+
+    @Autowired
+    private HomeRailService homeRailService;
+
+    /**
+     * 定时检查并重建快照
+     */
+    @Scheduled(fixedDelayString = "${home.rails.check-interval-ms:1000}")
+    public void refreshIfStale() {
+        try {
+            homeRailService.refreshIfStale();
+        } catch (Exception e) {
+            log.error("首页商品栏快照重建异常", e);
+        }
+    }
+}
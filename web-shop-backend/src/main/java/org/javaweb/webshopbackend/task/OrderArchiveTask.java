@@ -0,0 +1,41 @@
+package org.javaweb.webshopbackend.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.service.OrderArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单归档定时任务
+ * 每天低峰期把超过保留期的已完成/已取消/已退款订单移入归档表
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Component
+public class OrderArchiveTask {
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Value("${order.archive.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 定时归档订单
+     */
+    @Scheduled(cron = "${order.archive.cron:0 30 3 * * ?}")
+    public void archiveDue() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            orderArchiveService.archiveDue();
+        } catch (Exception e) {
+            log.error("订单归档异常", e);
+        }
+    }
+}
@@ -1,21 +1,43 @@
 package org.javaweb.webshopbackend.task;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.event.OrderStatusChangedEvent;
+import org.javaweb.webshopbackend.event.SystemSettingsChangedEvent;
 import org.javaweb.webshopbackend.pojo.entity.Orders;
 import org.javaweb.webshopbackend.pojo.entity.SystemSettings;
+import org.javaweb.webshopbackend.service.OrderBulkTransitionService;
 import org.javaweb.webshopbackend.service.OrdersService;
 import org.javaweb.webshopbackend.service.SystemSettingsService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
 
 /**
  * 订单定时任务
- * 
+ * <p>
+ * 按每个订单自己的截止时间触发自动取消（未支付）和自动确认收货（已发货），不再每分钟轮询订单表：
+ * 订单创建、发货时把截止时间放入内存延迟队列，到期后由后台线程按批次处理；
+ * 启动时和系统设置变更时从数据库重建队列，重建期间由订单事件登记的截止时间不会被覆盖或清除。仅适用于单实例部署
+ *
  * @author WebShop Team
  * @date 2025-11-11
  */
@@ -23,110 +45,267 @@ import java.util.List;
 @Component
 public class OrderScheduledTask {
 
+    private static final String AUTO_CANCEL_REASON = "系统自动取消：未在规定时间内支付";
+
+    /**
+     * 处理失败后的重试间隔
+     */
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
     @Autowired
     private OrdersService ordersService;
 
     @Autowired
     private SystemSettingsService systemSettingsService;
 
+    @Autowired
+    private OrderBulkTransitionService orderBulkTransitionService;
+
+    @Value("${order.timeout.batch-size:200}")
+    private int batchSize;
+
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+
     /**
-     * 定时自动取消未支付订单
-     * 每分钟执行一次
+     * 订单ID -> 当前有效的截止时间，订单状态变化后移除，队列中对应的条目出队时直接丢弃
      */
-    @Scheduled(cron = "0 * * * * ?")
-    public void autoCancelUnpaidOrders() {
-        try {
-            log.info("开始执行自动取消未支付订单任务");
+    private final Map<Long, Deadline> pending = new ConcurrentHashMap<>();
 
-            // 获取系统设置
-            SystemSettings settings = systemSettingsService.getSettings();
-            if (settings == null || settings.getOrderCancelTime() == null) {
-                log.warn("系统设置不存在或自动取消时间未配置");
-                return;
-            }
+    private volatile Duration cancelAfter = Duration.ofHours(24);
 
-            // 计算截止时间
-            LocalDateTime cancelTime = LocalDateTime.now().minusHours(settings.getOrderCancelTime());
+    private volatile Duration confirmAfter = Duration.ofDays(7);
 
-            // 查询需要取消的订单（状态为0-待付款，且创建时间超过设置的时间）
-            LambdaQueryWrapper<Orders> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(Orders::getStatus, 0)
-                   .lt(Orders::getCreatedTime, cancelTime);
+    private volatile boolean running;
 
-            List<Orders> orders = ordersService.list(wrapper);
+    private Thread worker;
 
-            if (orders.isEmpty()) {
-                log.info("没有需要取消的订单");
-                return;
-            }
+    /**
+     * 启动时读取超时设置，从数据库重建队列并启动处理线程
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("订单超时队列初始化异常", e);
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("order-timeout").daemon().start(this::processLoop);
+    }
 
-            log.info("找到 {} 个需要取消的订单", orders.size());
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
 
-            // 批量取消订单
-            for (Orders order : orders) {
-                try {
-                    ordersService.adminCancelOrder(order.getOrderNo(), "系统自动取消：未在规定时间内支付");
-                    log.info("订单已自动取消：orderId={}, orderNo={}", order.getId(), order.getOrderNo());
-                } catch (Exception e) {
-                    log.error("自动取消订单失败：orderId={}, orderNo={}", order.getId(), order.getOrderNo(), e);
-                }
+    /**
+     * 订单创建后登记自动取消，进入待收货后登记自动确认收货，其余状态变化撤销已登记的截止时间
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Integer toStatus = event.getToStatus();
+        if (toStatus != null && toStatus == 0) {
+            schedule(new Deadline(event.getOrderId(), Action.CANCEL, System.currentTimeMillis() + cancelAfter.toMillis()));
+        } else if (toStatus != null && toStatus == 2) {
+            LocalDateTime shipTime = null;
+            if (event.getFromStatus() == null || event.getFromStatus() != 1) {
+                // 退款被拒绝/撤销后回到待收货，截止时间仍从发货时间算起
+                Orders order = ordersService.getById(event.getOrderId());
+                shipTime = order != null ? order.getShipTime() : null;
             }
+            long base = shipTime != null ? toEpochMilli(shipTime) : System.currentTimeMillis();
+            schedule(new Deadline(event.getOrderId(), Action.CONFIRM, base + confirmAfter.toMillis()));
+        } else {
+            pending.remove(event.getOrderId());
+        }
+    }
 
-            log.info("自动取消未支付订单任务完成");
+    /**
+     * 超时设置变更后按新设置重建队列
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSettingsChanged(SystemSettingsChangedEvent event) {
+        try {
+            rebuild();
         } catch (Exception e) {
-            log.error("自动取消未支付订单任务异常", e);
+            log.error("系统设置变更后重建订单超时队列异常", e);
         }
     }
 
     /**
-     * 定时自动确认收货
-     * 每分钟执行一次
+     * 读取超时设置并从数据库加载所有待付款、待收货订单的截止时间
      */
-    @Scheduled(cron = "0 * * * * ?")
-    public void autoConfirmReceivedOrders() {
-        try {
-            log.info("开始执行自动确认收货任务");
+    private synchronized void rebuild() {
+        SystemSettings settings = systemSettingsService.getSettings();
+        if (settings != null && settings.getOrderCancelTime() != null) {
+            cancelAfter = Duration.ofHours(settings.getOrderCancelTime());
+        }
+        if (settings != null && settings.getOrderConfirmTime() != null) {
+            confirmAfter = Duration.ofDays(settings.getOrderConfirmTime());
+        }
 
-            // 获取系统设置
-            SystemSettings settings = systemSettingsService.getSettings();
-            if (settings == null || settings.getOrderConfirmTime() == null) {
-                log.warn("系统设置不存在或自动确认收货时间未配置");
-                return;
-            }
+        // 停机期间积压的到期订单先分块批量处理，不进入内存队列
+        LocalDateTime now = LocalDateTime.now();
+        int cancelled = orderBulkTransitionService.cancelDue(now.minus(cancelAfter), AUTO_CANCEL_REASON);
+        int confirmed = orderBulkTransitionService.confirmDue(now.minus(confirmAfter));
+        if (cancelled > 0 || confirmed > 0) {
+            log.info("积压到期订单已处理：自动取消={}, 自动确认收货={}", cancelled, confirmed);
+        }
 
-            // 计算截止时间
-            LocalDateTime confirmTime = LocalDateTime.now().minusDays(settings.getOrderConfirmTime());
+        // 查询前记下序号：重建期间由订单事件登记的截止时间更新，不被旧快照覆盖
+        long since = Deadline.SEQUENCE.get();
+        LambdaQueryWrapper<Orders> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Orders::getId, Orders::getStatus, Orders::getCreatedTime, Orders::getShipTime)
+               .in(Orders::getStatus, 0, 2);
+        List<Orders> orders = ordersService.list(wrapper);
 
-            // 查询需要确认收货的订单（状态为2-待收货，且发货时间超过设置的时间）
-            LambdaQueryWrapper<Orders> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(Orders::getStatus, 2)
-                   .lt(Orders::getShipTime, confirmTime);
+        for (Orders order : orders) {
+            if (order.getStatus() == 0 && order.getCreatedTime() != null) {
+                reschedule(new Deadline(order.getId(), Action.CANCEL,
+                        toEpochMilli(order.getCreatedTime()) + cancelAfter.toMillis()), since);
+            } else if (order.getStatus() == 2 && order.getShipTime() != null) {
+                reschedule(new Deadline(order.getId(), Action.CONFIRM,
+                        toEpochMilli(order.getShipTime()) + confirmAfter.toMillis()), since);
+            }
+        }
+        // 被替换的旧条目出队时也会被丢弃，这里提前移除以免按旧设置长期占用内存
+        queue.removeIf(deadline -> pending.get(deadline.orderId) != deadline);
+        log.info("订单超时队列已重建：待处理数={}, 自动取消={}, 自动确认收货={}",
+                pending.size(), cancelAfter, confirmAfter);
+    }
 
-            List<Orders> orders = ordersService.list(wrapper);
+    private void schedule(Deadline deadline) {
+        pending.put(deadline.orderId, deadline);
+        queue.put(deadline);
+    }
 
-            if (orders.isEmpty()) {
-                log.info("没有需要自动确认收货的订单");
+    /**
+     * 重建时登记截止时间：该订单在序号 since 之后已由事件重新登记的，保留事件登记的条目
+     */
+    private void reschedule(Deadline deadline, long since) {
+        Deadline current = pending.compute(deadline.orderId,
+                (orderId, existing) -> existing == null || existing.seq <= since ? deadline : existing);
+        if (current == deadline) {
+            queue.put(deadline);
+        }
+    }
+
+    /**
+     * 处理线程：阻塞等待最早到期的截止时间，到期后连同其他已到期条目按批次处理
+     */
+    private void processLoop() {
+        while (running) {
+            try {
+                List<Deadline> batch = new ArrayList<>(batchSize);
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return;
+            } catch (Exception e) {
+                log.error("订单超时处理异常", e);
+            }
+        }
+    }
+
+    private void processBatch(List<Deadline> batch) {
+        List<Deadline> due = new ArrayList<>(batch.size());
+        for (Deadline deadline : batch) {
+            // 已被撤销或被更新的截止时间直接丢弃
+            if (pending.remove(deadline.orderId, deadline)) {
+                due.add(deadline);
             }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        List<Orders> orders = ordersService.listByIds(due.stream().map(d -> d.orderId).toList());
+        List<Orders> toCancel = new ArrayList<>();
+        List<Orders> toConfirm = new ArrayList<>();
+        Map<Long, Action> actions = due.stream().collect(Collectors.toMap(d -> d.orderId, d -> d.action));
+        for (Orders order : orders) {
+            Action action = actions.get(order.getId());
+            if (action == Action.CANCEL && order.getStatus() == 0) {
+                toCancel.add(order);
+            } else if (action == Action.CONFIRM && order.getStatus() == 2) {
+                toConfirm.add(order);
+            }
+        }
 
-            log.info("找到 {} 个需要自动确认收货的订单", orders.size());
+        int cancelled = runOrRetry(toCancel, Action.CANCEL,
+                () -> orderBulkTransitionService.cancelOrders(toCancel, AUTO_CANCEL_REASON));
+        int confirmed = runOrRetry(toConfirm, Action.CONFIRM,
+                () -> orderBulkTransitionService.confirmOrders(toConfirm));
+        log.info("订单超时批次处理完成：到期数={}, 自动取消={}, 自动确认收货={}", due.size(), cancelled, confirmed);
+    }
 
-            // 批量确认收货
+    /**
+     * 执行一批流转，失败时整批稍后重试
+     */
+    private int runOrRetry(List<Orders> orders, Action action, IntSupplier task) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        try {
+            return task.getAsInt();
+        } catch (Exception e) {
+            log.error("订单超时处理失败，稍后重试：action={}, 订单数={}", action, orders.size(), e);
+            long retryAt = System.currentTimeMillis() + RETRY_DELAY.toMillis();
             for (Orders order : orders) {
-                try {
-                    // 更新订单状态为已完成
-                    order.setStatus(3);
-                    order.setReceiveTime(LocalDateTime.now());
-                    ordersService.updateById(order);
-                    log.info("订单已自动确认收货：orderId={}, orderNo={}", order.getId(), order.getOrderNo());
-                } catch (Exception e) {
-                    log.error("自动确认收货失败：orderId={}, orderNo={}", order.getId(), order.getOrderNo(), e);
+                Deadline retry = new Deadline(order.getId(), action, retryAt);
+                if (pending.putIfAbsent(order.getId(), retry) == null) {
+                    queue.put(retry);
                 }
             }
+            return 0;
+        }
+    }
 
-            log.info("自动确认收货任务完成");
-        } catch (Exception e) {
-            log.error("自动确认收货任务异常", e);
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private enum Action {
+        CANCEL, CONFIRM
+    }
+
+    /**
+     * 订单截止时间（按对象身份比较，同一订单重新登记后旧条目自动失效）
+     */
+    private static final class Deadline implements Delayed {
+
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+
+        /**
+         * 登记顺序，用于重建时判断条目是否比数据库快照更新
+         */
+        private final long seq = SEQUENCE.incrementAndGet();
+
+        private final Long orderId;
+
+        private final Action action;
+
+        private final long dueAtMillis;
+
+        private Deadline(Long orderId, Action action, long dueAtMillis) {
+            this.orderId = orderId;
+            this.action = action;
+            this.dueAtMillis = dueAtMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((Deadline) other).dueAtMillis);
         }
     }
 }
@@ -0,0 +1,48 @@
+package org.javaweb.webshopbackend.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.service.ProductFacetService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 商品分面定时任务
+ * 启动时构建分面位图，运行期间定期把商品变更同步到位图
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Component
+public class ProductFacetTask {
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    /**
+     * 启动时构建位图
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            productFacetService.rebuild();
+        } catch (Exception e) {
+            log.error("商品分面位图构建异常", e);
+        }
+    }
+
+    /**
+     * 定时同步商品变更
+     */
+    @Scheduled(fixedDelayString = "${product.facet.refresh-interval-ms:500}")
+    public void applyPending() {
+        try {
+            productFacetService.applyPending();
+        } catch (Exception e) {
+            log.error("商品分面位图同步异常", e);
+        }
+    }
+}
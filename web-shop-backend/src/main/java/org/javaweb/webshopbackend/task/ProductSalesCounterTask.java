@@ -0,0 +1,48 @@
+package org.javaweb.webshopbackend.task;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.service.ProductSalesCounterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 商品销量写入定时任务
+ * 定期把内存中累积的销量增量批量写入商品表
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Component
+public class ProductSalesCounterTask {
+
+    @Autowired
+    private ProductSalesCounterService productSalesCounterService;
+
+    /**
+     * 定时写入销量增量
+     */
+    @Scheduled(fixedDelayString = "${product.sales-counter.flush-interval-ms:1000}")
+    public void flushPending() {
+        try {
+            productSalesCounterService.flushPending();
+        } catch (Exception e) {
+            log.error("商品销量增量写入异常", e);
+        }
+    }
+
+    /**
+     * 停机前写入剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            int products = productSalesCounterService.flushPending();
+            log.info("停机前商品销量增量写入完成：商品数={}", products);
+        } catch (Exception e) {
+            log.error("停机前商品销量增量写入异常", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.javaweb.webshopbackend.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.service.ProductSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 商品搜索索引定时任务
+ * 启动后在后台构建索引，运行期间定期把商品变更同步到索引，并在已删除文档过多时重建
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Component
+public class ProductSearchIndexTask {
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    /**
+     * 启动后异步构建索引，构建完成前搜索回退到数据库查询
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        productSearchService.rebuildAsync();
+    }
+
+    /**
+     * 定时同步商品变更
+     */
+    @Scheduled(fixedDelayString = "${search.index.refresh-interval-ms:500}")
+    public void applyPending() {
+        try {
+            productSearchService.applyPending();
+            productSearchService.compactIfNeeded();
+        } catch (Exception e) {
+            log.error("商品搜索索引同步异常", e);
+        }
+    }
+}
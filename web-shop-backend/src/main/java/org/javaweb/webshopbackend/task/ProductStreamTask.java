@@ -0,0 +1,46 @@
+package org.javaweb.webshopbackend.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.service.ProductStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 商品变更推送定时任务
+ * 按合并间隔把商品变更推送给订阅者，并定期发送心跳
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Component
+public class ProductStreamTask {
+
+    @Autowired
+    private ProductStreamService productStreamService;
+
+    /**
+     * 定时推送商品变更
+     */
+    @Scheduled(fixedDelayString = "${product.stream.coalesce-ms:200}")
+    public void dispatchPending() {
+        try {
+            productStreamService.dispatchPending();
+        } catch (Exception e) {
+            log.error("商品变更推送异常", e);
+        }
+    }
+
+    /**
+     * 定时发送心跳
+     */
+    @Scheduled(fixedDelayString = "${product.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        try {
+            productStreamService.heartbeat();
+        } catch (Exception e) {
+            log.error("商品变更推送心跳异常", e);
+        }
+    }
+}
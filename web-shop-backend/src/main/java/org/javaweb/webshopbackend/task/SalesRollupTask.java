@@ -0,0 +1,48 @@
+package org.javaweb.webshopbackend.task;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 每日销售汇总定时任务
+ * 定期把内存中的销售增量批量写入汇总表
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+@Component
+public class SalesRollupTask {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    /**
+     * 定时写入销售增量
+     */
+    @Scheduled(fixedDelayString = "${sales-rollup.flush-interval-ms:5000}")
+    public void flushPending() {
+        try {
+            salesRollupService.flushPending();
+        } catch (Exception e) {
+            log.error("销售汇总增量写入异常", e);
+        }
+    }
+
+    /**
+     * 停机前写入剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            int days = salesRollupService.flushPending();
+            log.info("停机前销售汇总增量写入完成：日期数={}", days);
+        } catch (Exception e) {
+            log.error("停机前销售汇总增量写入异常", e);
+        }
+    }
+}
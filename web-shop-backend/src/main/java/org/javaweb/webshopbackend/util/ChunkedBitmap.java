@@ -0,0 +1,312 @@
+package org.javaweb.webshopbackend.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 分块压缩位图
+ * 按高16位把位下标划分为 65536 位一块，只为有数据的块分配容器：
+ * 稀疏块用有序 char 数组（每个元素2字节），超过 4096 个元素时转为 8KB 的定长位图；
+ * 内存与元素个数成正比，不随位下标上限增长。用于商品分面统计，位下标直接使用商品ID
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public final class ChunkedBitmap {
+
+    /**
+     * 数组容器的元素上限，超过后位图容器更省内存
+     */
+    private static final int ARRAY_MAX = 4096;
+
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    /**
+     * 各块的高16位（升序），与 containers 一一对应
+     */
+    private char[] keys = new char[4];
+
+    private Container[] containers = new Container[4];
+
+    private int chunks;
+
+    public void set(int bit) {
+        char key = (char) (bit >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key);
+        }
+        containers[index] = containers[index].add((char) bit);
+    }
+
+    public void clear(int bit) {
+        int index = indexOf((char) (bit >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove((char) bit);
+        if (container.cardinality() == 0) {
+            removeChunk(index);
+        } else {
+            containers[index] = container;
+        }
+    }
+
+    public boolean get(int bit) {
+        int index = indexOf((char) (bit >>> 16));
+        return index >= 0 && containers[index].contains((char) bit);
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < chunks; i++) {
+            count += containers[i].cardinality();
+        }
+        return count;
+    }
+
+    /**
+     * 容器占用的大致字节数
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 2L + containers.length * 8L;
+        for (int i = 0; i < chunks; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 多个位图交集的元素个数（忽略 null，不创建中间位图）
+     * 以块数最少的位图驱动，只访问所有位图都存在的块
+     */
+    public static int andCardinality(ChunkedBitmap... bitmaps) {
+        ChunkedBitmap[] present = Arrays.stream(bitmaps).filter(Objects::nonNull).toArray(ChunkedBitmap[]::new);
+        if (present.length == 0) {
+            return 0;
+        }
+        ChunkedBitmap driver = present[0];
+        for (ChunkedBitmap bitmap : present) {
+            if (bitmap.chunks < driver.chunks) {
+                driver = bitmap;
+            }
+        }
+
+        Container[] chunk = new Container[present.length];
+        int count = 0;
+        outer:
+        for (int i = 0; i < driver.chunks; i++) {
+            char key = driver.keys[i];
+            for (int j = 0; j < present.length; j++) {
+                int index = present[j].indexOf(key);
+                if (index < 0) {
+                    continue outer;
+                }
+                chunk[j] = present[j].containers[index];
+            }
+            count += intersectionCount(chunk);
+        }
+        return count;
+    }
+
+    /**
+     * 同一块内多个容器交集的元素个数：有数组容器时遍历最小的数组逐个判断，否则按字与后计数
+     */
+    private static int intersectionCount(Container[] chunk) {
+        ArrayContainer smallest = null;
+        for (Container container : chunk) {
+            if (container instanceof ArrayContainer array
+                    && (smallest == null || array.size < smallest.size)) {
+                smallest = array;
+            }
+        }
+
+        int count = 0;
+        if (smallest != null) {
+            outer:
+            for (int i = 0; i < smallest.size; i++) {
+                char value = smallest.values[i];
+                for (Container container : chunk) {
+                    if (container != smallest && !container.contains(value)) {
+                        continue outer;
+                    }
+                }
+                count++;
+            }
+            return count;
+        }
+
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = -1L;
+            for (Container container : chunk) {
+                word &= ((BitmapContainer) container).words[w];
+                if (word == 0) {
+                    break;
+                }
+            }
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, chunks, key);
+    }
+
+    private void insertChunk(int index, char key) {
+        if (chunks == keys.length) {
+            keys = Arrays.copyOf(keys, chunks * 2);
+            containers = Arrays.copyOf(containers, chunks * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, chunks - index);
+        System.arraycopy(containers, index, containers, index + 1, chunks - index);
+        keys[index] = key;
+        containers[index] = new ArrayContainer();
+        chunks++;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, chunks - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, chunks - index - 1);
+        containers[--chunks] = null;
+    }
+
+    /**
+     * 一块（65536位）内的元素容器，add/remove 返回修改后应使用的容器（可能转换了类型）
+     */
+    private interface Container {
+
+        Container add(char value);
+
+        Container remove(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        long sizeInBytes();
+    }
+
+    /**
+     * 稀疏块：有序数组
+     */
+    private static final class ArrayContainer implements Container {
+
+        private char[] values = new char[4];
+
+        private int size;
+
+        @Override
+        public Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(size * 2, ARRAY_MAX));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return values.length * 2L;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * 稠密块：定长位图
+     */
+    private static final class BitmapContainer implements Container {
+
+        private final long[] words = new long[BITMAP_WORDS];
+
+        private int cardinality;
+
+        @Override
+        public Container add(char value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if ((words[index] & mask) == 0) {
+                words[index] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if ((words[index] & mask) != 0) {
+                words[index] &= ~mask;
+                cardinality--;
+            }
+            return cardinality > ARRAY_MAX ? this : toArray();
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return BITMAP_WORDS * 8L;
+        }
+
+        private ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[Math.max(4, cardinality)];
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    array.values[array.size++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return array;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.javaweb.webshopbackend.util;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 分页游标
+ * 记录上一页最后一条记录的（创建时间, ID），编码为对客户端不透明的 URL 安全字符串
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Value
+public class PageCursor {
+
+    private static final char SEPARATOR = '|';
+
+    LocalDateTime createdTime;
+
+    Long id;
+
+    /**
+     * 编码为游标字符串
+     */
+    public String encode() {
+        String raw = createdTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @param cursor 游标字符串（为空表示第一页）
+     * @return 游标，第一页时返回null
+     * @throws IllegalArgumentException 游标格式无效时抛出
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, index)),
+                    Long.parseLong(raw.substring(index + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+}
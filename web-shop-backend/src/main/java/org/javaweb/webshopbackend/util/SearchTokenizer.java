@@ -0,0 +1,142 @@
+package org.javaweb.webshopbackend.util;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 商品搜索分词器
+ * <p>
+ * 文本先做 NFKC 规范化（全角转半角）并转小写，再按字符类别切分：
+ * <ul>
+ *     <li>中日韩文字按相邻两字切成二元词（"蓝牙耳机" -> 蓝牙、牙耳、耳机），可选同时产出单字</li>
+ *     <li>字母数字按连续串切词，索引时产出串内全部二元、三元片段（单字符串产出自身）；
+ *     查询词不足三个字符时按自身匹配，否则拆成三元片段全部命中，使 "iph"、"phone" 都能匹配 "iphone 15"</li>
+ *     <li>其余字符（空格、标点、JSON 符号等）作为分隔符</li>
+ * </ul>
+ * 查询与索引使用同一规则，多个词项按"全部包含"匹配，效果接近原来的 LIKE '%关键词%'
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public final class SearchTokenizer {
+
+    /**
+     * 字母数字串参与索引和查询的最大长度，超出部分忽略，控制超长型号串产出的片段数
+     */
+    public static final int MAX_WORD = 32;
+
+    private static final int NGRAM = 3;
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 切分待索引文本
+     *
+     * @param text 文本
+     * @param cjkUnigrams 是否同时产出中日韩单字（用于商品名称，使单字查询可以命中）
+     * @return 去重后的词项
+     */
+    public static Set<String> indexTerms(String text, boolean cjkUnigrams) {
+        Set<String> terms = new LinkedHashSet<>();
+        split(text, true, cjkUnigrams, terms);
+        return terms;
+    }
+
+    /**
+     * 切分查询关键词
+     *
+     * @param keyword 关键词
+     * @return 去重后的词项，关键词没有可检索字符时为空
+     */
+    public static Set<String> queryTerms(String keyword) {
+        Set<String> terms = new LinkedHashSet<>();
+        split(keyword, false, false, terms);
+        return terms;
+    }
+
+    /**
+     * 去掉富文本中的 HTML 标签
+     */
+    public static String stripHtml(String html) {
+        return html == null ? null : HTML_TAG.matcher(html).replaceAll(" ");
+    }
+
+    private static void split(String text, boolean indexing, boolean cjkUnigrams, Set<String> terms) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        StringBuilder cjk = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        int i = 0;
+        while (i < normalized.length()) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flushWord(word, indexing, terms);
+                cjk.appendCodePoint(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjk, cjkUnigrams, terms);
+                word.appendCodePoint(cp);
+            } else {
+                flushWord(word, indexing, terms);
+                flushCjk(cjk, cjkUnigrams, terms);
+            }
+        }
+        flushWord(word, indexing, terms);
+        flushCjk(cjk, cjkUnigrams, terms);
+    }
+
+    private static void flushCjk(StringBuilder run, boolean unigrams, Set<String> terms) {
+        if (run.isEmpty()) {
+            return;
+        }
+        int[] cps = run.codePoints().toArray();
+        if (cps.length == 1 || unigrams) {
+            for (int cp : cps) {
+                terms.add(new String(Character.toChars(cp)));
+            }
+        }
+        for (int i = 0; i + 1 < cps.length; i++) {
+            terms.add(new String(cps, i, 2));
+        }
+        run.setLength(0);
+    }
+
+    private static void flushWord(StringBuilder run, boolean indexing, Set<String> terms) {
+        if (run.isEmpty()) {
+            return;
+        }
+        String word = run.length() > MAX_WORD ? run.substring(0, MAX_WORD) : run.toString();
+        if (word.length() < NGRAM) {
+            terms.add(word);
+        }
+        if (indexing) {
+            for (int len = 2; len <= NGRAM; len++) {
+                for (int i = 0; i + len <= word.length(); i++) {
+                    terms.add(word.substring(i, i + len));
+                }
+            }
+        } else {
+            for (int i = 0; i + NGRAM <= word.length(); i++) {
+                terms.add(word.substring(i, i + NGRAM));
+            }
+        }
+        run.setLength(0);
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
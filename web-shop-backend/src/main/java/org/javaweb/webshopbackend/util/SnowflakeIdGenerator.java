@@ -0,0 +1,90 @@
+package org.javaweb.webshopbackend.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花算法编号生成器
+ * 用于生成订单号、退款单号等业务编号
+ * <p>
+ * 编号组成：41位毫秒时间戳（相对 2025-01-01）+ 10位节点ID + 12位毫秒内序号。
+ * 时间戳和序号打包在一个 AtomicLong 中通过 CAS 推进，无锁且严格单调；
+ * 同一毫秒序号用尽或时钟回拨时，借用下一毫秒继续发号，不会阻塞也不会重复
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    /**
+     * 起始时间 2025-01-01 00:00:00（GMT+8）
+     */
+    private static final long EPOCH = 1735660800000L;
+
+    private static final int NODE_BITS = 10;
+
+    private static final int SEQUENCE_BITS = 12;
+
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+
+    /**
+     * 高位为上次发号的时间戳，低 12 位为该毫秒内的序号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(@Value("${webshop.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID必须在 0-" + MAX_NODE_ID + " 之间");
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * 生成下一个ID
+     */
+    public long nextId() {
+        while (true) {
+            long last = state.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = last + 1;
+            } else {
+                // 本毫秒序号已用尽（或时钟回拨），借用下一毫秒
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 生成订单号
+     */
+    public String nextOrderNo() {
+        return "ORD" + nextId();
+    }
+
+    /**
+     * 生成退款单号
+     */
+    public String nextRefundNo() {
+        return "RF" + nextId();
+    }
+}
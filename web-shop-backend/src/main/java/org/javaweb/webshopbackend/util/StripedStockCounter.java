@@ -0,0 +1,142 @@
+package org.javaweb.webshopbackend.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段原子库存计数器
+ * 将一个热点库存拆成多个分段，不同线程优先在各自的分段上做 CAS 扣减，
+ * 避免所有抢购线程竞争同一个原子变量；每个分段的扣减都是条件扣减，不会超卖
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public final class StripedStockCounter {
+
+    /**
+     * 每个分段占用 8 个 long（64 字节），避免伪共享
+     */
+    private static final int PAD = 8;
+
+    private final AtomicLongArray cells;
+
+    private final int stripes;
+
+    public StripedStockCounter(int stripes, long initialStock) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("分段数必须大于0");
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PAD);
+        reset(initialStock);
+    }
+
+    /**
+     * 尝试扣减库存
+     * 先在当前线程对应的分段上扣减，不足时依次尝试其他分段；
+     * 单个分段都不够时跨分段凑齐，凑不齐则全部归还
+     *
+     * @param quantity 扣减数量
+     * @return true-扣减成功，false-库存不足
+     */
+    public boolean tryAcquire(long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("扣减数量必须大于0");
+        }
+        int home = homeStripe();
+        for (int i = 0; i < stripes; i++) {
+            int index = ((home + i) % stripes) * PAD;
+            long current;
+            while ((current = cells.get(index)) >= quantity) {
+                if (cells.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return acquireAcrossStripes(quantity);
+    }
+
+    /**
+     * 归还库存（订单取消、事务回滚等）
+     */
+    public void release(long quantity) {
+        if (quantity > 0) {
+            cells.addAndGet(homeStripe() * PAD, quantity);
+        }
+    }
+
+    /**
+     * 无条件减少库存（管理员调低库存等），不足时减到0为止
+     *
+     * @param quantity 减少数量
+     * @return 实际减少的数量
+     */
+    public long drain(long quantity) {
+        long remaining = quantity;
+        for (int i = 0; i < stripes && remaining > 0; i++) {
+            int index = i * PAD;
+            long current;
+            while ((current = cells.get(index)) > 0) {
+                long take = Math.min(current, remaining);
+                if (cells.compareAndSet(index, current, current - take)) {
+                    remaining -= take;
+                    break;
+                }
+            }
+        }
+        return quantity - Math.max(remaining, 0);
+    }
+
+    /**
+     * 当前剩余库存
+     */
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+
+    /**
+     * 重置库存并平均分配到各分段
+     * 仅在没有并发扣减时调用（构造时）；运行期间调整库存用 release / drain
+     */
+    private void reset(long stock) {
+        long base = Math.max(stock, 0) / stripes;
+        long remainder = Math.max(stock, 0) % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PAD, base + (i < remainder ? 1 : 0));
+        }
+    }
+
+    private boolean acquireAcrossStripes(long quantity) {
+        long[] taken = new long[stripes];
+        long remaining = quantity;
+        for (int i = 0; i < stripes && remaining > 0; i++) {
+            int index = i * PAD;
+            long current;
+            while ((current = cells.get(index)) > 0) {
+                long take = Math.min(current, remaining);
+                if (cells.compareAndSet(index, current, current - take)) {
+                    taken[i] = take;
+                    remaining -= take;
+                    break;
+                }
+            }
+        }
+        if (remaining == 0) {
+            return true;
+        }
+        // 凑不齐，归还已拿到的部分
+        for (int i = 0; i < stripes; i++) {
+            if (taken[i] > 0) {
+                cells.addAndGet(i * PAD, taken[i]);
+            }
+        }
+        return false;
+    }
+
+    private int homeStripe() {
+        return (int) (Thread.currentThread().threadId() % stripes);
+    }
+}
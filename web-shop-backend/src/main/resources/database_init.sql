@@ -183,7 +183,11 @@ CREATE TABLE `orders` (
     `updated_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     PRIMARY KEY (`id`),
     UNIQUE KEY `uk_order_no` (`order_no`),
-    KEY `idx_user_id` (`user_id`),
+    KEY `idx_user_created` (`user_id`, `deleted`, `created_time`),
+    KEY `idx_user_status_created` (`user_id`, `deleted`, `status`, `created_time`),
+    KEY `idx_deleted_status_created` (`deleted`, `status`, `created_time`),
+    KEY `idx_deleted_created` (`deleted`, `created_time`),
+    KEY `idx_receiver_name` (`receiver_name`),
     KEY `idx_status` (`status`),
     KEY `idx_created_time` (`created_time`),
     KEY `idx_pay_time` (`pay_time`),
@@ -236,7 +240,6 @@ CREATE TABLE `product_review` (
     KEY `idx_product_id` (`product_id`),
     KEY `idx_rating` (`rating`),
     KEY `idx_deleted` (`deleted`),
-    CONSTRAINT `fk_review_order_item` FOREIGN KEY (`order_item_id`) REFERENCES `order_item` (`id`) ON DELETE CASCADE,
     CONSTRAINT `fk_review_product` FOREIGN KEY (`product_id`) REFERENCES `product` (`id`),
     CONSTRAINT `fk_review_user` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='商品评价表';
@@ -258,8 +261,7 @@ CREATE TABLE `refund` (
     UNIQUE KEY `uk_refund_no` (`refund_no`),
     KEY `idx_order_id` (`order_id`),
     KEY `idx_status` (`status`),
-    KEY `idx_deleted` (`deleted`),
-    CONSTRAINT `fk_refund_order` FOREIGN KEY (`order_id`) REFERENCES `orders` (`id`)
+    KEY `idx_deleted` (`deleted`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='退款表';
 
 -- ======================================================
@@ -355,6 +357,89 @@ CREATE TABLE `announcement` (
     KEY `idx_created_time` (`created_time`)
 ) ENGINE=InnoDB AUTO_INCREMENT=14 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='公告表';
 
+-- ======================================================
+-- 16. 秒杀库存扣减流水表
+-- ======================================================
+CREATE TABLE `flash_sale_stock_log` (
+    `id` bigint NOT NULL AUTO_INCREMENT COMMENT '流水ID',
+    `product_id` bigint NOT NULL COMMENT '商品ID',
+    `sku_id` bigint DEFAULT NULL COMMENT 'SKU ID',
+    `quantity` int NOT NULL COMMENT '扣减数量',
+    `created_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_product_id` (`product_id`),
+    KEY `idx_sku_id` (`sku_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='秒杀库存扣减流水表';
+
+-- ======================================================
+-- 17. 每日销售汇总表
+-- ======================================================
+CREATE TABLE `sales_daily_rollup` (
+    `stat_date` date NOT NULL COMMENT '统计日期（订单创建日期）',
+    `order_count` int NOT NULL DEFAULT 0 COMMENT '下单数',
+    `paid_count` int NOT NULL DEFAULT 0 COMMENT '有效支付订单数（不含已取消、已退款）',
+    `paid_amount` decimal(14,2) NOT NULL DEFAULT 0.00 COMMENT '有效销售额（元）',
+    `refund_count` int NOT NULL DEFAULT 0 COMMENT '退款订单数',
+    `refund_amount` decimal(14,2) NOT NULL DEFAULT 0.00 COMMENT '退款金额（元）',
+    `updated_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='每日销售汇总表';
+
+-- ======================================================
+-- 18. 邮件发件箱表
+-- ======================================================
+CREATE TABLE `email_outbox` (
+    `id` bigint NOT NULL AUTO_INCREMENT COMMENT '邮件ID',
+    `biz_key` varchar(64) DEFAULT NULL COMMENT '业务标识（如订单号）',
+    `to_email` varchar(100) NOT NULL COMMENT '收件人邮箱',
+    `subject` varchar(200) NOT NULL COMMENT '邮件主题',
+    `content` text NOT NULL COMMENT '邮件正文',
+    `status` tinyint NOT NULL DEFAULT 0 COMMENT '状态（0-待发送，1-已发送，2-发送失败不再重试）',
+    `attempts` int NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+    `next_attempt_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次尝试时间',
+    `last_error` varchar(500) DEFAULT NULL COMMENT '最近一次失败原因',
+    `created_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `sent_time` datetime DEFAULT NULL COMMENT '发送时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_status_next_attempt` (`status`, `next_attempt_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='邮件发件箱表';
+
+-- ======================================================
+-- 19. 订单归档表
+-- 已完成/已取消/已退款且超过保留期的订单连同订单项按原ID移入归档表，
+-- 评价和退款记录仍按原ID关联，因此 product_review、refund 不再对订单表/订单项表设外键
+-- 已有数据库升级时执行：
+--   ALTER TABLE `product_review` DROP FOREIGN KEY `fk_review_order_item`;
+--   ALTER TABLE `refund` DROP FOREIGN KEY `fk_refund_order`;
+-- ======================================================
+CREATE TABLE `orders_archive` LIKE `orders`;
+ALTER TABLE `orders_archive` COMMENT='订单归档表';
+
+CREATE TABLE `order_item_archive` LIKE `order_item`;
+ALTER TABLE `order_item_archive` COMMENT='订单项归档表';
+
+-- ======================================================
+-- 20. 库存预警表
+-- 库存扣减跨过系统设置的预警数量时写入，每个商品/SKU 只保留一条记录
+-- ======================================================
+CREATE TABLE `stock_alert` (
+    `id` bigint NOT NULL AUTO_INCREMENT COMMENT '预警ID',
+    `item_type` tinyint NOT NULL COMMENT '预警类型（1-商品，2-SKU）',
+    `item_id` bigint NOT NULL COMMENT '商品ID或SKU ID',
+    `product_id` bigint NOT NULL COMMENT '商品ID',
+    `sku_id` bigint DEFAULT NULL COMMENT 'SKU ID',
+    `stock` int NOT NULL COMMENT '最近一次记录的库存',
+    `threshold` int NOT NULL COMMENT '触发时的预警数量',
+    `status` tinyint NOT NULL DEFAULT 0 COMMENT '状态（0-未处理，1-已处理）',
+    `alert_count` int NOT NULL DEFAULT 1 COMMENT '累计触发次数',
+    `last_alert_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最近一次触发时间',
+    `resolved_time` datetime DEFAULT NULL COMMENT '处理时间',
+    `created_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_item` (`item_type`, `item_id`),
+    KEY `idx_status_alert_time` (`status`, `last_alert_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='库存预警表';
+
 -- ======================================================
 -- 初始化数据
 -- ======================================================
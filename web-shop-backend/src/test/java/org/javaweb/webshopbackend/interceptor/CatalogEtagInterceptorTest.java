@@ -0,0 +1,77 @@
+package org.javaweb.webshopbackend.interceptor;
+
+import org.javaweb.webshopbackend.event.CatalogChangedEvent;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.service.impl.CatalogVersionServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 目录条件请求测试：版本号不变时返回 304，商品或分类变更后 ETag 失效
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class CatalogEtagInterceptorTest {
+
+    private final CatalogVersionServiceImpl versionService = new CatalogVersionServiceImpl();
+
+    private final CatalogEtagInterceptor interceptor = new CatalogEtagInterceptor();
+
+    {
+        ReflectionTestUtils.setField(interceptor, "catalogVersionService", versionService);
+    }
+
+    private MockHttpServletResponse get(String etag, String... params) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/product/list");
+        for (int i = 0; i < params.length; i += 2) {
+            request.addParameter(params[i], params[i + 1]);
+        }
+        if (etag != null) {
+            request.addHeader("If-None-Match", etag);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean proceed = interceptor.preHandle(request, response, null);
+        assertEquals(proceed, response.getStatus() != 304);
+        return response;
+    }
+
+    @Test
+    void matchingEtagReturnsNotModifiedUntilCatalogChanges() {
+        String etag = get(null, "pageNum", "1", "categoryId", "3").getHeader("ETag");
+        assertTrue(etag.startsWith("W/\""));
+
+        // 参数顺序不影响 ETag
+        assertEquals(304, get(etag, "categoryId", "3", "pageNum", "1").getStatus());
+        assertEquals(200, get(etag, "pageNum", "2", "categoryId", "3").getStatus());
+
+        versionService.onProductChanged(new ProductChangedEvent(List.of(1L)));
+        MockHttpServletResponse afterProductChange = get(etag, "pageNum", "1", "categoryId", "3");
+        assertEquals(200, afterProductChange.getStatus());
+        String newEtag = afterProductChange.getHeader("ETag");
+        assertNotEquals(etag, newEtag);
+
+        versionService.onCatalogChanged(new CatalogChangedEvent("category"));
+        assertEquals(200, get(newEtag, "pageNum", "1", "categoryId", "3").getStatus());
+        assertEquals(2L, versionService.getStats().get("bumps"));
+    }
+
+    @Test
+    void nonGetRequestsAreNotIntercepted() {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/category/1");
+        request.addHeader("If-None-Match", "*");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertFalse(response.containsHeader("ETag"));
+    }
+}
@@ -0,0 +1,245 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.mapper.EmailOutboxMapper;
+import org.javaweb.webshopbackend.pojo.entity.EmailOutbox;
+import org.javaweb.webshopbackend.service.impl.EmailOutboxServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 邮件发件箱发送测试
+ * 使用进程内的简易SMTP服务代替真实邮件服务器，发件箱表用内存列表代替
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class EmailOutboxServiceTest {
+
+    private final List<EmailOutbox> rows = new ArrayList<>();
+    private LocalSmtpServer smtp;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new LocalSmtpServer();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void sendsEachBatchOverOneConnection() {
+        EmailOutboxService service = newService(smtp.getPort(), 5);
+        service.enqueue("ORD1", "a@example.com", "发货通知", "正文1");
+        service.enqueue("ORD2", "b@example.com", "发货通知", "正文2");
+        service.enqueue("ORD3", "c@example.com", "发货通知", "正文3");
+
+        // 每批2封：3封邮件分两次轮询发送，每批只建立一次连接
+        assertEquals(2, service.dispatchPending());
+        assertEquals(1, smtp.connections.get());
+        assertEquals(1, service.dispatchPending());
+        assertEquals(2, smtp.connections.get());
+        assertEquals(3, smtp.recipients.size());
+        rows.forEach(row -> assertEquals(1, row.getStatus()));
+        assertEquals(0, service.dispatchPending());
+    }
+
+    @Test
+    void retriesOnlyTheRejectedMessageWithBackoff() {
+        EmailOutboxService service = newService(smtp.getPort(), 5);
+        service.enqueue("ORD1", "a@example.com", "发货通知", "正文1");
+        service.enqueue("ORD2", "reject@example.com", "发货通知", "正文2");
+        service.enqueue("ORD3", "c@example.com", "发货通知", "正文3");
+
+        assertEquals(1, service.dispatchPending());
+        assertEquals(1, service.dispatchPending());
+        EmailOutbox rejected = rows.get(1);
+        assertEquals(0, rejected.getStatus());
+        assertEquals(1, rejected.getAttempts());
+        assertTrue(rejected.getNextAttemptTime().isAfter(LocalDateTime.now()));
+        assertEquals(1, rows.get(0).getStatus());
+        assertEquals(1, rows.get(2).getStatus());
+
+        // 退避时间未到，不会立即重试
+        assertEquals(0, service.dispatchPending());
+        assertEquals(1L, service.getStats().get("queueDepth"));
+    }
+
+    @Test
+    void givesUpAfterMaxAttemptsWhenServerIsDown() throws IOException {
+        int port = smtp.getPort();
+        smtp.close();
+        EmailOutboxService service = newService(port, 1);
+        service.enqueue("ORD1", "a@example.com", "发货通知", "正文1");
+        service.enqueue("ORD2", "b@example.com", "发货通知", "正文2");
+
+        assertEquals(0, service.dispatchPending());
+        rows.forEach(row -> assertEquals(2, row.getStatus()));
+        assertEquals(2L, service.getStats().get("dead"));
+    }
+
+    private EmailOutboxService newService(int port, int maxAttempts) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(port);
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "2000");
+
+        EmailOutboxServiceImpl service = new EmailOutboxServiceImpl();
+        ReflectionTestUtils.setField(service, "emailOutboxMapper", inMemoryMapper());
+        ReflectionTestUtils.setField(service, "mailSender", mailSender);
+        ReflectionTestUtils.setField(service, "fromEmail", "shop@example.com");
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(service, "retryBaseSeconds", 30L);
+        return service;
+    }
+
+    /**
+     * 只模拟发件箱服务用到的方法
+     */
+    private EmailOutboxMapper inMemoryMapper() {
+        EmailOutboxMapper mapper = mock(EmailOutboxMapper.class);
+        when(mapper.insert(any(EmailOutbox.class))).thenAnswer(invocation -> {
+            EmailOutbox row = invocation.getArgument(0);
+            row.setId((long) rows.size() + 1);
+            row.setCreatedTime(LocalDateTime.now());
+            rows.add(row);
+            return 1;
+        });
+        when(mapper.selectDue(any(), anyInt())).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(0);
+            return rows.stream()
+                    .filter(row -> row.getStatus() == 0 && !row.getNextAttemptTime().isAfter(now))
+                    .limit(invocation.<Integer>getArgument(1))
+                    .toList();
+        });
+        when(mapper.markSent(anyList(), any())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            rows.stream().filter(row -> ids.contains(row.getId())).forEach(row -> {
+                row.setStatus(1);
+                row.setAttempts(row.getAttempts() + 1);
+                row.setSentTime(invocation.getArgument(1));
+            });
+            return ids.size();
+        });
+        when(mapper.markFailed(any(), anyInt(), anyInt(), any(), any())).thenAnswer(invocation -> {
+            EmailOutbox row = rows.get(invocation.<Long>getArgument(0).intValue() - 1);
+            row.setStatus(invocation.getArgument(1));
+            row.setAttempts(invocation.getArgument(2));
+            row.setNextAttemptTime(invocation.getArgument(3));
+            row.setLastError(invocation.getArgument(4));
+            return 1;
+        });
+        when(mapper.selectCount(any())).thenAnswer(invocation -> rows.stream().filter(row -> row.getStatus() == 0).count());
+        when(mapper.selectOldestPendingTime()).thenAnswer(invocation -> rows.stream().filter(row -> row.getStatus() == 0)
+                .map(EmailOutbox::getCreatedTime).min(LocalDateTime::compareTo).orElse(null));
+        return mapper;
+    }
+
+    /**
+     * 进程内简易SMTP服务：收件人包含 reject 时拒收，其余全部接受
+     */
+    private static final class LocalSmtpServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        private final AtomicInteger connections = new AtomicInteger();
+        private final List<String> recipients = new CopyOnWriteArrayList<>();
+
+        private LocalSmtpServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread.ofVirtual().start(this::acceptLoop);
+        }
+
+        private int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread.ofVirtual().start(() -> handle(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+                reply(out, "220 localhost ESMTP");
+                String pendingRecipient = null;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 localhost");
+                    } else if (command.startsWith("RCPT TO")) {
+                        if (line.contains("reject")) {
+                            reply(out, "550 mailbox unavailable");
+                        } else {
+                            pendingRecipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                            reply(out, "250 OK");
+                        }
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // 丢弃邮件内容
+                        }
+                        recipients.add(pendingRecipient);
+                        pendingRecipient = null;
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        // MAIL FROM、RSET、NOOP 等
+                        pendingRecipient = command.startsWith("RSET") ? null : pendingRecipient;
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException ignored) {
+                // 客户端断开
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.mapper.FlashSaleStockLogMapper;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.mapper.ProductSkuMapper;
+import org.javaweb.webshopbackend.pojo.entity.FlashSaleStockLog;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.impl.FlashSaleStockServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 秒杀内存库存测试：加锁加载、按变化量调整、调低到已预占数量以下、并发落库每条流水只扣减一次
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class FlashSaleStockServiceTest {
+
+    private final ProductMapper productMapper = mock(ProductMapper.class);
+
+    private final ProductSkuMapper productSkuMapper = mock(ProductSkuMapper.class);
+
+    private final FlashSaleStockLogMapper stockLogMapper = mock(FlashSaleStockLogMapper.class);
+
+    private FlashSaleStockServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setIsFlashSale(1);
+        product.setStatus(1);
+        when(productMapper.selectById(1L)).thenReturn(product);
+        when(productMapper.selectStockForUpdate(1L)).thenReturn(10);
+        when(productSkuMapper.selectByProductIdForUpdate(1L)).thenReturn(List.of());
+        when(stockLogMapper.sumPendingByProductId(1L)).thenReturn(3L);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        service = new FlashSaleStockServiceImpl();
+        ReflectionTestUtils.setField(service, "productMapper", productMapper);
+        ReflectionTestUtils.setField(service, "productSkuMapper", productSkuMapper);
+        ReflectionTestUtils.setField(service, "flashSaleStockLogMapper", stockLogMapper);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "stockAlertService", mock(StockAlertService.class));
+        ReflectionTestUtils.setField(service, "flushBatchSize", 50);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "stripes", 4);
+        service.init();
+        service.reload(1L);
+    }
+
+    @Test
+    void loadsStockMinusPendingUnderRowLock() {
+        verify(productMapper).selectStockForUpdate(1L);
+        assertEquals(7L, service.getAvailableStock(1L));
+    }
+
+    @Test
+    void reloadOfManagedProductKeepsConcurrentReservations() {
+        assertTrue(service.reserve(1L, null, 5));
+        // 已在管理中的商品再次 reload 不按数据库整体重置
+        when(productMapper.selectStockForUpdate(1L)).thenReturn(10);
+        service.reload(1L);
+        assertEquals(2L, service.getAvailableStock(1L));
+    }
+
+    @Test
+    void stockLoweredBelowReservedIsOwedByLaterReleases() {
+        assertTrue(service.reserve(1L, null, 5));
+        service.adjustProduct(1L, -4);
+        assertEquals(0L, service.getAvailableStock(1L));
+        assertFalse(service.reserve(1L, null, 1));
+
+        // 先抵扣无法减去的 2，再归还到计数
+        service.adjustProduct(1L, 3);
+        assertEquals(1L, service.getAvailableStock(1L));
+        service.adjustProduct(1L, 6);
+        assertEquals(7L, service.getAvailableStock(1L));
+    }
+
+    @Test
+    void concurrentFlushesApplyEachLogOnce() throws Exception {
+        List<FlashSaleStockLog> table = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            FlashSaleStockLog stockLog = new FlashSaleStockLog();
+            stockLog.setId(id);
+            stockLog.setProductId(1L);
+            stockLog.setQuantity(1);
+            table.add(stockLog);
+        }
+        when(stockLogMapper.selectPendingBatch(anyInt())).thenAnswer(invocation -> {
+            synchronized (table) {
+                return new ArrayList<>(table.subList(0, Math.min(invocation.<Integer>getArgument(0), table.size())));
+            }
+        });
+        ConcurrentHashMap<Long, AtomicInteger> deleted = new ConcurrentHashMap<>();
+        when(stockLogMapper.deleteByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            ids.forEach(id -> deleted.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet());
+            synchronized (table) {
+                table.removeIf(stockLog -> ids.contains(stockLog.getId()));
+            }
+            return ids.size();
+        });
+        AtomicInteger applied = new AtomicInteger();
+        doAnswer(invocation -> {
+            // 放大读取流水与删除流水之间的窗口
+            Thread.sleep(1);
+            applied.addAndGet(-invocation.<Integer>getArgument(1));
+            return 1;
+        }).when(productMapper).updateStock(anyLong(), anyInt());
+
+        // 启动对账、定时任务、停机落库同时把流水落完
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        List<Future<?>> flushers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            flushers.add(pool.submit(() -> {
+                while (service.flushPending() > 0) {
+                    Thread.onSpinWait();
+                }
+            }));
+        }
+        for (Future<?> flusher : flushers) {
+            flusher.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1000, applied.get());
+        assertEquals(1000, deleted.size());
+        assertTrue(deleted.values().stream().allMatch(count -> count.get() == 1));
+    }
+}
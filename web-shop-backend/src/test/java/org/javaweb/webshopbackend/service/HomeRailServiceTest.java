@@ -0,0 +1,127 @@
+package org.javaweb.webshopbackend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.impl.HomeRailServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 首页商品栏测试：快照建立后读取不查库，商品变更在下一次检查时合并，无法确定排名时重新查询
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class HomeRailServiceTest {
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private volatile int productCount = 30;
+
+    private final ProductMapper mapper = mock(ProductMapper.class);
+
+    private HomeRailServiceImpl newService() {
+        when(mapper.selectHotProducts(anyInt())).thenAnswer(invocation -> products(invocation.getArgument(0)));
+        when(mapper.selectRecommendProducts(anyInt())).thenAnswer(invocation -> products(invocation.getArgument(0)));
+        when(mapper.selectFlashSaleProducts(anyInt())).thenAnswer(invocation -> products(invocation.getArgument(0)));
+        HomeRailServiceImpl service = new HomeRailServiceImpl();
+        ReflectionTestUtils.setField(service, "productMapper", mapper);
+        ReflectionTestUtils.setField(service, "maxSize", 20);
+        ReflectionTestUtils.setField(service, "maxAgeMillis", 60_000L);
+        return service;
+    }
+
+    private List<Product> products(int limit) {
+        queries.incrementAndGet();
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= Math.min(limit, productCount); id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName("商品" + id);
+            product.setPrice(new BigDecimal("9.90"));
+            product.setSales((int) (1000 - id));
+            products.add(product);
+        }
+        return products;
+    }
+
+    @Test
+    void readsAreServedFromSnapshot() throws Exception {
+        HomeRailServiceImpl service = newService();
+
+        byte[] first = service.getRailJson(HomeRailService.Rail.HOT, 10);
+        assertEquals(3, queries.get());
+        for (int i = 0; i < 1000; i++) {
+            assertSame(first, service.getRailJson(HomeRailService.Rail.HOT, 10));
+            service.getRailJson(HomeRailService.Rail.FLASH_SALE, 5);
+        }
+        assertEquals(3, queries.get());
+        assertFalse(service.refreshIfStale());
+
+        JsonNode body = new ObjectMapper().readTree(first);
+        assertEquals(200, body.get("code").asInt());
+        assertEquals(10, body.get("data").size());
+
+        // 超过快照容量的 limit 直接查询数据库
+        assertEquals(30, new ObjectMapper().readTree(
+                service.getRailJson(HomeRailService.Rail.RECOMMEND, 1000)).get("data").size());
+        assertEquals(4, queries.get());
+    }
+
+    @Test
+    void changedProductsAreMergedWithoutRequery() throws Exception {
+        HomeRailServiceImpl service = newService();
+        service.getRailJson(HomeRailService.Rail.HOT, 10);
+
+        // 快照之外的 25 号商品销量上升并设为热销
+        Product product = new Product();
+        product.setId(25L);
+        product.setSales(5000);
+        product.setIsHot(1);
+        product.setIsRecommend(0);
+        product.setIsFlashSale(0);
+        when(mapper.selectRailCandidates(anyCollection())).thenReturn(List.of(product));
+        byte[] recommend = service.getRailJson(HomeRailService.Rail.RECOMMEND, 10);
+        service.onProductChanged(new ProductChangedEvent(List.of(25L)));
+        assertTrue(service.refreshIfStale());
+        assertEquals(3, queries.get());
+
+        JsonNode hot = new ObjectMapper().readTree(service.getRailJson(HomeRailService.Rail.HOT, 20)).get("data");
+        assertEquals(20, hot.size());
+        assertEquals(25, hot.get(0).get("id").asInt());
+        assertEquals(19, hot.get(19).get("id").asInt());
+        // 未涉及的栏保留原快照
+        assertSame(recommend, service.getRailJson(HomeRailService.Rail.RECOMMEND, 10));
+    }
+
+    @Test
+    void productChangesTriggerRebuild() throws Exception {
+        HomeRailServiceImpl service = newService();
+        service.getRailJson(HomeRailService.Rail.HOT, 10);
+
+        productCount = 3;
+        service.onProductChanged(new ProductChangedEvent(List.of(1L)));
+        assertTrue(service.refreshIfStale());
+        assertFalse(service.refreshIfStale());
+        assertEquals(6, queries.get());
+
+        JsonNode body = new ObjectMapper().readTree(service.getRailJson(HomeRailService.Rail.HOT, 10));
+        assertEquals(3, body.get("data").size());
+    }
+}
@@ -0,0 +1,121 @@
+package org.javaweb.webshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 订单归档前后热表查询耗时对比
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启；会归档库中所有满足条件的订单，只应在测试库运行
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+@Slf4j
+class OrderArchiveBenchmarkTest {
+
+    private static final int ORDER_COUNT = 200_000;
+    private static final int INSERT_CHUNK = 10_000;
+    private static final int ROUNDS = 50;
+    private static final String ORDER_NO_PREFIX = "ARCHIT";
+
+    /**
+     * 远早于保留期的下单和更新时间
+     */
+    private static final LocalDateTime OLD_TIME = LocalDateTime.of(2001, 1, 1, 0, 0);
+
+    @Autowired
+    private OrdersService ordersService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        String pattern = ORDER_NO_PREFIX + "%";
+        jdbcTemplate.update("DELETE FROM `order_item_archive` WHERE order_id IN "
+                + "(SELECT id FROM `orders_archive` WHERE order_no LIKE ?)", pattern);
+        jdbcTemplate.update("DELETE FROM `orders_archive` WHERE order_no LIKE ?", pattern);
+        jdbcTemplate.update("DELETE FROM `orders` WHERE order_no LIKE ?", pattern);
+    }
+
+    @Test
+    void hotQueriesBeforeAndAfterArchiving() {
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM `user` WHERE deleted = 0 LIMIT 1", Long.class);
+        seedOrders(userId);
+        long userTotal = ordersService.getOrderPage(new Page<>(1, 10), userId, null).getTotal();
+
+        double[] before = measure(userId);
+        int archived = orderArchiveService.archiveDue();
+        double[] after = measure(userId);
+
+        log.info(String.format("归档 %d 个订单；用户待发货列表 %.2f -> %.2f ms，管理端待发货游标列表 %.2f -> %.2f ms，"
+                        + "状态分布 %.2f -> %.2f ms",
+                archived, before[0], after[0], before[1], after[1], before[2], after[2]));
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM `orders` WHERE order_no LIKE ?", Integer.class, ORDER_NO_PREFIX + "%"));
+        // 归档后按订单号、用户列表仍能查到
+        Orders detail = ordersService.getOrderDetail(ORDER_NO_PREFIX + 0);
+        assertFalse(detail.getItems().isEmpty());
+        assertEquals(userTotal, ordersService.getOrderPage(new Page<>(1, 10), userId, null).getTotal());
+    }
+
+    /**
+     * 依次返回用户待发货列表、管理端待发货游标列表、状态分布的平均耗时（毫秒）
+     */
+    private double[] measure(Long userId) {
+        long userList = 0;
+        long adminList = 0;
+        long statusCount = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            ordersService.getOrderPage(new Page<>(1, 10), userId, 1);
+            long t1 = System.nanoTime();
+            ordersService.getAdminOrderCursorPage(null, 10, 1, null, null, null, true);
+            long t2 = System.nanoTime();
+            ordersService.countByStatus();
+            long t3 = System.nanoTime();
+            userList += t1 - t0;
+            adminList += t2 - t1;
+            statusCount += t3 - t2;
+        }
+        return new double[]{userList / 1e6 / ROUNDS, adminList / 1e6 / ROUNDS, statusCount / 1e6 / ROUNDS};
+    }
+
+    private void seedOrders(Long userId) {
+        Long productId = jdbcTemplate.queryForObject("SELECT id FROM `product` LIMIT 1", Long.class);
+        Timestamp oldTime = Timestamp.valueOf(OLD_TIME);
+        for (int start = 0; start < ORDER_COUNT; start += INSERT_CHUNK) {
+            List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+            for (int i = start; i < start + INSERT_CHUNK; i++) {
+                rows.add(new Object[]{ORDER_NO_PREFIX + i, userId, oldTime, oldTime, oldTime});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO `orders` (order_no, user_id, total_amount, pay_amount, status, "
+                    + "receive_time, created_time, updated_time, receiver_name, receiver_phone, receiver_address) "
+                    + "VALUES (?, ?, 1.00, 1.00, 3, ?, ?, ?, '压测', '13800000000', '压测地址')", rows);
+        }
+        jdbcTemplate.update("INSERT INTO `order_item` (order_id, product_id, product_name, unit_price, quantity, total_price) "
+                + "SELECT id, ?, '压测商品', 1.00, 1, 1.00 FROM `orders` WHERE order_no LIKE ?",
+                productId, ORDER_NO_PREFIX + "%");
+    }
+}
@@ -0,0 +1,75 @@
+package org.javaweb.webshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单批量自动确认收货压测
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+@Slf4j
+class OrderBulkTransitionTest {
+
+    private static final int ORDER_COUNT = 100_000;
+    private static final Duration TIME_BUDGET = Duration.ofSeconds(60);
+    private static final String ORDER_NO_PREFIX = "BULKIT";
+
+    /**
+     * 远早于任何真实订单的发货时间，确保只处理本测试插入的订单
+     */
+    private static final LocalDateTime SHIP_TIME = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderBulkTransitionService orderBulkTransitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM `orders` WHERE order_no LIKE ?", ORDER_NO_PREFIX + "%");
+    }
+
+    @Test
+    void confirmsHundredThousandDueOrdersWithinBudget() {
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM `user` WHERE deleted = 0 LIMIT 1", Long.class);
+        List<Object[]> rows = new ArrayList<>(ORDER_COUNT);
+        Timestamp shipTime = Timestamp.valueOf(SHIP_TIME);
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            rows.add(new Object[]{ORDER_NO_PREFIX + i, userId, shipTime});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO `orders` (order_no, user_id, total_amount, pay_amount, status, "
+                + "ship_time, receiver_name, receiver_phone, receiver_address) "
+                + "VALUES (?, ?, 1.00, 1.00, 2, ?, '压测', '13800000000', '压测地址')", rows);
+
+        long begin = System.nanoTime();
+        int confirmed = orderBulkTransitionService.confirmDue(SHIP_TIME.plusDays(1));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - begin);
+
+        log.info("批量确认收货 {} 单耗时 {} ms，统计={}",
+                confirmed, elapsed.toMillis(), orderBulkTransitionService.getStats());
+        assertEquals(ORDER_COUNT, confirmed);
+        assertTrue(elapsed.compareTo(TIME_BUDGET) < 0, "超出时间预算：" + elapsed);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM `orders` WHERE order_no LIKE ? AND status = 2", Integer.class, ORDER_NO_PREFIX + "%"));
+    }
+}
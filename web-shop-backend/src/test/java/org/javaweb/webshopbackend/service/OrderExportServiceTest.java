@@ -0,0 +1,71 @@
+package org.javaweb.webshopbackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.javaweb.webshopbackend.mapper.OrdersMapper;
+import org.javaweb.webshopbackend.pojo.entity.OrderItem;
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+import org.javaweb.webshopbackend.service.impl.OrderExportServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单导出测试：CSV 中以公式字符开头的用户输入加单引号前缀
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class OrderExportServiceTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void csvNeutralizesFormulaValues() throws Exception {
+        Orders order = new Orders();
+        order.setOrderNo("O1");
+        order.setReceiverName("=HYPERLINK(\"http://x\",\"点我\")");
+        order.setReceiverAddress("+86 某地");
+        order.setNote("@SUM(A1)");
+        order.setTotalAmount(new BigDecimal("-5.00"));
+        OrderItem item = new OrderItem();
+        item.setProductName("-手机");
+        item.setQuantity(1);
+        order.setItems(List.of(item));
+
+        Cursor<Orders> hot = mock(Cursor.class);
+        when(hot.iterator()).thenReturn(List.of(order).iterator());
+        Cursor<Orders> archived = mock(Cursor.class);
+        when(archived.iterator()).thenReturn(Collections.emptyIterator());
+        OrdersMapper mapper = mock(OrdersMapper.class);
+        when(mapper.selectOrdersForExport(eq(false), any(), any(), any())).thenReturn(hot);
+        when(mapper.selectOrdersForExport(eq(true), any(), any(), any())).thenReturn(archived);
+
+        OrderExportServiceImpl service = new OrderExportServiceImpl();
+        ReflectionTestUtils.setField(service, "ordersMapper", mapper);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        service.init();
+
+        LocalDateTime now = LocalDateTime.now();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportOrders("csv", null, now.minusDays(1), now).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("O1,,,,\"'=HYPERLINK(\"\"http://x\"\",\"\"点我\"\")\",,'+86 某地,-5.00,,,,,,,,,,'@SUM(A1),"
+                + ",,'-手机,,,1,", lines[1]);
+    }
+}
@@ -0,0 +1,143 @@
+package org.javaweb.webshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单流式导出压测：导出100万订单，存活堆内存不随订单数增长
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+@Slf4j
+class OrderExportStreamingTest {
+
+    private static final int ORDER_COUNT = 1_000_000;
+    private static final int INSERT_CHUNK = 10_000;
+    private static final long HEAP_GROWTH_LIMIT = 64L * 1024 * 1024;
+    private static final String ORDER_NO_PREFIX = "EXPIT";
+
+    /**
+     * 远早于任何真实订单的下单时间，确保只导出本测试插入的订单
+     */
+    private static final LocalDateTime CREATED_TIME = LocalDateTime.of(2001, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM `orders` WHERE order_no LIKE ?", ORDER_NO_PREFIX + "%");
+    }
+
+    @Test
+    void exportsMillionOrdersWithBoundedHeap() throws Exception {
+        seedOrders();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicBoolean running = new AtomicBoolean(true);
+        // 定期 GC 后采样，得到的是存活对象占用而非尚未回收的垃圾
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (running.get()) {
+                System.gc();
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        LineCountingOutputStream out = new LineCountingOutputStream();
+        long begin = System.currentTimeMillis();
+        try {
+            orderExportService.exportOrders("jsonl", null, CREATED_TIME, CREATED_TIME.plusDays(1)).writeTo(out);
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+        long elapsed = System.currentTimeMillis() - begin;
+        long growth = peak.get() - baseline;
+
+        log.info("流式导出 {} 个订单，{} 字节，耗时 {} ms，存活堆增长峰值 {} KB",
+                out.lines, out.bytes, elapsed, growth / 1024);
+        assertEquals(ORDER_COUNT, out.lines);
+        assertTrue(growth < HEAP_GROWTH_LIMIT, "导出期间存活堆增长过大：" + growth);
+    }
+
+    private void seedOrders() {
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM `user` WHERE deleted = 0 LIMIT 1", Long.class);
+        Long productId = jdbcTemplate.queryForObject("SELECT id FROM `product` LIMIT 1", Long.class);
+        Timestamp createdTime = Timestamp.valueOf(CREATED_TIME);
+        for (int start = 0; start < ORDER_COUNT; start += INSERT_CHUNK) {
+            List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+            for (int i = start; i < start + INSERT_CHUNK; i++) {
+                rows.add(new Object[]{ORDER_NO_PREFIX + i, userId, createdTime});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO `orders` (order_no, user_id, total_amount, pay_amount, status, "
+                    + "created_time, receiver_name, receiver_phone, receiver_address) "
+                    + "VALUES (?, ?, 2.00, 2.00, 3, ?, '压测', '13800000000', '压测地址')", rows);
+        }
+        // 每个订单两个订单项
+        for (int n = 0; n < 2; n++) {
+            jdbcTemplate.update("INSERT INTO `order_item` (order_id, product_id, product_name, unit_price, quantity, total_price) "
+                    + "SELECT id, ?, '压测商品', 1.00, 1, 1.00 FROM `orders` WHERE order_no LIKE ?",
+                    productId, ORDER_NO_PREFIX + "%");
+        }
+    }
+
+    /**
+     * 只统计字节数和行数、不保存内容的输出流
+     */
+    private static final class LineCountingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
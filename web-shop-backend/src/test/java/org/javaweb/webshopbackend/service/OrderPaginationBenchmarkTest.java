@@ -0,0 +1,52 @@
+package org.javaweb.webshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 订单两阶段分页基准测试
+ * 需要连接已导入大量订单数据（如 100 万单）的 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+@Slf4j
+class OrderPaginationBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private OrdersService ordersService;
+
+    @Test
+    void adminPageLatencyAtShallowAndDeepOffsets() {
+        for (long current : new long[]{1, 500}) {
+            // 预热
+            IPage<Orders> result = ordersService.getAdminOrderPage(new Page<>(current, PAGE_SIZE), null, null, null, null);
+
+            long begin = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                result = ordersService.getAdminOrderPage(new Page<>(current, PAGE_SIZE), null, null, null, null);
+            }
+            long avgMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin) / ROUNDS;
+
+            // 每页条数按订单计算，不再受订单项数量影响
+            long expected = Math.max(0, Math.min(PAGE_SIZE, result.getTotal() - (current - 1) * PAGE_SIZE));
+            assertEquals(expected, result.getRecords().size());
+            log.info("第 {} 页：平均耗时 {} us，总订单数 {}", current, avgMicros, result.getTotal());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.javaweb.webshopbackend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单状态机并发测试：支付与取消竞争同一订单时只有一方成功
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+class OrderStateMachineConcurrencyTest {
+
+    private static final int ROUNDS = 50;
+    private static final int THREADS = 8;
+    private static final String ORDER_NO_PREFIX = "CASIT";
+
+    @Autowired
+    private OrdersService ordersService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM `orders` WHERE order_no LIKE ?", ORDER_NO_PREFIX + "%");
+    }
+
+    @Test
+    void payAndCancelRacesHaveExactlyOneWinner() throws Exception {
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM `user` WHERE deleted = 0 LIMIT 1", Long.class);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String orderNo = ORDER_NO_PREFIX + System.nanoTime();
+                jdbcTemplate.update("INSERT INTO `orders` (order_no, user_id, total_amount, pay_amount, status, "
+                        + "receiver_name, receiver_phone, receiver_address) "
+                        + "VALUES (?, ?, 1.00, 1.00, 0, '压测', '13800000000', '压测地址')", orderNo, userId);
+
+                AtomicInteger paid = new AtomicInteger();
+                AtomicInteger cancelled = new AtomicInteger();
+                CountDownLatch start = new CountDownLatch(1);
+                CountDownLatch done = new CountDownLatch(THREADS);
+                for (int t = 0; t < THREADS; t++) {
+                    boolean pay = t % 2 == 0;
+                    executor.submit(() -> {
+                        try {
+                            start.await();
+                            if (pay) {
+                                ordersService.payOrder(orderNo, userId, 1);
+                                paid.incrementAndGet();
+                            } else {
+                                ordersService.cancelOrder(orderNo, userId, "并发测试");
+                                cancelled.incrementAndGet();
+                            }
+                        } catch (IllegalArgumentException e) {
+                            // 竞争失败方
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+                start.countDown();
+                assertTrue(done.await(30, TimeUnit.SECONDS));
+
+                Integer status = jdbcTemplate.queryForObject(
+                        "SELECT status FROM `orders` WHERE order_no = ?", Integer.class, orderNo);
+                assertEquals(1, paid.get() + cancelled.get(), "同一订单只能有一个操作成功");
+                assertEquals(paid.get() == 1 ? 1 : 4, status);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
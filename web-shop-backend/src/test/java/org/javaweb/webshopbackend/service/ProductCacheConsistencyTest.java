@@ -0,0 +1,137 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 商品缓存一致性测试：每条商品写入路径之后，经缓存读到的商品与数据库一致
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+class ProductCacheConsistencyTest {
+
+    private static final String NAME_PREFIX = "CACHEIT";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductSalesCounterService productSalesCounterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+    private Long otherProductId;
+
+    @BeforeEach
+    void setUp() {
+        productId = createProduct("A");
+        otherProductId = createProduct("B");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM `product` WHERE name LIKE ?", NAME_PREFIX + "%");
+    }
+
+    @Test
+    void readsAreFreshAfterEveryMutationPath() {
+        Product update = new Product();
+        update.setId(productId);
+        update.setPrice(new BigDecimal("88.00"));
+        warm();
+        productService.updateProduct(update);
+        assertFresh();
+
+        warm();
+        productService.updateProductStatus(productId, 0);
+        assertFresh();
+
+        warm();
+        productService.batchUpdateProductStatus(List.of(productId, otherProductId), 1);
+        assertFresh();
+
+        warm();
+        productService.setProductStock(productId, 50);
+        assertFresh();
+
+        warm();
+        productService.updateProductStock(productId, 5);
+        assertFresh();
+
+        warm();
+        productService.deductProductStock(productId, 3);
+        assertFresh();
+
+        warm();
+        productService.updateRecommendStatus(productId, 1);
+        assertFresh();
+
+        warm();
+        productService.updateFlashSaleStatus(productId, 1);
+        assertFresh();
+        productService.updateFlashSaleStatus(productId, 0);
+
+        warm();
+        productService.updateProductSales(productId, 2);
+        productSalesCounterService.flushPending();
+        assertFresh();
+
+        warm();
+        productService.deleteProduct(productId);
+        assertNull(productService.getById(productId));
+
+        warm();
+        productService.batchDeleteProducts(List.of(otherProductId));
+        assertNull(productService.getById(otherProductId));
+    }
+
+    private Long createProduct(String suffix) {
+        Product product = new Product();
+        product.setName(NAME_PREFIX + suffix + System.nanoTime());
+        product.setCategoryId(jdbcTemplate.queryForObject("SELECT id FROM `product_category` LIMIT 1", Long.class));
+        product.setPrice(new BigDecimal("99.00"));
+        product.setStock(100);
+        product.setStatus(1);
+        return productService.addProduct(product).getId();
+    }
+
+    private void warm() {
+        productService.getById(productId);
+        productService.getById(otherProductId);
+    }
+
+    private void assertFresh() {
+        for (Long id : List.of(productId, otherProductId)) {
+            Product cached = productService.getById(id);
+            Product stored = productMapper.selectById(id);
+            assertEquals(stored.getPrice(), cached.getPrice());
+            assertEquals(stored.getStock(), cached.getStock());
+            assertEquals(stored.getSales(), cached.getSales());
+            assertEquals(stored.getStatus(), cached.getStatus());
+            assertEquals(stored.getIsRecommend(), cached.getIsRecommend());
+            assertEquals(stored.getIsFlashSale(), cached.getIsFlashSale());
+        }
+    }
+}
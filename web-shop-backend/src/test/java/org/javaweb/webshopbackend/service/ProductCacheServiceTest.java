@@ -0,0 +1,150 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.impl.ProductCacheServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品缓存测试：命中、LRU淘汰、过期，以及加载与失效交错时不缓存旧值
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class ProductCacheServiceTest {
+
+    private final Map<Long, Integer> stocks = new ConcurrentHashMap<>();
+    private final AtomicInteger selects = new AtomicInteger();
+    private volatile CountDownLatch loadStarted;
+    private volatile CountDownLatch loadResume;
+
+    private ProductCacheServiceImpl newService(int maxSize, long ttlSeconds) {
+        ProductMapper mapper = mock(ProductMapper.class);
+        when(mapper.selectById(any(Serializable.class))).thenAnswer(invocation -> {
+            selects.incrementAndGet();
+            Long id = invocation.getArgument(0);
+            Integer stock = stocks.get(id);
+            if (loadStarted != null) {
+                loadStarted.countDown();
+                loadResume.await();
+            }
+            if (stock == null) {
+                return null;
+            }
+            Product product = new Product();
+            product.setId(id);
+            product.setStock(stock);
+            return product;
+        });
+        ProductCacheServiceImpl service = new ProductCacheServiceImpl();
+        ReflectionTestUtils.setField(service, "productMapper", mapper);
+        ReflectionTestUtils.setField(service, "maxSize", maxSize);
+        ReflectionTestUtils.setField(service, "ttlSeconds", ttlSeconds);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void hitsReturnCopiesAndChangesInvalidate() {
+        stocks.put(1L, 10);
+        ProductCacheServiceImpl service = newService(100, 300);
+
+        service.get(1L).setStock(0);
+        assertEquals(10, service.get(1L).getStock());
+        assertEquals(1, selects.get());
+
+        stocks.put(1L, 9);
+        service.onProductChanged(new ProductChangedEvent(List.of(1L)));
+        assertEquals(9, service.get(1L).getStock());
+        assertEquals(2, selects.get());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        for (long id = 1; id <= 3; id++) {
+            stocks.put(id, (int) id);
+        }
+        ProductCacheServiceImpl service = newService(2, 300);
+
+        service.get(1L);
+        service.get(2L);
+        service.get(1L);
+        service.get(3L);
+        selects.set(0);
+
+        service.get(1L);
+        service.get(3L);
+        assertEquals(0, selects.get());
+        service.get(2L);
+        assertEquals(1, selects.get());
+        assertTrue((Long) service.getStats().get("evictions") >= 1);
+    }
+
+    @Test
+    void overflowEvictsSampledEntriesAndKeepsHotOnes() {
+        for (long id = 1; id <= 1000; id++) {
+            stocks.put(id, (int) id);
+        }
+        ProductCacheServiceImpl service = newService(100, 300);
+
+        for (long id = 1; id <= 1000; id++) {
+            service.get(1L);
+            service.get(id);
+            assertTrue((Integer) service.getStats().get("size") <= 100);
+        }
+        assertEquals(900L, service.getStats().get("evictions"));
+
+        selects.set(0);
+        service.get(1L);
+        service.get(1000L);
+        assertEquals(0, selects.get());
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        stocks.put(1L, 10);
+        ProductCacheServiceImpl service = newService(100, 0);
+
+        service.get(1L);
+        service.get(1L);
+        assertEquals(2, selects.get());
+        assertEquals(1L, service.getStats().get("expirations"));
+    }
+
+    @Test
+    void loadRacingWithInvalidationIsNotCached() throws Exception {
+        stocks.put(1L, 10);
+        ProductCacheServiceImpl service = newService(100, 300);
+        loadStarted = new CountDownLatch(1);
+        loadResume = new CountDownLatch(1);
+
+        // 加载读到旧库存后、写入缓存前，另一事务提交了库存变更
+        CompletableFuture<Product> load = CompletableFuture.supplyAsync(() -> service.get(1L));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        stocks.put(1L, 5);
+        service.onProductChanged(new ProductChangedEvent(List.of(1L)));
+        loadResume.countDown();
+        assertEquals(10, load.get(5, TimeUnit.SECONDS).getStock());
+
+        loadStarted = null;
+        assertEquals(5, service.get(1L).getStock());
+        assertEquals(1L, service.getStats().get("discardedLoads"));
+    }
+}
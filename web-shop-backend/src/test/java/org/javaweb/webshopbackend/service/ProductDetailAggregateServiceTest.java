@@ -0,0 +1,144 @@
+package org.javaweb.webshopbackend.service;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.service.impl.ProductDetailAggregateServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品详情聚合测试：各部分并发执行，非必需部分超时省略，必需部分失败时整体失败
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class ProductDetailAggregateServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch slowFinished = new CountDownLatch(1);
+    private volatile boolean slowInterrupted;
+    private volatile boolean slowFavoriteCount;
+    private volatile boolean productMissing;
+
+    private ProductDetailAggregateServiceImpl service;
+
+    private ProductDetailAggregateServiceImpl newService() {
+        ProductService productService = mock(ProductService.class);
+        when(productService.getProductDetail(any())).thenAnswer(invocation -> {
+            if (productMissing) {
+                throw new IllegalArgumentException("商品不存在");
+            }
+            Product product = new Product();
+            product.setId(1L);
+            product.setName("商品1");
+            return product;
+        });
+        ProductSku sku = new ProductSku();
+        sku.setId(10L);
+        sku.setProductId(1L);
+        ProductSkuService skuService = mock(ProductSkuService.class);
+        when(skuService.list(any(Wrapper.class))).thenReturn(List.of(sku));
+        ProductReviewService reviewService = mock(ProductReviewService.class);
+        when(reviewService.getAvgRating(any())).thenReturn(4.5);
+        when(reviewService.getReviewCount(any())).thenReturn(2L);
+        when(reviewService.getRatingStatistics(any())).thenReturn(Map.of(5, 1L, 4, 1L));
+        UserFavoriteService favoriteService = mock(UserFavoriteService.class);
+        when(favoriteService.countByProduct(any())).thenAnswer(invocation -> {
+            if (slowFavoriteCount) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    slowInterrupted = true;
+                    Thread.currentThread().interrupt();
+                }
+                slowFinished.countDown();
+            }
+            return 7L;
+        });
+        when(favoriteService.isFavorite(any(), any())).thenReturn(true);
+
+        ProductDetailAggregateServiceImpl aggregate = new ProductDetailAggregateServiceImpl();
+        ReflectionTestUtils.setField(aggregate, "productService", productService);
+        ReflectionTestUtils.setField(aggregate, "productSkuService", skuService);
+        ReflectionTestUtils.setField(aggregate, "reviewService", reviewService);
+        ReflectionTestUtils.setField(aggregate, "favoriteService", favoriteService);
+        ReflectionTestUtils.setField(aggregate, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(aggregate, "deadlineMillis", 200L);
+        ReflectionTestUtils.setField(aggregate, "criticalTimeoutMillis", 2000L);
+        ReflectionTestUtils.setField(aggregate, "maxConcurrentQueries", 4);
+        aggregate.init();
+        return aggregate;
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void returnsAllParts() {
+        service = newService();
+
+        Map<String, Object> detail = service.getDetail(1L, 100L);
+
+        assertEquals("商品1", detail.get("name"));
+        assertEquals(1, ((List<?>) detail.get("skus")).size());
+        Map<?, ?> reviewStatistics = (Map<?, ?>) detail.get("reviewStatistics");
+        assertEquals(4.5, reviewStatistics.get("avgRating"));
+        assertEquals(2L, reviewStatistics.get("reviewCount"));
+        assertEquals(7L, detail.get("favoriteCount"));
+        assertEquals(true, detail.get("isFavorited"));
+        assertTrue(((List<?>) detail.get("missingParts")).isEmpty());
+    }
+
+    @Test
+    void slowOptionalPartIsOmittedAtDeadline() throws InterruptedException {
+        service = newService();
+        slowFavoriteCount = true;
+
+        long begin = System.nanoTime();
+        Map<String, Object> detail = service.getDetail(1L, null);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertTrue(elapsedMillis < 1000, "应在截止时间附近返回，实际耗时 " + elapsedMillis + "ms");
+        assertEquals("商品1", detail.get("name"));
+        assertFalse(detail.containsKey("favoriteCount"));
+        assertEquals(false, detail.get("isFavorited"));
+        assertEquals(List.of("favoriteCount"), detail.get("missingParts"));
+
+        Map<?, ?> parts = (Map<?, ?>) service.getStats().get("parts");
+        assertEquals(1L, ((Map<?, ?>) parts.get("favoriteCount")).get("timeouts"));
+
+        // 超时部分不被中断，而是继续执行完毕（避免中断 JDBC 读导致连接被关闭）
+        release.countDown();
+        assertTrue(slowFinished.await(5, TimeUnit.SECONDS));
+        assertFalse(slowInterrupted);
+    }
+
+    @Test
+    void criticalPartFailureFailsRequest() {
+        service = newService();
+        productMissing = true;
+
+        assertThrows(IllegalArgumentException.class, () -> service.getDetail(1L, null));
+    }
+}
@@ -0,0 +1,143 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.pojo.dto.ProductFacetQueryDTO;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.impl.ProductFacetServiceImpl;
+import org.javaweb.webshopbackend.support.ProductTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品分面测试：筛选交集、各分面数量、变更同步及首次查询只构建一次
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class ProductFacetServiceTest {
+
+    private final ProductTable table = new ProductTable();
+
+    private ProductFacetServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        put(1L, 1L, "30.00", 1, 0);
+        put(2L, 1L, "150.00", 0, 1);
+        put(3L, 2L, "150.00", 1, 1);
+        put(200_000L, 2L, "8000.00", 1, 0);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        service = new ProductFacetServiceImpl();
+        ReflectionTestUtils.setField(service, "productMapper", table.mapper());
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "priceBoundaries",
+                new BigDecimal[]{new BigDecimal("100"), new BigDecimal("50"), new BigDecimal("500")});
+        service.init();
+        service.rebuild();
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnFilter() {
+        ProductFacetQueryDTO query = new ProductFacetQueryDTO();
+        query.setCategoryId(2L);
+        query.setIsHot(true);
+        Map<String, Object> facets = service.getFacets(query);
+
+        assertEquals(2, facets.get("total"));
+        // 分类数量只受热销条件影响
+        assertEquals(List.of(Map.of("categoryId", 1L, "count", 1), Map.of("categoryId", 2L, "count", 2)),
+                facets.get("categories"));
+        assertEquals(List.of(0, 0, 1, 1), bucketCounts(facets));
+        assertEquals(Map.of("hot", 2, "recommend", 1, "flashSale", 0), facets.get("flags"));
+
+        query.setPriceBucket(2);
+        assertEquals(1, service.getFacets(query).get("total"));
+    }
+
+    @Test
+    void concurrentFirstQueriesShareOneBuild() throws Exception {
+        ProductFacetServiceImpl fresh = new ProductFacetServiceImpl();
+        ReflectionTestUtils.setField(fresh, "productMapper", table.mapper());
+        ReflectionTestUtils.setField(fresh, "transactionManager", ReflectionTestUtils.getField(service, "transactionManager"));
+        ReflectionTestUtils.setField(fresh, "priceBoundaries", new BigDecimal[]{new BigDecimal("100")});
+        fresh.init();
+        // 放慢构建，让所有查询都在构建完成前到达
+        when(table.mapper().selectForFacets()).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return ProductTable.cursor(table.find(List.of(1L, 2L, 3L, 200_000L)));
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<String, Object>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return fresh.getFacets(new ProductFacetQueryDTO());
+            }));
+        }
+        start.countDown();
+        for (Future<Map<String, Object>> result : results) {
+            assertEquals(4, result.get(5, TimeUnit.SECONDS).get("total"));
+        }
+        pool.shutdown();
+
+        // setUp 中的构建一次，新实例的首次查询共用一次构建
+        verify(table.mapper(), times(2)).selectForFacets();
+    }
+
+    @Test
+    void committedChangesMoveProductsBetweenBitmaps() {
+        put(1L, 2L, "600.00", 1, 0);
+        table.get(3L).setStatus(0);
+        service.onProductChanged(new ProductChangedEvent(List.of(1L, 3L)));
+        assertEquals(2, service.applyPending());
+
+        Map<String, Object> facets = service.getFacets(new ProductFacetQueryDTO());
+        assertEquals(3, facets.get("total"));
+        assertEquals(List.of(Map.of("categoryId", 1L, "count", 1), Map.of("categoryId", 2L, "count", 2)),
+                facets.get("categories"));
+        assertEquals(List.of(0, 0, 1, 2), bucketCounts(facets));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Integer> bucketCounts(Map<String, Object> facets) {
+        return ((List<Map<String, Object>>) facets.get("priceBuckets")).stream()
+                .map(bucket -> (Integer) bucket.get("count")).toList();
+    }
+
+    private void put(Long id, Long categoryId, String price, int isHot, int isRecommend) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategoryId(categoryId);
+        product.setPrice(new BigDecimal(price));
+        product.setIsHot(isHot);
+        product.setIsRecommend(isRecommend);
+        product.setIsFlashSale(0);
+        product.setStatus(1);
+        table.put(product);
+    }
+}
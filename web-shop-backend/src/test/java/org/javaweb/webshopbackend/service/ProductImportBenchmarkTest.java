@@ -0,0 +1,114 @@
+package org.javaweb.webshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 商品批量导入基准测试：10 万商品（每个 2 个 SKU）批量导入，与逐条保存的速度对比
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+@Slf4j
+class ProductImportBenchmarkTest {
+
+    private static final int PRODUCT_COUNT = 100_000;
+    private static final int SINGLE_SAMPLE = 1_000;
+    private static final String NAME_PREFIX = "IMPIT";
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSkuService productSkuService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM `product_sku` WHERE sku_code LIKE ?", NAME_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM `product` WHERE name LIKE ?", NAME_PREFIX + "%");
+    }
+
+    @Test
+    void bulkImportAgainstSingleInserts() throws IOException {
+        Long categoryId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM `product_category`", Long.class);
+
+        Path file = Files.createTempFile("product-import", ".jsonl");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < PRODUCT_COUNT; i++) {
+                    writer.write(String.format("{\"name\":\"%s商品%d\",\"categoryId\":%d,\"price\":%d.90,"
+                                    + "\"stock\":100,\"status\":1,\"description\":\"批量导入测试商品\","
+                                    + "\"skus\":[{\"skuCode\":\"%sA%d\",\"skuName\":\"标准版\",\"price\":%d.90,\"stock\":50},"
+                                    + "{\"skuCode\":\"%sB%d\",\"skuName\":\"高配版\",\"price\":%d.90,\"stock\":50}]}",
+                            NAME_PREFIX, i, categoryId, 10 + i % 500, NAME_PREFIX, i, 10 + i % 500,
+                            NAME_PREFIX, i, 20 + i % 500));
+                    writer.newLine();
+                }
+            }
+
+            Map<String, Object> report;
+            try (InputStream input = Files.newInputStream(file)) {
+                report = productImportService.importProducts(input, "jsonl");
+            }
+            log.info("批量导入 {} 个商品：耗时 {} ms，{} 个/秒，失败 {} 行", PRODUCT_COUNT,
+                    report.get("elapsedMillis"), report.get("productsPerSecond"), report.get("failedRows"));
+            assertEquals(PRODUCT_COUNT, report.get("importedProducts"));
+            assertEquals(PRODUCT_COUNT * 2, report.get("importedSkus"));
+            assertEquals(PRODUCT_COUNT * 2, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM `product_sku` WHERE sku_code LIKE ?", Integer.class, NAME_PREFIX + "%"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // 原有方式：逐个新增商品、逐条保存SKU
+        long begin = System.nanoTime();
+        for (int i = 0; i < SINGLE_SAMPLE; i++) {
+            Product product = new Product();
+            product.setName(NAME_PREFIX + "单条" + i);
+            product.setCategoryId(categoryId);
+            product.setPrice(new BigDecimal("19.90"));
+            product.setStock(100);
+            productService.addProduct(product);
+            for (String variant : new String[]{"S", "T"}) {
+                ProductSku sku = new ProductSku();
+                sku.setProductId(product.getId());
+                sku.setSkuCode(NAME_PREFIX + variant + i);
+                sku.setSkuName(variant);
+                sku.setPrice(new BigDecimal("19.90"));
+                sku.setStock(50);
+                sku.setStatus(1);
+                productSkuService.save(sku);
+            }
+        }
+        long singleMillis = Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+        log.info("逐条保存 {} 个商品：耗时 {} ms，{} 个/秒",
+                SINGLE_SAMPLE, singleMillis, SINGLE_SAMPLE * 1000L / singleMillis);
+    }
+}
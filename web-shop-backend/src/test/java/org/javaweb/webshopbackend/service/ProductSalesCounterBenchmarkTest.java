@@ -0,0 +1,109 @@
+package org.javaweb.webshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 热门商品支付吞吐压测：所有订单都购买同一个商品，销量增量由内存累加后批量写入
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+@Slf4j
+class ProductSalesCounterBenchmarkTest {
+
+    private static final int ORDERS = 2000;
+    private static final int THREADS = 32;
+    private static final String ORDER_NO_PREFIX = "SALESIT";
+
+    @Autowired
+    private OrdersService ordersService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSalesCounterService productSalesCounterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Product product;
+    private Long userId;
+    private final List<String> orderNos = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        product = new Product();
+        product.setName("热门压测商品");
+        product.setCategoryId(1L);
+        product.setPrice(new BigDecimal("1.00"));
+        product.setStock(ORDERS);
+        product.setStatus(1);
+        productService.addProduct(product);
+
+        userId = jdbcTemplate.queryForObject("SELECT id FROM `user` WHERE deleted = 0 LIMIT 1", Long.class);
+        for (int i = 0; i < ORDERS; i++) {
+            String orderNo = ORDER_NO_PREFIX + System.nanoTime();
+            jdbcTemplate.update("INSERT INTO `orders` (order_no, user_id, total_amount, pay_amount, status, "
+                    + "receiver_name, receiver_phone, receiver_address) "
+                    + "VALUES (?, ?, 1.00, 1.00, 0, '压测', '13800000000', '压测地址')", orderNo, userId);
+            jdbcTemplate.update("INSERT INTO `order_item` (order_id, product_id, product_name, unit_price, quantity, total_price) "
+                    + "SELECT id, ?, '热门压测商品', 1.00, 1, 1.00 FROM `orders` WHERE order_no = ?", product.getId(), orderNo);
+            orderNos.add(orderNo);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM `orders` WHERE order_no LIKE ?", ORDER_NO_PREFIX + "%");
+        productService.deleteProduct(product.getId());
+    }
+
+    @Test
+    void payingOneBestSellerConcurrently() throws InterruptedException {
+        AtomicInteger paid = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        long begin = System.nanoTime();
+        for (String orderNo : orderNos) {
+            executor.submit(() -> {
+                ordersService.payOrder(orderNo, userId, 1);
+                paid.incrementAndGet();
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+
+        productSalesCounterService.flushPending();
+        log.info("单一热门商品支付：{} 笔，耗时 {} ms，吞吐 {} 笔/秒，累加器统计 {}",
+                paid.get(), elapsedMs, paid.get() * 1000L / elapsedMs, productSalesCounterService.getStats());
+
+        assertEquals(ORDERS, paid.get());
+        Integer sales = jdbcTemplate.queryForObject("SELECT sales FROM `product` WHERE id = ?",
+                Integer.class, product.getId());
+        assertEquals(ORDERS, sales);
+    }
+}
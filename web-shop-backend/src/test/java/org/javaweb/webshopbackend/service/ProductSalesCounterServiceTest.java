@@ -0,0 +1,92 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.service.impl.ProductSalesCounterServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 商品销量累加器测试：并发累加与写入交错时增量不丢失、不重复
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class ProductSalesCounterServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 100_000;
+
+    private final Map<Long, Long> written = new ConcurrentHashMap<>();
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    private ProductSalesCounterService newService() {
+        ProductMapper mapper = mock(ProductMapper.class);
+        doAnswer(invocation -> {
+            if (failing.get()) {
+                throw new IllegalStateException("模拟写入失败");
+            }
+            Map<Long, Long> deltas = invocation.getArgument(0);
+            deltas.forEach((id, delta) -> written.merge(id, delta, Long::sum));
+            return null;
+        }).when(mapper).batchIncreaseSales(anyMap());
+        ProductSalesCounterServiceImpl service = new ProductSalesCounterServiceImpl();
+        ReflectionTestUtils.setField(service, "productMapper", mapper);
+        ReflectionTestUtils.setField(service, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        return service;
+    }
+
+    @Test
+    void concurrentIncrementsAreFlushedExactlyOnce() throws InterruptedException {
+        ProductSalesCounterService service = newService();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            long productId = t % 2 + 1;
+            executor.submit(() -> {
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    service.increment(productId, 1);
+                }
+            });
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+            service.flushPending();
+        }
+        service.flushPending();
+
+        long expectedPerProduct = (long) THREADS / 2 * INCREMENTS_PER_THREAD;
+        assertEquals(expectedPerProduct, written.get(1L));
+        assertEquals(expectedPerProduct, written.get(2L));
+        assertEquals(0L, service.getStats().get("pendingUnits"));
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForNextAttempt() {
+        ProductSalesCounterService service = newService();
+        service.increment(1L, 3);
+        service.increment(1L, 4);
+
+        failing.set(true);
+        assertThrows(IllegalStateException.class, service::flushPending);
+        assertEquals(7L, service.getStats().get("pendingUnits"));
+
+        failing.set(false);
+        assertEquals(1, service.flushPending());
+        assertEquals(7L, written.get(1L));
+        assertEquals(1, written.size());
+        assertEquals(0, service.flushPending());
+    }
+}
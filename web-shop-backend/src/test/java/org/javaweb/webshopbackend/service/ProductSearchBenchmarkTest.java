@@ -0,0 +1,116 @@
+package org.javaweb.webshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 商品搜索基准测试：100 万商品下倒排索引与 LIKE '%关键词%' 的查询耗时对比
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+@Slf4j
+class ProductSearchBenchmarkTest {
+
+    private static final int PRODUCT_COUNT = 1_000_000;
+    private static final int INSERT_CHUNK = 10_000;
+    private static final int ROUNDS = 20;
+    private static final String NAME_PREFIX = "SRCHIT";
+
+    private static final String[] BRANDS = {"华为", "小米", "苹果", "联想", "索尼", "美的", "海尔", "格力"};
+    private static final String[] ITEMS = {"蓝牙耳机", "智能手机", "平板电脑", "机械键盘", "无线鼠标",
+            "电饭煲", "空气净化器", "运动手表", "移动电源", "显示器"};
+    private static final String[] KEYWORDS = {"蓝牙耳机", "手机", "小米 手表", "净化器"};
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM `product` WHERE name LIKE ?", NAME_PREFIX + "%");
+    }
+
+    @Test
+    void indexAgainstLikeScan() throws InterruptedException {
+        seedProducts();
+        productSearchService.rebuildAsync();
+        waitForRebuild();
+
+        for (String keyword : KEYWORDS) {
+            IPage<Product> indexed = null;
+            long begin = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                indexed = productSearchService.search(new Page<>(1, 20), null, keyword, null, null, "sales");
+            }
+            double indexMillis = (System.nanoTime() - begin) / 1e6 / ROUNDS;
+
+            IPage<Product> scanned = null;
+            begin = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                LambdaQueryWrapper<Product> wrapper = new LambdaQueryWrapper<>();
+                wrapper.eq(Product::getStatus, 1).like(Product::getName, keyword).orderByDesc(Product::getSales);
+                scanned = productMapper.selectPage(new Page<>(1, 20), wrapper);
+            }
+            double likeMillis = (System.nanoTime() - begin) / 1e6 / ROUNDS;
+
+            log.info("关键词 [{}]：索引 {} ms（命中 {}），LIKE {} ms（命中 {}）", keyword,
+                    String.format("%.2f", indexMillis), indexed.getTotal(), String.format("%.2f", likeMillis), scanned.getTotal());
+            // 索引同时检索描述和规格，命中数不少于只查名称的 LIKE；含空格的多词查询 LIKE 无法命中
+            assertTrue(indexed.getTotal() >= scanned.getTotal());
+        }
+    }
+
+    private void waitForRebuild() throws InterruptedException {
+        // 等待本次重建开始并完成
+        for (int i = 0; i < 6000; i++) {
+            Object liveDocs = productSearchService.getStats().get("liveDocs");
+            if (liveDocs != null && ((Number) liveDocs).longValue() >= PRODUCT_COUNT) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("搜索索引重建超时");
+    }
+
+    private void seedProducts() {
+        Long categoryId = jdbcTemplate.queryForObject("SELECT id FROM `product_category` LIMIT 1", Long.class);
+        Random random = new Random(42);
+        for (int start = 0; start < PRODUCT_COUNT; start += INSERT_CHUNK) {
+            List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+            for (int i = start; i < start + INSERT_CHUNK; i++) {
+                String name = NAME_PREFIX + i + " " + BRANDS[random.nextInt(BRANDS.length)]
+                        + ITEMS[random.nextInt(ITEMS.length)];
+                rows.add(new Object[]{name, categoryId, 1 + random.nextInt(5000), random.nextInt(10000),
+                        "<p>" + ITEMS[random.nextInt(ITEMS.length)] + "，正品保障</p>"});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO `product` (name, category_id, price, stock, sales, description, status) "
+                    + "VALUES (?, ?, ?, 100, ?, ?, 1)", rows);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.javaweb.webshopbackend.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.impl.CatalogVersionServiceImpl;
+import org.javaweb.webshopbackend.service.impl.ProductSearchServiceImpl;
+import org.javaweb.webshopbackend.support.ProductTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品搜索索引测试：相关度、过滤、排序及变更同步
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class ProductSearchServiceTest {
+
+    private final ProductTable table = new ProductTable();
+
+    private ProductSearchServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        put(1L, "华为蓝牙耳机", 1L, "199.00", 50, "{\"颜色\":[\"白色\"]}", "降噪");
+        put(2L, "小米手机", 2L, "1999.00", 500, null, "<p>支持蓝牙耳机连接</p>");
+        put(3L, "蓝牙音箱", 1L, "99.00", 10, null, null);
+        put(4L, "Apple iPhone 15", 2L, "5999.00", 800, null, "A16 芯片");
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        service = new ProductSearchServiceImpl();
+        ReflectionTestUtils.setField(service, "productMapper", table.mapper());
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "catalogVersionService", new CatalogVersionServiceImpl());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "descriptionMaxChars", 64);
+        ReflectionTestUtils.setField(service, "compactDeletedRatio", 0.25);
+        service.init();
+
+        assertNull(service.search(new Page<>(1, 10), null, "蓝牙", null, null, null));
+        service.rebuildAsync();
+        for (int i = 0; i < 500 && !Boolean.TRUE.equals(service.getStats().get("ready")); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        IPage<Product> result = service.search(new Page<>(1, 10), null, "蓝牙耳机", null, null, null);
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(1L, 2L), ids(result));
+
+        assertEquals(List.of(4L), ids(service.search(new Page<>(1, 10), null, "iph", null, null, null)));
+        assertEquals(List.of(1L), ids(service.search(new Page<>(1, 10), null, "白色", null, null, null)));
+    }
+
+    @Test
+    void filtersSortsAndPagesMatches() {
+        assertEquals(List.of(1L, 3L), ids(service.search(new Page<>(1, 10), 1L, "蓝牙", null, null, "sales")));
+        assertEquals(List.of(3L, 1L, 2L), ids(service.search(new Page<>(1, 10), null, "蓝牙", null, null, "price_asc")));
+        assertEquals(List.of(1L), ids(service.search(new Page<>(1, 10), null, "蓝牙",
+                new BigDecimal("100"), new BigDecimal("1000"), null)));
+
+        IPage<Product> second = service.search(new Page<>(2, 2), null, "蓝牙", null, null, "price_desc");
+        assertEquals(3, second.getTotal());
+        assertEquals(List.of(3L), ids(second));
+    }
+
+    @Test
+    void committedChangesAreAppliedToIndex() {
+        put(3L, "便携音箱", 1L, "99.00", 10, null, null);
+        table.remove(1L);
+        put(5L, "运动蓝牙耳机", 1L, "299.00", 0, null, null);
+        table.get(2L).setSales(900);
+        service.onProductChanged(new ProductChangedEvent(List.of(1L, 2L, 3L, 5L)));
+        assertEquals(4, service.applyPending());
+
+        assertEquals(List.of(2L, 5L), ids(service.search(new Page<>(1, 10), null, "蓝牙", null, null, "sales")));
+        assertEquals(List.of(3L), ids(service.search(new Page<>(1, 10), null, "音箱", null, null, null)));
+
+        table.get(4L).setStatus(0);
+        service.onProductChanged(new ProductChangedEvent(List.of(4L)));
+        service.applyPending();
+        assertTrue(service.search(new Page<>(1, 10), null, "iphone", null, null, null).getRecords().isEmpty());
+    }
+
+    private void put(Long id, String name, Long categoryId, String price, int sales, String specs, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategoryId(categoryId);
+        product.setPrice(new BigDecimal(price));
+        product.setSales(sales);
+        product.setSpecs(specs);
+        product.setDescription(description);
+        product.setStatus(1);
+        table.put(product);
+    }
+
+    private static List<Long> ids(IPage<Product> page) {
+        return page.getRecords().stream().map(Product::getId).toList();
+    }
+}
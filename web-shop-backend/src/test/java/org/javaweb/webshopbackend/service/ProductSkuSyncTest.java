@@ -0,0 +1,129 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SKU 比对同步测试：未变化的SKU保留ID和库存，变化的原地更新，多余的逻辑删除，删除后再提交的恢复原ID
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+class ProductSkuSyncTest {
+
+    private static final String PREFIX = "SKUSYNCIT";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSkuService productSkuService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        Long categoryId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM `product_category`", Long.class);
+        Product product = new Product();
+        product.setName(PREFIX + "商品");
+        product.setCategoryId(categoryId);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(30);
+        productService.addProduct(product);
+        productId = product.getId();
+        productSkuService.syncSkus(productId, List.of(sku("A", "10.00", 10), sku("B", "10.00", 10), sku("C", "10.00", 10)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM `product_sku` WHERE sku_code LIKE ?", PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM `product` WHERE name LIKE ?", PREFIX + "%");
+    }
+
+    @Test
+    void diffPreservesIdsOfUnchangedSkus() {
+        Map<String, ProductSku> before = current();
+        // 下单扣减了 A 的库存，编辑时未改动 A
+        productSkuService.deductStock(before.get(PREFIX + "A").getId(), 3);
+
+        Product product = new Product();
+        product.setId(productId);
+        ProductSku unchangedA = sku("A", "10.00", null);
+        unchangedA.setStock(null);
+        productService.updateProductWithSkus(product,
+                List.of(unchangedA, sku("B", "12.50", 10), sku("D", "9.90", 5)));
+
+        Map<String, ProductSku> after = current();
+        assertEquals(List.of(PREFIX + "A", PREFIX + "B", PREFIX + "D"), after.keySet().stream().sorted().toList());
+        assertEquals(before.get(PREFIX + "A").getId(), after.get(PREFIX + "A").getId());
+        assertEquals(7, after.get(PREFIX + "A").getStock());
+        assertEquals(before.get(PREFIX + "B").getId(), after.get(PREFIX + "B").getId());
+        assertEquals(0, new BigDecimal("12.50").compareTo(after.get(PREFIX + "B").getPrice()));
+
+        // C 被删除后再次提交，恢复原ID而不是违反唯一索引
+        Map<String, Integer> result = productSkuService.syncSkus(productId,
+                List.of(sku("A", "10.00", null), sku("B", "12.50", 10), sku("C", "10.00", 10), sku("D", "9.90", 5)));
+        assertEquals(1, result.get("updated"));
+        assertEquals(0, result.get("inserted"));
+        assertEquals(before.get(PREFIX + "C").getId(), current().get(PREFIX + "C").getId());
+    }
+
+    @Test
+    void resubmittedStockDoesNotOverwriteDeductions() {
+        Map<String, ProductSku> before = current();
+        // 表单加载后 B 被下单扣减，管理员只改了价格，表单带回加载时的库存
+        productSkuService.deductStock(before.get(PREFIX + "B").getId(), 2);
+        ProductSku editedB = sku("B", "11.00", 10);
+        editedB.setOriginalStock(10);
+        ProductSku editedC = sku("C", "10.00", 15);
+        editedC.setOriginalStock(10);
+        productSkuService.syncSkus(productId, List.of(sku("A", "10.00", null), editedB, editedC));
+
+        Map<String, ProductSku> after = current();
+        assertEquals(8, after.get(PREFIX + "B").getStock());
+        assertEquals(0, new BigDecimal("11.00").compareTo(after.get(PREFIX + "B").getPrice()));
+        assertEquals(15, after.get(PREFIX + "C").getStock());
+    }
+
+    @Test
+    void duplicateCodesAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productSkuService.syncSkus(productId, List.of(sku("A", "1.00", 1), sku("A", "2.00", 1))));
+    }
+
+    private Map<String, ProductSku> current() {
+        return productSkuService.getByProductId(productId).stream()
+                .collect(Collectors.toMap(ProductSku::getSkuCode, Function.identity()));
+    }
+
+    private static ProductSku sku(String code, String price, Integer stock) {
+        ProductSku sku = new ProductSku();
+        sku.setSkuCode(PREFIX + code);
+        sku.setSkuName("规格" + code);
+        sku.setPrice(new BigDecimal(price));
+        sku.setStock(stock);
+        return sku;
+    }
+}
@@ -0,0 +1,161 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.controller.ProductController;
+import org.javaweb.webshopbackend.event.ProductChangedEvent;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.service.impl.ProductStreamServiceImpl;
+import org.javaweb.webshopbackend.support.ProductTable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * 商品变更推送测试：初始快照、只推送变化字段、订阅限制
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class ProductStreamServiceTest {
+
+    private final ProductTable table = new ProductTable();
+
+    private ProductStreamServiceImpl service;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        put(1L, "99.00", 10);
+        put(2L, "199.00", 5);
+
+        service = new ProductStreamServiceImpl();
+        ReflectionTestUtils.setField(service, "productMapper", table.mapper());
+        ReflectionTestUtils.setField(service, "maxSubscribers", 2);
+        ReflectionTestUtils.setField(service, "maxProductsPerSubscriber", 2);
+        ReflectionTestUtils.setField(service, "timeoutMillis", 60_000L);
+        service.init();
+
+        ProductController controller = new ProductController();
+        ReflectionTestUtils.setField(controller, "productStreamService", service);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void subscriberReceivesSnapshotThenOnlyChangedFields() throws Exception {
+        MockHttpServletResponse response = subscribe("1,2");
+        awaitEvents(response, 2);
+        String snapshot = response.getContentAsString();
+        assertTrue(snapshot.contains("event:product\ndata:{\"productId\":1,\"price\":99.00,\"stock\":10,\"status\":1}"), snapshot);
+        assertTrue(snapshot.contains("data:{\"productId\":2,\"price\":199.00,\"stock\":5,\"status\":1}"), snapshot);
+
+        // 合并周期内多次扣减库存只推送最终值；名称变化不推送
+        table.get(1L).setStock(9);
+        service.onProductChanged(new ProductChangedEvent(List.of(1L)));
+        table.get(1L).setStock(7);
+        table.get(2L).setName("renamed");
+        service.onProductChanged(new ProductChangedEvent(List.of(1L, 2L)));
+        assertEquals(2, service.dispatchPending());
+        awaitEvents(response, 3);
+        assertTrue(response.getContentAsString().endsWith("data:{\"productId\":1,\"stock\":7}\n\n"),
+                response.getContentAsString());
+
+        table.get(2L).setPrice(new BigDecimal("179.00"));
+        table.get(2L).setStatus(0);
+        service.onProductChanged(new ProductChangedEvent(List.of(2L)));
+        service.dispatchPending();
+        awaitEvents(response, 4);
+        assertTrue(response.getContentAsString().endsWith("data:{\"productId\":2,\"price\":179.00,\"status\":0}\n\n"),
+                response.getContentAsString());
+
+        // 删除的商品视为下架、库存为0
+        table.remove(1L);
+        service.onProductChanged(new ProductChangedEvent(List.of(1L)));
+        service.dispatchPending();
+        awaitEvents(response, 5);
+        assertTrue(response.getContentAsString().endsWith("data:{\"productId\":1,\"stock\":0,\"status\":0}\n\n"),
+                response.getContentAsString());
+        assertEquals(5L, service.getStats().get("sentEvents"));
+    }
+
+    @Test
+    void changesOfUnsubscribedProductsAreIgnored() throws Exception {
+        subscribe("1");
+        service.onProductChanged(new ProductChangedEvent(List.of(2L, 3L)));
+        assertEquals(0, service.getStats().get("pendingProducts"));
+        assertEquals(0, service.dispatchPending());
+    }
+
+    @Test
+    void subscriptionLimitsAreEnforced() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> service.subscribe(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> service.subscribe(List.of(1L, 2L, 3L)));
+
+        subscribe("1");
+        subscribe("1,1,2");
+        assertThrows(IllegalArgumentException.class, () -> service.subscribe(List.of(2L)));
+        assertEquals(2, service.getStats().get("subscribers"));
+        assertEquals(2, service.getStats().get("subscribedProducts"));
+    }
+
+    @Test
+    void failedSnapshotLoadReleasesSlot() throws Exception {
+        when(table.mapper().selectBatchIds(anyCollection()))
+                .thenThrow(new IllegalStateException("db down"), new IllegalStateException("db down"))
+                .thenAnswer(invocation -> table.find(invocation.getArgument(0)));
+        assertThrows(IllegalStateException.class, () -> service.subscribe(List.of(1L)));
+        assertThrows(IllegalStateException.class, () -> service.subscribe(List.of(2L)));
+        assertEquals(0, service.getStats().get("subscribers"));
+        assertEquals(0, service.getStats().get("subscribedProducts"));
+
+        subscribe("1");
+        subscribe("2");
+        assertEquals(2, service.getStats().get("subscribers"));
+    }
+
+    private MockHttpServletResponse subscribe(String ids) throws Exception {
+        return mockMvc.perform(get("/api/product/stream").param("ids", ids))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private void awaitEvents(MockHttpServletResponse response, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        // 一个事件分多次写出，按结尾的空行统计已写完的事件
+        while (response.getContentAsString().split("}\n\n", -1).length - 1 < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待推送超时：" + response.getContentAsString());
+            Thread.sleep(10);
+        }
+    }
+
+    private void put(Long id, String price, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("商品" + id);
+        product.setPrice(new BigDecimal(price));
+        product.setStock(stock);
+        product.setStatus(1);
+        table.put(product);
+    }
+}
@@ -0,0 +1,153 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.event.OrderStatusChangedEvent;
+import org.javaweb.webshopbackend.mapper.OrdersMapper;
+import org.javaweb.webshopbackend.mapper.SalesDailyRollupMapper;
+import org.javaweb.webshopbackend.pojo.entity.SalesDailyRollup;
+import org.javaweb.webshopbackend.service.impl.SalesRollupServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 每日销售汇总测试：写入数据库时不阻塞增量累加，写入失败保留增量，重建不重复计算已聚合的增量，
+ * 重建分段期间提交的变更不会既计入聚合又计入增量
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class SalesRollupServiceTest {
+
+    private final SalesDailyRollupMapper rollupMapper = mock(SalesDailyRollupMapper.class);
+
+    private SalesRollupServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(rollupMapper.selectSummary(any(), any())).thenAnswer(invocation -> row(LocalDate.now(), 0));
+
+        service = new SalesRollupServiceImpl();
+        ReflectionTestUtils.setField(service, "rollupMapper", rollupMapper);
+        ReflectionTestUtils.setField(service, "ordersMapper", mock(OrdersMapper.class));
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "rebuildThreads", 1);
+        ReflectionTestUtils.setField(service, "rebuildChunkDays", 31);
+        service.init();
+    }
+
+    @Test
+    void flushDoesNotBlockNewDeltas() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 1;
+        }).when(rollupMapper).upsertIncrements(anyList());
+
+        orderCreated();
+        CompletableFuture<Integer> flush = CompletableFuture.supplyAsync(service::flushPending);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // 写入数据库期间，事务提交后的监听仍可立即累加增量
+        CompletableFuture.runAsync(this::orderCreated).get(1, TimeUnit.SECONDS);
+
+        release.countDown();
+        assertEquals(1, flush.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, service.getStatistics(null, null).get("orderCount"));
+    }
+
+    @Test
+    void failedFlushKeepsDeltas() {
+        doThrow(new IllegalStateException("db down")).when(rollupMapper).upsertIncrements(anyList());
+        orderCreated();
+
+        assertThrows(IllegalStateException.class, service::flushPending);
+        assertEquals(1L, service.getStatistics(null, null).get("orderCount"));
+    }
+
+    @Test
+    void rebuildDropsDeltasCoveredByAggregation() {
+        LocalDate today = LocalDate.now();
+        when(rollupMapper.selectFirstOrderDate()).thenAnswer(invocation -> {
+            // 重建开始后、分段聚合前提交的订单：聚合结果已包含它
+            orderCreated();
+            return today;
+        });
+        when(rollupMapper.aggregateFromOrders(any(), any())).thenReturn(List.of(row(today, 1)));
+
+        assertEquals(1, service.rebuild());
+        assertEquals(0, service.flushPending());
+    }
+
+    @Test
+    void rebuildRetriesChunkWhenChangeCommitsDuringAggregation() {
+        LocalDate today = LocalDate.now();
+        OrderStatusChangedEvent created = new OrderStatusChangedEvent(1L, "NO1", 10L, null, 0);
+        when(rollupMapper.selectFirstOrderDate()).thenAnswer(invocation -> {
+            // 订单事务在分段丢弃增量之前进入提交
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                service.beforeOrderStatusCommit(created);
+            } finally {
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+            }
+            return today;
+        });
+        // 聚合查询已看到该订单
+        when(rollupMapper.aggregateFromOrders(any(), any())).thenReturn(List.of(row(today, 1)));
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.incrementAndGet() == 1) {
+                // 提交后的监听在聚合之后才到达
+                service.onOrderStatusChanged(created);
+                service.afterOrderStatusCompletion(created);
+            }
+            return 0;
+        }).when(rollupMapper).deleteRange(any(), any());
+
+        assertEquals(1, service.rebuild());
+        verify(rollupMapper, times(2)).aggregateFromOrders(any(), any());
+        assertEquals(0, service.flushPending());
+    }
+
+    private void orderCreated() {
+        service.onOrderStatusChanged(new OrderStatusChangedEvent(1L, "NO1", 10L, null, 0));
+    }
+
+    private static SalesDailyRollup row(LocalDate date, long orderCount) {
+        SalesDailyRollup row = new SalesDailyRollup();
+        row.setStatDate(date);
+        row.setOrderCount(orderCount);
+        row.setPaidCount(0L);
+        row.setPaidAmount(BigDecimal.ZERO);
+        row.setRefundCount(0L);
+        row.setRefundAmount(BigDecimal.ZERO);
+        return row;
+    }
+}
@@ -0,0 +1,140 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.event.SystemSettingsChangedEvent;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.mapper.ProductSkuMapper;
+import org.javaweb.webshopbackend.mapper.StockAlertMapper;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.javaweb.webshopbackend.pojo.entity.StockAlert;
+import org.javaweb.webshopbackend.pojo.entity.SystemSettings;
+import org.javaweb.webshopbackend.service.impl.StockAlertServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 库存预警测试：只在跨过预警线时触发或关闭预警
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class StockAlertServiceTest {
+
+    private final Map<Long, Integer> productStock = new HashMap<>();
+
+    private final Map<Long, Integer> skuStock = new HashMap<>();
+
+    private final List<String> calls = new ArrayList<>();
+
+    private final SystemSettings settings = new SystemSettings();
+
+    private StockAlertServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        settings.setStockWarning(10);
+        service = new StockAlertServiceImpl();
+        StockAlertMapper stockAlertMapper = mock(StockAlertMapper.class);
+        when(stockAlertMapper.upsertOpen(any())).thenAnswer(invocation -> {
+            StockAlert alert = invocation.getArgument(0);
+            calls.add("raise " + alert.getItemType() + ":" + alert.getItemId()
+                    + " product=" + alert.getProductId() + " stock=" + alert.getStock());
+            return 1;
+        });
+        when(stockAlertMapper.resolveByItem(anyInt(), any(), anyInt())).thenAnswer(invocation -> {
+            calls.add("resolve " + invocation.getArgument(0) + ":" + invocation.getArgument(1)
+                    + " stock=" + invocation.getArgument(2));
+            return 1;
+        });
+        ProductMapper productMapper = mock(ProductMapper.class);
+        when(productMapper.selectStockById(any())).thenAnswer(invocation -> productStock.get(invocation.<Long>getArgument(0)));
+        ProductSkuMapper productSkuMapper = mock(ProductSkuMapper.class);
+        when(productSkuMapper.selectStockById(any())).thenAnswer(invocation -> {
+            Long skuId = invocation.getArgument(0);
+            Integer stock = skuStock.get(skuId);
+            if (stock == null) {
+                return null;
+            }
+            ProductSku sku = new ProductSku();
+            sku.setId(skuId);
+            sku.setProductId(100L);
+            sku.setStock(stock);
+            return sku;
+        });
+        SystemSettingsService systemSettingsService = mock(SystemSettingsService.class);
+        when(systemSettingsService.getSettings()).thenReturn(settings);
+
+        ReflectionTestUtils.setField(service, "stockAlertMapper", stockAlertMapper);
+        ReflectionTestUtils.setField(service, "productMapper", productMapper);
+        ReflectionTestUtils.setField(service, "productSkuMapper", productSkuMapper);
+        ReflectionTestUtils.setField(service, "systemSettingsService", systemSettingsService);
+    }
+
+    @Test
+    void decrementRaisesOnlyWhenCrossingThreshold() {
+        productStock.put(1L, 12);
+        service.onProductStockChanged(1L, -3);
+        assertTrue(calls.isEmpty());
+
+        productStock.put(1L, 10);
+        service.onProductStockChanged(1L, -2);
+        // 已在预警线以下的继续扣减不重复触发
+        productStock.put(1L, 4);
+        service.onProductStockChanged(1L, -6);
+        assertEquals(List.of("raise 1:1 product=1 stock=10"), calls);
+
+        // 补货回到预警线以上时关闭，未跨过预警线的补货不写预警表
+        productStock.put(1L, 8);
+        service.onProductStockChanged(1L, 4);
+        productStock.put(1L, 30);
+        service.onProductStockChanged(1L, 22);
+        productStock.put(1L, 40);
+        service.onProductStockChanged(1L, 10);
+        assertEquals(List.of("raise 1:1 product=1 stock=10", "resolve 1:1 stock=30"), calls);
+    }
+
+    @Test
+    void skuAlertsCarryProductAndFollowSettingChanges() {
+        skuStock.put(5L, 7);
+        service.onSkuStockChanged(5L, -5);
+        assertEquals(List.of("raise 2:5 product=100 stock=7"), calls);
+
+        settings.setStockWarning(0);
+        service.onSettingsChanged(new SystemSettingsChangedEvent(settings));
+        skuStock.put(5L, 0);
+        service.onSkuStockChanged(5L, -7);
+        service.onProductStockSet(1L, 20, 0);
+        assertEquals(1, calls.size());
+
+        settings.setStockWarning(5);
+        service.onSettingsChanged(new SystemSettingsChangedEvent(settings));
+        service.onProductStockSet(1L, 20, 3);
+        service.onProductStockSet(1L, 3, 50);
+        assertEquals(List.of("raise 2:5 product=100 stock=7", "raise 1:1 product=1 stock=3", "resolve 1:1 stock=50"),
+                calls);
+    }
+
+    @Test
+    void absoluteSetRaisesOnlyWhenCrossingThreshold() {
+        // 一直在预警线以下的设置不重新打开已处理的预警
+        service.onProductStockSet(1L, 8, 3);
+        service.onProductStockSet(1L, 3, 3);
+        service.onProductStockSet(1L, 30, 20);
+        assertTrue(calls.isEmpty());
+
+        service.onProductStockSet(1L, 20, 10);
+        assertEquals(List.of("raise 1:1 product=1 stock=10"), calls);
+    }
+}
@@ -0,0 +1,109 @@
+package org.javaweb.webshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+import org.javaweb.webshopbackend.pojo.entity.ProductSku;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 库存条件扣减并发压测
+ * 需要连接真实 MySQL，使用 -Dwebshop.it=true 开启
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "webshop.it", matches = "true")
+@Slf4j
+class StockDeductionConcurrencyTest {
+
+    private static final int INITIAL_STOCK = 500;
+    private static final int THREADS = 300;
+    private static final int ATTEMPTS_PER_THREAD = 10;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSkuService productSkuService;
+
+    private Product product;
+    private ProductSku sku;
+
+    @BeforeEach
+    void setUp() {
+        product = new Product();
+        product.setName("并发压测商品");
+        product.setCategoryId(1L);
+        product.setPrice(new BigDecimal("1.00"));
+        product.setStock(INITIAL_STOCK);
+        product.setStatus(1);
+        productService.addProduct(product);
+
+        sku = new ProductSku();
+        sku.setProductId(product.getId());
+        sku.setSkuCode("IT-" + System.nanoTime());
+        sku.setSkuName("压测规格");
+        sku.setPrice(new BigDecimal("1.00"));
+        sku.setStock(INITIAL_STOCK);
+        sku.setStatus(1);
+        productSkuService.save(sku);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productSkuService.removeById(sku.getId());
+        productService.deleteProduct(product.getId());
+    }
+
+    @Test
+    void concurrentDeductionNeverOversells() throws InterruptedException {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                    if (productService.deductSkuStock(sku.getId(), 1)) {
+                        succeeded.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+
+        int total = THREADS * ATTEMPTS_PER_THREAD;
+        log.info("SKU条件扣减：{} 次请求，成功 {}，拒绝 {}，耗时 {} ms，吞吐 {} 次/秒",
+                total, succeeded.get(), rejected.get(), elapsedMs, total * 1000L / elapsedMs);
+
+        assertEquals(INITIAL_STOCK, succeeded.get());
+        assertEquals(total - INITIAL_STOCK, rejected.get());
+        assertEquals(0, productSkuService.getById(sku.getId()).getStock());
+    }
+}
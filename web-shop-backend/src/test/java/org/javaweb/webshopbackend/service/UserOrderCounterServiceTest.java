@@ -0,0 +1,78 @@
+package org.javaweb.webshopbackend.service;
+
+import org.javaweb.webshopbackend.event.OrderStatusChangedEvent;
+import org.javaweb.webshopbackend.mapper.OrdersMapper;
+import org.javaweb.webshopbackend.pojo.dto.StatusCountDTO;
+import org.javaweb.webshopbackend.service.impl.UserOrderCounterServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户订单计数缓存测试：事件增量更新，提交前后之间的加载不入缓存，避免重复计入
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class UserOrderCounterServiceTest {
+
+    private static final Long USER_ID = 10L;
+
+    private final OrdersMapper ordersMapper = mock(OrdersMapper.class);
+
+    private UserOrderCounterServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserOrderCounterServiceImpl();
+        ReflectionTestUtils.setField(service, "ordersMapper", ordersMapper);
+        ReflectionTestUtils.setField(service, "maxSize", 100);
+        service.init();
+    }
+
+    @Test
+    void cachedCountsFollowCommittedChanges() {
+        when(ordersMapper.countByUserIdGroupByStatus(USER_ID)).thenReturn(List.of(count(0, 1)));
+        assertEquals(1L, service.getCounts(USER_ID).get("unpaid"));
+
+        commit(new OrderStatusChangedEvent(1L, "NO1", USER_ID, 0, 1));
+
+        assertEquals(0L, service.getCounts(USER_ID).get("unpaid"));
+        assertEquals(1L, service.getCounts(USER_ID).get("unshipped"));
+        verify(ordersMapper, times(1)).countByUserIdGroupByStatus(USER_ID);
+    }
+
+    @Test
+    void loadBetweenCommitAndEventIsNotCached() {
+        OrderStatusChangedEvent created = new OrderStatusChangedEvent(1L, "NO1", USER_ID, null, 0);
+        service.beforeOrderStatusCommit(created);
+        // 数据已提交、事件尚未处理时加载：结果已包含新订单
+        when(ordersMapper.countByUserIdGroupByStatus(USER_ID)).thenReturn(List.of(count(0, 1)));
+        assertEquals(1L, service.getCounts(USER_ID).get("unpaid"));
+        service.onOrderStatusChanged(created);
+        service.afterOrderStatusCompletion(created);
+
+        assertEquals(1L, service.getCounts(USER_ID).get("all"));
+    }
+
+    private void commit(OrderStatusChangedEvent event) {
+        service.beforeOrderStatusCommit(event);
+        service.onOrderStatusChanged(event);
+        service.afterOrderStatusCompletion(event);
+    }
+
+    private static StatusCountDTO count(int status, long count) {
+        StatusCountDTO row = new StatusCountDTO();
+        row.setStatus(status);
+        row.setCount(count);
+        return row;
+    }
+}
@@ -0,0 +1,79 @@
+package org.javaweb.webshopbackend.support;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.javaweb.webshopbackend.mapper.ProductMapper;
+import org.javaweb.webshopbackend.pojo.entity.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 测试用内存商品表
+ * 提供按此表应答的 ProductMapper 模拟：按ID批量查询，以及以游标读取全部上架商品（搜索索引、分面构建）
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+public final class ProductTable {
+
+    private final Map<Long, Product> rows = new ConcurrentHashMap<>();
+
+    private final ProductMapper mapper = mock(ProductMapper.class);
+
+    public ProductTable() {
+        when(mapper.selectBatchIds(anyCollection())).thenAnswer(invocation -> find(invocation.getArgument(0)));
+        when(mapper.selectForSearchIndex()).thenAnswer(invocation -> cursor(onShelf()));
+        when(mapper.selectForFacets()).thenAnswer(invocation -> cursor(onShelf()));
+    }
+
+    public ProductMapper mapper() {
+        return mapper;
+    }
+
+    public void put(Product product) {
+        rows.put(product.getId(), product);
+    }
+
+    public Product get(Long id) {
+        return rows.get(id);
+    }
+
+    public void remove(Long id) {
+        rows.remove(id);
+    }
+
+    /**
+     * 按ID查询存在的商品，与 selectBatchIds 的应答一致
+     */
+    public List<Product> find(Collection<?> ids) {
+        List<Product> found = new ArrayList<>();
+        for (Object id : ids) {
+            Product product = rows.get((Long) id);
+            if (product != null) {
+                found.add(product);
+            }
+        }
+        return found;
+    }
+
+    private List<Product> onShelf() {
+        return rows.values().stream().filter(product -> product.getStatus() == 1).toList();
+    }
+
+    /**
+     * 遍历给定列表的游标
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Cursor<T> cursor(List<T> items) {
+        Cursor<T> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenAnswer(invocation -> items.iterator());
+        return cursor;
+    }
+}
@@ -0,0 +1,100 @@
+package org.javaweb.webshopbackend.task;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.javaweb.webshopbackend.event.OrderStatusChangedEvent;
+import org.javaweb.webshopbackend.event.SystemSettingsChangedEvent;
+import org.javaweb.webshopbackend.pojo.entity.Orders;
+import org.javaweb.webshopbackend.service.OrderBulkTransitionService;
+import org.javaweb.webshopbackend.service.OrdersService;
+import org.javaweb.webshopbackend.service.SystemSettingsService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单超时队列重建测试：重建期间由订单事件登记的截止时间不丢失、不被旧快照覆盖
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class OrderScheduledTaskTest {
+
+    private final OrdersService ordersService = mock(OrdersService.class);
+
+    private OrderScheduledTask task;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 重建查询使用 LambdaQueryWrapper，需要实体的列映射
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Orders.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        task = new OrderScheduledTask();
+        ReflectionTestUtils.setField(task, "ordersService", ordersService);
+        ReflectionTestUtils.setField(task, "systemSettingsService", mock(SystemSettingsService.class));
+        ReflectionTestUtils.setField(task, "orderBulkTransitionService", mock(OrderBulkTransitionService.class));
+    }
+
+    @Test
+    void deadlinesScheduledDuringRebuildSurvive() {
+        Orders unpaid = order(1L, 0);
+        when(ordersService.list(any(Wrapper.class))).thenAnswer(invocation -> {
+            // 快照查询之后：订单1发货、订单2创建
+            task.onOrderStatusChanged(new OrderStatusChangedEvent(1L, "NO1", 10L, 1, 2));
+            task.onOrderStatusChanged(new OrderStatusChangedEvent(2L, "NO2", 10L, null, 0));
+            return List.of(unpaid);
+        });
+
+        task.onSettingsChanged(new SystemSettingsChangedEvent(null));
+
+        Map<Long, ?> pending = pending();
+        assertEquals(2, pending.size());
+        assertEquals("CONFIRM", String.valueOf(ReflectionTestUtils.getField(pending.get(1L), "action")));
+        assertEquals("CANCEL", String.valueOf(ReflectionTestUtils.getField(pending.get(2L), "action")));
+        assertEquals(2, queue().size());
+    }
+
+    @Test
+    void rebuildReplacesStaleEntries() {
+        when(ordersService.list(any(Wrapper.class))).thenReturn(List.of(order(1L, 0)));
+
+        task.onSettingsChanged(new SystemSettingsChangedEvent(null));
+        task.onSettingsChanged(new SystemSettingsChangedEvent(null));
+
+        assertEquals(1, pending().size());
+        assertEquals(1, queue().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, ?> pending() {
+        return (Map<Long, ?>) ReflectionTestUtils.getField(task, "pending");
+    }
+
+    private DelayQueue<?> queue() {
+        return (DelayQueue<?>) ReflectionTestUtils.getField(task, "queue");
+    }
+
+    private static Orders order(Long id, int status) {
+        Orders order = new Orders();
+        order.setId(id);
+        order.setStatus(status);
+        order.setCreatedTime(LocalDateTime.now());
+        return order;
+    }
+}
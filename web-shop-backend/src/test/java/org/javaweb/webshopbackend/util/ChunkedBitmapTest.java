@@ -0,0 +1,93 @@
+package org.javaweb.webshopbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分块压缩位图测试
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class ChunkedBitmapTest {
+
+    @Test
+    void setClearAndGetAcrossChunks() {
+        ChunkedBitmap bitmap = new ChunkedBitmap();
+        bitmap.set(1);
+        bitmap.set(70_000);
+        bitmap.set(Integer.MAX_VALUE);
+
+        assertTrue(bitmap.get(70_000));
+        assertFalse(bitmap.get(70_001));
+        assertEquals(3, bitmap.cardinality());
+
+        bitmap.clear(70_000);
+        assertFalse(bitmap.get(70_000));
+        assertEquals(2, bitmap.cardinality());
+    }
+
+    @Test
+    void sparseBitmapStaysSmall() {
+        ChunkedBitmap bitmap = new ChunkedBitmap();
+        bitmap.set(10);
+        bitmap.set(50_000_000);
+
+        // 两个元素只分配两个小数组容器，而不是按ID上限分配约6MB
+        assertTrue(bitmap.sizeInBytes() < 1024, "实际占用 " + bitmap.sizeInBytes() + " 字节");
+    }
+
+    @Test
+    void denseChunkConvertsAndBack() {
+        ChunkedBitmap bitmap = new ChunkedBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.set(i);
+        }
+        assertEquals(10_000, bitmap.cardinality());
+        for (int i = 0; i < 9_000; i++) {
+            bitmap.clear(i);
+        }
+        assertEquals(1_000, bitmap.cardinality());
+        assertFalse(bitmap.get(8_999));
+        assertTrue(bitmap.get(9_500));
+    }
+
+    @Test
+    void andCardinalityMatchesBitSet() {
+        Random random = new Random(42);
+        int bound = 300_000;
+        ChunkedBitmap dense = new ChunkedBitmap();
+        ChunkedBitmap sparse = new ChunkedBitmap();
+        ChunkedBitmap medium = new ChunkedBitmap();
+        BitSet denseBits = new BitSet();
+        BitSet sparseBits = new BitSet();
+        BitSet mediumBits = new BitSet();
+        for (int i = 0; i < bound; i++) {
+            if (random.nextInt(2) == 0) {
+                dense.set(i);
+                denseBits.set(i);
+            }
+            if (random.nextInt(100) == 0) {
+                sparse.set(i);
+                sparseBits.set(i);
+            }
+            if (random.nextInt(4) == 0) {
+                medium.set(i);
+                mediumBits.set(i);
+            }
+        }
+
+        BitSet expected = (BitSet) denseBits.clone();
+        expected.and(mediumBits);
+        assertEquals(expected.cardinality(), ChunkedBitmap.andCardinality(dense, null, medium));
+        expected.and(sparseBits);
+        assertEquals(expected.cardinality(), ChunkedBitmap.andCardinality(dense, sparse, medium));
+        assertEquals(0, ChunkedBitmap.andCardinality(dense, new ChunkedBitmap()));
+    }
+}
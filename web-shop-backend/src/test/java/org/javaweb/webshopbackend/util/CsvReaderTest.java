@@ -0,0 +1,44 @@
+package org.javaweb.webshopbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CSV 读取测试：引号、转义、字段内换行及行号
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsAndTracksLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "name,price,description\r\n"
+                        + "\"耳机, 蓝牙\",99.00,\"说明 \"\"加强版\"\"\n第二行\"\n"
+                        + "\n"
+                        + "键盘,,\n"));
+
+        assertEquals(List.of("name", "price", "description"), reader.next());
+        assertEquals(1, reader.getRecordLine());
+        assertEquals(List.of("耳机, 蓝牙", "99.00", "说明 \"加强版\"\n第二行"), reader.next());
+        assertEquals(2, reader.getRecordLine());
+        assertEquals(List.of("键盘", "", ""), reader.next());
+        assertEquals(5, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void unclosedQuoteFails() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\n"));
+
+        assertThrows(IOException.class, reader::next);
+    }
+}
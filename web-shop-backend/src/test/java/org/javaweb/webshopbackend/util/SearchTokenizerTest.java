@@ -0,0 +1,51 @@
+package org.javaweb.webshopbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 商品搜索分词器测试
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+class SearchTokenizerTest {
+
+    @Test
+    void cjkTextIsSplitIntoBigrams() {
+        assertEquals(Set.of("蓝牙", "牙耳", "耳机"), SearchTokenizer.indexTerms("蓝牙耳机", false));
+        assertEquals(Set.of("蓝", "牙", "耳", "机", "蓝牙", "牙耳", "耳机"), SearchTokenizer.indexTerms("蓝牙耳机", true));
+        assertEquals(Set.of("耳机"), SearchTokenizer.queryTerms("耳机"));
+        assertEquals(Set.of("机"), SearchTokenizer.queryTerms("机"));
+    }
+
+    @Test
+    void latinWordsAreIndexedByNgramsAndNormalized() {
+        Set<String> terms = SearchTokenizer.indexTerms("ＡＰＰＬＥ iPhone15ProMax 手机", false);
+        assertTrue(terms.containsAll(Set.of("ap", "app", "ple", "ip", "iph", "pho", "hon", "one", "15", "e15")));
+        assertTrue(terms.contains("手机"));
+        assertEquals(Set.of("iph", "pho", "hon", "one", "ne1", "e15", "15p", "5pr", "pro"),
+                SearchTokenizer.queryTerms("IPHONE15PRO"));
+        assertEquals(Set.of("app", "ppl", "ple", "手机"), SearchTokenizer.queryTerms("Apple，手机"));
+    }
+
+    @Test
+    void infixQueriesMatchIndexedWords() {
+        Set<String> indexed = SearchTokenizer.indexTerms("iPhone 15", true);
+        assertTrue(indexed.containsAll(SearchTokenizer.queryTerms("phone")));
+        assertTrue(indexed.containsAll(SearchTokenizer.queryTerms("iph")));
+        assertTrue(indexed.containsAll(SearchTokenizer.queryTerms("ho")));
+        assertTrue(indexed.containsAll(SearchTokenizer.queryTerms("15")));
+    }
+
+    @Test
+    void markupAndPunctuationAreSeparators() {
+        assertEquals(Set.of("颜色", "红色"),
+                SearchTokenizer.indexTerms(SearchTokenizer.stripHtml("<p>{\"颜色\":[\"红色\"]}</p>"), false));
+        assertTrue(SearchTokenizer.queryTerms(" !!! ").isEmpty());
+    }
+}
@@ -0,0 +1,82 @@
+package org.javaweb.webshopbackend.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 雪花编号生成器测试
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+
+    private static final int PER_THREAD = 500_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndMonotonicPerThread() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        long[][] results = new long[THREADS][PER_THREAD];
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        long begin = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            long[] ids = results[t];
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < PER_THREAD; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        long elapsed = System.nanoTime() - begin;
+
+        long[] all = new long[THREADS * PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 1; i < PER_THREAD; i++) {
+                assertTrue(results[t][i] > results[t][i - 1], "同一线程内编号应严格递增");
+            }
+            System.arraycopy(results[t], 0, all, t * PER_THREAD, PER_THREAD);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertTrue(all[i] != all[i - 1], "出现重复编号：" + all[i]);
+        }
+        assertEquals(7, (all[0] >>> 12) & 0x3FF);
+
+        log.info("生成 {} 个编号耗时 {} ms", all.length, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    @Test
+    void businessNumbersCarryPrefix() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0);
+
+        assertTrue(generator.nextOrderNo().startsWith("ORD"));
+        assertTrue(generator.nextRefundNo().startsWith("RF"));
+        assertTrue(generator.nextOrderNo().length() <= 32);
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+    }
+}
@@ -0,0 +1,85 @@
+package org.javaweb.webshopbackend.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分段库存计数器测试
+ *
+ * @author WebShop Team
+ * @date 2026-10-18
+ */
+@Slf4j
+class StripedStockCounterTest {
+
+    @Test
+    void acquireAcrossStripesWhenNoSingleStripeIsEnough() {
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+
+        assertTrue(counter.tryAcquire(7));
+        assertEquals(3, counter.available());
+        assertFalse(counter.tryAcquire(4));
+        assertEquals(3, counter.available());
+
+        counter.release(4);
+        assertTrue(counter.tryAcquire(7));
+        assertEquals(0, counter.available());
+    }
+
+    @Test
+    void drainNeverGoesBelowZero() {
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+
+        assertEquals(6, counter.drain(6));
+        assertEquals(4, counter.available());
+        assertEquals(4, counter.drain(9));
+        assertEquals(0, counter.available());
+        assertFalse(counter.tryAcquire(1));
+    }
+
+    @Test
+    void hotSkuNeverOversells() throws InterruptedException {
+        final long stock = 100_000;
+        final int threads = 64;
+        final int attemptsPerThread = 5_000;
+        StripedStockCounter counter = new StripedStockCounter(8, stock);
+        AtomicLong granted = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < attemptsPerThread; j++) {
+                    if (counter.tryAcquire(1)) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        double seconds = Math.max(1, System.nanoTime() - begin) / 1e9;
+
+        long attempts = (long) threads * attemptsPerThread;
+        log.info("单个热点SKU内存预占：{} 次请求，成功 {}，{} 次/秒",
+                attempts, granted.get(), (long) (attempts / seconds));
+
+        assertEquals(stock, granted.get());
+        assertEquals(0, counter.available());
+    }
+}